@@ -0,0 +1,76 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Compară pe dispozitiv latența generateStyles cu cele patru variații rulate
+ * secvențial și într-un singur batch.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BatchInferenceBenchmark {
+
+    private static final String TAG = "BatchInferenceBenchmark";
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+
+    private StyleTransferHelper helper;
+    private Bitmap image;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = new StyleTransferHelper(context);
+        // Aceeași imagine la fiecare rulare ar fi servită din cache
+        helper.setCacheEnabled(false);
+        image = Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888);
+        image.eraseColor(0xFF7F6F5F);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+    }
+
+    @Test
+    public void measureBatchedVersusSequential() {
+        helper.setBatchingEnabled(false);
+        double sequentialMs = averageMillis();
+
+        helper.setBatchingEnabled(true);
+        double batchedMs = averageMillis();
+
+        String report = String.format("sequential: %.1f ms/photo, batched: %.1f ms/photo"
+                        + " (speedup %.2fx, batching supported: %b)",
+                sequentialMs, batchedMs, sequentialMs / batchedMs, helper.isBatchingSupported());
+        Log.i(TAG, report);
+        System.out.println(report);
+    }
+
+    private double averageMillis() {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            helper.recycle(helper.generateStyles(image));
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            List<Bitmap> results = helper.generateStyles(image);
+            assertEquals(4, results.size());
+            helper.recycle(results);
+        }
+        return (SystemClock.elapsedRealtimeNanos() - start) / 1e6 / MEASURED_RUNS;
+    }
+}
@@ -0,0 +1,61 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Verifică pe dispozitiv că modelul acceptă tensori cu proporțiile
+ * fotografiei și că rezultatele păstrează aceste proporții.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DynamicShapeTest {
+
+    private static final String TAG = "DynamicShapeTest";
+
+    private StyleTransferHelper helper;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = new StyleTransferHelper(context);
+        helper.setCacheEnabled(false);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+    }
+
+    @Test
+    public void landscapePhoto_keepsAspectRatio() {
+        Bitmap image = Bitmap.createBitmap(256, 192, Bitmap.Config.ARGB_8888);
+        image.eraseColor(0xFF336699);
+
+        List<Bitmap> results = helper.generateStyles(image);
+        assertEquals(4, results.size());
+        assertTrue("Model rejected a 256x192 input", helper.isDynamicShapesSupported());
+
+        // Originalul, oglinda și contrastul sunt peisaj; varianta rotită este portret
+        int[][] expected = {{256, 192}, {192, 256}, {256, 192}, {256, 192}};
+        for (int variant = 0; variant < results.size(); variant++) {
+            Bitmap result = results.get(variant);
+            Log.i(TAG, "Variant " + variant + ": " + result.getWidth() + "x" + result.getHeight());
+            assertEquals(expected[variant][0], result.getWidth());
+            assertEquals(expected[variant][1], result.getHeight());
+        }
+    }
+}
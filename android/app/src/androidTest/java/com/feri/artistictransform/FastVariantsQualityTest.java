@@ -0,0 +1,93 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Poarta de calitate pentru modul rapid: variațiile rotită și oglindită derivate
+ * din ieșirea originalului trebuie să rămână apropiate de inferența reală pe
+ * fotografiile din dataset/photos (incluse ca assets ale testului).
+ */
+@RunWith(AndroidJUnit4.class)
+public class FastVariantsQualityTest {
+
+    private static final String TAG = "FastVariantsQualityTest";
+    private static final double MAX_MEAN_ABSOLUTE_ERROR = 12.0;
+    private static final String[] VARIANT_NAMES = {"rotated", "mirrored"};
+
+    private StyleTransferHelper helper;
+    private AssetManager sampleAssets;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = new StyleTransferHelper(context);
+        // Variațiile rapide există doar pentru tensorul pătrat
+        helper.setDynamicShapesEnabled(false);
+        sampleAssets = InstrumentationRegistry.getInstrumentation().getContext().getAssets();
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+    }
+
+    @Test
+    public void fastVariants_matchTrueInference() throws IOException {
+        String[] samples = sampleAssets.list("");
+        int checked = 0;
+        for (String sample : samples) {
+            if (!sample.endsWith(".jpg") && !sample.endsWith(".jpeg")) {
+                continue;
+            }
+            Bitmap image = loadSample(sample);
+
+            helper.setFastVariants(false);
+            List<Bitmap> exact = helper.generateStyles(image);
+            helper.setFastVariants(true);
+            List<Bitmap> fast = helper.generateStyles(image);
+            assertEquals(4, exact.size());
+            assertEquals(4, fast.size());
+
+            for (int variant = 1; variant <= 2; variant++) {
+                double error = ImageMetrics.meanAbsoluteError(
+                        pixelsOf(exact.get(variant)), pixelsOf(fast.get(variant)));
+                Log.i(TAG, sample + " " + VARIANT_NAMES[variant - 1] + " MAE: " + error);
+                assertTrue(sample + " " + VARIANT_NAMES[variant - 1] + " MAE " + error,
+                        error <= MAX_MEAN_ABSOLUTE_ERROR);
+            }
+            checked++;
+        }
+        assertTrue("No sample images found", checked > 0);
+    }
+
+    private Bitmap loadSample(String name) throws IOException {
+        try (InputStream stream = sampleAssets.open(name)) {
+            return ImageProcessorHelper.preprocessImage(BitmapFactory.decodeStream(stream), 0);
+        }
+    }
+
+    private static int[] pixelsOf(Bitmap bitmap) {
+        int[] pixels = new int[bitmap.getWidth() * bitmap.getHeight()];
+        bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
+        return pixels;
+    }
+}
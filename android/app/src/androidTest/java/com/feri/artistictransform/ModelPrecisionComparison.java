@@ -0,0 +1,112 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compară variantele modelului (float32, float16, int8) pe fotografiile din
+ * dataset/photos: latența pe fotografie, dimensiunea modelului și eroarea
+ * medie a stilului principal față de referința float32. Variantele care nu
+ * sunt incluse în assets sunt sărite.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ModelPrecisionComparison {
+
+    private static final String TAG = "ModelPrecisionComparison";
+    private static final int POOL_SIZE = 1;
+    private static final int WARMUP_RUNS = 2;
+    private static final int MAX_SAMPLES = 10;
+
+    @Test
+    public void compareModelPrecisions() throws IOException {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        List<String> modelAssets = Arrays.asList(context.getAssets().list(""));
+        List<Bitmap> samples = loadSamples();
+        assertFalse("No sample images found", samples.isEmpty());
+
+        List<int[]> reference = null;
+        StringBuilder report = new StringBuilder("precision, size KB, ms/photo, MAE vs float32\n");
+        for (ModelPrecision precision : new ModelPrecision[]{
+                ModelPrecision.FLOAT32, ModelPrecision.FLOAT16, ModelPrecision.INT8}) {
+            if (!modelAssets.contains(precision.getAssetPath())) {
+                Log.i(TAG, precision + " model not bundled, skipping");
+                continue;
+            }
+            StyleTransferHelper helper = new StyleTransferHelper(context, POOL_SIZE,
+                    BackendConfig.cpu(4, true), precision);
+            try {
+                assertEquals(precision, helper.getModelPrecision());
+                helper.setCacheEnabled(false);
+                for (int i = 0; i < WARMUP_RUNS; i++) {
+                    helper.recycle(helper.generateStyles(samples.get(0)));
+                }
+
+                List<int[]> styled = new ArrayList<>(samples.size());
+                long start = SystemClock.elapsedRealtimeNanos();
+                for (Bitmap sample : samples) {
+                    List<Bitmap> results = helper.generateStyles(sample);
+                    styled.add(pixelsOf(results.get(0)));
+                    helper.recycle(results);
+                }
+                double millisPerPhoto = (SystemClock.elapsedRealtimeNanos() - start)
+                        / 1e6 / samples.size();
+
+                if (reference == null) {
+                    reference = styled;
+                }
+                double error = 0;
+                for (int i = 0; i < styled.size(); i++) {
+                    error += ImageMetrics.meanAbsoluteError(reference.get(i), styled.get(i));
+                }
+                report.append(String.format("%s, %d, %.1f, %.2f\n", precision,
+                        helper.getModelSizeBytes() / 1024, millisPerPhoto, error / styled.size()));
+            } finally {
+                helper.close();
+            }
+        }
+        Log.i(TAG, report.toString());
+        System.out.println(report);
+    }
+
+    private static List<Bitmap> loadSamples() throws IOException {
+        AssetManager sampleAssets = InstrumentationRegistry.getInstrumentation().getContext().getAssets();
+        List<Bitmap> samples = new ArrayList<>();
+        for (String name : sampleAssets.list("")) {
+            if (samples.size() == MAX_SAMPLES) {
+                break;
+            }
+            if (!name.endsWith(".jpg") && !name.endsWith(".jpeg")) {
+                continue;
+            }
+            try (InputStream stream = sampleAssets.open(name)) {
+                samples.add(ImageProcessorHelper.preprocessImage(BitmapFactory.decodeStream(stream), 0));
+            }
+        }
+        return samples;
+    }
+
+    private static int[] pixelsOf(Bitmap bitmap) {
+        int[] pixels = new int[bitmap.getWidth() * bitmap.getHeight()];
+        bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
+        return pixels;
+    }
+}
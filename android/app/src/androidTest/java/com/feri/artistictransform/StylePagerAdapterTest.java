@@ -0,0 +1,87 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Verifică paginile din {@link StylePagerAdapter}: ordinea după variație și
+ * recompunerea după ce originalul a fost înlocuit de rezultatul la rezoluție
+ * mare, fără straturi.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StylePagerAdapterTest {
+
+    private static final int LAYER_SIZE = 4;
+    private static final StyleCompositor.Grade SOFT = new StyleCompositor.Grade(0.5f, 1f, 1f);
+
+    private StylePagerAdapter adapter;
+    private StyleLayers layers;
+
+    @Before
+    public void setUp() {
+        adapter = new StylePagerAdapter(new ThumbnailLoader(new BitmapPool(1 << 20), 1 << 20));
+        int floats = LAYER_SIZE * LAYER_SIZE * 3;
+        layers = new StyleLayers(LAYER_SIZE, new float[floats], new float[floats]);
+    }
+
+    @Test
+    public void putStyle_keepsPagesInVariantOrder() {
+        adapter.putStyle(2, bitmap(LAYER_SIZE), null);
+        adapter.putStyle(StyleTransferHelper.ORIGINAL, bitmap(LAYER_SIZE), layers);
+        adapter.putStyle(1, bitmap(LAYER_SIZE), null);
+
+        assertEquals(3, adapter.getItemCount());
+        for (int position = 0; position < 3; position++) {
+            assertEquals(position, adapter.getVariant(position));
+        }
+        assertEquals(0, adapter.positionOf(StyleTransferHelper.ORIGINAL));
+        assertEquals(-1, adapter.positionOf(3));
+    }
+
+    @Test
+    public void applyRegrade_replacesPageWithSameLayers() {
+        adapter.putStyle(1, bitmap(LAYER_SIZE), null);
+        adapter.putStyle(StyleTransferHelper.ORIGINAL, bitmap(LAYER_SIZE), layers);
+        Bitmap regraded = bitmap(LAYER_SIZE);
+
+        assertTrue(adapter.applyRegrade(StyleTransferHelper.ORIGINAL, layers, SOFT, regraded));
+        int position = adapter.positionOf(StyleTransferHelper.ORIGINAL);
+        assertSame(regraded, adapter.getStyle(position));
+        assertSame(layers, adapter.getLayers(position));
+        assertSame(SOFT, adapter.getGrade(position));
+    }
+
+    @Test
+    public void regrade_afterHighResolutionReplacement_isRefused() {
+        adapter.putStyle(StyleTransferHelper.ORIGINAL, bitmap(LAYER_SIZE), layers);
+        assertTrue(adapter.applyRegrade(StyleTransferHelper.ORIGINAL, layers, SOFT,
+                bitmap(LAYER_SIZE)));
+
+        // Ca în MainActivity: rezultatul tiled înlocuiește pagina originalului
+        Bitmap highResolution = bitmap(4 * LAYER_SIZE);
+        int position = adapter.putStyle(StyleTransferHelper.ORIGINAL, highResolution, null);
+
+        assertNull(adapter.getLayers(position));
+        assertSame(StyleCompositor.Grade.NEUTRAL, adapter.getGrade(position));
+        // O recompunere pornită din straturile vechi nu poate micșora pagina
+        Bitmap late = bitmap(LAYER_SIZE);
+        assertFalse(adapter.applyRegrade(StyleTransferHelper.ORIGINAL, layers, SOFT, late));
+        assertSame(highResolution, adapter.getStyle(position));
+        assertEquals(4 * LAYER_SIZE, adapter.getStyle(position).getWidth());
+    }
+
+    private static Bitmap bitmap(int size) {
+        return Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+    }
+}
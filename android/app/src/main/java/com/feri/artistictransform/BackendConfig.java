@@ -0,0 +1,91 @@
+package com.feri.artistictransform;
+
+/**
+ * O configurație de execuție pentru interpretor: acceleratorul, numărul de
+ * thread-uri CPU și dacă XNNPACK este activ. Se poate salva ca text cu
+ * {@link #toKey()} și reciti cu {@link #fromKey(String)}.
+ */
+public final class BackendConfig {
+
+    public enum Accelerator {
+        CPU,
+        NNAPI,
+        GPU
+    }
+
+    private final Accelerator accelerator;
+    private final int numThreads;
+    private final boolean useXnnpack;
+
+    public BackendConfig(Accelerator accelerator, int numThreads, boolean useXnnpack) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("numThreads must be positive: " + numThreads);
+        }
+        this.accelerator = accelerator;
+        this.numThreads = numThreads;
+        this.useXnnpack = useXnnpack;
+    }
+
+    public static BackendConfig cpu(int numThreads, boolean useXnnpack) {
+        return new BackendConfig(Accelerator.CPU, numThreads, useXnnpack);
+    }
+
+    public Accelerator getAccelerator() {
+        return accelerator;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public boolean isUseXnnpack() {
+        return useXnnpack;
+    }
+
+    public String toKey() {
+        return accelerator + ":" + numThreads + ":" + (useXnnpack ? "xnnpack" : "plain");
+    }
+
+    /**
+     * Inversul lui {@link #toKey()}; întoarce null pentru text invalid.
+     */
+    public static BackendConfig fromKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        String[] parts = key.split(":");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new BackendConfig(Accelerator.valueOf(parts[0]),
+                    Integer.parseInt(parts[1]), "xnnpack".equals(parts[2]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof BackendConfig)) {
+            return false;
+        }
+        BackendConfig config = (BackendConfig) other;
+        return accelerator == config.accelerator
+                && numThreads == config.numThreads
+                && useXnnpack == config.useXnnpack;
+    }
+
+    @Override
+    public int hashCode() {
+        return (accelerator.hashCode() * 31 + numThreads) * 31 + (useXnnpack ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return toKey();
+    }
+}
@@ -0,0 +1,154 @@
+package com.feri.artistictransform;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alege backend-ul cel mai rapid pentru dispozitiv. La prima pornire rulează un
+ * micro-benchmark pe fiecare configurație disponibilă și salvează câștigătoarea
+ * pentru modelul de dispozitiv; la pornirile următoare citește alegerea salvată
+ * și sare peste benchmark. Nu depinde de Android.
+ */
+public class BackendSelector {
+
+    /** Creează backend-urile candidate. */
+    public interface BackendFactory {
+        List<BackendConfig> candidates();
+
+        InferenceBackend create(BackendConfig config) throws Exception;
+    }
+
+    /** Păstrează alegerea între porniri, per dispozitiv. */
+    public interface BackendStore {
+        BackendConfig load(String deviceKey);
+
+        void save(String deviceKey, BackendConfig config);
+    }
+
+    /** Sursa de timp, înlocuibilă în teste. */
+    public interface Clock {
+        long nanoTime();
+    }
+
+    /** Rezultatul unei selecții: configurația aleasă și timpii măsurați. */
+    public static final class Selection {
+        private final BackendConfig config;
+        private final boolean fromStore;
+        private final Map<BackendConfig, Long> medianNanos;
+
+        Selection(BackendConfig config, boolean fromStore, Map<BackendConfig, Long> medianNanos) {
+            this.config = config;
+            this.fromStore = fromStore;
+            this.medianNanos = Collections.unmodifiableMap(medianNanos);
+        }
+
+        public BackendConfig getConfig() {
+            return config;
+        }
+
+        public boolean isFromStore() {
+            return fromStore;
+        }
+
+        /** Timpul median per inferență pentru fiecare candidat care a rulat. */
+        public Map<BackendConfig, Long> getMedianNanos() {
+            return medianNanos;
+        }
+    }
+
+    private final BackendFactory factory;
+    private final BackendStore store;
+    private final Clock clock;
+    private final BackendConfig fallback;
+    private final int warmUpRuns;
+    private final int measuredRuns;
+
+    public BackendSelector(BackendFactory factory, BackendStore store, Clock clock,
+                           BackendConfig fallback, int warmUpRuns, int measuredRuns) {
+        if (warmUpRuns < 0 || measuredRuns < 1) {
+            throw new IllegalArgumentException("Invalid run counts: " + warmUpRuns
+                    + " warm-up, " + measuredRuns + " measured");
+        }
+        this.factory = factory;
+        this.store = store;
+        this.clock = clock;
+        this.fallback = fallback;
+        this.warmUpRuns = warmUpRuns;
+        this.measuredRuns = measuredRuns;
+    }
+
+    public Selection select(String deviceKey) {
+        List<BackendConfig> candidates = factory.candidates();
+
+        BackendConfig stored = store.load(deviceKey);
+        if (stored != null && candidates.contains(stored)) {
+            return new Selection(stored, true, new LinkedHashMap<BackendConfig, Long>());
+        }
+
+        Map<BackendConfig, Long> timings = new LinkedHashMap<>();
+        BackendConfig best = null;
+        long bestNanos = Long.MAX_VALUE;
+        for (BackendConfig candidate : candidates) {
+            long nanos = measure(candidate);
+            if (nanos < 0) {
+                continue;
+            }
+            timings.put(candidate, nanos);
+            if (nanos < bestNanos) {
+                bestNanos = nanos;
+                best = candidate;
+            }
+        }
+
+        if (best == null) {
+            // Niciun candidat nu a rulat; nu salvăm, ca să reîncercăm la pornirea următoare
+            return new Selection(fallback, false, timings);
+        }
+        store.save(deviceKey, best);
+        return new Selection(best, false, timings);
+    }
+
+    /**
+     * Timpul median al unei inferențe, sau -1 dacă backend-ul nu poate fi
+     * creat ori eșuează.
+     */
+    private long measure(BackendConfig config) {
+        InferenceBackend backend = null;
+        try {
+            backend = factory.create(config);
+            for (int i = 0; i < warmUpRuns; i++) {
+                backend.runWarmUp();
+            }
+            long[] samples = new long[measuredRuns];
+            for (int i = 0; i < measuredRuns; i++) {
+                long start = clock.nanoTime();
+                backend.runWarmUp();
+                samples[i] = clock.nanoTime() - start;
+            }
+            Arrays.sort(samples);
+            return samples[samples.length / 2];
+        } catch (Exception | LinkageError e) {
+            return -1;
+        } finally {
+            if (backend != null) {
+                backend.close();
+            }
+        }
+    }
+
+    /**
+     * Candidații CPU standard: combinațiile de thread-uri cu și fără XNNPACK.
+     */
+    public static List<BackendConfig> cpuCandidates(int... threadCounts) {
+        List<BackendConfig> candidates = new ArrayList<>();
+        for (int threads : threadCounts) {
+            candidates.add(BackendConfig.cpu(threads, true));
+            candidates.add(BackendConfig.cpu(threads, false));
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,110 @@
+package com.feri.artistictransform;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool comun de bitmap-uri mutabile ARGB_8888, folosit de ieșirile
+ * inferenței, variațiile derivate, trecerea în rezoluție mare, previzualizarea
+ * live și adaptoarele. Bitmap-urile sunt grupate pe clase de mărime și
+ * refolosite prin {@link Bitmap#reconfigure}, deci o cerere poate primi un
+ * bitmap mai mare, de cel mult {@value #MAX_SIZE_MULTIPLE} ori, cu alte
+ * dimensiuni. Memoria păstrată este limitată; restul rămâne pentru GC.
+ */
+public class BitmapPool {
+
+    private static final String TAG = "BitmapPool";
+    private static final int MAX_SIZE_MULTIPLE = 2;
+    // Un singur bitmap nu poate ocupa mai mult de un sfert din pool
+    private static final int MAX_ITEM_FRACTION = 4;
+
+    private static BitmapPool defaultPool;
+
+    private final SizeClassPool<Bitmap> pool;
+    private final AtomicLong created = new AtomicLong();
+
+    /**
+     * Pool-ul aplicației, limitat la o optime din heap-ul procesului.
+     */
+    public static synchronized BitmapPool getDefault() {
+        if (defaultPool == null) {
+            defaultPool = new BitmapPool(Runtime.getRuntime().maxMemory() / 8);
+        }
+        return defaultPool;
+    }
+
+    public BitmapPool(long maxBytes) {
+        int maxItemBytes = (int) Math.min(Integer.MAX_VALUE, maxBytes / MAX_ITEM_FRACTION);
+        pool = new SizeClassPool<>(maxBytes, maxItemBytes, Bitmap::getAllocationByteCount);
+    }
+
+    /**
+     * Un bitmap mutabil ARGB_8888 de {@code width} x {@code height}, din pool
+     * dacă există unul potrivit. Conținutul unui bitmap refolosit este nedefinit.
+     */
+    public Bitmap obtain(int width, int height) {
+        int bytes = width * height * 4;
+        Bitmap bitmap;
+        while ((bitmap = pool.take(bytes, bytes * MAX_SIZE_MULTIPLE)) != null) {
+            if (bitmap.isRecycled()) {
+                continue;
+            }
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height
+                    && bitmap.getConfig() == Bitmap.Config.ARGB_8888) {
+                return bitmap;
+            }
+            try {
+                bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+                return bitmap;
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Cannot reconfigure pooled bitmap: " + e.getMessage());
+            }
+        }
+        created.incrementAndGet();
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Returnează un bitmap care nu mai este afișat sau folosit. Bitmap-urile
+     * imutabile, reciclate sau prea mari sunt ignorate.
+     */
+    public void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        pool.put(bitmap);
+    }
+
+    public void putAll(Collection<Bitmap> bitmaps) {
+        if (bitmaps == null) {
+            return;
+        }
+        for (Bitmap bitmap : bitmaps) {
+            put(bitmap);
+        }
+    }
+
+    /**
+     * Eliberează tot pool-ul, de exemplu când sistemul cere memorie.
+     */
+    public void clear() {
+        pool.clear();
+    }
+
+    public long getPooledBytes() {
+        return pool.getBytes();
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    public String getStats() {
+        return pool.getCount() + " bitmaps, " + pool.getBytes() / 1024 + " KB pooled, "
+                + pool.getHits() + " hits, " + pool.getMisses() + " misses, "
+                + pool.getEvictions() + " evictions, " + created.get() + " created";
+    }
+}
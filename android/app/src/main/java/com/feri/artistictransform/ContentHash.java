@@ -0,0 +1,61 @@
+package com.feri.artistictransform;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Hash rapid pe 64 de biți pentru chei de cache: FNV-1a pe cuvinte întregi,
+ * urmat de amestecul final din MurmurHash3. Nu este criptografic.
+ */
+public final class ContentHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private ContentHash() {
+    }
+
+    public static long of(int[] pixels, int count, int width, int height) {
+        long hash = OFFSET_BASIS;
+        hash = (hash ^ width) * PRIME;
+        hash = (hash ^ height) * PRIME;
+        for (int i = 0; i < count; i++) {
+            hash = (hash ^ pixels[i]) * PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Hash-ul conținutului rămas în buffer, fără a-i modifica poziția.
+     */
+    public static long of(ByteBuffer buffer) {
+        ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        long hash = OFFSET_BASIS;
+        hash = (hash ^ view.remaining()) * PRIME;
+        while (view.remaining() >= 8) {
+            hash = (hash ^ view.getLong()) * PRIME;
+        }
+        while (view.hasRemaining()) {
+            hash = (hash ^ view.get()) * PRIME;
+        }
+        return mix(hash);
+    }
+
+    public static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        StringBuilder padded = new StringBuilder(16);
+        for (int i = hex.length(); i < 16; i++) {
+            padded.append('0');
+        }
+        return padded.append(hex).toString();
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,167 @@
+package com.feri.artistictransform;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stocare pe disc a unor blocuri de octeți, cu o limită totală de dimensiune și
+ * evacuare LRU. Ordinea de acces este păstrată între porniri prin data de
+ * modificare a fișierelor. Cheile trebuie să fie nume de fișier valide.
+ * Nu depinde de Android.
+ */
+public class DiskLruStore {
+
+    private static final String SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long maxBytes;
+    // Cheie -> dimensiune, în ordinea accesului (cel mai vechi primul)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public DiskLruStore(File directory, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    public synchronized int count() {
+        return entries.size();
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Citește intrarea și o marchează ca folosită recent; null dacă lipsește.
+     */
+    public synchronized byte[] get(String key) {
+        if (entries.get(key) == null) {
+            return null;
+        }
+        File file = fileFor(key);
+        try {
+            byte[] data = readFully(file);
+            file.setLastModified(System.currentTimeMillis());
+            return data;
+        } catch (IOException e) {
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Scrie intrarea atomic (fișier temporar + redenumire) și evacuează cele
+     * mai vechi intrări până când totalul încape în limită.
+     */
+    public synchronized void put(String key, byte[] data) throws IOException {
+        if (data.length > maxBytes) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File temp = new File(directory, key + TEMP_SUFFIX);
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+        }
+        File file = fileFor(key);
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Cannot rename " + temp + " to " + file);
+        }
+
+        Long previous = entries.put(key, (long) data.length);
+        totalBytes += data.length - (previous != null ? previous : 0);
+        trimToSize();
+    }
+
+    public synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        fileFor(key).delete();
+    }
+
+    public synchronized void clear() {
+        for (String key : entries.keySet().toArray(new String[0])) {
+            remove(key);
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            totalBytes -= eldest.getValue();
+            fileFor(eldest.getKey()).delete();
+            iterator.remove();
+        }
+    }
+
+    private void load() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                // Scriere întreruptă
+                file.delete();
+            } else if (name.endsWith(SUFFIX)) {
+                entries.put(name.substring(0, name.length() - SUFFIX.length()), file.length());
+                totalBytes += file.length();
+            }
+        }
+        trimToSize();
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        long length = file.length();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("File too large: " + file);
+        }
+        byte[] data = new byte[(int) length];
+        try (InputStream in = new FileInputStream(file)) {
+            int read = 0;
+            while (read < data.length) {
+                int count = in.read(data, read, data.length - read);
+                if (count < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+                read += count;
+            }
+        }
+        return data;
+    }
+}
@@ -0,0 +1,32 @@
+package com.feri.artistictransform;
+
+/**
+ * Metrici simple de comparație între două imagini ARGB de aceeași dimensiune.
+ */
+public final class ImageMetrics {
+
+    private ImageMetrics() {
+    }
+
+    /**
+     * Eroarea absolută medie pe canalele RGB, pe scara 0..255.
+     */
+    public static double meanAbsoluteError(int[] expected, int[] actual) {
+        if (expected.length != actual.length) {
+            throw new IllegalArgumentException("Pixel counts differ: "
+                    + expected.length + " vs " + actual.length);
+        }
+        if (expected.length == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < expected.length; i++) {
+            int a = expected[i];
+            int b = actual[i];
+            sum += Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF));
+            sum += Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF));
+            sum += Math.abs((a & 0xFF) - (b & 0xFF));
+        }
+        return sum / (3.0 * expected.length);
+    }
+}
@@ -1,9 +1,12 @@
 package com.feri.artistictransform;
 
+import android.content.ContentResolver;
 import android.content.Context;
 import android.database.Cursor;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.Matrix;
+import android.media.ExifInterface;
 import android.net.Uri;
 import android.provider.MediaStore;
 import android.util.Log;
@@ -12,18 +15,18 @@ import org.tensorflow.lite.support.image.ImageProcessor;
 import org.tensorflow.lite.support.image.TensorImage;
 import org.tensorflow.lite.support.image.ops.ResizeOp;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
 public class ImageProcessorHelper {
 
+    private static final String TAG = "ImageProcessor";
     private static final int MODEL_IMAGE_SIZE = 256;
 
     public static Bitmap preprocessImage(Bitmap image, int rotation) {
         // Mai întâi corectăm rotația
-        if (rotation != 0) {
-            Matrix matrix = new Matrix();
-            matrix.postRotate(rotation);
-            image = Bitmap.createBitmap(image, 0, 0,
-                    image.getWidth(), image.getHeight(), matrix, true);
-        }
+        image = correctRotation(image, rotation);
 
         // Apoi redimensionăm
         float aspectRatio = image.getWidth() / (float) image.getHeight();
@@ -39,6 +42,19 @@ public class ImageProcessorHelper {
         return Bitmap.createScaledBitmap(image, targetWidth, targetHeight, true);
     }
 
+    /**
+     * Aplică rotația din MediaStore, păstrând rezoluția imaginii.
+     */
+    public static Bitmap correctRotation(Bitmap image, int rotation) {
+        if (rotation == 0) {
+            return image;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postRotate(rotation);
+        return Bitmap.createBitmap(image, 0, 0,
+                image.getWidth(), image.getHeight(), matrix, true);
+    }
+
     public static int getImageRotation(Context context, Uri imageUri) {
         try {
             if (imageUri.getScheme().equals("content")) {
@@ -47,18 +63,152 @@ public class ImageProcessorHelper {
                         imageUri, projection, null, null, null);
 
                 if (cursor != null) {
-                    if (cursor.moveToFirst()) {
-                        return cursor.getInt(0);
+                    try {
+                        if (cursor.moveToFirst()) {
+                            return cursor.getInt(0);
+                        }
+                    } finally {
+                        cursor.close();
                     }
-                    cursor.close();
                 }
             }
         } catch (Exception e) {
-            Log.e("ImageProcessor", "Error getting image rotation: " + e.getMessage());
+            Log.e(TAG, "Error getting image rotation: " + e.getMessage());
         }
         return 0;
     }
 
+    /**
+     * Decodează imaginea astfel încât să încapă în {@code maxWidth x maxHeight},
+     * cu orientarea EXIF (sau din MediaStore) aplicată. Dimensiunile se citesc
+     * întâi, apoi decodorul subeșantionează cu o putere a lui doi, deci
+     * bitmap-ul la rezoluția completă nu este alocat niciodată. Rotația și
+     * scalarea finală se fac într-o singură copie.
+     */
+    public static Bitmap decodeSampledBitmap(Context context, Uri imageUri,
+                                             int maxWidth, int maxHeight) throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream stream = openStream(resolver, imageUri)) {
+            BitmapFactory.decodeStream(stream, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Unsupported image: " + imageUri);
+        }
+
+        int orientation = readExifOrientation(resolver, imageUri);
+        int degrees = exifRotationDegrees(orientation);
+        boolean mirrored = isExifMirrored(orientation);
+        if (orientation == ExifInterface.ORIENTATION_UNDEFINED) {
+            // Fără EXIF, rotația poate fi doar în coloana din MediaStore
+            degrees = getImageRotation(context, imageUri);
+        }
+
+        // Limitele se aplică imaginii orientate, deci pentru 90/270 se inversează
+        boolean swapped = degrees % 180 != 0;
+        int boxWidth = swapped ? maxHeight : maxWidth;
+        int boxHeight = swapped ? maxWidth : maxHeight;
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight,
+                boxWidth, boxHeight);
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap sampled;
+        try (InputStream stream = openStream(resolver, imageUri)) {
+            sampled = BitmapFactory.decodeStream(stream, null, options);
+        }
+        if (sampled == null) {
+            throw new IOException("Failed to decode image: " + imageUri);
+        }
+        Log.d(TAG, "Decoded " + options.outWidth + "x" + options.outHeight
+                + " with inSampleSize " + options.inSampleSize);
+
+        float scale = Math.min(1f, Math.min(boxWidth / (float) sampled.getWidth(),
+                boxHeight / (float) sampled.getHeight()));
+        if (degrees == 0 && !mirrored && scale == 1f) {
+            return sampled;
+        }
+        Matrix matrix = new Matrix();
+        matrix.setScale(scale, scale);
+        matrix.postRotate(degrees);
+        if (mirrored) {
+            matrix.postScale(-1f, 1f);
+        }
+        Bitmap oriented = Bitmap.createBitmap(sampled, 0, 0,
+                sampled.getWidth(), sampled.getHeight(), matrix, true);
+        if (oriented != sampled) {
+            sampled.recycle();
+        }
+        return oriented;
+    }
+
+    /**
+     * Cea mai mare putere a lui doi cu care imaginea subeșantionată rămâne cel
+     * puțin la dimensiunea finală (imaginea încadrată în limite, fără mărire),
+     * ca scalarea finală să fie doar o micșorare.
+     */
+    static int calculateInSampleSize(int width, int height, int maxWidth, int maxHeight) {
+        float fit = Math.min(1f, Math.min(maxWidth / (float) width, maxHeight / (float) height));
+        int targetWidth = Math.max(1, (int) (width * fit));
+        int targetHeight = Math.max(1, (int) (height * fit));
+
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= targetWidth
+                && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Rotația în sensul acelor de ceasornic pentru o orientare EXIF; orientările
+     * oglindite se aplică ca rotire urmată de oglindire orizontală.
+     */
+    static int exifRotationDegrees(int orientation) {
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_180:
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                return 180;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                return 90;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                return 270;
+            default:
+                return 0;
+        }
+    }
+
+    static boolean isExifMirrored(int orientation) {
+        return orientation == ExifInterface.ORIENTATION_FLIP_HORIZONTAL
+                || orientation == ExifInterface.ORIENTATION_FLIP_VERTICAL
+                || orientation == ExifInterface.ORIENTATION_TRANSPOSE
+                || orientation == ExifInterface.ORIENTATION_TRANSVERSE;
+    }
+
+    private static int readExifOrientation(ContentResolver resolver, Uri imageUri) {
+        // ExifInterface citește doar antetul, nu pixelii
+        try (InputStream stream = openStream(resolver, imageUri)) {
+            return new ExifInterface(stream).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_UNDEFINED);
+        } catch (IOException e) {
+            Log.w(TAG, "Error reading EXIF orientation: " + e.getMessage());
+            return ExifInterface.ORIENTATION_UNDEFINED;
+        }
+    }
+
+    private static InputStream openStream(ContentResolver resolver, Uri imageUri)
+            throws IOException {
+        InputStream stream = resolver.openInputStream(imageUri);
+        if (stream == null) {
+            throw new FileNotFoundException("Cannot open " + imageUri);
+        }
+        return stream;
+    }
+
     public static TensorImage bitmapToTensorImage(Bitmap bitmap) {
         ImageProcessor tfImageProcessor = new ImageProcessor.Builder()
                 .add(new ResizeOp(MODEL_IMAGE_SIZE, MODEL_IMAGE_SIZE, ResizeOp.ResizeMethod.BILINEAR))
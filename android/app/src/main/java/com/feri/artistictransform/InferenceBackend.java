@@ -0,0 +1,18 @@
+package com.feri.artistictransform;
+
+/**
+ * Un backend de inferență gata de rulare, folosit de {@link BackendSelector}
+ * la micro-benchmark. Implementarea reală este {@link TfliteBackend}; testele
+ * folosesc backend-uri false.
+ */
+public interface InferenceBackend {
+
+    BackendConfig getConfig();
+
+    /**
+     * Rulează o inferență pe tensorul de încălzire.
+     */
+    void runWarmUp() throws Exception;
+
+    void close();
+}
@@ -0,0 +1,391 @@
+package com.feri.artistictransform;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Buffere prealocate pentru inferență: tensorii de intrare/ieșire ca
+ * ByteBuffer-e directe în ordinea nativă, array-ul de pixeli și bitmap-ul
+ * redimensionat. Pentru fiecare dimensiune de batch se alocă o singură dată o
+ * pereche de tensori, cu capacitatea exactă cerută de interpretor.
+ * Tensorii cuantizați (uint8/int8) sunt scriși și citiți direct, prin
+ * tabelele din {@link QuantizationParams}.
+ * Forma imaginii din tensor ({@link ShapeBucket}) poate fi dreptunghiulară,
+ * cel mult imageSize x imageSize; tensorii și nucleul de preprocesare ale
+ * ultimelor forme folosite sunt păstrate, deci alternarea între fotografii
+ * portret și peisaj nu realocă nimic.
+ * Bitmap-urile de ieșire vin din {@link BitmapPool}-ul comun, așa că în
+ * regim staționar o inferență nu produce gunoi. O instanță aparține unui singur
+ * interpretor și nu este thread-safe.
+ */
+public class InferenceBuffers {
+
+    private static final int MAX_CACHED_SHAPES = 4;
+
+    /**
+     * Tensorii unei forme, câte o pereche pentru fiecare dimensiune de batch.
+     */
+    private final class ShapeTensors {
+        final ShapeBucket shape;
+        final PreprocessKernel kernel;
+        ByteBuffer[] inputs = new ByteBuffer[0];
+        ByteBuffer[] outputs = new ByteBuffer[0];
+        FloatBuffer[] inputFloats = new FloatBuffer[0];
+        FloatBuffer[] outputFloats = new FloatBuffer[0];
+
+        ShapeTensors(ShapeBucket shape) {
+            this.shape = shape;
+            this.kernel = new PreprocessKernel(shape.getWidth(), shape.getHeight());
+        }
+
+        void ensureBatch(int batchSize) {
+            if (batchSize < inputs.length && inputs[batchSize] != null) {
+                return;
+            }
+            if (batchSize >= inputs.length) {
+                inputs = grow(inputs, batchSize + 1);
+                outputs = grow(outputs, batchSize + 1);
+                FloatBuffer[] newInputFloats = new FloatBuffer[batchSize + 1];
+                FloatBuffer[] newOutputFloats = new FloatBuffer[batchSize + 1];
+                System.arraycopy(inputFloats, 0, newInputFloats, 0, inputFloats.length);
+                System.arraycopy(outputFloats, 0, newOutputFloats, 0, outputFloats.length);
+                inputFloats = newInputFloats;
+                outputFloats = newOutputFloats;
+            }
+            int pixelCount = shape.getPixelCount();
+            inputs[batchSize] = ByteBuffer.allocateDirect(batchSize * pixelCount * inputBytesPerPixel)
+                    .order(ByteOrder.nativeOrder());
+            outputs[batchSize] = ByteBuffer.allocateDirect(batchSize * pixelCount * outputBytesPerPixel)
+                    .order(ByteOrder.nativeOrder());
+            inputFloats[batchSize] = inputs[batchSize].asFloatBuffer();
+            outputFloats[batchSize] = outputs[batchSize].asFloatBuffer();
+        }
+    }
+
+    private final int imageSize;
+    private final int inputBytesPerPixel;
+    private final int outputBytesPerPixel;
+    private final QuantizationParams inputQuantization;
+    private final QuantizationParams outputQuantization;
+    private final int[] pixels;
+
+    // Formele folosite recent, cea mai veche prima
+    private final Map<ShapeBucket, ShapeTensors> shapes =
+            new LinkedHashMap<ShapeBucket, ShapeTensors>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ShapeBucket, ShapeTensors> eldest) {
+                    return size() > MAX_CACHED_SHAPES;
+                }
+            };
+    private ShapeTensors current;
+    private ByteBuffer[] inputs;
+    private ByteBuffer[] outputs;
+    private FloatBuffer[] inputFloats;
+    private FloatBuffer[] outputFloats;
+
+    private final Bitmap scaledInput;
+    private final Canvas scaleCanvas;
+    private final Matrix scaleMatrix = new Matrix();
+    private final Paint scalePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private YuvPreprocessKernel yuvKernel;
+
+    private final BitmapPool bitmapPool;
+
+    public InferenceBuffers(int imageSize, int inputBytesPerImage, int outputBytesPerImage,
+                            BitmapPool bitmapPool) {
+        this(imageSize, inputBytesPerImage, outputBytesPerImage, null, null, bitmapPool);
+    }
+
+    /**
+     * @param inputBytesPerImage  octeții unei imagini imageSize x imageSize în tensorul de intrare
+     * @param inputQuantization  parametrii intrării cuantizate, sau null pentru float32
+     * @param outputQuantization parametrii ieșirii cuantizate, sau null pentru float32
+     */
+    public InferenceBuffers(int imageSize, int inputBytesPerImage, int outputBytesPerImage,
+                            QuantizationParams inputQuantization,
+                            QuantizationParams outputQuantization, BitmapPool bitmapPool) {
+        this.imageSize = imageSize;
+        this.bitmapPool = bitmapPool;
+        this.inputBytesPerPixel = inputBytesPerImage / (imageSize * imageSize);
+        this.outputBytesPerPixel = outputBytesPerImage / (imageSize * imageSize);
+        this.inputQuantization = inputQuantization;
+        this.outputQuantization = outputQuantization;
+        pixels = new int[imageSize * imageSize];
+        scaledInput = Bitmap.createBitmap(imageSize, imageSize, Bitmap.Config.ARGB_8888);
+        scaleCanvas = new Canvas(scaledInput);
+        setShape(ShapeBucket.square(imageSize));
+        ensureBatch(1);
+    }
+
+    /**
+     * Latura maximă a imaginii din tensor și latura formei pătrate.
+     */
+    public int getImageSize() {
+        return imageSize;
+    }
+
+    public ShapeBucket getShape() {
+        return current.shape;
+    }
+
+    /**
+     * Schimbă forma imaginilor din tensori. Se apelează împreună cu
+     * redimensionarea interpretorului (vezi {@link PooledInterpreter#resize}).
+     */
+    public void setShape(ShapeBucket shape) {
+        if (current != null && current.shape.equals(shape)) {
+            return;
+        }
+        if (shape.getWidth() > imageSize || shape.getHeight() > imageSize) {
+            throw new IllegalArgumentException("Shape " + shape + " exceeds " + imageSize
+                    + "x" + imageSize);
+        }
+        ShapeTensors tensors = shapes.get(shape);
+        if (tensors == null) {
+            tensors = new ShapeTensors(shape);
+            shapes.put(shape, tensors);
+        }
+        current = tensors;
+        syncCurrent();
+    }
+
+    public ByteBuffer getInput() {
+        return getInput(1);
+    }
+
+    public ByteBuffer getOutput() {
+        return getOutput(1);
+    }
+
+    public ByteBuffer getInput(int batchSize) {
+        ensureBatch(batchSize);
+        ByteBuffer input = inputs[batchSize];
+        input.rewind();
+        return input;
+    }
+
+    public ByteBuffer getOutput(int batchSize) {
+        ensureBatch(batchSize);
+        ByteBuffer output = outputs[batchSize];
+        output.rewind();
+        return output;
+    }
+
+    public boolean isOutputQuantized() {
+        return outputQuantization != null;
+    }
+
+    /**
+     * Vederea float a tensorului de ieșire, pentru transformări in-place.
+     * Nu există pentru ieșiri cuantizate.
+     */
+    public FloatBuffer getOutputFloats(int batchSize) {
+        if (outputQuantization != null) {
+            throw new IllegalStateException("Output tensor is " + outputQuantization);
+        }
+        ensureBatch(batchSize);
+        return outputFloats[batchSize];
+    }
+
+    /**
+     * Rotește in-place cu 90° imaginea din poziția {@code slot} a ieșirii.
+     */
+    public void rotateOutput90(int batchSize, int slot) {
+        requireSquare();
+        ensureBatch(batchSize);
+        int offset = slot * current.shape.getPixelCount() * 3;
+        if (outputQuantization != null) {
+            TensorTransforms.rotate90InPlace(outputs[batchSize], offset, imageSize, 3);
+        } else {
+            TensorTransforms.rotate90InPlace(outputFloats[batchSize], offset, imageSize, 3);
+        }
+    }
+
+    /**
+     * Reflectă in-place față de diagonala secundară imaginea din poziția
+     * {@code slot} a ieșirii.
+     */
+    public void antiTransposeOutput(int batchSize, int slot) {
+        requireSquare();
+        ensureBatch(batchSize);
+        int offset = slot * current.shape.getPixelCount() * 3;
+        if (outputQuantization != null) {
+            TensorTransforms.antiTransposeInPlace(outputs[batchSize], offset, imageSize, 3);
+        } else {
+            TensorTransforms.antiTransposeInPlace(outputFloats[batchSize], offset, imageSize, 3);
+        }
+    }
+
+    public void loadInput(Bitmap image) {
+        loadInput(image, 1, 0);
+    }
+
+    public Bitmap readOutput() {
+        return readOutput(1, 0);
+    }
+
+    /**
+     * Redimensionează imaginea la forma curentă în bitmap-ul refolosit și o
+     * scrie normalizată în poziția {@code slot} a tensorului de intrare pentru
+     * batch-ul dat.
+     */
+    public void loadInput(Bitmap image, int batchSize, int slot) {
+        ensureBatch(batchSize);
+        int width = current.shape.getWidth();
+        int height = current.shape.getHeight();
+        Bitmap source = image;
+        if (image.getWidth() != width || image.getHeight() != height) {
+            scaleMatrix.setScale(width / (float) image.getWidth(),
+                    height / (float) image.getHeight());
+            scaleCanvas.drawBitmap(image, scaleMatrix, scalePaint);
+            source = scaledInput;
+        }
+        source.getPixels(pixels, 0, width, 0, 0, width, height);
+        writeInput(pixels, batchSize, slot);
+    }
+
+    /**
+     * Aplică {@code transform} pe pixelii sursei și scrie rezultatul direct în
+     * poziția {@code slot}, într-o singură trecere, fără bitmap-uri intermediare.
+     */
+    public void loadInput(int[] source, int width, int height, PreprocessKernel.Transform transform,
+                          int batchSize, int slot) {
+        ensureBatch(batchSize);
+        int offset = slot * current.shape.getPixelCount() * 3;
+        if (inputQuantization != null) {
+            current.kernel.apply(source, width, height, transform, inputs[batchSize], offset,
+                    inputQuantization.getEncodeTable());
+        } else {
+            current.kernel.apply(source, width, height, transform, inputFloats[batchSize], offset);
+        }
+    }
+
+    /**
+     * Scrie un cadru YUV al camerei direct în tensorul de intrare cu batch 1,
+     * în forma pătrată. Tabelele kernel-ului se creează la primul cadru și se
+     * refolosesc.
+     */
+    public void loadInput(YuvPreprocessKernel.Frame frame) {
+        requireSquare();
+        ensureBatch(1);
+        if (yuvKernel == null) {
+            yuvKernel = new YuvPreprocessKernel(imageSize);
+        }
+        if (inputQuantization != null) {
+            yuvKernel.apply(frame, inputs[1], 0, inputQuantization.getEncodeTable());
+        } else {
+            yuvKernel.apply(frame, inputFloats[1], 0);
+        }
+    }
+
+    /**
+     * Scrie pixeli ARGB de mărimea formei curente direct în poziția {@code slot}.
+     */
+    public void loadPixels(int[] source, int batchSize, int slot) {
+        ensureBatch(batchSize);
+        writeInput(source, batchSize, slot);
+    }
+
+    /**
+     * Citește poziția {@code slot} din tensorul de ieșire ca pixeli ARGB.
+     */
+    public void readPixels(int batchSize, int slot, int[] destination) {
+        ensureBatch(batchSize);
+        readOutputPixels(batchSize, slot, destination);
+    }
+
+    /**
+     * Convertește poziția {@code slot} din tensorul de ieșire într-un bitmap,
+     * refolosind unul reciclat dacă există.
+     */
+    public Bitmap readOutput(int batchSize, int slot) {
+        ensureBatch(batchSize);
+        readOutputPixels(batchSize, slot, pixels);
+        int width = current.shape.getWidth();
+        int height = current.shape.getHeight();
+        Bitmap outputBitmap = bitmapPool.obtain(width, height);
+        outputBitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        return outputBitmap;
+    }
+
+    /**
+     * Copiază poziția {@code slot} din tensorul de ieșire ca float-uri RGB,
+     * fără limitare la [0, 1]. Ieșirile cuantizate sunt decodate.
+     */
+    public void copyOutput(int batchSize, int slot, float[] destination) {
+        ensureBatch(batchSize);
+        int offset = slot * current.shape.getPixelCount() * 3;
+        int count = current.shape.getPixelCount() * 3;
+        if (outputQuantization != null) {
+            float[] realTable = outputQuantization.getRealTable();
+            ByteBuffer output = outputs[batchSize];
+            for (int i = 0; i < count; i++) {
+                destination[i] = realTable[output.get(offset + i) & 0xFF];
+            }
+        } else {
+            FloatBuffer output = outputFloats[batchSize].duplicate();
+            output.position(offset);
+            output.get(destination, 0, count);
+        }
+    }
+
+    private void writeInput(int[] source, int batchSize, int slot) {
+        int pixelCount = current.shape.getPixelCount();
+        int offset = slot * pixelCount * 3;
+        if (inputQuantization != null) {
+            PixelConverter.argbToQuantized(source, pixelCount, inputs[batchSize], offset,
+                    inputQuantization.getEncodeTable());
+        } else {
+            PixelConverter.argbToFloat(source, pixelCount, inputFloats[batchSize], offset);
+        }
+    }
+
+    private void readOutputPixels(int batchSize, int slot, int[] destination) {
+        int pixelCount = current.shape.getPixelCount();
+        int offset = slot * pixelCount * 3;
+        if (outputQuantization != null) {
+            PixelConverter.quantizedToArgb(outputs[batchSize], offset, destination, pixelCount,
+                    outputQuantization.getDecodeTable());
+        } else {
+            // Ieșirile mari sunt convertite în paralel, cele de 256x256 pe loc
+            ParallelPixelConverter.getDefault().floatToArgb(outputFloats[batchSize], offset,
+                    destination, current.shape.getWidth(), current.shape.getHeight());
+        }
+    }
+
+    private void ensureBatch(int batchSize) {
+        current.ensureBatch(batchSize);
+        syncCurrent();
+    }
+
+    /**
+     * Câmpurile de acces rapid arată spre tensorii formei curente.
+     */
+    private void syncCurrent() {
+        inputs = current.inputs;
+        outputs = current.outputs;
+        inputFloats = current.inputFloats;
+        outputFloats = current.outputFloats;
+    }
+
+    private void requireSquare() {
+        if (current.shape.getWidth() != imageSize || current.shape.getHeight() != imageSize) {
+            throw new IllegalStateException("Operation needs a " + imageSize + "x" + imageSize
+                    + " tensor, current shape is " + current.shape);
+        }
+    }
+
+    private static ByteBuffer[] grow(ByteBuffer[] buffers, int length) {
+        ByteBuffer[] grown = new ByteBuffer[length];
+        System.arraycopy(buffers, 0, grown, 0, buffers.length);
+        return grown;
+    }
+}
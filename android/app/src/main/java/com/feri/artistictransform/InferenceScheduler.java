@@ -0,0 +1,177 @@
+package com.feri.artistictransform;
+
+import android.os.CancellationSignal;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Planifică lucrul de inferență pe un singur thread consumator. Fiecare
+ * cerere a utilizatorului este un {@link Job}; un job nou cu aceeași cheie îl
+ * anulează pe cel vechi ("cel mai nou câștigă"): sarcinile lui în așteptare
+ * sunt scoase din coadă, iar cea care rulează vede semnalul de anulare și se
+ * oprește între variații. În coadă, sarcinile de previzualizare au prioritate
+ * față de cele suplimentare (de exemplu rezoluția mare).
+ */
+public class InferenceScheduler {
+
+    private static final String TAG = "InferenceScheduler";
+
+    public static final int PRIORITY_PREVIEW = 0;
+    public static final int PRIORITY_EXTRA = 1;
+
+    /** O sarcină a unui job; trebuie să verifice semnalul jobului între pași. */
+    public interface Task {
+        void run(Job job) throws Exception;
+    }
+
+    /** Un set de sarcini anulabile împreună. */
+    public static final class Job {
+        private final String key;
+        private final CancellationSignal signal = new CancellationSignal();
+        // Starea proprie a jobului; semnalul o transmite doar codului Android
+        private volatile boolean cancelled;
+
+        Job(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public CancellationSignal getSignal() {
+            return signal;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            signal.cancel();
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final Job job;
+        final int priority;
+        final long sequence;
+        final Task task;
+
+        Entry(Job job, int priority, long sequence, Task task) {
+            this.job = job;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (priority != other.priority) {
+                return Integer.compare(priority, other.priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final PriorityBlockingQueue<Entry> queue = new PriorityBlockingQueue<>();
+    private final Map<String, Job> latestJobs = new HashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Thread consumer;
+    private volatile boolean shutdown;
+
+    public InferenceScheduler() {
+        consumer = new Thread(this::consume, "style-scheduler");
+        consumer.setPriority(Thread.NORM_PRIORITY - 1);
+        consumer.start();
+    }
+
+    /**
+     * Creează un job nou pentru cheie și anulează jobul anterior cu aceeași cheie.
+     */
+    public synchronized Job newJob(String key) {
+        checkOpen();
+        Job job = new Job(key);
+        Job previous = latestJobs.put(key, job);
+        if (previous != null && !previous.isCancelled()) {
+            cancel(previous);
+            Log.d(TAG, "Superseded previous " + key + " job");
+        }
+        return job;
+    }
+
+    /**
+     * Pune o sarcină a jobului în coadă. Sarcinile joburilor anulate sunt ignorate.
+     */
+    public void submit(Job job, int priority, Task task) {
+        checkOpen();
+        if (job.isCancelled()) {
+            return;
+        }
+        queue.add(new Entry(job, priority, sequence.getAndIncrement(), task));
+    }
+
+    /**
+     * Anulează jobul: sarcinile în așteptare sunt scoase, cea curentă se oprește
+     * la următoarea verificare.
+     */
+    public void cancel(Job job) {
+        job.cancel();
+        Iterator<Entry> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().job == job) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Anulează toate joburile și oprește consumatorul. Se apelează la
+     * distrugerea activității.
+     */
+    public void shutdown() {
+        shutdown = true;
+        synchronized (this) {
+            for (Job job : latestJobs.values()) {
+                job.cancel();
+            }
+            latestJobs.clear();
+        }
+        queue.clear();
+        consumer.interrupt();
+    }
+
+    private void consume() {
+        while (!shutdown) {
+            Entry entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (entry.job.isCancelled()) {
+                continue;
+            }
+            try {
+                entry.task.run(entry.job);
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                Log.e(TAG, "Error in " + entry.job.getKey() + " task: " + e.getMessage(), e);
+            }
+        }
+        Log.d(TAG, "Scheduler stopped");
+    }
+
+    private void checkOpen() {
+        if (shutdown) {
+            throw new IllegalStateException("Scheduler is shut down");
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.feri.artistictransform;
+
+import android.util.Log;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool limitat de interpretoare TFLite care împart același model mapat în
+ * memorie. Interpretoarele nu sunt thread-safe, așa că fiecare este folosit de
+ * un singur thread între {@link #acquire()} și {@link #release}. Interpretoarele
+ * sunt create la cerere, până la mărimea pool-ului; {@link #invokeAll} le
+ * folosește pe cele libere pentru a rula variațiile în paralel. Ordinea și
+ * anularea joburilor sunt treaba lui {@link InferenceScheduler}.
+ */
+public class InterpreterPool {
+
+    private static final String TAG = "InterpreterPool";
+
+    /** O sarcină care rulează pe un interpretor din pool. */
+    public interface PooledTask<T> {
+        T run(PooledInterpreter interpreter) throws Exception;
+    }
+
+    /** Creează un interpretor nou pentru pool; testele folosesc interpretoare false. */
+    interface InterpreterFactory {
+        PooledInterpreter create();
+    }
+
+    private final InterpreterFactory factory;
+    private final BackendConfig backend;
+    private final int poolSize;
+
+    private final BlockingQueue<PooledInterpreter> idle;
+    private final List<PooledInterpreter> created = new ArrayList<>();
+    private final ExecutorService parallelExecutor;
+    // Scris doar sub lock-ul pool-ului, ca release și close să nu se intercaleze
+    private volatile boolean closed;
+
+    /**
+     * @param factory creează interpretoarele peste modelul mapat
+     * @param backend configurația (accelerator, thread-uri) a fiecărui interpretor
+     */
+    public InterpreterPool(final TfliteBackendFactory factory, final BackendConfig backend,
+                           int poolSize, final int imageSize, final BitmapPool bitmapPool) {
+        this(new InterpreterFactory() {
+            @Override
+            public PooledInterpreter create() {
+                return createTflite(factory, backend, imageSize, bitmapPool);
+            }
+        }, backend, poolSize);
+    }
+
+    InterpreterPool(InterpreterFactory factory, BackendConfig backend, int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Invalid pool size " + poolSize);
+        }
+        this.factory = factory;
+        this.backend = backend;
+        this.poolSize = poolSize;
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+
+        parallelExecutor = new ThreadPoolExecutor(0, poolSize, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), namedThreads("style-variant"));
+
+        // Primul interpretor este creat imediat, ca erorile de model să apară la inițializare
+        idle.add(createInterpreter());
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public BackendConfig getBackendConfig() {
+        return backend;
+    }
+
+    /**
+     * Așteaptă până când un interpretor este liber.
+     */
+    public PooledInterpreter acquire() throws InterruptedException {
+        PooledInterpreter interpreter = tryAcquire();
+        return interpreter != null ? interpreter : idle.take();
+    }
+
+    /**
+     * Ca {@link #acquire()}, dar preferă un interpretor liber deja alocat
+     * pentru {@code shape}, ca redimensionarea să nu mai fie nevoie de
+     * allocateTensors.
+     */
+    public PooledInterpreter acquire(ShapeBucket shape) throws InterruptedException {
+        checkOpen();
+        for (PooledInterpreter candidate : idle) {
+            if (shape.equals(candidate.getShape()) && idle.remove(candidate)) {
+                return candidate;
+            }
+        }
+        return acquire();
+    }
+
+    /**
+     * Ca {@link #acquire()}, dar renunță după timeout și întoarce null.
+     */
+    public PooledInterpreter acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        PooledInterpreter interpreter = tryAcquire();
+        return interpreter != null ? interpreter : idle.poll(timeout, unit);
+    }
+
+    /**
+     * Întoarce un interpretor liber (creându-l dacă pool-ul nu este plin) sau
+     * null, fără să aștepte.
+     */
+    public PooledInterpreter tryAcquire() {
+        checkOpen();
+        PooledInterpreter interpreter = idle.poll();
+        if (interpreter != null) {
+            return interpreter;
+        }
+        synchronized (this) {
+            if (created.size() < poolSize) {
+                return createInterpreter();
+            }
+        }
+        return idle.poll();
+    }
+
+    public void release(PooledInterpreter interpreter) {
+        if (interpreter == null) {
+            return;
+        }
+        // Sub același lock ca close(): altfel un interpretor pus în idle după
+        // golirea cozii ar rămâne deschis, cu tot cu delegatul lui
+        synchronized (this) {
+            if (!closed) {
+                idle.offer(interpreter);
+                return;
+            }
+        }
+        interpreter.close();
+    }
+
+    /**
+     * Rulează sarcinile în paralel pe interpretoarele libere din pool. Sarcinile
+     * pentru care nu există un interpretor liber rulează pe {@code owned}, pe
+     * thread-ul curent, deci apelul nu se poate bloca așteptând pool-ul.
+     */
+    public <T> List<T> invokeAll(PooledInterpreter owned, List<PooledTask<T>> tasks)
+            throws Exception {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            final PooledInterpreter extra = i == 0 ? null : tryAcquire();
+            if (extra == null) {
+                futures.add(null);
+                continue;
+            }
+            final PooledTask<T> task = tasks.get(i);
+            futures.add(parallelExecutor.submit(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    try {
+                        return task.run(extra);
+                    } finally {
+                        release(extra);
+                    }
+                }
+            }));
+        }
+
+        List<T> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            results.add(futures.get(i) == null ? tasks.get(i).run(owned) : null);
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            if (futures.get(i) != null) {
+                try {
+                    results.set(i, futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : e;
+                }
+            }
+        }
+        return results;
+    }
+
+    public void close() {
+        List<PooledInterpreter> unused = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            idle.drainTo(unused);
+        }
+        parallelExecutor.shutdownNow();
+        for (PooledInterpreter interpreter : unused) {
+            interpreter.close();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private PooledInterpreter createInterpreter() {
+        PooledInterpreter pooled = factory.create();
+        synchronized (this) {
+            created.add(pooled);
+        }
+        Log.d(TAG, "Created interpreter " + created.size() + "/" + poolSize
+                + " on " + backend);
+        return pooled;
+    }
+
+    private static PooledInterpreter createTflite(TfliteBackendFactory factory,
+                                                  BackendConfig backend, int imageSize,
+                                                  BitmapPool bitmapPool) {
+        TfliteBackend tflite = factory.create(backend);
+        Interpreter interpreter = tflite.getInterpreter();
+
+        Tensor input = interpreter.getInputTensor(0);
+        Tensor output = interpreter.getOutputTensor(0);
+        InferenceBuffers buffers = new InferenceBuffers(imageSize,
+                input.numBytes(), output.numBytes(),
+                quantizationOf(input), quantizationOf(output), bitmapPool);
+        return new PooledInterpreter(tflite, buffers);
+    }
+
+    /**
+     * Parametrii de cuantizare ai unui tensor uint8/int8, sau null pentru float.
+     */
+    static QuantizationParams quantizationOf(Tensor tensor) {
+        DataType type = tensor.dataType();
+        if (type != DataType.UINT8 && type != DataType.INT8) {
+            return null;
+        }
+        Tensor.QuantizationParams params = tensor.quantizationParams();
+        return new QuantizationParams(params.getScale(), params.getZeroPoint(),
+                type == DataType.INT8);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Interpreter pool is closed");
+        }
+    }
+
+    private static ThreadFactory namedThreads(final String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        };
+    }
+}
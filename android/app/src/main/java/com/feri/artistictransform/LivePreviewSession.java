@@ -0,0 +1,390 @@
+package com.feri.artistictransform;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.params.OutputConfiguration;
+import android.hardware.camera2.params.SessionConfiguration;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.hardware.display.DisplayManager;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.Size;
+import android.view.Display;
+import android.view.Surface;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Previzualizarea stilizată în timp real cu Camera2. Cadrele YUV din
+ * {@link ImageReader} sunt scrise direct în tensor prin
+ * {@link YuvPreprocessKernel}, fără Bitmap intermediar. Un singur cadru este
+ * în lucru; cadrele care sosesc între timp sunt închise imediat și numărate ca
+ * pierdute, iar {@code acquireLatestImage} sare peste cele rămase în coadă.
+ * Pixelii, cadrul YUV și cele două bitmap-uri de afișare sunt refolosite;
+ * bitmap-urile vin din {@link BitmapPool} și se întorc acolo la oprire.
+ */
+public class LivePreviewSession {
+
+    private static final String TAG = "LivePreviewSession";
+    // Un cadru la inferență, unul la cameră și unul liber pentru acquireLatestImage
+    private static final int MAX_IMAGES = 3;
+    private static final int DISPLAY_BUFFERS = 2;
+
+    /**
+     * Primește pe firul principal fiecare cadru stilizat. Bitmap-ul este
+     * refolosit după {@value #DISPLAY_BUFFERS} cadre, deci nu trebuie reciclat
+     * sau păstrat.
+     */
+    public interface Listener {
+        void onFrame(Bitmap frame);
+
+        void onError(String message);
+    }
+
+    private final Context context;
+    private final StyleTransferHelper styleTransferHelper;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final int imageSize;
+    private final int[] pixels;
+    private final Bitmap[] displayBitmaps = new Bitmap[DISPLAY_BUFFERS];
+    private int nextDisplayBitmap;
+    private final YuvPreprocessKernel.Frame frame = new YuvPreprocessKernel.Frame();
+
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+    private final AtomicLong styledFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final LatencyHistogram frameTimes = new LatencyHistogram();
+    private volatile long firstFrameNanos;
+    private volatile long lastFrameNanos;
+
+    private HandlerThread cameraThread;
+    private Handler cameraHandler;
+    private HandlerThread inferenceThread;
+    private Handler inferenceHandler;
+    private CameraDevice camera;
+    private CameraCaptureSession captureSession;
+    private ImageReader imageReader;
+    private int rotationDegrees;
+    private boolean mirror;
+    private volatile boolean running;
+
+    public LivePreviewSession(Context context, StyleTransferHelper styleTransferHelper,
+                              Listener listener) {
+        this.context = context.getApplicationContext();
+        this.styleTransferHelper = styleTransferHelper;
+        this.listener = listener;
+        this.imageSize = styleTransferHelper.getImageSize();
+        this.pixels = new int[imageSize * imageSize];
+        for (int i = 0; i < DISPLAY_BUFFERS; i++) {
+            displayBitmaps[i] = BitmapPool.getDefault().obtain(imageSize, imageSize);
+        }
+    }
+
+    /**
+     * Deschide camera din spate (sau prima disponibilă). Permisiunea CAMERA
+     * trebuie să fie deja acordată.
+     */
+    @SuppressLint("MissingPermission")
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        cameraThread = new HandlerThread("camera-preview");
+        cameraThread.start();
+        cameraHandler = new Handler(cameraThread.getLooper());
+        inferenceThread = new HandlerThread("style-preview", Process.THREAD_PRIORITY_DISPLAY);
+        inferenceThread.start();
+        inferenceHandler = new Handler(inferenceThread.getLooper());
+
+        CameraManager manager = (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
+        try {
+            String cameraId = selectCamera(manager);
+            if (cameraId == null) {
+                fail("No camera available");
+                return;
+            }
+            CameraCharacteristics characteristics = manager.getCameraCharacteristics(cameraId);
+            Size size = selectSize(characteristics);
+            configureOrientation(characteristics);
+            Log.d(TAG, "Preview " + size + " from camera " + cameraId + ", rotation "
+                    + rotationDegrees + (mirror ? ", mirrored" : ""));
+
+            imageReader = ImageReader.newInstance(size.getWidth(), size.getHeight(),
+                    ImageFormat.YUV_420_888, MAX_IMAGES);
+            imageReader.setOnImageAvailableListener(this::onImageAvailable, cameraHandler);
+            manager.openCamera(cameraId, new CameraDevice.StateCallback() {
+                @Override
+                public void onOpened(CameraDevice device) {
+                    camera = device;
+                    if (!running) {
+                        device.close();
+                        return;
+                    }
+                    createSession(device);
+                }
+
+                @Override
+                public void onDisconnected(CameraDevice device) {
+                    device.close();
+                    camera = null;
+                }
+
+                @Override
+                public void onError(CameraDevice device, int error) {
+                    device.close();
+                    camera = null;
+                    fail("Camera error " + error);
+                }
+            }, cameraHandler);
+        } catch (CameraAccessException | RuntimeException e) {
+            fail("Error opening camera: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Oprește camera și așteaptă terminarea cadrului în lucru, ca helper-ul să
+     * nu mai fie folosit după întoarcere.
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        cameraHandler.post(() -> {
+            if (captureSession != null) {
+                captureSession.close();
+                captureSession = null;
+            }
+            if (camera != null) {
+                camera.close();
+                camera = null;
+            }
+        });
+        cameraThread.quitSafely();
+        inferenceThread.quitSafely();
+        try {
+            cameraThread.join();
+            inferenceThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Cititorul se închide ultimul, după cadrul aflat încă la inferență
+        if (imageReader != null) {
+            imageReader.close();
+            imageReader = null;
+        }
+        // Apelantul nu mai afișează cadrele după stop
+        for (Bitmap display : displayBitmaps) {
+            BitmapPool.getDefault().put(display);
+        }
+        Log.d(TAG, "Stopped: " + getStats());
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getStyledFrames() {
+        return styledFrames.get();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * Durata fiecărui cadru stilizat, de la scrierea în tensor la bitmap-ul de afișare.
+     */
+    public LatencyHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    /**
+     * Cadrele stilizate pe secundă de la primul cadru.
+     */
+    public double getFramesPerSecond() {
+        long frames = styledFrames.get();
+        long elapsed = lastFrameNanos - firstFrameNanos;
+        return frames < 2 || elapsed <= 0 ? 0 : (frames - 1) * 1e9 / elapsed;
+    }
+
+    public String getStats() {
+        return String.format(Locale.US, "%.1f fps, frame p50 %.0f ms, p99 %.0f ms,"
+                        + " %d styled, %d dropped", getFramesPerSecond(),
+                frameTimes.getPercentileMicros(50) / 1000.0,
+                frameTimes.getPercentileMicros(99) / 1000.0,
+                styledFrames.get(), droppedFrames.get());
+    }
+
+    private void createSession(CameraDevice device) {
+        final Surface surface = imageReader.getSurface();
+        CameraCaptureSession.StateCallback callback = new CameraCaptureSession.StateCallback() {
+            @Override
+            public void onConfigured(CameraCaptureSession session) {
+                captureSession = session;
+                try {
+                    CaptureRequest.Builder request = device.createCaptureRequest(
+                            CameraDevice.TEMPLATE_PREVIEW);
+                    request.addTarget(surface);
+                    session.setRepeatingRequest(request.build(), null, cameraHandler);
+                } catch (CameraAccessException | RuntimeException e) {
+                    fail("Error starting preview: " + e.getMessage());
+                }
+            }
+
+            @Override
+            public void onConfigureFailed(CameraCaptureSession session) {
+                fail("Camera session configuration failed");
+            }
+        };
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                // Callback-urile rămân pe firul camerei, ca în varianta cu Handler
+                device.createCaptureSession(new SessionConfiguration(
+                        SessionConfiguration.SESSION_REGULAR,
+                        Collections.singletonList(new OutputConfiguration(surface)),
+                        cameraHandler::post, callback));
+            } else {
+                createLegacySession(device, surface, callback);
+            }
+        } catch (CameraAccessException | RuntimeException e) {
+            fail("Error creating camera session: " + e.getMessage());
+        }
+    }
+
+    // SessionConfiguration există abia de la API 28; minSdk este 24
+    @SuppressWarnings("deprecation")
+    private void createLegacySession(CameraDevice device, Surface surface,
+                                     CameraCaptureSession.StateCallback callback)
+            throws CameraAccessException {
+        device.createCaptureSession(Collections.singletonList(surface), callback, cameraHandler);
+    }
+
+    private void onImageAvailable(ImageReader reader) {
+        Image image = reader.acquireLatestImage();
+        if (image == null) {
+            return;
+        }
+        // Cât timp un cadru este la inferență, cele noi sunt aruncate
+        if (!running || !inFlight.compareAndSet(false, true)) {
+            image.close();
+            droppedFrames.incrementAndGet();
+            return;
+        }
+        inferenceHandler.post(() -> process(image));
+    }
+
+    private void process(Image image) {
+        long start = System.nanoTime();
+        boolean styled;
+        try {
+            Image.Plane[] planes = image.getPlanes();
+            frame.setPlanes(image.getWidth(), image.getHeight(),
+                    planes[0].getBuffer(), planes[0].getRowStride(),
+                    planes[1].getBuffer(), planes[2].getBuffer(),
+                    planes[1].getRowStride(), planes[1].getPixelStride());
+            frame.setOrientation(rotationDegrees, mirror);
+            styled = running && styleTransferHelper.stylizeFrame(frame, pixels);
+        } finally {
+            image.close();
+        }
+
+        if (!styled) {
+            droppedFrames.incrementAndGet();
+            inFlight.set(false);
+            return;
+        }
+        final Bitmap display = displayBitmaps[nextDisplayBitmap];
+        nextDisplayBitmap = (nextDisplayBitmap + 1) % DISPLAY_BUFFERS;
+        display.setPixels(pixels, 0, imageSize, 0, 0, imageSize, imageSize);
+
+        long now = System.nanoTime();
+        frameTimes.recordNanos(now - start);
+        if (styledFrames.getAndIncrement() == 0) {
+            firstFrameNanos = now;
+        }
+        lastFrameNanos = now;
+        inFlight.set(false);
+        mainHandler.post(() -> {
+            if (running) {
+                listener.onFrame(display);
+            }
+        });
+    }
+
+    private static String selectCamera(CameraManager manager) throws CameraAccessException {
+        String[] ids = manager.getCameraIdList();
+        for (String id : ids) {
+            Integer facing = manager.getCameraCharacteristics(id)
+                    .get(CameraCharacteristics.LENS_FACING);
+            if (facing != null && facing == CameraCharacteristics.LENS_FACING_BACK) {
+                return id;
+            }
+        }
+        return ids.length > 0 ? ids[0] : null;
+    }
+
+    /**
+     * Cea mai mică rezoluție YUV care acoperă tensorul după decupajul pătrat.
+     */
+    private Size selectSize(CameraCharacteristics characteristics) {
+        StreamConfigurationMap map = characteristics.get(
+                CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+        Size[] sizes = map.getOutputSizes(ImageFormat.YUV_420_888);
+        Size best = null;
+        Size largest = null;
+        for (Size size : sizes) {
+            long area = (long) size.getWidth() * size.getHeight();
+            if (largest == null || area > (long) largest.getWidth() * largest.getHeight()) {
+                largest = size;
+            }
+            if (Math.min(size.getWidth(), size.getHeight()) >= imageSize
+                    && (best == null || area < (long) best.getWidth() * best.getHeight())) {
+                best = size;
+            }
+        }
+        return best != null ? best : largest;
+    }
+
+    private void configureOrientation(CameraCharacteristics characteristics) {
+        Integer sensor = characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
+        Integer facing = characteristics.get(CameraCharacteristics.LENS_FACING);
+        int sensorDegrees = sensor != null ? sensor : 0;
+        mirror = facing != null && facing == CameraCharacteristics.LENS_FACING_FRONT;
+
+        // Contextul aplicației nu are un ecran propriu, deci Context.getDisplay() nu merge aici
+        DisplayManager displayManager =
+                (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+        Display display = displayManager.getDisplay(Display.DEFAULT_DISPLAY);
+        int displayDegrees = display != null ? 90 * display.getRotation() : 0;
+        // Formula din documentația Camera2 pentru orientarea JPEG
+        rotationDegrees = mirror
+                ? (sensorDegrees + displayDegrees) % 360
+                : (sensorDegrees - displayDegrees + 360) % 360;
+    }
+
+    private void fail(final String message) {
+        Log.e(TAG, message);
+        mainHandler.post(() -> listener.onError(message));
+    }
+}
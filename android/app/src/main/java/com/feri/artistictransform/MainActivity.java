@@ -6,13 +6,23 @@ import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
+import android.graphics.Typeface;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.provider.MediaStore;
 import android.util.Log;
+import android.util.TypedValue;
+import android.view.View;
+import android.widget.HorizontalScrollView;
 import android.widget.ImageView;
+import android.widget.SeekBar;
+import android.widget.ScrollView;
+import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
@@ -23,29 +33,65 @@ import androidx.viewpager2.widget.ViewPager2;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 public class MainActivity extends AppCompatActivity {
     private static final int PERMISSION_CAMERA_REQUEST = 1;
     private static final int PERMISSION_GALLERY_REQUEST = 2;
     private static final int REQUEST_IMAGE_CAPTURE = 3;
     private static final int REQUEST_PICK_IMAGE = 4;
+    private static final int PERMISSION_LIVE_PREVIEW_REQUEST = 5;
+    // Cât de des se actualizează contoarele previzualizării live
+    private static final long LIVE_STATS_INTERVAL_MS = 500;
+    private static final String PHOTO_JOB_KEY = "photo";
+    // Latura maximă a imaginii decodate pentru trecerea în rezoluție mare
+    private static final int MAX_DECODED_IMAGE_SIZE = 2048;
 
     private ImageView previewImageView;
     private ViewPager2 stylesPager;
     private StylePagerAdapter stylePagerAdapter;
     private FloatingActionButton cameraButton;
-    private StyleTransferHelper styleTransferHelper;
+    private FloatingActionButton styleButton;
+    private FloatingActionButton metricsButton;
+    private FloatingActionButton liveButton;
+    private TextView liveStatsView;
+    private View gradePanel;
+    private SeekBar strengthSlider;
+    private SeekBar saturationSlider;
+    private SeekBar contrastSlider;
+    private StyleRegrader regrader;
+    private boolean draggingGrade;
+    private LivePreviewSession livePreview;
+    private long lastLiveStatsUpdate;
+    private StyleTransferLoader styleTransferLoader;
     private RecyclerView resultsRecyclerView;
     private StyleResultsAdapter styleResultsAdapter;
+    private final BitmapPool bitmapPool = BitmapPool.getDefault();
+    private final ThumbnailLoader thumbnails = new ThumbnailLoader(bitmapPool,
+            (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16));
+    private InferenceScheduler scheduler;
+    private RenderJobStore jobStore;
+    private InferenceScheduler.Job displayedJob;
+    private Bitmap lastOriginalImage;
+    private Bitmap lastFullImage;
+    private final StageMetrics metrics = StageMetrics.getDefault();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        scheduler = new InferenceScheduler();
+        jobStore = RenderJobStore.getDefault(this);
+        // Modelul se încarcă în fundal cât timp utilizatorul alege o fotografie
+        styleTransferLoader = new StyleTransferLoader(this);
+        styleTransferLoader.start();
         initializeViews();
         setupViewPager();
+        setupGradeSliders();
         setupClickListeners();
+        resumeUnfinishedJob();
     }
 
 
@@ -53,11 +99,19 @@ public class MainActivity extends AppCompatActivity {
         previewImageView = findViewById(R.id.previewImageView);
         stylesPager = findViewById(R.id.stylesPager);
         cameraButton = findViewById(R.id.cameraButton);
+        styleButton = findViewById(R.id.styleButton);
+        metricsButton = findViewById(R.id.metricsButton);
+        liveButton = findViewById(R.id.liveButton);
+        liveStatsView = findViewById(R.id.liveStatsView);
+        gradePanel = findViewById(R.id.gradePanel);
+        strengthSlider = findViewById(R.id.strengthSlider);
+        saturationSlider = findViewById(R.id.saturationSlider);
+        contrastSlider = findViewById(R.id.contrastSlider);
     }
 
     private void setupViewPager() {
         Log.d(TAG, "Setting up ViewPager");
-        stylePagerAdapter = new StylePagerAdapter();
+        stylePagerAdapter = new StylePagerAdapter(thumbnails);
         stylesPager.setAdapter(stylePagerAdapter);
         stylesPager.setOffscreenPageLimit(1);
 
@@ -66,18 +120,106 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onPageSelected(int position) {
                 Log.d(TAG, "Page selected: " + position);
+                // Paginile vecine sunt deja legate; pregătim miniaturile de dincolo de ele
+                stylesPager.post(() -> stylePagerAdapter.prefetchAround(position,
+                        stylesPager.getOffscreenPageLimit() + 1));
+                updateGradeSliders(position);
             }
         });
     }
 
+    /**
+     * Slider-ele recompun pagina curentă din straturile ei, fără inferență:
+     * o previzualizare la jumătate din rezoluție cât timp sunt trase și
+     * rezultatul complet la eliberare.
+     */
+    private void setupGradeSliders() {
+        regrader = new StyleRegrader(bitmapPool, new StyleRegrader.Listener() {
+            // Paginile sunt identificate prin variație: între cerere și rezultat
+            // pot apărea pagini noi înaintea lor
+            @Override
+            public void onPreview(int variant, StyleLayers layers, Bitmap preview) {
+                int position = stylePagerAdapter.positionOf(variant);
+                // Pagina poate fi între timp a altei fotografii
+                if (position >= 0 && stylePagerAdapter.getLayers(position) == layers) {
+                    stylePagerAdapter.showPreview(position, preview);
+                }
+            }
+
+            @Override
+            public void onRegraded(int variant, StyleLayers layers,
+                                   StyleCompositor.Grade grade, Bitmap result) {
+                if (!stylePagerAdapter.applyRegrade(variant, layers, grade, result)) {
+                    bitmapPool.put(result);
+                }
+            }
+        });
+
+        SeekBar.OnSeekBarChangeListener listener = new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                if (fromUser) {
+                    // Fără atingere (tastatură, accesibilitate) randăm direct rezultatul complet
+                    requestRegrade(draggingGrade);
+                }
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+                draggingGrade = true;
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                draggingGrade = false;
+                requestRegrade(false);
+            }
+        };
+        strengthSlider.setOnSeekBarChangeListener(listener);
+        saturationSlider.setOnSeekBarChangeListener(listener);
+        contrastSlider.setOnSeekBarChangeListener(listener);
+    }
+
+    private void requestRegrade(boolean preview) {
+        int position = stylesPager.getCurrentItem();
+        StyleLayers layers = stylePagerAdapter.getLayers(position);
+        if (layers == null) {
+            return;
+        }
+        StyleCompositor.Grade grade = new StyleCompositor.Grade(
+                strengthSlider.getProgress() / 100f,
+                saturationSlider.getProgress() / 100f,
+                0.5f + contrastSlider.getProgress() / 100f);
+        regrader.request(stylePagerAdapter.getVariant(position), layers, grade, preview);
+    }
+
+    /**
+     * Slider-ele arată reglajele paginii curente; sunt ascunse pentru paginile
+     * fără straturi.
+     */
+    private void updateGradeSliders(int position) {
+        if (stylePagerAdapter.getLayers(position) == null) {
+            gradePanel.setVisibility(View.GONE);
+            return;
+        }
+        StyleCompositor.Grade grade = stylePagerAdapter.getGrade(position);
+        strengthSlider.setProgress(Math.round(grade.getStrength() * 100));
+        saturationSlider.setProgress(Math.round(grade.getSaturation() * 100));
+        contrastSlider.setProgress(Math.round((grade.getContrast() - 0.5f) * 100));
+        gradePanel.setVisibility(View.VISIBLE);
+    }
+
     private void setupRecyclerView() {
-        styleResultsAdapter = new StyleResultsAdapter();
+        styleResultsAdapter = new StyleResultsAdapter(thumbnails);
         resultsRecyclerView.setLayoutManager(new GridLayoutManager(this, 2));
         resultsRecyclerView.setAdapter(styleResultsAdapter);
     }
 
     private void setupClickListeners() {
         cameraButton.setOnClickListener(v -> checkCameraPermission());
+        styleButton.setOnClickListener(v -> showStylePicker());
+        metricsButton.setOnClickListener(v -> showMetrics());
+        liveButton.setOnClickListener(v -> toggleLivePreview());
         previewImageView.setOnClickListener(v -> checkGalleryPermission());
     }
 
@@ -135,6 +277,8 @@ public class MainActivity extends AppCompatActivity {
                 openCamera();
             } else if (requestCode == PERMISSION_GALLERY_REQUEST) {
                 openGallery();
+            } else if (requestCode == PERMISSION_LIVE_PREVIEW_REQUEST) {
+                startLivePreview();
             }
         } else {
             Toast.makeText(this, "Permission denied", Toast.LENGTH_SHORT).show();
@@ -146,26 +290,27 @@ public class MainActivity extends AppCompatActivity {
         super.onActivityResult(requestCode, resultCode, data);
         if (resultCode == RESULT_OK) {
             try {
-                Bitmap imageBitmap = null;
-                int rotation = 0;
+                long start = metrics.begin();
+                Bitmap fullImage = null;
 
                 if (requestCode == REQUEST_IMAGE_CAPTURE && data != null) {
-                    imageBitmap = (Bitmap) data.getExtras().get("data");
-                    // Camera photos are usually correctly oriented
+                    // Camera întoarce doar o miniatură, deja orientată corect
+                    fullImage = (Bitmap) data.getExtras().get("data");
                 } else if (requestCode == REQUEST_PICK_IMAGE && data != null) {
                     Uri imageUri = data.getData();
-                    // Obținem rotația pentru imagini din galerie
-                    rotation = ImageProcessorHelper.getImageRotation(this, imageUri);
-                    imageBitmap = MediaStore.Images.Media.getBitmap(getContentResolver(), imageUri);
+                    // Decodăm direct la dimensiunea necesară, cu orientarea aplicată
+                    fullImage = ImageProcessorHelper.decodeSampledBitmap(this, imageUri,
+                            MAX_DECODED_IMAGE_SIZE, MAX_DECODED_IMAGE_SIZE);
                 }
 
-                if (imageBitmap != null) {
-                    // Aplicăm rotația și afișăm imaginea
-                    Bitmap correctedImage = ImageProcessorHelper.preprocessImage(imageBitmap, rotation);
+                if (fullImage != null) {
+                    metrics.end(StageMetrics.DECODE, null, start);
+                    // Afișăm imaginea redusă la dimensiunea modelului
+                    Bitmap correctedImage = ImageProcessorHelper.preprocessImage(fullImage, 0);
                     previewImageView.setImageBitmap(correctedImage);
 
                     // Procesăm imaginea corectată
-                    processImage(correctedImage);
+                    processImage(correctedImage, fullImage);
                 }
             } catch (IOException e) {
                 e.printStackTrace();
@@ -175,49 +320,421 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private void processImage(Bitmap originalImage) {
-        Log.d(TAG, "Starting image processing");
+    /**
+     * Așteaptă inițializarea din fundal. Se apelează doar de pe planificator;
+     * întoarce null și afișează eroarea dacă modelul nu a putut fi încărcat.
+     */
+    private StyleTransferHelper awaitStyleTransferHelper() throws InterruptedException {
+        try {
+            return styleTransferLoader.await();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            Log.e(TAG, "Error creating StyleTransferHelper: " + cause.getMessage(), cause);
+            showError("Error initializing style transfer: " + cause.getMessage());
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        }
+    }
 
+    /**
+     * Lista stilurilor din registru; alegerea unuia reface ultima fotografie.
+     */
+    private void showStylePicker() {
+        final StyleTransferHelper styleTransferHelper = styleTransferLoader.getIfReady();
         if (styleTransferHelper == null) {
-            try {
-                Log.d(TAG, "Creating new StyleTransferHelper");
-                styleTransferHelper = new StyleTransferHelper(this);
-            } catch (Exception e) {
-                Log.e(TAG, "Error creating StyleTransferHelper: " + e.getMessage(), e);
-                showError("Error initializing style transfer: " + e.getMessage());
-                return;
+            Toast.makeText(this, "Style models are still loading", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        final List<StyleModel> styles = styleTransferHelper.getAvailableStyles();
+        String[] names = new String[styles.size()];
+        int checked = -1;
+        for (int i = 0; i < styles.size(); i++) {
+            names[i] = styles.get(i).getDisplayName();
+            if (styles.get(i).getId().equals(styleTransferHelper.getStyle())) {
+                checked = i;
             }
         }
+        new AlertDialog.Builder(this)
+                .setTitle("Style")
+                .setSingleChoiceItems(names, checked, (dialog, which) -> {
+                    dialog.dismiss();
+                    selectStyle(styles.get(which).getId());
+                })
+                .show();
+    }
 
-        // Procesăm imaginea în background
-        new Thread(() -> {
-            try {
-                Log.d(TAG, "Starting background processing");
-                final List<Bitmap> styledResults = styleTransferHelper.generateStyles(originalImage);
-                Log.d(TAG, "Processing completed, results size: " +
-                        (styledResults != null ? styledResults.size() : "null"));
-
-                // Actualizăm UI pe thread-ul principal
-                runOnUiThread(() -> {
-                    try {
-                        if (styledResults != null && !styledResults.isEmpty()) {
-                            Log.d(TAG, "Updating UI with results");
-                            stylePagerAdapter.setStyles(styledResults);
-                            stylesPager.setCurrentItem(0, false);
-                        } else {
-                            Log.e(TAG, "No results generated");
-                            showError("No style results generated");
+    private void toggleLivePreview() {
+        if (livePreview != null) {
+            stopLivePreview();
+        } else if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
+                != PackageManager.PERMISSION_GRANTED) {
+            ActivityCompat.requestPermissions(this,
+                    new String[]{Manifest.permission.CAMERA},
+                    PERMISSION_LIVE_PREVIEW_REQUEST);
+        } else {
+            startLivePreview();
+        }
+    }
+
+    /**
+     * Cadrele camerei stilizate în timp real înlocuiesc previzualizarea.
+     */
+    private void startLivePreview() {
+        StyleTransferHelper styleTransferHelper = styleTransferLoader.getIfReady();
+        if (styleTransferHelper == null) {
+            Toast.makeText(this, "Style models are still loading", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        livePreview = new LivePreviewSession(this, styleTransferHelper,
+                new LivePreviewSession.Listener() {
+                    @Override
+                    public void onFrame(Bitmap frame) {
+                        previewImageView.setImageBitmap(frame);
+                        long now = SystemClock.uptimeMillis();
+                        if (now - lastLiveStatsUpdate >= LIVE_STATS_INTERVAL_MS) {
+                            lastLiveStatsUpdate = now;
+                            liveStatsView.setText(livePreview.getStats());
                         }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error updating UI: " + e.getMessage(), e);
-                        showError("Error updating UI: " + e.getMessage());
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        showError(message);
+                        stopLivePreview();
                     }
                 });
+        liveStatsView.setText(null);
+        liveStatsView.setVisibility(View.VISIBLE);
+        livePreview.start();
+    }
+
+    private void stopLivePreview() {
+        if (livePreview == null) {
+            return;
+        }
+        // Bitmap-urile sesiunii se întorc în pool, deci nu mai pot fi afișate
+        previewImageView.setImageBitmap(lastOriginalImage);
+        livePreview.stop();
+        livePreview = null;
+        liveStatsView.setVisibility(View.GONE);
+    }
+
+    /**
+     * Percentilele latenței pe etape, cu opțiunea de a exporta raportul ca text.
+     */
+    private void showMetrics() {
+        final String report = metrics.report(metricsHeader());
+        TextView reportView = new TextView(this);
+        reportView.setTypeface(Typeface.MONOSPACE);
+        reportView.setTextSize(TypedValue.COMPLEX_UNIT_SP, 10);
+        reportView.setTextIsSelectable(true);
+        int padding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 16,
+                getResources().getDisplayMetrics());
+        reportView.setPadding(padding, padding, padding, padding);
+        reportView.setText(report);
+        HorizontalScrollView horizontal = new HorizontalScrollView(this);
+        horizontal.addView(reportView);
+        ScrollView scroll = new ScrollView(this);
+        scroll.addView(horizontal);
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.latency_metrics)
+                .setView(scroll)
+                .setPositiveButton(R.string.share, (dialog, which) -> shareReport(report))
+                .setNeutralButton(R.string.reset, (dialog, which) -> metrics.reset())
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    private String metricsHeader() {
+        StringBuilder header = new StringBuilder()
+                .append(Build.MANUFACTURER).append(' ').append(Build.MODEL)
+                .append(", API ").append(Build.VERSION.SDK_INT);
+        StyleTransferHelper styleTransferHelper = styleTransferLoader.getIfReady();
+        if (styleTransferHelper != null) {
+            header.append("\nStyle ").append(styleTransferHelper.getStyle())
+                    .append(", ").append(styleTransferHelper.getModelPrecision())
+                    .append(", ").append(styleTransferHelper.getBackendConfig());
+            header.append("\nCold start ").append(styleTransferLoader.getColdStartMillis())
+                    .append(" ms, first inference ")
+                    .append(styleTransferLoader.getFirstInferenceMillis()).append(" ms");
+        }
+        header.append("\nBitmap pool: ").append(bitmapPool.getStats());
+        header.append("\nThumbnails: ").append(thumbnails.getStats());
+        return header.toString();
+    }
+
+    private void shareReport(String report) {
+        Intent send = new Intent(Intent.ACTION_SEND);
+        send.setType("text/plain");
+        send.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.latency_metrics));
+        send.putExtra(Intent.EXTRA_TEXT, report);
+        startActivity(Intent.createChooser(send, getString(R.string.share)));
+    }
+
+    private void selectStyle(String styleId) {
+        // Încărcarea unui model rece durează, deci rulează pe planificator
+        final InferenceScheduler.Job job = scheduler.newJob(PHOTO_JOB_KEY);
+        scheduler.submit(job, InferenceScheduler.PRIORITY_PREVIEW, j -> {
+            StyleTransferHelper styleTransferHelper = awaitStyleTransferHelper();
+            if (styleTransferHelper == null) {
+                return;
+            }
+            try {
+                styleTransferHelper.setStyle(styleId);
             } catch (Exception e) {
-                Log.e(TAG, "Error in background processing: " + e.getMessage(), e);
-                showError("Error processing image: " + e.getMessage());
+                Log.e(TAG, "Error switching style: " + e.getMessage(), e);
+                showError("Error loading style: " + e.getMessage());
+                return;
+            }
+            if (lastOriginalImage != null && !j.isCancelled()) {
+                runOnUiThread(() -> processImage(lastOriginalImage, lastFullImage));
             }
-        }).start();
+        });
+    }
+
+    private void processImage(Bitmap originalImage, Bitmap fullImage) {
+        processImage(originalImage, fullImage, null);
+    }
+
+    /**
+     * Pornește jobul foto și îl înregistrează în jurnal. Pentru un job reluat
+     * ({@code resumed} nenul), părțile deja salvate se afișează din fișiere și
+     * doar cele lipsă se calculează.
+     */
+    private void processImage(Bitmap originalImage, Bitmap fullImage,
+                              final RenderJournal.Job resumed) {
+        Log.d(TAG, "Starting image processing");
+
+        lastOriginalImage = originalImage;
+        lastFullImage = fullImage;
+
+        // Un job nou anulează jobul foto anterior, chiar dacă rulează deja
+        final InferenceScheduler.Job job = scheduler.newJob(PHOTO_JOB_KEY);
+        final String jobId = resumed != null ? resumed.getId() : RenderJournal.newJobId();
+
+        // Întâi cele patru variații de previzualizare, apoi rezoluția mare
+        scheduler.submit(job, InferenceScheduler.PRIORITY_PREVIEW, j -> {
+            // Prima fotografie așteaptă aici, pe planificator, terminarea inițializării
+            StyleTransferHelper styleTransferHelper = awaitStyleTransferHelper();
+            if (styleTransferHelper == null) {
+                scheduler.cancel(job);
+                return;
+            }
+            if (resumed == null) {
+                jobStore.begin(jobId, styleTransferHelper.getStyle(), fullImage);
+            } else if (!resumed.getStyleId().equals(styleTransferHelper.getStyle())) {
+                try {
+                    styleTransferHelper.setStyle(resumed.getStyleId());
+                } catch (Exception e) {
+                    Log.e(TAG, "Cannot restore style " + resumed.getStyleId()
+                            + ", restarting job: " + e.getMessage(), e);
+                    // Părțile salvate au alt stil decât cel curent, deci jobul reluat
+                    // se închide și fotografia se procesează de la zero, într-un stil
+                    scheduler.cancel(job);
+                    jobStore.finish(jobId);
+                    runOnUiThread(() -> {
+                        // Între timp utilizatorul poate să fi ales altă fotografie
+                        if (lastFullImage == fullImage) {
+                            processImage(originalImage, fullImage);
+                        }
+                    });
+                    return;
+                }
+            }
+
+            boolean[] restored = new boolean[StyleTransferHelper.VARIANT_COUNT];
+            boolean[] savedParts = resumed != null
+                    ? jobStore.getSavedParts(resumed) : new boolean[restored.length];
+            int restoredCount = 0;
+            for (int variant = 0; variant < restored.length; variant++) {
+                if (!savedParts[variant]) {
+                    continue;
+                }
+                final int restoredVariant = variant;
+                final Bitmap saved = jobStore.loadResult(resumed, variant);
+                if (saved != null) {
+                    restored[variant] = true;
+                    restoredCount++;
+                    runOnUiThread(() -> showStyle(job, restoredVariant, saved, null));
+                }
+            }
+            final boolean nothingRestored = restoredCount == 0;
+
+            Log.d(TAG, "Starting background processing, " + restoredCount + " variants restored");
+            // Straturile permit recompunerea din slider-e fără o nouă inferență
+            styleTransferHelper.setRetainLayers(true);
+            styleTransferHelper.generateStyles(originalImage, new StyleResultListener() {
+                @Override
+                public void onStyleResult(int variant, Bitmap result) {
+                    onStyleResult(variant, result, null);
+                }
+
+                @Override
+                public void onStyleResult(int variant, Bitmap result, StyleLayers layers) {
+                    jobStore.saveResult(jobId, variant, result);
+                    // Fiecare variație apare în UI imediat ce este gata
+                    runOnUiThread(() -> showStyle(job, variant, result, layers));
+                }
+
+                @Override
+                public void onStylesComplete(int delivered, boolean cancelled) {
+                    Log.d(TAG, "Processing completed, results: " + delivered
+                            + (cancelled ? " (cancelled)" : ""));
+                    if (!cancelled && delivered == 0 && nothingRestored) {
+                        Log.e(TAG, "No results generated");
+                        showError("No style results generated");
+                        scheduler.cancel(job);
+                    }
+                }
+            }, j.getSignal(), restored);
+        });
+        scheduler.submit(job, InferenceScheduler.PRIORITY_EXTRA,
+                j -> processHighResolution(j, fullImage, jobId, resumed));
+    }
+
+    /**
+     * Stilul principal este refăcut la rezoluția completă, pe tile-uri, și
+     * înlocuiește pagina variației originale. Este ultima parte a jobului, deci la final
+     * jobul se marchează terminat în jurnal.
+     */
+    private void processHighResolution(InferenceScheduler.Job job, Bitmap fullImage,
+                                       String jobId, RenderJournal.Job resumed) {
+        try {
+            StyleTransferHelper styleTransferHelper = awaitStyleTransferHelper();
+            if (styleTransferHelper == null) {
+                return;
+            }
+            Bitmap saved = resumed != null
+                    && jobStore.getSavedParts(resumed)[RenderJobStore.HIGH_RESOLUTION]
+                    ? jobStore.loadResult(resumed, RenderJobStore.HIGH_RESOLUTION) : null;
+            final Bitmap highResolution = saved != null ? saved
+                    : styleTransferHelper.processHighResolution(fullImage, job.getSignal());
+            if (job.isCancelled()) {
+                // Jobul întrerupt rămâne în jurnal și poate fi reluat
+                bitmapPool.put(highResolution);
+                return;
+            }
+            if (highResolution != null && saved == null) {
+                jobStore.saveResult(jobId, RenderJobStore.HIGH_RESOLUTION, highResolution);
+            }
+            jobStore.finish(jobId);
+            if (highResolution == null) {
+                return;
+            }
+            runOnUiThread(() -> {
+                // Rezultatul unui job înlocuit nu ajunge în adaptor
+                if (job.isCancelled() || job != displayedJob) {
+                    bitmapPool.put(highResolution);
+                    return;
+                }
+                // Straturile de 256 px nu mai corespund paginii, deci ea nu mai
+                // poate fi recompusă și reglajele revin la cele neutre
+                int position = stylePagerAdapter.putStyle(
+                        StyleTransferHelper.ORIGINAL, highResolution, null);
+                if (position == stylesPager.getCurrentItem()) {
+                    updateGradeSliders(position);
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Error in background processing: " + e.getMessage(), e);
+            showError("Error processing image: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reia jobul foto rămas neterminat, de exemplu după ce procesul a fost
+     * oprit în fundal sau activitatea a fost recreată la rotire.
+     */
+    private void resumeUnfinishedJob() {
+        final InferenceScheduler.Job job = scheduler.newJob(PHOTO_JOB_KEY);
+        scheduler.submit(job, InferenceScheduler.PRIORITY_PREVIEW, j -> {
+            final RenderJournal.Job unfinished = jobStore.getUnfinishedJob();
+            if (unfinished == null || j.isCancelled()) {
+                return;
+            }
+            final Bitmap fullImage = jobStore.loadInput(unfinished);
+            if (fullImage == null) {
+                Log.w(TAG, "Input of job " + unfinished.getId() + " is missing");
+                jobStore.finish(unfinished.getId());
+                return;
+            }
+            final Bitmap correctedImage = ImageProcessorHelper.preprocessImage(fullImage, 0);
+            Log.d(TAG, "Resuming job " + unfinished.getId() + ", finished parts "
+                    + unfinished.getParts().keySet());
+            runOnUiThread(() -> {
+                // Între timp utilizatorul poate să fi ales altă fotografie
+                if (j.isCancelled()) {
+                    return;
+                }
+                previewImageView.setImageBitmap(correctedImage);
+                processImage(correctedImage, fullImage, unfinished);
+            });
+        });
+    }
+
+    /**
+     * Pune o variație pe pagina ei din pager. Rezultatele unui job anulat se
+     * întorc în pool.
+     */
+    private void showStyle(InferenceScheduler.Job job, int variant, Bitmap result,
+                           StyleLayers layers) {
+        if (job.isCancelled()) {
+            bitmapPool.put(result);
+            return;
+        }
+        long start = metrics.begin();
+        try {
+            if (job != displayedJob) {
+                // Primul rezultat al unui job nou înlocuiește paginile vechi,
+                // iar bitmap-urile lor se întorc în pool
+                Log.d(TAG, "Updating UI with results");
+                stylePagerAdapter.clearStyles();
+                displayedJob = job;
+            }
+            int position = stylePagerAdapter.putStyle(variant, result, layers);
+            if (stylePagerAdapter.getItemCount() == 1) {
+                stylesPager.setCurrentItem(0, false);
+            }
+            if (position == stylesPager.getCurrentItem()) {
+                updateGradeSliders(position);
+            }
+            metrics.end(StageMetrics.UI_BIND, null, start);
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating UI: " + e.getMessage(), e);
+            showError("Error updating UI: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            Log.d(TAG, "Trimming bitmap pool: " + bitmapPool.getStats());
+            bitmapPool.clear();
+            thumbnails.clearCache();
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Camera este eliberată cât timp activitatea nu este vizibilă
+        stopLivePreview();
+        // Procesul poate fi oprit oricând în fundal
+        jobStore.flush();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Oprim întâi planificatorul, ca nicio sarcină să nu mai folosească helper-ul
+        scheduler.shutdown();
+        // Dacă inițializarea încă rulează, helper-ul se închide când termină
+        styleTransferLoader.close();
+        thumbnails.close();
+        regrader.close();
     }
 
     private void showError(String message) {
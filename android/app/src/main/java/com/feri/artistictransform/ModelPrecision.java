@@ -0,0 +1,70 @@
+package com.feri.artistictransform;
+
+import android.content.Context;
+
+import java.util.Collection;
+
+/**
+ * Variantele aceluiași model de stil, după precizia ponderilor. Modelul int8
+ * are și intrarea/ieșirea cuantizate; cel float16 păstrează intrarea și
+ * ieșirea float32. {@link #AUTO} alege după dispozitiv.
+ */
+public enum ModelPrecision {
+    AUTO(null),
+    FLOAT32("model.tflite"),
+    FLOAT16("model_fp16.tflite"),
+    INT8("model_int8.tflite");
+
+    private static final String PREFERENCES_NAME = "style_settings";
+    private static final String PRECISION_KEY = "model_precision";
+
+    private final String assetPath;
+
+    ModelPrecision(String assetPath) {
+        this.assetPath = assetPath;
+    }
+
+    public String getAssetPath() {
+        return assetPath;
+    }
+
+    /**
+     * Alege varianta concretă. O precizie cerută explicit este folosită dacă
+     * modelul ei există; altfel, pe dispozitivele cu GPU compatibil se preferă
+     * float16 (GPU-ul calculează nativ în float16), iar pe CPU/NNAPI int8.
+     * Float32 rămâne varianta de rezervă, mereu inclusă în aplicație.
+     */
+    public static ModelPrecision resolve(ModelPrecision requested, Collection<String> availableAssets,
+                                         boolean gpuSupported) {
+        if (requested != null && requested != AUTO
+                && availableAssets.contains(requested.assetPath)) {
+            return requested;
+        }
+        if (gpuSupported && availableAssets.contains(FLOAT16.assetPath)) {
+            return FLOAT16;
+        }
+        if (!gpuSupported && availableAssets.contains(INT8.assetPath)) {
+            return INT8;
+        }
+        return FLOAT32;
+    }
+
+    /**
+     * Precizia aleasă în setări; implicit {@link #AUTO}.
+     */
+    public static ModelPrecision loadSetting(Context context) {
+        String name = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE)
+                .getString(PRECISION_KEY, AUTO.name());
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return AUTO;
+        }
+    }
+
+    public static void saveSetting(Context context, ModelPrecision precision) {
+        context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE).edit()
+                .putString(PRECISION_KEY, precision.name())
+                .apply();
+    }
+}
@@ -0,0 +1,351 @@
+package com.feri.artistictransform;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lista modelelor de stil disponibile: modelul implicit, cele din
+ * {@code assets/styles/} și cele descărcate în {@code files/styles/} (acestea
+ * au prioritate la același id). Fiecare model este mapat o singură dată, iar
+ * maparea este împărțită de toate interpretoarele lui. Doar ultimele modele
+ * folosite rămân încărcate ("calde"), în limita unui număr maxim și a unui
+ * buget de memorie; schimbarea stilului către un model cald este doar o
+ * căutare în tabel. Un job își ține modelul cu {@link #retain} până la
+ * {@link #release}, iar un model scos din lista caldă cât timp este ținut își
+ * închide interpretoarele abia la ultima eliberare.
+ */
+public class ModelRegistry {
+
+    private static final String TAG = "ModelRegistry";
+
+    public static final String DEFAULT_STYLE = "default";
+    private static final String STYLES_DIRECTORY = "styles";
+    private static final String MODEL_SUFFIX = ".tflite";
+
+    /** Creează pool-ul de interpretoare peste maparea unui model. */
+    public interface PoolFactory {
+        InterpreterPool create(StyleModel model, MappedByteBuffer mapping) throws Exception;
+    }
+
+    /** Un model încărcat: pool-ul lui și identitatea conținutului. */
+    public static final class WarmModel {
+        private final StyleModel model;
+        private final InterpreterPool pool;
+        private final String contentHash;
+        private final long modelBytes;
+        private final long estimatedBytes;
+        // Protejate de registru
+        private int holds;
+        private boolean evicted;
+
+        WarmModel(StyleModel model, InterpreterPool pool, String contentHash, long modelBytes) {
+            this.model = model;
+            this.pool = pool;
+            this.contentHash = contentHash;
+            this.modelBytes = modelBytes;
+            // Fiecare interpretor își ține ponderile pregătite (de exemplu pentru
+            // XNNPACK), deci costul crește cu mărimea pool-ului
+            this.estimatedBytes = modelBytes * (1 + pool.getPoolSize());
+        }
+
+        public StyleModel getModel() {
+            return model;
+        }
+
+        public InterpreterPool getPool() {
+            return pool;
+        }
+
+        /** Hash-ul fișierului modelului, folosit în cheile de cache. */
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        public long getModelBytes() {
+            return modelBytes;
+        }
+
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+    }
+
+    private final Context context;
+    private final String defaultModelPath;
+    private final int maxWarmModels;
+    private final long memoryBudgetBytes;
+    private final PoolFactory poolFactory;
+
+    private final List<StyleModel> fixedModels;
+    private final Map<String, StyleModel> models = new LinkedHashMap<>();
+    private final Map<String, MappedByteBuffer> mappings = new HashMap<>();
+    // Sursa fiecărei mapări, ca refresh să observe un fișier înlocuit
+    private final Map<String, String> mappedSources = new HashMap<>();
+    private final Map<String, String> contentHashes = new HashMap<>();
+    // Semnăturile citite, după hash-ul conținutului; un model înlocuit primește alt
+    // hash la refresh, deci semnătura lui se recitește
+    private final Map<String, ModelSignature> signatures = new HashMap<>();
+    // Modelele calde, în ordinea folosirii (cel mai vechi primul)
+    private final LinkedHashMap<String, WarmModel> warmModels = new LinkedHashMap<>(8, 0.75f, true);
+    private long warmBytes;
+
+    /**
+     * @param defaultModelPath  calea din assets a modelului implicit
+     * @param maxWarmModels     câte modele pot avea interpretoare încărcate simultan
+     * @param memoryBudgetBytes bugetul estimat pentru modelele calde
+     */
+    public ModelRegistry(Context context, String defaultModelPath, int maxWarmModels,
+                         long memoryBudgetBytes, PoolFactory poolFactory) {
+        this(context, defaultModelPath, null, maxWarmModels, memoryBudgetBytes, poolFactory);
+    }
+
+    /**
+     * Un registru cu o listă fixă de modele din fișiere, fără Context; folosit
+     * de testele pe JVM.
+     */
+    ModelRegistry(List<StyleModel> fixedModels, int maxWarmModels, long memoryBudgetBytes,
+                  PoolFactory poolFactory) {
+        this(null, null, fixedModels, maxWarmModels, memoryBudgetBytes, poolFactory);
+    }
+
+    private ModelRegistry(Context context, String defaultModelPath, List<StyleModel> fixedModels,
+                          int maxWarmModels, long memoryBudgetBytes, PoolFactory poolFactory) {
+        if (maxWarmModels < 1) {
+            throw new IllegalArgumentException("maxWarmModels must be positive: " + maxWarmModels);
+        }
+        this.context = context;
+        this.defaultModelPath = defaultModelPath;
+        this.fixedModels = fixedModels;
+        this.maxWarmModels = maxWarmModels;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.poolFactory = poolFactory;
+        refresh();
+    }
+
+    /**
+     * Recitește lista de modele, de exemplu după o descărcare. Un model
+     * dispărut sau al cărui fișier s-a schimbat (mărime sau dată) își pierde
+     * maparea și hash-ul și iese din lista caldă, deci următorul
+     * {@link #get(String)} îl încarcă din nou.
+     */
+    public synchronized void refresh() {
+        models.clear();
+        if (context == null) {
+            for (StyleModel model : fixedModels) {
+                models.put(model.getId(), model);
+            }
+        } else {
+            findModels();
+        }
+
+        Iterator<Map.Entry<String, String>> mapped = mappedSources.entrySet().iterator();
+        while (mapped.hasNext()) {
+            Map.Entry<String, String> entry = mapped.next();
+            String id = entry.getKey();
+            StyleModel model = models.get(id);
+            if (model != null && model.getSourceStamp().equals(entry.getValue())) {
+                continue;
+            }
+            mapped.remove();
+            mappings.remove(id);
+            contentHashes.remove(id);
+            WarmModel warm = warmModels.remove(id);
+            if (warm != null) {
+                warmBytes -= warm.getEstimatedBytes();
+                unload(warm);
+            }
+            Log.d(TAG, "Style " + id + " changed on disk");
+        }
+        Log.d(TAG, "Available styles: " + models.keySet());
+    }
+
+    private void findModels() {
+        models.put(DEFAULT_STYLE, StyleModel.fromAsset(DEFAULT_STYLE, defaultModelPath));
+        try {
+            String[] assets = context.getAssets().list(STYLES_DIRECTORY);
+            if (assets != null) {
+                for (String asset : assets) {
+                    if (asset.endsWith(MODEL_SUFFIX)) {
+                        String id = asset.substring(0, asset.length() - MODEL_SUFFIX.length());
+                        models.put(id, StyleModel.fromAsset(id, STYLES_DIRECTORY + "/" + asset));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Error listing style assets: " + e.getMessage());
+        }
+
+        File[] downloaded = getDownloadDirectory(context).listFiles();
+        if (downloaded != null) {
+            for (File file : downloaded) {
+                String name = file.getName();
+                if (file.isFile() && name.endsWith(MODEL_SUFFIX)) {
+                    String id = name.substring(0, name.length() - MODEL_SUFFIX.length());
+                    models.put(id, StyleModel.fromFile(id, file));
+                }
+            }
+        }
+    }
+
+    /**
+     * Directorul în care se salvează modelele descărcate.
+     */
+    public static File getDownloadDirectory(Context context) {
+        return new File(context.getFilesDir(), STYLES_DIRECTORY);
+    }
+
+    public synchronized List<StyleModel> getModels() {
+        return new ArrayList<>(models.values());
+    }
+
+    public synchronized StyleModel getModel(String id) {
+        return models.get(id);
+    }
+
+    /**
+     * Maparea modelului, creată la prima cerere și apoi refolosită.
+     */
+    public synchronized MappedByteBuffer map(String id) throws IOException {
+        MappedByteBuffer mapping = mappings.get(id);
+        if (mapping == null) {
+            StyleModel model = requireModel(id);
+            mapping = model.map(context);
+            mappings.put(id, mapping);
+            mappedSources.put(id, model.getSourceStamp());
+            Log.d(TAG, "Mapped " + model + ", " + mapping.capacity() + " bytes");
+        }
+        return mapping;
+    }
+
+    /**
+     * Modelul cu interpretoarele gata de folosit. Dacă nu este deja cald, îl
+     * încarcă și eliberează cele mai vechi modele care depășesc limitele.
+     */
+    public synchronized WarmModel get(String id) throws Exception {
+        WarmModel warm = warmModels.get(id);
+        if (warm != null) {
+            return warm;
+        }
+
+        StyleModel model = requireModel(id);
+        MappedByteBuffer mapping = map(id);
+        String contentHash = contentHash(id);
+        warm = new WarmModel(model, poolFactory.create(model, mapping), contentHash,
+                mapping.capacity());
+        warmModels.put(id, warm);
+        warmBytes += warm.getEstimatedBytes();
+        Log.d(TAG, "Loaded style " + id + ", ~" + warm.getEstimatedBytes() / 1024 + " KB");
+        trimWarmModels(id);
+        return warm;
+    }
+
+    /**
+     * Tensorii și operațiile modelului, citite din fișierul mapat fără
+     * interpretor. Se poate apela înainte de {@link #get(String)}, de exemplu
+     * pentru a verifica un model descărcat.
+     */
+    public synchronized ModelSignature getSignature(String id) throws IOException {
+        String contentHash = contentHash(id);
+        ModelSignature signature = signatures.get(contentHash);
+        if (signature == null) {
+            signature = ModelSignature.read(map(id), contentHash);
+            signatures.put(contentHash, signature);
+            Log.d(TAG, "Signature of " + id + ": " + signature);
+        }
+        return signature;
+    }
+
+    public synchronized boolean isWarm(String id) {
+        return warmModels.containsKey(id);
+    }
+
+    /**
+     * Ține modelul deschis până la {@link #release}, chiar dacă între timp
+     * iese din lista caldă. Întoarce false dacă interpretoarele lui au fost
+     * deja închise; apelantul trebuie atunci să ia modelul din nou.
+     */
+    public synchronized boolean retain(WarmModel warm) {
+        if (warm.getPool().isClosed()) {
+            return false;
+        }
+        warm.holds++;
+        return true;
+    }
+
+    /**
+     * Eliberează un model ținut cu {@link #retain}; ultima eliberare a unui
+     * model scos din lista caldă îi închide interpretoarele.
+     */
+    public synchronized void release(WarmModel warm) {
+        if (warm.holds <= 0) {
+            throw new IllegalStateException("Model " + warm.getModel().getId() + " is not held");
+        }
+        warm.holds--;
+        if (warm.holds == 0 && warm.evicted) {
+            warm.getPool().close();
+            Log.d(TAG, "Closed evicted style " + warm.getModel().getId() + " after last release");
+        }
+    }
+
+    public synchronized void close() {
+        for (WarmModel warm : warmModels.values()) {
+            warm.getPool().close();
+        }
+        warmModels.clear();
+        warmBytes = 0;
+    }
+
+    private void trimWarmModels(String keep) {
+        Iterator<Map.Entry<String, WarmModel>> iterator = warmModels.entrySet().iterator();
+        while ((warmModels.size() > maxWarmModels || warmBytes > memoryBudgetBytes)
+                && iterator.hasNext()) {
+            Map.Entry<String, WarmModel> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            WarmModel warm = eldest.getValue();
+            warmBytes -= warm.getEstimatedBytes();
+            iterator.remove();
+            unload(warm);
+        }
+    }
+
+    private void unload(WarmModel warm) {
+        if (warm.holds > 0) {
+            // Un job rulează încă pe model; îl închide ultima eliberare
+            warm.evicted = true;
+            Log.d(TAG, "Unloaded style " + warm.getModel().getId() + ", " + warm.holds
+                    + " jobs still running");
+        } else {
+            warm.getPool().close();
+            Log.d(TAG, "Unloaded style " + warm.getModel().getId());
+        }
+    }
+
+    private String contentHash(String id) throws IOException {
+        String contentHash = contentHashes.get(id);
+        if (contentHash == null) {
+            contentHash = ContentHash.toHex(ContentHash.of(map(id)));
+            contentHashes.put(id, contentHash);
+        }
+        return contentHash;
+    }
+
+    private StyleModel requireModel(String id) {
+        StyleModel model = models.get(id);
+        if (model == null) {
+            throw new IllegalArgumentException("Unknown style: " + id);
+        }
+        return model;
+    }
+}
@@ -0,0 +1,451 @@
+package com.feri.artistictransform;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Semnătura unui model TFLite citită direct din flatbuffer-ul lui, fără
+ * interpretor: tensorii de intrare și ieșire (formă, tip, cuantizare) și
+ * numărul de operații pe tip. Citirea atinge doar antetul grafului, nu
+ * ponderile, deci pe un fișier mapat costă microsecunde și nu alocă
+ * tensori. Nu depinde de Android.
+ */
+public final class ModelSignature {
+
+    private static final String FILE_IDENTIFIER = "TFL3";
+
+    // Câmpurile din schema TFLite folosite aici (schema.fbs)
+    private static final int MODEL_VERSION = 0;
+    private static final int MODEL_OPERATOR_CODES = 1;
+    private static final int MODEL_SUBGRAPHS = 2;
+    private static final int MODEL_DESCRIPTION = 3;
+    private static final int OPCODE_DEPRECATED_BUILTIN = 0;
+    private static final int OPCODE_CUSTOM = 1;
+    private static final int OPCODE_BUILTIN = 3;
+    private static final int SUBGRAPH_TENSORS = 0;
+    private static final int SUBGRAPH_INPUTS = 1;
+    private static final int SUBGRAPH_OUTPUTS = 2;
+    private static final int SUBGRAPH_OPERATORS = 3;
+    private static final int TENSOR_SHAPE = 0;
+    private static final int TENSOR_TYPE = 1;
+    private static final int TENSOR_NAME = 3;
+    private static final int TENSOR_QUANTIZATION = 4;
+    private static final int TENSOR_SHAPE_SIGNATURE = 7;
+    private static final int QUANTIZATION_SCALE = 2;
+    private static final int QUANTIZATION_ZERO_POINT = 3;
+    private static final int OPERATOR_OPCODE_INDEX = 0;
+    private static final int BUILTIN_CUSTOM = 32;
+
+    public static final int TYPE_FLOAT32 = 0;
+    public static final int TYPE_UINT8 = 3;
+    public static final int TYPE_INT8 = 9;
+
+    // Enumerarea TensorType, în ordinea din schemă
+    private static final String[] TYPE_NAMES = {
+            "FLOAT32", "FLOAT16", "INT32", "UINT8", "INT64", "STRING", "BOOL", "INT16",
+            "COMPLEX64", "INT8", "FLOAT64", "COMPLEX128", "UINT64", "RESOURCE", "VARIANT",
+            "UINT32", "UINT16", "INT4"
+    };
+    private static final int[] TYPE_BYTES = {4, 2, 4, 1, 8, 0, 1, 2, 8, 1, 8, 16, 8, 0, 0, 4, 2, 0};
+
+    // Enumerarea BuiltinOperator, în ordinea din schemă
+    private static final String[] OPERATOR_NAMES = {
+            "ADD", "AVERAGE_POOL_2D", "CONCATENATION", "CONV_2D", "DEPTHWISE_CONV_2D",
+            "DEPTH_TO_SPACE", "DEQUANTIZE", "EMBEDDING_LOOKUP", "FLOOR", "FULLY_CONNECTED",
+            "HASHTABLE_LOOKUP", "L2_NORMALIZATION", "L2_POOL_2D", "LOCAL_RESPONSE_NORMALIZATION",
+            "LOGISTIC", "LSH_PROJECTION", "LSTM", "MAX_POOL_2D", "MUL", "RELU", "RELU_N1_TO_1",
+            "RELU6", "RESHAPE", "RESIZE_BILINEAR", "RNN", "SOFTMAX", "SPACE_TO_DEPTH", "SVDF",
+            "TANH", "CONCAT_EMBEDDINGS", "SKIP_GRAM", "CALL", "CUSTOM", "EMBEDDING_LOOKUP_SPARSE",
+            "PAD", "UNIDIRECTIONAL_SEQUENCE_RNN", "GATHER", "BATCH_TO_SPACE_ND",
+            "SPACE_TO_BATCH_ND", "TRANSPOSE", "MEAN", "SUB", "DIV", "SQUEEZE",
+            "UNIDIRECTIONAL_SEQUENCE_LSTM", "STRIDED_SLICE", "BIDIRECTIONAL_SEQUENCE_RNN", "EXP",
+            "TOPK_V2", "SPLIT", "LOG_SOFTMAX", "DELEGATE", "BIDIRECTIONAL_SEQUENCE_LSTM", "CAST",
+            "PRELU", "MAXIMUM", "ARG_MAX", "MINIMUM", "LESS", "NEG", "PADV2", "GREATER",
+            "GREATER_EQUAL", "LESS_EQUAL", "SELECT", "SLICE", "SIN", "TRANSPOSE_CONV",
+            "SPARSE_TO_DENSE", "TILE", "EXPAND_DIMS", "EQUAL", "NOT_EQUAL", "LOG", "SUM", "SQRT",
+            "RSQRT", "SHAPE", "POW", "ARG_MIN", "FAKE_QUANT", "REDUCE_PROD", "REDUCE_MAX", "PACK",
+            "LOGICAL_OR", "ONE_HOT", "LOGICAL_AND", "LOGICAL_NOT", "UNPACK", "REDUCE_MIN",
+            "FLOOR_DIV", "REDUCE_ANY", "SQUARE", "ZEROS_LIKE", "FILL", "FLOOR_MOD", "RANGE",
+            "RESIZE_NEAREST_NEIGHBOR", "LEAKY_RELU", "SQUARED_DIFFERENCE", "MIRROR_PAD", "ABS",
+            "SPLIT_V", "UNIQUE", "CEIL", "REVERSE_V2", "ADD_N", "GATHER_ND", "COS", "WHERE",
+            "RANK", "ELU", "REVERSE_SEQUENCE", "MATRIX_DIAG", "QUANTIZE", "MATRIX_SET_DIAG",
+            "ROUND", "HARD_SWISH", "IF", "WHILE", "NON_MAX_SUPPRESSION_V4",
+            "NON_MAX_SUPPRESSION_V5", "SCATTER_ND", "SELECT_V2", "DENSE_TO_SPARSE",
+            "SEGMENT_SUM", "BATCH_MATMUL"
+    };
+
+    /**
+     * Un tensor de intrare sau ieșire al grafului principal.
+     */
+    public static final class TensorInfo {
+        private final String name;
+        private final int type;
+        private final int[] shape;
+        private final int[] shapeSignature;
+        private final QuantizationParams quantization;
+
+        TensorInfo(String name, int type, int[] shape, int[] shapeSignature,
+                   QuantizationParams quantization) {
+            this.name = name;
+            this.type = type;
+            this.shape = shape;
+            this.shapeSignature = shapeSignature;
+            this.quantization = quantization;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Codul TensorType din schemă, de exemplu {@link #TYPE_FLOAT32}. */
+        public int getType() {
+            return type;
+        }
+
+        public String getTypeName() {
+            return type >= 0 && type < TYPE_NAMES.length ? TYPE_NAMES[type] : "TYPE_" + type;
+        }
+
+        public int[] getShape() {
+            return shape.clone();
+        }
+
+        /**
+         * Forma cu -1 pe dimensiunile libere; egală cu {@link #getShape()}
+         * pentru modelele cu forme fixe.
+         */
+        public int[] getShapeSignature() {
+            return shapeSignature.clone();
+        }
+
+        public boolean isDynamic() {
+            for (int dim : shapeSignature) {
+                if (dim < 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Parametrii de cuantizare pentru uint8/int8, altfel null. */
+        public QuantizationParams getQuantization() {
+            return quantization;
+        }
+
+        /** Mărimea buffer-ului pentru forma curentă, sau -1 pentru tipurile fără mărime fixă. */
+        public long getByteSize() {
+            if (type < 0 || type >= TYPE_BYTES.length || TYPE_BYTES[type] == 0) {
+                return -1;
+            }
+            long bytes = TYPE_BYTES[type];
+            for (int dim : shape) {
+                bytes *= dim;
+            }
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(name).append(' ');
+            for (int i = 0; i < shapeSignature.length; i++) {
+                if (i > 0) {
+                    text.append('x');
+                }
+                text.append(shapeSignature[i] < 0 ? "?" : String.valueOf(shape[i]));
+            }
+            text.append(' ').append(getTypeName());
+            if (quantization != null) {
+                text.append(" (").append(quantization).append(')');
+            }
+            return text.toString();
+        }
+    }
+
+    private final String contentHash;
+    private final int version;
+    private final String description;
+    private final List<TensorInfo> inputs;
+    private final List<TensorInfo> outputs;
+    private final int tensorCount;
+    private final int operatorCount;
+    private final Map<String, Integer> operatorCounts;
+
+    private ModelSignature(String contentHash, int version, String description,
+                           List<TensorInfo> inputs, List<TensorInfo> outputs, int tensorCount,
+                           int operatorCount, Map<String, Integer> operatorCounts) {
+        this.contentHash = contentHash;
+        this.version = version;
+        this.description = description;
+        this.inputs = Collections.unmodifiableList(inputs);
+        this.outputs = Collections.unmodifiableList(outputs);
+        this.tensorCount = tensorCount;
+        this.operatorCount = operatorCount;
+        this.operatorCounts = Collections.unmodifiableMap(operatorCounts);
+    }
+
+    /**
+     * Citește semnătura și calculează hash-ul conținutului, ca în
+     * {@link ModelRegistry}.
+     */
+    public static ModelSignature read(ByteBuffer model) throws IOException {
+        return read(model, ContentHash.toHex(ContentHash.of(model)));
+    }
+
+    /**
+     * Citește semnătura când hash-ul modelului este deja cunoscut. Poziția
+     * buffer-ului nu se modifică.
+     */
+    public static ModelSignature read(ByteBuffer model, String contentHash) throws IOException {
+        ByteBuffer buffer = model.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            return new Reader(buffer).readModel(contentHash);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Malformed TensorFlow Lite model: " + e.getMessage(), e);
+        }
+    }
+
+    /** Hash-ul conținutului, aceeași valoare ca {@link ModelRegistry.WarmModel#getContentHash()}. */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /** Versiunea schemei TFLite din fișier. */
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public List<TensorInfo> getInputs() {
+        return inputs;
+    }
+
+    public List<TensorInfo> getOutputs() {
+        return outputs;
+    }
+
+    public int getTensorCount() {
+        return tensorCount;
+    }
+
+    public int getOperatorCount() {
+        return operatorCount;
+    }
+
+    /** Numărul de operații pe tip, ordonat după nume. */
+    public Map<String, Integer> getOperatorCounts() {
+        return operatorCounts;
+    }
+
+    /**
+     * True dacă modelul transformă o imagine RGB în alta: o singură intrare
+     * și o singură ieșire NHWC cu trei canale, float32 sau cuantizate.
+     */
+    public boolean isImageToImage() {
+        return inputs.size() == 1 && outputs.size() == 1
+                && isRgbImage(inputs.get(0)) && isRgbImage(outputs.get(0));
+    }
+
+    private static boolean isRgbImage(TensorInfo tensor) {
+        int[] shape = tensor.shape;
+        boolean supportedType = tensor.type == TYPE_FLOAT32
+                || tensor.quantization != null && (tensor.type == TYPE_UINT8 || tensor.type == TYPE_INT8);
+        return supportedType && shape.length == 4 && shape[0] == 1 && shape[3] == 3;
+    }
+
+    @Override
+    public String toString() {
+        return "inputs " + inputs + ", outputs " + outputs + ", " + operatorCount + " ops "
+                + operatorCounts + ", " + tensorCount + " tensors, schema v" + version;
+    }
+
+    /**
+     * Navigare minimă prin flatbuffer: tabelele au un vtable cu offset-urile
+     * câmpurilor, iar referințele sunt offset-uri relative pe 32 de biți.
+     */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        ModelSignature readModel(String contentHash) throws IOException {
+            if (buffer.remaining() < 8 || !FILE_IDENTIFIER.equals(readIdentifier())) {
+                throw new IOException("Not a TensorFlow Lite model");
+            }
+            int model = indirect(0);
+            int version = readInt(model, MODEL_VERSION, 0);
+            String description = readString(model, MODEL_DESCRIPTION);
+
+            int codes = vector(model, MODEL_OPERATOR_CODES);
+            String[] operatorNames = new String[codes < 0 ? 0 : length(codes)];
+            for (int i = 0; i < operatorNames.length; i++) {
+                operatorNames[i] = operatorName(indirect(element(codes, i)));
+            }
+
+            int subgraphs = vector(model, MODEL_SUBGRAPHS);
+            if (subgraphs < 0 || length(subgraphs) == 0) {
+                throw new IOException("Model has no subgraph");
+            }
+            // Inferența rulează doar graful principal
+            int graph = indirect(element(subgraphs, 0));
+            int tensors = vector(graph, SUBGRAPH_TENSORS);
+            int tensorCount = tensors < 0 ? 0 : length(tensors);
+            List<TensorInfo> inputs = readTensors(tensors, tensorCount, vector(graph, SUBGRAPH_INPUTS));
+            List<TensorInfo> outputs = readTensors(tensors, tensorCount, vector(graph, SUBGRAPH_OUTPUTS));
+
+            Map<String, Integer> operatorCounts = new TreeMap<>();
+            int operators = vector(graph, SUBGRAPH_OPERATORS);
+            int operatorCount = operators < 0 ? 0 : length(operators);
+            for (int i = 0; i < operatorCount; i++) {
+                int index = readInt(indirect(element(operators, i)), OPERATOR_OPCODE_INDEX, 0);
+                if (index < 0 || index >= operatorNames.length) {
+                    throw new IOException("Operator " + i + " has invalid opcode " + index);
+                }
+                Integer count = operatorCounts.get(operatorNames[index]);
+                operatorCounts.put(operatorNames[index], count == null ? 1 : count + 1);
+            }
+            return new ModelSignature(contentHash, version, description, inputs, outputs,
+                    tensorCount, operatorCount, operatorCounts);
+        }
+
+        private List<TensorInfo> readTensors(int tensors, int tensorCount, int indices)
+                throws IOException {
+            List<TensorInfo> result = new ArrayList<>();
+            if (indices < 0) {
+                return result;
+            }
+            for (int i = 0; i < length(indices); i++) {
+                int index = buffer.getInt(element(indices, i));
+                if (index < 0 || index >= tensorCount) {
+                    throw new IOException("Invalid tensor index " + index);
+                }
+                result.add(readTensor(indirect(element(tensors, index))));
+            }
+            return result;
+        }
+
+        private TensorInfo readTensor(int tensor) {
+            int[] shape = readIntVector(tensor, TENSOR_SHAPE);
+            int[] signature = readIntVector(tensor, TENSOR_SHAPE_SIGNATURE);
+            if (signature.length != shape.length) {
+                signature = shape;
+            }
+            int type = readByte(tensor, TENSOR_TYPE);
+            String name = readString(tensor, TENSOR_NAME);
+
+            QuantizationParams quantization = null;
+            int field = field(tensor, TENSOR_QUANTIZATION);
+            if (field != 0 && (type == TYPE_UINT8 || type == TYPE_INT8)) {
+                int params = indirect(field);
+                int scales = vector(params, QUANTIZATION_SCALE);
+                int zeroPoints = vector(params, QUANTIZATION_ZERO_POINT);
+                // Cuantizarea pe canale nu apare la intrări și ieșiri; se ia primul canal
+                if (scales >= 0 && length(scales) > 0) {
+                    float scale = buffer.getFloat(element(scales, 0));
+                    long zeroPoint = zeroPoints >= 0 && length(zeroPoints) > 0
+                            ? buffer.getLong(zeroPoints + 4) : 0;
+                    quantization = new QuantizationParams(scale, (int) zeroPoint, type == TYPE_INT8);
+                }
+            }
+            return new TensorInfo(name != null ? name : "", type, shape, signature, quantization);
+        }
+
+        private String operatorName(int code) {
+            // Codurile peste 127 sunt doar în câmpul nou; cel vechi rămâne plafonat
+            int builtin = Math.max(readByte(code, OPCODE_DEPRECATED_BUILTIN),
+                    readInt(code, OPCODE_BUILTIN, 0));
+            if (builtin == BUILTIN_CUSTOM) {
+                String custom = readString(code, OPCODE_CUSTOM);
+                return custom != null ? "CUSTOM:" + custom : "CUSTOM";
+            }
+            return builtin < OPERATOR_NAMES.length ? OPERATOR_NAMES[builtin] : "BUILTIN_" + builtin;
+        }
+
+        private String readIdentifier() {
+            byte[] identifier = new byte[4];
+            for (int i = 0; i < identifier.length; i++) {
+                identifier[i] = buffer.get(4 + i);
+            }
+            return new String(identifier, StandardCharsets.US_ASCII);
+        }
+
+        /** Poziția absolută a câmpului {@code index} din tabel, sau 0 dacă lipsește. */
+        private int field(int table, int index) {
+            int vtable = table - buffer.getInt(table);
+            int vtableSize = buffer.getShort(vtable) & 0xFFFF;
+            int entry = 4 + 2 * index;
+            if (entry + 2 > vtableSize) {
+                return 0;
+            }
+            int offset = buffer.getShort(vtable + entry) & 0xFFFF;
+            return offset == 0 ? 0 : table + offset;
+        }
+
+        private int indirect(int position) {
+            return position + buffer.getInt(position);
+        }
+
+        /** Poziția vectorului (la lungimea lui), sau -1 dacă lipsește. */
+        private int vector(int table, int index) {
+            int field = field(table, index);
+            return field == 0 ? -1 : indirect(field);
+        }
+
+        private int length(int vector) {
+            int length = buffer.getInt(vector);
+            if (length < 0 || length > buffer.limit()) {
+                throw new IllegalArgumentException("invalid vector length " + length);
+            }
+            return length;
+        }
+
+        private int element(int vector, int index) {
+            return vector + 4 + 4 * index;
+        }
+
+        private int readInt(int table, int index, int defaultValue) {
+            int field = field(table, index);
+            return field == 0 ? defaultValue : buffer.getInt(field);
+        }
+
+        private int readByte(int table, int index) {
+            int field = field(table, index);
+            return field == 0 ? 0 : buffer.get(field);
+        }
+
+        private int[] readIntVector(int table, int index) {
+            int vector = vector(table, index);
+            if (vector < 0) {
+                return new int[0];
+            }
+            int[] values = new int[length(vector)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = buffer.getInt(element(vector, i));
+            }
+            return values;
+        }
+
+        private String readString(int table, int index) {
+            int string = vector(table, index);
+            if (string < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length(string)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(string + 4 + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
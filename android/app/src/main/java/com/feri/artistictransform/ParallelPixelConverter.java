@@ -0,0 +1,107 @@
+package com.feri.artistictransform;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Conversia float -> ARGB pentru ieșiri mari, împărțită pe rânduri într-un
+ * {@link ForkJoinPool}. Fiecare sarcină copiază rândurile ei într-un array
+ * și le convertește cu bucla vectorizabilă din {@link PixelConverter}.
+ * Imaginile mici rămân pe thread-ul curent, fără alocări, deoarece costul
+ * împărțirii ar depăși câștigul.
+ * Nu depinde de Android, deci poate fi testat și măsurat pe JVM.
+ */
+public final class ParallelPixelConverter {
+
+    // Sub acest număr de pixeli conversia rămâne secvențială
+    static final int MIN_PARALLEL_PIXELS = 2 * 256 * 256;
+    // Cât lucru primește cel puțin o sarcină
+    private static final int MIN_TASK_PIXELS = 32 * 1024;
+
+    private static final ParallelPixelConverter DEFAULT =
+            new ParallelPixelConverter(ForkJoinPool.commonPool());
+
+    private final ForkJoinPool pool;
+
+    public ParallelPixelConverter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Instanța comună, pe {@link ForkJoinPool#commonPool()}.
+     */
+    public static ParallelPixelConverter getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Citește {@code width x height} pixeli RGB float de la indexul absolut
+     * {@code offset} și îi scrie opaci, limitați la [0, 255], în {@code pixels}.
+     * Bufferul sursă este doar citit, poziția lui nu se schimbă.
+     */
+    public void floatToArgb(FloatBuffer src, int offset, int[] pixels, int width, int height) {
+        int count = width * height;
+        if (count < MIN_PARALLEL_PIXELS || pool.getParallelism() < 2) {
+            PixelConverter.floatToArgb(src, offset, pixels, count);
+            return;
+        }
+        int rowsPerTask = Math.max(1, MIN_TASK_PIXELS / width);
+        pool.invoke(new RowTask(src, offset, pixels, width, 0, height, rowsPerTask));
+    }
+
+    /**
+     * Varianta secvențială cu aceeași copiere pe rânduri, pentru comparații.
+     */
+    public static void floatToArgbSequential(FloatBuffer src, int offset, int[] pixels,
+                                             int width, int height) {
+        convertRows(src, offset, pixels, width, 0, height);
+    }
+
+    private static void convertRows(FloatBuffer src, int offset, int[] pixels, int width,
+                                    int fromRow, int toRow) {
+        // Fiecare sarcină are propria vedere, deci pozițiile nu se amestecă
+        FloatBuffer view = src.duplicate();
+        int rowFloats = width * 3;
+        float[] row = new float[rowFloats];
+        for (int y = fromRow; y < toRow; y++) {
+            view.position(offset + y * rowFloats);
+            view.get(row, 0, rowFloats);
+            PixelConverter.floatToArgb(row, 0, pixels, y * width, width);
+        }
+    }
+
+    private static final class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FloatBuffer src;
+        private final int offset;
+        private final int[] pixels;
+        private final int width;
+        private final int fromRow;
+        private final int toRow;
+        private final int rowsPerTask;
+
+        RowTask(FloatBuffer src, int offset, int[] pixels, int width, int fromRow, int toRow,
+                int rowsPerTask) {
+            this.src = src;
+            this.offset = offset;
+            this.pixels = pixels;
+            this.width = width;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.rowsPerTask = rowsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= rowsPerTask) {
+                convertRows(src, offset, pixels, width, fromRow, toRow);
+                return;
+            }
+            int middle = (fromRow + toRow) >>> 1;
+            invokeAll(new RowTask(src, offset, pixels, width, fromRow, middle, rowsPerTask),
+                    new RowTask(src, offset, pixels, width, middle, toRow, rowsPerTask));
+        }
+    }
+}
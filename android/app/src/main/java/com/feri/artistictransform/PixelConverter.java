@@ -0,0 +1,103 @@
+package com.feri.artistictransform;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Conversii între pixeli ARGB și tensori RGB (layout NHWC), float sau
+ * cuantizați pe 8 biți, fără alocări.
+ * Nu depinde de Android, deci poate fi testat și măsurat pe JVM.
+ */
+public final class PixelConverter {
+
+    private static final float INV_255 = 1.0f / 255.0f;
+
+    private PixelConverter() {
+    }
+
+    /**
+     * Scrie primii {@code count} pixeli ca float-uri normalizate în [0, 1],
+     * începând de la indexul absolut {@code offset} din {@code dst}.
+     */
+    public static void argbToFloat(int[] pixels, int count, FloatBuffer dst, int offset) {
+        int j = offset;
+        for (int i = 0; i < count; i++) {
+            int pixel = pixels[i];
+            dst.put(j, ((pixel >> 16) & 0xFF) * INV_255);
+            dst.put(j + 1, ((pixel >> 8) & 0xFF) * INV_255);
+            dst.put(j + 2, (pixel & 0xFF) * INV_255);
+            j += 3;
+        }
+    }
+
+    /**
+     * Inversul lui {@link #argbToFloat}: citește {@code count} pixeli RGB float
+     * de la indexul absolut {@code offset} și îi scrie opaci în {@code pixels}.
+     * Valorile din afara [0, 1] sunt limitate, ca să nu treacă în canalul vecin.
+     */
+    public static void floatToArgb(FloatBuffer src, int offset, int[] pixels, int count) {
+        int j = offset;
+        for (int i = 0; i < count; i++) {
+            int red = toChannel(src.get(j));
+            int green = toChannel(src.get(j + 1));
+            int blue = toChannel(src.get(j + 2));
+            pixels[i] = (0xFF << 24) | (red << 16) | (green << 8) | blue;
+            j += 3;
+        }
+    }
+
+    /**
+     * Ca {@link #floatToArgb(FloatBuffer, int, int[], int)}, dar dintr-un array:
+     * bucla fără apeluri virtuale poate fi vectorizată de JIT.
+     */
+    public static void floatToArgb(float[] src, int srcOffset, int[] pixels, int pixelOffset,
+                                   int count) {
+        for (int i = 0; i < count; i++) {
+            int j = srcOffset + i * 3;
+            int red = toChannel(src[j]);
+            int green = toChannel(src[j + 1]);
+            int blue = toChannel(src[j + 2]);
+            pixels[pixelOffset + i] = (0xFF << 24) | (red << 16) | (green << 8) | blue;
+        }
+    }
+
+    /**
+     * Un canal float din [0, 1] ca octet; NaN devine 0.
+     */
+    static int toChannel(float value) {
+        return (int) Math.min(255f, Math.max(0f, value * 255f));
+    }
+
+    /**
+     * Scrie primii {@code count} pixeli cuantizați prin {@code encodeTable}
+     * (vezi {@link QuantizationParams#getEncodeTable()}), începând de la
+     * octetul absolut {@code offset} din {@code dst}.
+     */
+    public static void argbToQuantized(int[] pixels, int count, ByteBuffer dst, int offset,
+                                       byte[] encodeTable) {
+        int j = offset;
+        for (int i = 0; i < count; i++) {
+            int pixel = pixels[i];
+            dst.put(j, encodeTable[(pixel >> 16) & 0xFF]);
+            dst.put(j + 1, encodeTable[(pixel >> 8) & 0xFF]);
+            dst.put(j + 2, encodeTable[pixel & 0xFF]);
+            j += 3;
+        }
+    }
+
+    /**
+     * Inversul lui {@link #argbToQuantized}, prin {@code decodeTable}
+     * (vezi {@link QuantizationParams#getDecodeTable()}).
+     */
+    public static void quantizedToArgb(ByteBuffer src, int offset, int[] pixels, int count,
+                                       int[] decodeTable) {
+        int j = offset;
+        for (int i = 0; i < count; i++) {
+            int red = decodeTable[src.get(j) & 0xFF];
+            int green = decodeTable[src.get(j + 1) & 0xFF];
+            int blue = decodeTable[src.get(j + 2) & 0xFF];
+            pixels[i] = (0xFF << 24) | (red << 16) | (green << 8) | blue;
+            j += 3;
+        }
+    }
+}
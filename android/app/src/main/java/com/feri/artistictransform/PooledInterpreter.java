@@ -0,0 +1,105 @@
+package com.feri.artistictransform;
+
+import org.tensorflow.lite.Interpreter;
+
+/**
+ * Un interpretor din {@link InterpreterPool} împreună cu bufferele lui.
+ * Poate fi folosit de un singur thread între acquire și release.
+ */
+public class PooledInterpreter {
+
+    private final InferenceBackend backend;
+    private final Interpreter interpreter;
+    private final InferenceBuffers buffers;
+    private int currentBatchSize = 1;
+    private ShapeBucket currentShape;
+    private int resizeCount;
+
+    PooledInterpreter(TfliteBackend backend, InferenceBuffers buffers) {
+        this(backend, backend.getInterpreter(), buffers);
+    }
+
+    /**
+     * Testele pe JVM folosesc un backend fals, fără interpretor și fără buffere.
+     */
+    PooledInterpreter(InferenceBackend backend, Interpreter interpreter, InferenceBuffers buffers) {
+        this.backend = backend;
+        this.interpreter = interpreter;
+        this.buffers = buffers;
+        this.currentShape = buffers != null ? buffers.getShape() : null;
+    }
+
+    public Interpreter getInterpreter() {
+        return interpreter;
+    }
+
+    public BackendConfig getBackendConfig() {
+        return backend.getConfig();
+    }
+
+    public InferenceBuffers getBuffers() {
+        return buffers;
+    }
+
+    /**
+     * Forma imaginilor pentru care sunt alocați acum tensorii interpretorului.
+     */
+    public ShapeBucket getShape() {
+        return currentShape;
+    }
+
+    /**
+     * De câte ori au fost realocați tensorii interpretorului.
+     */
+    public int getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Redimensionează intrarea la {@code batchSize} imagini, păstrând forma lor.
+     * Aruncă o excepție dacă modelul nu produce ieșirea cu batch-ul cerut.
+     */
+    public void resizeBatch(int batchSize) {
+        resize(batchSize, currentShape);
+    }
+
+    /**
+     * Redimensionează intrarea la {@code batchSize} imagini de forma dată,
+     * dacă este nevoie, și aduce bufferele la aceeași formă. Aruncă o excepție
+     * dacă modelul nu produce o ieșire de aceeași formă.
+     */
+    public void resize(int batchSize, ShapeBucket shape) {
+        if (batchSize == currentBatchSize && shape.equals(currentShape)) {
+            buffers.setShape(shape);
+            return;
+        }
+        // Marcăm dimensiunea ca necunoscută până când realocarea reușește
+        currentBatchSize = 0;
+        resizeCount++;
+        interpreter.resizeInput(0, new int[]{batchSize, shape.getHeight(), shape.getWidth(), 3});
+        interpreter.allocateTensors();
+        int[] outputShape = interpreter.getOutputTensor(0).shape();
+        if (outputShape[0] != batchSize || outputShape[1] != shape.getHeight()
+                || outputShape[2] != shape.getWidth()) {
+            throw new IllegalStateException("Output is " + outputShape[0] + "x" + outputShape[2]
+                    + "x" + outputShape[1] + ", expected " + batchSize + "x" + shape);
+        }
+        buffers.setShape(shape);
+        currentBatchSize = batchSize;
+        currentShape = shape;
+    }
+
+    /**
+     * Rulează modelul pe tensorii de batch {@code batchSize} din buffere, în
+     * forma curentă.
+     */
+    public void run(int batchSize) {
+        resizeBatch(batchSize);
+        interpreter.run(buffers.getInput(batchSize), buffers.getOutput(batchSize));
+    }
+
+    void close() {
+        // Închide și delegatul GPU/NNAPI, dacă există
+        backend.close();
+    }
+}
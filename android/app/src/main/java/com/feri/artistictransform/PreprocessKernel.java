@@ -0,0 +1,290 @@
+package com.feri.artistictransform;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Preprocesarea într-o singură trecere: din pixelii ARGB ai sursei, cu o
+ * transformare compusă (rotire, oglindire, saturație, redimensionare sau
+ * letterbox), direct în tensorul de intrare al modelului. Fiecare pixel de
+ * ieșire este eșantionat biliniar din sursă prin transformarea inversă, deci
+ * nu se alocă imagini intermediare.
+ * Nu depinde de Android, deci poate fi testat și măsurat pe JVM. O instanță
+ * refolosește un rând de lucru și nu este thread-safe.
+ */
+public final class PreprocessKernel {
+
+    // Ponderile de luminanță folosite de ColorMatrix.setSaturation
+    private static final float LUMA_RED = 0.213f;
+    private static final float LUMA_GREEN = 0.715f;
+    private static final float LUMA_BLUE = 0.072f;
+
+    /**
+     * Transformarea aplicată sursei, în ordinea: rotire în sensul acelor de
+     * ceasornic, oglindire orizontală, redimensionare, saturație.
+     */
+    public static final class Transform {
+
+        public static final Transform IDENTITY = new Transform(0, false, 1f, false);
+
+        private final int quarterTurns;
+        private final boolean mirror;
+        private final float saturation;
+        private final boolean letterbox;
+
+        /**
+         * @param quarterTurns rotiri de 90° în sensul acelor de ceasornic
+         * @param mirror       oglindire orizontală după rotire
+         * @param saturation   1 lasă culorile neschimbate, 0 dă tonuri de gri
+         * @param letterbox    păstrează proporțiile și completează cu negru;
+         *                     altfel imaginea este întinsă pe tot tensorul
+         */
+        public Transform(int quarterTurns, boolean mirror, float saturation, boolean letterbox) {
+            this.quarterTurns = (quarterTurns % 4 + 4) % 4;
+            this.mirror = mirror;
+            this.saturation = saturation;
+            this.letterbox = letterbox;
+        }
+
+        public static Transform rotate(int quarterTurns) {
+            return new Transform(quarterTurns, false, 1f, false);
+        }
+
+        public static Transform mirror() {
+            return new Transform(0, true, 1f, false);
+        }
+
+        public static Transform saturate(float saturation) {
+            return new Transform(0, false, saturation, false);
+        }
+
+        public int getQuarterTurns() {
+            return quarterTurns;
+        }
+
+        public boolean isMirror() {
+            return mirror;
+        }
+
+        public float getSaturation() {
+            return saturation;
+        }
+
+        public boolean isLetterbox() {
+            return letterbox;
+        }
+    }
+
+    private final int outputWidth;
+    private final int outputHeight;
+    private final int[] row;
+
+    // Maparea afină de la pixelul de ieșire (dx, dy) la coordonatele din sursă
+    private float sourceX0;
+    private float sourceXPerDx;
+    private float sourceXPerDy;
+    private float sourceY0;
+    private float sourceYPerDx;
+    private float sourceYPerDy;
+    // Aceeași mapare în imaginea orientată, pentru limitele zonei letterbox
+    private float orientedX0;
+    private float orientedXPerDx;
+    private float orientedY0;
+    private float orientedYPerDy;
+    private int orientedWidth;
+    private int orientedHeight;
+
+    /**
+     * @param size latura tensorului de ieșire, în pixeli
+     */
+    public PreprocessKernel(int size) {
+        this(size, size);
+    }
+
+    /**
+     * Nucleu pentru un tensor de ieșire dreptunghiular, de exemplu cu
+     * proporțiile fotografiei (vezi {@link ShapeBucket}).
+     */
+    public PreprocessKernel(int outputWidth, int outputHeight) {
+        this.outputWidth = outputWidth;
+        this.outputHeight = outputHeight;
+        this.row = new int[outputWidth];
+    }
+
+    public int getWidth() {
+        return outputWidth;
+    }
+
+    public int getHeight() {
+        return outputHeight;
+    }
+
+    /**
+     * Scrie sursa transformată ca float-uri normalizate în [0, 1], începând de
+     * la indexul absolut {@code offset} din {@code dst}.
+     */
+    public void apply(int[] source, int width, int height, Transform transform,
+                      FloatBuffer dst, int offset) {
+        prepare(width, height, transform);
+        int rowFloats = outputWidth * 3;
+        for (int dy = 0; dy < outputHeight; dy++) {
+            fillRow(source, width, height, transform.saturation, dy);
+            PixelConverter.argbToFloat(row, outputWidth, dst, offset + dy * rowFloats);
+        }
+    }
+
+    /**
+     * Scrie sursa transformată cuantizată prin {@code encodeTable}, începând de
+     * la octetul absolut {@code offset} din {@code dst}.
+     */
+    public void apply(int[] source, int width, int height, Transform transform,
+                      ByteBuffer dst, int offset, byte[] encodeTable) {
+        prepare(width, height, transform);
+        int rowBytes = outputWidth * 3;
+        for (int dy = 0; dy < outputHeight; dy++) {
+            fillRow(source, width, height, transform.saturation, dy);
+            PixelConverter.argbToQuantized(row, outputWidth, dst, offset + dy * rowBytes, encodeTable);
+        }
+    }
+
+    /**
+     * Variantă pentru teste: scrie rezultatul ca pixeli ARGB, rând cu rând.
+     */
+    void apply(int[] source, int width, int height, Transform transform, int[] destination) {
+        prepare(width, height, transform);
+        for (int dy = 0; dy < outputHeight; dy++) {
+            fillRow(source, width, height, transform.saturation, dy);
+            System.arraycopy(row, 0, destination, dy * outputWidth, outputWidth);
+        }
+    }
+
+    /**
+     * Compune transformările într-o singură mapare afină. Coordonatele sunt pe
+     * margini: pixelul i acoperă intervalul [i, i + 1).
+     */
+    private void prepare(int width, int height, Transform transform) {
+        boolean swapped = (transform.quarterTurns & 1) != 0;
+        orientedWidth = swapped ? height : width;
+        orientedHeight = swapped ? width : height;
+
+        // Ieșire -> imaginea orientată
+        float stepX;
+        float stepY;
+        float offsetX = 0;
+        float offsetY = 0;
+        if (transform.letterbox) {
+            float scale = Math.min(outputWidth / (float) orientedWidth,
+                    outputHeight / (float) orientedHeight);
+            stepX = 1f / scale;
+            stepY = 1f / scale;
+            offsetX = (outputWidth - orientedWidth * scale) / 2f;
+            offsetY = (outputHeight - orientedHeight * scale) / 2f;
+        } else {
+            stepX = orientedWidth / (float) outputWidth;
+            stepY = orientedHeight / (float) outputHeight;
+        }
+        orientedX0 = (0.5f - offsetX) * stepX;
+        orientedXPerDx = stepX;
+        orientedY0 = (0.5f - offsetY) * stepY;
+        orientedYPerDy = stepY;
+
+        // Anulăm oglindirea: X înainte de oglindire = latura - X
+        float unmirroredX0 = transform.mirror ? orientedWidth - orientedX0 : orientedX0;
+        float unmirroredXPerDx = transform.mirror ? -orientedXPerDx : orientedXPerDx;
+
+        // Anulăm rotirea: coeficienții lui x și y din sursă în funcție de (X, Y)
+        float x0;
+        float xPerX;
+        float xPerY;
+        float y0;
+        float yPerX;
+        float yPerY;
+        switch (transform.quarterTurns) {
+            case 1:
+                x0 = 0; xPerX = 0; xPerY = 1;
+                y0 = height; yPerX = -1; yPerY = 0;
+                break;
+            case 2:
+                x0 = width; xPerX = -1; xPerY = 0;
+                y0 = height; yPerX = 0; yPerY = -1;
+                break;
+            case 3:
+                x0 = width; xPerX = 0; xPerY = -1;
+                y0 = 0; yPerX = 1; yPerY = 0;
+                break;
+            default:
+                x0 = 0; xPerX = 1; xPerY = 0;
+                y0 = 0; yPerX = 0; yPerY = 1;
+                break;
+        }
+
+        // Scădem 0.5 ca eșantionarea să fie față de centrele pixelilor
+        sourceX0 = x0 + xPerX * unmirroredX0 + xPerY * orientedY0 - 0.5f;
+        sourceXPerDx = xPerX * unmirroredXPerDx;
+        sourceXPerDy = xPerY * orientedYPerDy;
+        sourceY0 = y0 + yPerX * unmirroredX0 + yPerY * orientedY0 - 0.5f;
+        sourceYPerDx = yPerX * unmirroredXPerDx;
+        sourceYPerDy = yPerY * orientedYPerDy;
+    }
+
+    private void fillRow(int[] source, int width, int height, float saturation, int dy) {
+        float orientedY = orientedY0 + dy * orientedYPerDy;
+        boolean rowInside = orientedY >= 0 && orientedY < orientedHeight;
+        float rowX = sourceX0 + dy * sourceXPerDy;
+        float rowY = sourceY0 + dy * sourceYPerDy;
+        int maxX = width - 1;
+        int maxY = height - 1;
+        boolean saturate = saturation != 1f;
+
+        for (int dx = 0; dx < outputWidth; dx++) {
+            float orientedX = orientedX0 + dx * orientedXPerDx;
+            if (!rowInside || orientedX < 0 || orientedX >= orientedWidth) {
+                // Banda de letterbox
+                row[dx] = 0xFF000000;
+                continue;
+            }
+
+            // Calculat direct, nu prin adunări repetate, ca erorile să nu se acumuleze
+            float sx = Math.max(0f, Math.min(maxX, rowX + dx * sourceXPerDx));
+            float sy = Math.max(0f, Math.min(maxY, rowY + dx * sourceYPerDx));
+            int x0 = (int) sx;
+            int y0 = (int) sy;
+            int x1 = Math.min(x0 + 1, maxX);
+            int y1 = Math.min(y0 + 1, maxY);
+            float fx = sx - x0;
+            float fy = sy - y0;
+
+            int topLeft = source[y0 * width + x0];
+            int topRight = source[y0 * width + x1];
+            int bottomLeft = source[y1 * width + x0];
+            int bottomRight = source[y1 * width + x1];
+
+            float red = bilinear((topLeft >> 16) & 0xFF, (topRight >> 16) & 0xFF,
+                    (bottomLeft >> 16) & 0xFF, (bottomRight >> 16) & 0xFF, fx, fy);
+            float green = bilinear((topLeft >> 8) & 0xFF, (topRight >> 8) & 0xFF,
+                    (bottomLeft >> 8) & 0xFF, (bottomRight >> 8) & 0xFF, fx, fy);
+            float blue = bilinear(topLeft & 0xFF, topRight & 0xFF,
+                    bottomLeft & 0xFF, bottomRight & 0xFF, fx, fy);
+
+            if (saturate) {
+                float luma = LUMA_RED * red + LUMA_GREEN * green + LUMA_BLUE * blue;
+                red = luma + (red - luma) * saturation;
+                green = luma + (green - luma) * saturation;
+                blue = luma + (blue - luma) * saturation;
+            }
+            row[dx] = 0xFF000000 | (toByte(red) << 16) | (toByte(green) << 8) | toByte(blue);
+        }
+    }
+
+    private static float bilinear(int topLeft, int topRight, int bottomLeft, int bottomRight,
+                                  float fx, float fy) {
+        float top = topLeft + (topRight - topLeft) * fx;
+        float bottom = bottomLeft + (bottomRight - bottomLeft) * fx;
+        return top + (bottom - top) * fy;
+    }
+
+    private static int toByte(float value) {
+        int rounded = (int) (value + 0.5f);
+        return rounded < 0 ? 0 : (rounded > 255 ? 255 : rounded);
+    }
+}
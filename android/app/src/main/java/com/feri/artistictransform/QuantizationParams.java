@@ -0,0 +1,95 @@
+package com.feri.artistictransform;
+
+/**
+ * Parametrii unui tensor cuantizat pe 8 biți: {@code real = (q - zeroPoint) * scale}.
+ * Conversiile pixel ↔ tensor folosesc tabele de 256 de intrări calculate o
+ * singură dată, deci nu trec prin float la fiecare pixel.
+ * Nu depinde de Android.
+ */
+public final class QuantizationParams {
+
+    private final float scale;
+    private final int zeroPoint;
+    private final boolean signed;
+    private byte[] encodeTable;
+    private int[] decodeTable;
+    private float[] realTable;
+
+    /**
+     * @param signed true pentru int8, false pentru uint8
+     */
+    public QuantizationParams(float scale, int zeroPoint, boolean signed) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("Invalid quantization scale: " + scale);
+        }
+        this.scale = scale;
+        this.zeroPoint = zeroPoint;
+        this.signed = signed;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    public int getZeroPoint() {
+        return zeroPoint;
+    }
+
+    public boolean isSigned() {
+        return signed;
+    }
+
+    /**
+     * Tabelul canal (0..255) → octet cuantizat, pentru intrarea normalizată în [0, 1].
+     */
+    public synchronized byte[] getEncodeTable() {
+        if (encodeTable == null) {
+            int min = signed ? -128 : 0;
+            int max = signed ? 127 : 255;
+            byte[] table = new byte[256];
+            for (int value = 0; value < 256; value++) {
+                int quantized = Math.round(value / 255.0f / scale) + zeroPoint;
+                table[value] = (byte) Math.max(min, Math.min(max, quantized));
+            }
+            encodeTable = table;
+        }
+        return encodeTable;
+    }
+
+    /**
+     * Tabelul octet cuantizat (indexat cu {@code b & 0xFF}) → canal 0..255.
+     */
+    public synchronized int[] getDecodeTable() {
+        if (decodeTable == null) {
+            int[] table = new int[256];
+            for (int index = 0; index < 256; index++) {
+                int quantized = signed ? (byte) index : index;
+                int value = Math.round((quantized - zeroPoint) * scale * 255.0f);
+                table[index] = Math.max(0, Math.min(255, value));
+            }
+            decodeTable = table;
+        }
+        return decodeTable;
+    }
+
+    /**
+     * Tabelul octet cuantizat (indexat cu {@code b & 0xFF}) → valoarea reală,
+     * fără limitare la [0, 1]; pentru straturile din care se recompune.
+     */
+    public synchronized float[] getRealTable() {
+        if (realTable == null) {
+            float[] table = new float[256];
+            for (int index = 0; index < 256; index++) {
+                int quantized = signed ? (byte) index : index;
+                table[index] = (quantized - zeroPoint) * scale;
+            }
+            realTable = table;
+        }
+        return realTable;
+    }
+
+    @Override
+    public String toString() {
+        return (signed ? "int8" : "uint8") + " scale " + scale + " zero point " + zeroPoint;
+    }
+}
@@ -0,0 +1,244 @@
+package com.feri.artistictransform;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Joburile foto persistente: imaginea de intrare și rezultatele fiecărei
+ * părți (cele patru variații și trecerea în rezoluție mare) se salvează în
+ * fișiere, iar {@link RenderJournal} ține evidența lor. După ce procesul este
+ * oprit, jobul neterminat poate fi reluat doar cu părțile lipsă.
+ * Rezultatele sunt copiate sincron într-un bitmap din {@link BitmapPool};
+ * compresia și jurnalul rulează pe un fir de fundal, în ordine.
+ */
+public class RenderJobStore {
+
+    private static final String TAG = "RenderJobStore";
+    private static final String DIRECTORY = "render_jobs";
+    private static final long FLUSH_DELAY_MS = 200;
+    private static final int JPEG_QUALITY = 95;
+
+    /**
+     * Partea jurnalului pentru rezultatul în rezoluție mare; variațiile au
+     * indicii 0..{@link StyleTransferHelper#VARIANT_COUNT} - 1.
+     */
+    public static final int HIGH_RESOLUTION = StyleTransferHelper.VARIANT_COUNT;
+
+    private static RenderJobStore defaultStore;
+
+    private final File directory;
+    private final RenderJournal journal;
+    private final BitmapPool bitmapPool = BitmapPool.getDefault();
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+
+    /**
+     * Depozitul procesului; supraviețuiește recreării activității.
+     */
+    public static synchronized RenderJobStore getDefault(Context context) {
+        if (defaultStore == null) {
+            defaultStore = new RenderJobStore(
+                    new File(context.getApplicationContext().getFilesDir(), DIRECTORY));
+        }
+        return defaultStore;
+    }
+
+    RenderJobStore(File directory) {
+        this.directory = directory;
+        RenderJournal opened = null;
+        try {
+            opened = new RenderJournal(directory, FLUSH_DELAY_MS);
+        } catch (IOException e) {
+            // Fără jurnal aplicația merge mai departe, doar fără reluare
+            Log.e(TAG, "Cannot open render journal: " + e.getMessage(), e);
+        }
+        journal = opened;
+    }
+
+    /**
+     * Cel mai recent job neterminat, sau null. Joburile mai vechi sunt
+     * abandonate. Așteaptă scrierile în curs, deci nu se apelează de pe firul
+     * principal.
+     */
+    public RenderJournal.Job getUnfinishedJob() throws InterruptedException {
+        if (journal == null) {
+            return null;
+        }
+        awaitPendingWrites();
+        List<RenderJournal.Job> jobs = journal.getUnfinishedJobs();
+        if (jobs.isEmpty()) {
+            return null;
+        }
+        RenderJournal.Job latest = jobs.get(jobs.size() - 1);
+        abandonAllExcept(latest.getId());
+        Log.d(TAG, "Unfinished job " + latest.getId() + " with parts " + latest.getParts().keySet());
+        return latest;
+    }
+
+    /**
+     * Înregistrează un job nou și salvează intrarea lui. Joburile
+     * neterminate anterioare sunt abandonate. {@code input} nu trebuie
+     * reciclat cât timp jobul rulează.
+     */
+    public void begin(final String jobId, final String styleId, final Bitmap input) {
+        if (journal == null) {
+            return;
+        }
+        abandonAllExcept(jobId);
+        io.execute(() -> {
+            String name = jobId + "-input.jpg";
+            if (write(input, Bitmap.CompressFormat.JPEG, name)) {
+                journal.jobQueued(jobId, styleId, name);
+            }
+        });
+    }
+
+    /**
+     * Salvează rezultatul unei părți. Bitmap-ul este copiat înainte de
+     * întoarcere, deci apelantul îl poate folosi sau recicla imediat.
+     */
+    public void saveResult(final String jobId, final int part, Bitmap result) {
+        if (journal == null || result == null) {
+            return;
+        }
+        long start = StageMetrics.getDefault().begin();
+        final Bitmap copy = bitmapPool.obtain(result.getWidth(), result.getHeight());
+        copy.eraseColor(0);
+        new Canvas(copy).drawBitmap(result, 0, 0, null);
+        StageMetrics.getDefault().end(StageMetrics.POSTPROCESS, "journal", start);
+        io.execute(() -> {
+            // Rezultatele mici rămân fără pierderi; cel în rezoluție mare ar fi prea mare ca PNG
+            boolean png = part != HIGH_RESOLUTION;
+            String name = jobId + "-" + part + (png ? ".png" : ".jpg");
+            if (write(copy, png ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG, name)) {
+                journal.partFinished(jobId, part, name);
+            }
+            bitmapPool.put(copy);
+        });
+    }
+
+    /**
+     * Jobul este complet; nu mai este reluat, iar fișierele lui se șterg.
+     */
+    public void finish(final String jobId) {
+        if (journal == null) {
+            return;
+        }
+        io.execute(() -> {
+            journal.jobFinished(jobId);
+            deleteFiles(jobId);
+        });
+    }
+
+    /**
+     * Scrie jurnalul acum, de exemplu când activitatea trece în fundal.
+     */
+    public void flush() {
+        if (journal == null) {
+            return;
+        }
+        io.execute(() -> {
+            try {
+                journal.flush();
+            } catch (IOException e) {
+                Log.e(TAG, "Error writing render journal: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Părțile care nu mai trebuie calculate la reluare: terminate în jurnal
+     * și cu fișierul încă pe disc. Indicii sunt ai părților, inclusiv
+     * {@link #HIGH_RESOLUTION}.
+     */
+    public boolean[] getSavedParts(RenderJournal.Job job) {
+        boolean[] saved = new boolean[HIGH_RESOLUTION + 1];
+        for (int part = 0; part < saved.length; part++) {
+            String name = job.getResultName(part);
+            saved[part] = name != null && new File(directory, name).isFile();
+        }
+        return saved;
+    }
+
+    public Bitmap loadInput(RenderJournal.Job job) {
+        return decode(job.getInputName());
+    }
+
+    /**
+     * Rezultatul salvat al unei părți, mutabil ca să poată ajunge în pool, sau
+     * null dacă partea nu este gata sau fișierul lipsește.
+     */
+    public Bitmap loadResult(RenderJournal.Job job, int part) {
+        String name = job.getResultName(part);
+        return name != null ? decode(name) : null;
+    }
+
+    private void abandonAllExcept(final String jobId) {
+        io.execute(() -> {
+            for (RenderJournal.Job job : journal.getUnfinishedJobs()) {
+                if (!job.getId().equals(jobId)) {
+                    Log.d(TAG, "Abandoning job " + job.getId());
+                    journal.jobFinished(job.getId());
+                    deleteFiles(job.getId());
+                }
+            }
+        });
+    }
+
+    private void awaitPendingWrites() throws InterruptedException {
+        try {
+            io.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error waiting for journal writes: " + e.getMessage());
+        }
+    }
+
+    private boolean write(Bitmap bitmap, Bitmap.CompressFormat format, String name) {
+        File temp = new File(directory, name + ".tmp");
+        File target = new File(directory, name);
+        try (OutputStream out = new FileOutputStream(temp)) {
+            if (!bitmap.compress(format, JPEG_QUALITY, out)) {
+                throw new IOException("Cannot compress " + name);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error saving " + name + ": " + e.getMessage());
+            temp.delete();
+            return false;
+        }
+        if (!temp.renameTo(target)) {
+            Log.e(TAG, "Cannot rename " + temp + " to " + target);
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    private Bitmap decode(String name) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inMutable = true;
+        return BitmapFactory.decodeFile(new File(directory, name).getPath(), options);
+    }
+
+    private void deleteFiles(String jobId) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().startsWith(jobId + "-")) {
+                file.delete();
+            }
+        }
+    }
+}
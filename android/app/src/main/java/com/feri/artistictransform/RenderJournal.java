@@ -0,0 +1,376 @@
+package com.feri.artistictransform;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Jurnal persistent al joburilor de randare: ce joburi au fost puse în coadă,
+ * ce părți (variații) au terminat și în ce fișiere sunt rezultatele. Este un
+ * log doar cu adăugare; fiecare înregistrare are lungimea și un CRC32, deci o
+ * scriere întreruptă la final este detectată și ignorată la redeschidere.
+ * La deschidere jurnalul este rejucat și rescris doar cu joburile
+ * neterminate.
+ *
+ * <p>Apelurile doar actualizează starea din memorie și serializează
+ * înregistrarea într-un buffer; scrierea pe disc și sincronizarea se fac pe
+ * un fir propriu, grupat, la cel mult {@code flushDelayMillis} după prima
+ * înregistrare nescrisă. Nu depinde de Android.
+ */
+public class RenderJournal {
+
+    private static final String FILE_NAME = "journal.bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private static final byte RECORD_JOB = 1;
+    private static final byte RECORD_PART = 2;
+    private static final byte RECORD_FINISHED = 3;
+
+    /**
+     * Un job neterminat, cu părțile deja gata. Instanțele întoarse sunt copii.
+     */
+    public static final class Job {
+        private final String id;
+        private final String styleId;
+        private final String inputName;
+        private final Map<Integer, String> parts = new TreeMap<>();
+
+        Job(String id, String styleId, String inputName) {
+            this.id = id;
+            this.styleId = styleId;
+            this.inputName = inputName;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getStyleId() {
+            return styleId;
+        }
+
+        public String getInputName() {
+            return inputName;
+        }
+
+        public boolean isDone(int part) {
+            return parts.containsKey(part);
+        }
+
+        /**
+         * Numele fișierului cu rezultatul părții, sau null dacă nu este gata.
+         */
+        public String getResultName(int part) {
+            return parts.get(part);
+        }
+
+        public Map<Integer, String> getParts() {
+            return Collections.unmodifiableMap(parts);
+        }
+
+        Job copy() {
+            Job copy = new Job(id, styleId, inputName);
+            copy.parts.putAll(parts);
+            return copy;
+        }
+    }
+
+    private final File file;
+    private final long flushDelayMillis;
+    // Joburile neterminate, în ordinea punerii în coadă
+    private final LinkedHashMap<String, Job> unfinished = new LinkedHashMap<>();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+    private final Object writeLock = new Object();
+
+    // Protejate de this
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(recordBuffer);
+    private final CRC32 crc = new CRC32();
+    private boolean flushScheduled;
+    private long recordCount;
+
+    // Protejate de writeLock
+    private FileOutputStream out;
+    private long flushCount;
+    private IOException writeError;
+
+    public RenderJournal(File directory, long flushDelayMillis) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        this.file = new File(directory, FILE_NAME);
+        this.flushDelayMillis = flushDelayMillis;
+        replay();
+        compact();
+        out = new FileOutputStream(file, true);
+    }
+
+    public static String newJobId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Joburile neterminate, cel mai vechi primul.
+     */
+    public synchronized List<Job> getUnfinishedJobs() {
+        List<Job> jobs = new ArrayList<>(unfinished.size());
+        for (Job job : unfinished.values()) {
+            jobs.add(job.copy());
+        }
+        return jobs;
+    }
+
+    public synchronized void jobQueued(String jobId, String styleId, String inputName) {
+        Job job = new Job(jobId, styleId, inputName);
+        unfinished.put(jobId, job);
+        try {
+            record.writeByte(RECORD_JOB);
+            record.writeUTF(jobId);
+            record.writeUTF(styleId);
+            record.writeUTF(inputName);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        append();
+    }
+
+    /**
+     * Partea {@code part} a jobului este gata, cu rezultatul în fișierul dat.
+     * Ignorat pentru joburile necunoscute sau deja terminate.
+     */
+    public synchronized void partFinished(String jobId, int part, String resultName) {
+        Job job = unfinished.get(jobId);
+        if (job == null) {
+            return;
+        }
+        job.parts.put(part, resultName);
+        try {
+            record.writeByte(RECORD_PART);
+            record.writeUTF(jobId);
+            record.writeInt(part);
+            record.writeUTF(resultName);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        append();
+    }
+
+    /**
+     * Jobul s-a terminat sau a fost abandonat și nu mai trebuie reluat.
+     */
+    public synchronized void jobFinished(String jobId) {
+        if (unfinished.remove(jobId) == null) {
+            return;
+        }
+        try {
+            record.writeByte(RECORD_FINISHED);
+            record.writeUTF(jobId);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        append();
+    }
+
+    /**
+     * Scrie și sincronizează acum înregistrările din buffer. Aruncă și eroarea
+     * unei scrieri anterioare din fundal, dacă a existat.
+     */
+    public void flush() throws IOException {
+        synchronized (writeLock) {
+            byte[] batch;
+            synchronized (this) {
+                batch = pending.toByteArray();
+                pending.reset();
+                flushScheduled = false;
+            }
+            if (writeError != null) {
+                IOException error = writeError;
+                writeError = null;
+                throw error;
+            }
+            if (batch.length == 0 || out == null) {
+                return;
+            }
+            out.write(batch);
+            out.getFD().sync();
+            flushCount++;
+        }
+    }
+
+    public void close() throws IOException {
+        writer.shutdown();
+        synchronized (writeLock) {
+            try {
+                flush();
+            } finally {
+                if (out != null) {
+                    out.close();
+                    out = null;
+                }
+            }
+        }
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Câte scrieri pe disc au avut loc; de regulă mult mai puține decât înregistrări.
+     */
+    public long getFlushCount() {
+        synchronized (writeLock) {
+            return flushCount;
+        }
+    }
+
+    /**
+     * Mută înregistrarea din {@link #recordBuffer} în buffer-ul de scris,
+     * încadrată de lungime și CRC, și programează scrierea.
+     */
+    private void append() {
+        byte[] payload = recordBuffer.toByteArray();
+        recordBuffer.reset();
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        writeInt(pending, payload.length);
+        writeInt(pending, (int) crc.getValue());
+        pending.write(payload, 0, payload.length);
+        recordCount++;
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        try {
+            writer.schedule(this::flushInBackground, flushDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Jurnalul se închide; close() scrie ce a rămas
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (IOException e) {
+            synchronized (writeLock) {
+                writeError = e;
+            }
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream stream, int value) {
+        stream.write(value >>> 24);
+        stream.write(value >>> 16);
+        stream.write(value >>> 8);
+        stream.write(value);
+    }
+
+    private void replay() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            CRC32 check = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                try {
+                    int expected = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        return;
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    check.reset();
+                    check.update(payload, 0, length);
+                    if ((int) check.getValue() != expected) {
+                        return;
+                    }
+                    apply(payload);
+                } catch (EOFException e) {
+                    // Ultima înregistrare a fost scrisă doar parțial
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String jobId = in.readUTF();
+        switch (type) {
+            case RECORD_JOB:
+                String styleId = in.readUTF();
+                unfinished.put(jobId, new Job(jobId, styleId, in.readUTF()));
+                break;
+            case RECORD_PART:
+                Job job = unfinished.get(jobId);
+                int part = in.readInt();
+                String resultName = in.readUTF();
+                if (job != null) {
+                    job.parts.put(part, resultName);
+                }
+                break;
+            case RECORD_FINISHED:
+                unfinished.remove(jobId);
+                break;
+            default:
+                throw new IOException("Unknown journal record " + type);
+        }
+    }
+
+    /**
+     * Rescrie jurnalul doar cu joburile neterminate, atomic.
+     */
+    private void compact() throws IOException {
+        List<Job> jobs = new ArrayList<>(unfinished.values());
+        unfinished.clear();
+        for (Job job : jobs) {
+            jobQueued(job.id, job.styleId, job.inputName);
+            for (Map.Entry<Integer, String> part : job.parts.entrySet()) {
+                partFinished(job.id, part.getKey(), part.getValue());
+            }
+        }
+        byte[] live;
+        synchronized (this) {
+            live = pending.toByteArray();
+            pending.reset();
+        }
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        try (FileOutputStream stream = new FileOutputStream(temp)) {
+            stream.write(live);
+            stream.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Cannot rename " + temp + " to " + file);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.feri.artistictransform;
+
+/**
+ * Forma tensorului de intrare pentru o imagine: aceleași proporții, cu latura
+ * lungă egală cu latura modelului și latura scurtă rotunjită la un multiplu
+ * de {@code step}. Pasul este un multiplu al stride-ului total al modelului,
+ * ca encoderul și decoderul să ajungă înapoi exact la aceeași formă, și
+ * limitează numărul de forme distincte, deci interpretoarele și bufferele
+ * alocate pentru o formă pot fi refolosite. Nu depinde de Android.
+ */
+public final class ShapeBucket {
+
+    private final int width;
+    private final int height;
+
+    public ShapeBucket(int width, int height) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Invalid shape " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    public static ShapeBucket square(int size) {
+        return new ShapeBucket(size, size);
+    }
+
+    /**
+     * Forma pentru o imagine de {@code imageWidth} x {@code imageHeight}. O
+     * imagine foarte alungită primește cel puțin {@code step} pixeli pe latura
+     * scurtă; acolo proporțiile nu mai sunt păstrate exact.
+     *
+     * @param longSide latura lungă a tensorului, multiplu de {@code step}
+     */
+    public static ShapeBucket forImage(int imageWidth, int imageHeight, int longSide, int step) {
+        if (step < 1 || longSide < step || longSide % step != 0) {
+            throw new IllegalArgumentException("Long side " + longSide
+                    + " is not a multiple of step " + step);
+        }
+        if (imageWidth < 1 || imageHeight < 1) {
+            throw new IllegalArgumentException("Invalid image " + imageWidth + "x" + imageHeight);
+        }
+        if (imageWidth >= imageHeight) {
+            return new ShapeBucket(longSide,
+                    roundToStep(longSide * (double) imageHeight / imageWidth, step, longSide));
+        }
+        return new ShapeBucket(
+                roundToStep(longSide * (double) imageWidth / imageHeight, step, longSide), longSide);
+    }
+
+    private static int roundToStep(double value, int step, int max) {
+        long rounded = Math.round(value / step) * step;
+        return (int) Math.max(step, Math.min(max, rounded));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPixelCount() {
+        return width * height;
+    }
+
+    public boolean isSquare() {
+        return width == height;
+    }
+
+    /**
+     * Forma cu laturile inversate, de exemplu pentru variația rotită cu 90°.
+     */
+    public ShapeBucket transposed() {
+        return isSquare() ? this : new ShapeBucket(height, width);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ShapeBucket)) {
+            return false;
+        }
+        ShapeBucket shape = (ShapeBucket) other;
+        return width == shape.width && height == shape.height;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * width + height;
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height;
+    }
+}
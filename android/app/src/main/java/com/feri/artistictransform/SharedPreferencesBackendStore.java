@@ -0,0 +1,28 @@
+package com.feri.artistictransform;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Salvează backend-ul ales în SharedPreferences, câte o intrare per dispozitiv.
+ */
+public class SharedPreferencesBackendStore implements BackendSelector.BackendStore {
+
+    private static final String PREFERENCES_NAME = "inference_backend";
+
+    private final SharedPreferences preferences;
+
+    public SharedPreferencesBackendStore(Context context) {
+        preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    @Override
+    public BackendConfig load(String deviceKey) {
+        return BackendConfig.fromKey(preferences.getString(deviceKey, null));
+    }
+
+    @Override
+    public void save(String deviceKey, BackendConfig config) {
+        preferences.edit().putString(deviceKey, config.toKey()).apply();
+    }
+}
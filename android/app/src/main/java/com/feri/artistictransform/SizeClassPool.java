@@ -0,0 +1,154 @@
+package com.feri.artistictransform;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Pool de obiecte refolosibile grupate pe clase de mărime: clasa k conține
+ * obiectele cu dimensiunea în (2^(k-1), 2^k] octeți, deci o cerere caută doar
+ * în câteva clase. Totalul este limitat la {@code maxBytes}; la depășire se
+ * scot cele mai vechi obiecte puse în pool. Obiectele sunt comparate după
+ * identitate. Nu depinde de Android, iar {@link BitmapPool} îl folosește
+ * pentru bitmap-uri.
+ */
+final class SizeClassPool<T> {
+
+    interface Sizer<T> {
+        int sizeOf(T item);
+    }
+
+    private static final int CLASS_COUNT = 32;
+
+    private static final class Entry<T> {
+        final T item;
+        final int size;
+        final long sequence;
+
+        Entry(T item, int size, long sequence) {
+            this.item = item;
+            this.size = size;
+            this.sequence = sequence;
+        }
+    }
+
+    private final long maxBytes;
+    private final int maxItemBytes;
+    private final Sizer<T> sizer;
+    // În fiecare clasă obiectele sunt în ordinea punerii, cele mai vechi primele
+    private final List<ArrayDeque<Entry<T>>> classes = new ArrayList<>(CLASS_COUNT);
+    private long bytes;
+    private int count;
+    private long nextSequence;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxBytes     totalul maxim păstrat în pool
+     * @param maxItemBytes obiectele mai mari nu sunt păstrate
+     */
+    SizeClassPool(long maxBytes, int maxItemBytes, Sizer<T> sizer) {
+        this.maxBytes = maxBytes;
+        this.maxItemBytes = maxItemBytes;
+        this.sizer = sizer;
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            classes.add(new ArrayDeque<Entry<T>>());
+        }
+    }
+
+    /**
+     * Scoate din pool obiectul cel mai recent cu dimensiunea în
+     * [minBytes, maxBytes], sau întoarce null.
+     */
+    synchronized T take(int minBytes, int maxBytes) {
+        int last = Math.min(classOf(maxBytes), CLASS_COUNT - 1);
+        for (int k = classOf(minBytes); k <= last; k++) {
+            Iterator<Entry<T>> newestFirst = classes.get(k).descendingIterator();
+            while (newestFirst.hasNext()) {
+                Entry<T> entry = newestFirst.next();
+                if (entry.size >= minBytes && entry.size <= maxBytes) {
+                    newestFirst.remove();
+                    bytes -= entry.size;
+                    count--;
+                    hits++;
+                    return entry.item;
+                }
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Pune obiectul în pool, scoțând la nevoie obiectele cele mai vechi.
+     * Întoarce false dacă obiectul este prea mare sau era deja în pool.
+     */
+    synchronized boolean put(T item) {
+        int size = sizer.sizeOf(item);
+        if (size <= 0 || size > maxItemBytes || size > maxBytes) {
+            return false;
+        }
+        ArrayDeque<Entry<T>> sizeClass = classes.get(classOf(size));
+        for (Entry<T> entry : sizeClass) {
+            if (entry.item == item) {
+                return false;
+            }
+        }
+        while (bytes + size > maxBytes) {
+            evictOldest();
+        }
+        sizeClass.addLast(new Entry<>(item, size, nextSequence++));
+        bytes += size;
+        count++;
+        return true;
+    }
+
+    synchronized void clear() {
+        for (ArrayDeque<Entry<T>> sizeClass : classes) {
+            sizeClass.clear();
+        }
+        bytes = 0;
+        count = 0;
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    synchronized int getCount() {
+        return count;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private void evictOldest() {
+        ArrayDeque<Entry<T>> oldestClass = null;
+        for (ArrayDeque<Entry<T>> sizeClass : classes) {
+            Entry<T> head = sizeClass.peekFirst();
+            if (head != null && (oldestClass == null
+                    || head.sequence < oldestClass.peekFirst().sequence)) {
+                oldestClass = sizeClass;
+            }
+        }
+        Entry<T> evicted = oldestClass.removeFirst();
+        bytes -= evicted.size;
+        count--;
+        evictions++;
+    }
+
+    static int classOf(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+}
@@ -0,0 +1,180 @@
+package com.feri.artistictransform;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Urmărirea latenței pe etapele pipeline-ului (decodare, preprocesare,
+ * umplerea tensorului, inferență, postprocesare, afișare), cu câte o
+ * {@link LatencyHistogram} pe etapă și pe variație. Un interval este doar o
+ * pereche de citiri ale lui {@link System#nanoTime()}:
+ * <pre>
+ *     long start = metrics.begin();
+ *     ...
+ *     start = metrics.end(StageMetrics.INFERENCE, variant, start);
+ * </pre>
+ * Nu se alocă nimic după prima înregistrare a unei perechi etapă/variație,
+ * deci urmărirea rămâne activă și în release.
+ */
+public final class StageMetrics {
+
+    public static final String DECODE = "decode";
+    public static final String PREPROCESS = "preprocess";
+    public static final String TENSOR_FILL = "tensor_fill";
+    public static final String INFERENCE = "inference";
+    public static final String POSTPROCESS = "postprocess";
+    public static final String UI_BIND = "ui_bind";
+
+    private static final String[] STAGE_ORDER = {
+            DECODE, PREPROCESS, TENSOR_FILL, INFERENCE, POSTPROCESS, UI_BIND};
+
+    private static final StageMetrics DEFAULT = new StageMetrics();
+
+    // Cheile sunt "etapă" sau "etapă/variație"
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, String>> variantKeys =
+            new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+
+    public static StageMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Începutul unui interval; 0 când urmărirea este oprită.
+     */
+    public long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Înregistrează intervalul început la {@code start} pentru etapă și, dacă
+     * {@code variant} nu este null, și pentru etapa acelei variații. Întoarce
+     * momentul curent, care poate fi începutul etapei următoare.
+     */
+    public long end(String stage, String variant, long start) {
+        if (!enabled || start == 0) {
+            return begin();
+        }
+        long now = System.nanoTime();
+        long elapsed = now - start;
+        histogram(stage).recordNanos(elapsed);
+        if (variant != null) {
+            histogram(variantKey(stage, variant)).recordNanos(elapsed);
+        }
+        return now;
+    }
+
+    public void recordMicros(String stage, String variant, long micros) {
+        if (!enabled) {
+            return;
+        }
+        histogram(stage).recordMicros(micros);
+        if (variant != null) {
+            histogram(variantKey(stage, variant)).recordMicros(micros);
+        }
+    }
+
+    /**
+     * Histograma unei etape (variant null) sau a unei variații, ori null dacă
+     * nu a fost înregistrat nimic.
+     */
+    public LatencyHistogram get(String stage, String variant) {
+        return histograms.get(variant == null ? stage : variantKey(stage, variant));
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Raport text cu numărul de intervale și percentilele fiecărei etape, în
+     * ordinea pipeline-ului, urmate de variațiile lor. Timpii sunt în ms.
+     */
+    public String report(String header) {
+        StringBuilder report = new StringBuilder();
+        if (header != null) {
+            report.append(header).append('\n');
+        }
+        report.append(String.format(Locale.US, "%-28s %7s %8s %8s %8s %8s %8s%n",
+                "stage", "count", "mean", "p50", "p90", "p99", "max"));
+        for (String key : sortedKeys()) {
+            LatencyHistogram histogram = histograms.get(key);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            String label = key.indexOf('/') < 0 ? key : "  " + key;
+            report.append(String.format(Locale.US, "%-28s %7d %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                    label, histogram.getCount(),
+                    histogram.getMeanMicros() / 1000.0,
+                    histogram.getPercentileMicros(50) / 1000.0,
+                    histogram.getPercentileMicros(90) / 1000.0,
+                    histogram.getPercentileMicros(99) / 1000.0,
+                    histogram.getMaxMicros() / 1000.0));
+        }
+        return report.toString();
+    }
+
+    private List<String> sortedKeys() {
+        List<String> keys = new ArrayList<>(histograms.keySet());
+        Collections.sort(keys, (a, b) -> {
+            int byStage = Integer.compare(stageRank(a), stageRank(b));
+            return byStage != 0 ? byStage : a.compareTo(b);
+        });
+        return keys;
+    }
+
+    private static int stageRank(String key) {
+        int slash = key.indexOf('/');
+        String stage = slash < 0 ? key : key.substring(0, slash);
+        for (int i = 0; i < STAGE_ORDER.length; i++) {
+            if (STAGE_ORDER[i].equals(stage)) {
+                return i;
+            }
+        }
+        return STAGE_ORDER.length;
+    }
+
+    private LatencyHistogram histogram(String key) {
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(key, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    // Concatenarea ar aloca un String la fiecare interval, așa că cheile se refolosesc
+    private String variantKey(String stage, String variant) {
+        ConcurrentHashMap<String, String> keys = variantKeys.get(stage);
+        if (keys == null) {
+            keys = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, String> existing = variantKeys.putIfAbsent(stage, keys);
+            if (existing != null) {
+                keys = existing;
+            }
+        }
+        String key = keys.get(variant);
+        if (key == null) {
+            key = stage + "/" + variant;
+            keys.putIfAbsent(variant, key);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,123 @@
+package com.feri.artistictransform;
+
+/**
+ * Recompune o variație din {@link StyleLayers}: amestecă intrarea cu ieșirea
+ * modelului după intensitatea stilului, apoi aplică contrastul și saturația.
+ * Toți pașii sunt afini în RGB, așa că se reduc la o singură matrice 3x3 și
+ * un termen constant, calculate o dată pe apel; un pixel costă o interpolare
+ * și nouă înmulțiri. Nu depinde de Android și nu este thread-safe.
+ */
+public final class StyleCompositor {
+
+    // Aceleași ponderi de luminanță ca în PreprocessKernel
+    private static final float LUMA_RED = 0.213f;
+    private static final float LUMA_GREEN = 0.715f;
+    private static final float LUMA_BLUE = 0.072f;
+
+    /**
+     * Parametrii unei recompuneri. Valorile neutre sunt 1: stilul complet,
+     * saturația și contrastul modelului.
+     */
+    public static final class Grade {
+        public static final Grade NEUTRAL = new Grade(1f, 1f, 1f);
+
+        final float strength;
+        final float saturation;
+        final float contrast;
+
+        /**
+         * @param strength   0 este intrarea, 1 este ieșirea modelului
+         * @param saturation 0 este alb-negru, peste 1 crește saturația
+         * @param contrast   factorul în jurul griului mediu
+         */
+        public Grade(float strength, float saturation, float contrast) {
+            this.strength = Math.max(0f, Math.min(1f, strength));
+            this.saturation = Math.max(0f, saturation);
+            this.contrast = Math.max(0f, contrast);
+        }
+
+        public float getStrength() {
+            return strength;
+        }
+
+        public float getSaturation() {
+            return saturation;
+        }
+
+        public float getContrast() {
+            return contrast;
+        }
+    }
+
+    private final float[] matrix = new float[9];
+
+    /**
+     * Lățimea rezultatului pentru un pas de eșantionare dat.
+     */
+    public static int outputWidth(StyleLayers layers, int step) {
+        return (layers.getWidth() + step - 1) / step;
+    }
+
+    /**
+     * Înălțimea rezultatului pentru un pas de eșantionare dat.
+     */
+    public static int outputHeight(StyleLayers layers, int step) {
+        return (layers.getHeight() + step - 1) / step;
+    }
+
+    /**
+     * Scrie în {@code output} variația recompusă ca pixeli ARGB, rând cu rând.
+     * Cu {@code step} mai mare decât 1 se citește doar fiecare al step-lea
+     * pixel pe ambele axe, pentru o previzualizare de {@link #outputWidth} x
+     * {@link #outputHeight} pixeli, cât timp utilizatorul trage de slider.
+     */
+    public void render(StyleLayers layers, Grade grade, int step, int[] output) {
+        int width = layers.getWidth();
+        int height = layers.getHeight();
+        int outPixels = outputWidth(layers, step) * outputHeight(layers, step);
+        if (output.length < outPixels) {
+            throw new IllegalArgumentException("Output holds " + output.length
+                    + " pixels, need " + outPixels);
+        }
+        float[] content = layers.getContent();
+        float[] styled = layers.getStyled();
+        prepareMatrix(grade);
+        float m0 = matrix[0], m1 = matrix[1], m2 = matrix[2];
+        float m3 = matrix[3], m4 = matrix[4], m5 = matrix[5];
+        float m6 = matrix[6], m7 = matrix[7], m8 = matrix[8];
+        // Suma fiecărui rând al matricei de saturație este 1, deci termenul
+        // constant al contrastului este același pe toate canalele
+        float bias = 0.5f * (1f - grade.contrast);
+        float strength = grade.strength;
+
+        int o = 0;
+        for (int y = 0; y < height; y += step) {
+            int i = y * width * 3;
+            int rowStep = step * 3;
+            for (int x = 0; x < width; x += step, i += rowStep) {
+                float r = content[i] + strength * (styled[i] - content[i]);
+                float g = content[i + 1] + strength * (styled[i + 1] - content[i + 1]);
+                float b = content[i + 2] + strength * (styled[i + 2] - content[i + 2]);
+                int red = PixelConverter.toChannel(m0 * r + m1 * g + m2 * b + bias);
+                int green = PixelConverter.toChannel(m3 * r + m4 * g + m5 * b + bias);
+                int blue = PixelConverter.toChannel(m6 * r + m7 * g + m8 * b + bias);
+                output[o++] = (0xFF << 24) | (red << 16) | (green << 8) | blue;
+            }
+        }
+    }
+
+    /**
+     * Matricea contrast x saturație: out = c * (s * I + (1 - s) * 1 * luma^T).
+     */
+    private void prepareMatrix(Grade grade) {
+        float s = grade.saturation;
+        float c = grade.contrast;
+        float[] luma = {LUMA_RED, LUMA_GREEN, LUMA_BLUE};
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                float value = (1f - s) * luma[col] + (row == col ? s : 0f);
+                matrix[row * 3 + col] = c * value;
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.feri.artistictransform;
+
+/**
+ * Straturile unei variații stilizate, păstrate ca ea să poată fi
+ * recompusă fără inferență: intrarea preprocesată și ieșirea brută a
+ * modelului, ambele ca float-uri RGB intercalate de width x height, în
+ * ordinea tensorului. Ieșirea nu este limitată la [0, 1].
+ */
+public final class StyleLayers {
+
+    private final int width;
+    private final int height;
+    private final float[] content;
+    private final float[] styled;
+
+    public StyleLayers(int size, float[] content, float[] styled) {
+        this(size, size, content, styled);
+    }
+
+    public StyleLayers(int width, int height, float[] content, float[] styled) {
+        if (content.length != width * height * 3 || styled.length != content.length) {
+            throw new IllegalArgumentException("Layers must hold " + width + "x" + height
+                    + " RGB floats, got " + content.length + " and " + styled.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.content = content;
+        this.styled = styled;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Intrarea modelului, cu transformarea variației deja aplicată.
+     */
+    public float[] getContent() {
+        return content;
+    }
+
+    public float[] getStyled() {
+        return styled;
+    }
+}
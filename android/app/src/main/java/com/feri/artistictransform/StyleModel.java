@@ -0,0 +1,87 @@
+package com.feri.artistictransform;
+
+import android.content.Context;
+
+import org.tensorflow.lite.support.common.FileUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Un model de stil din {@link ModelRegistry}: inclus în assets sau descărcat
+ * într-un director al aplicației.
+ */
+public final class StyleModel {
+
+    private final String id;
+    private final String assetPath;
+    private final File file;
+
+    private StyleModel(String id, String assetPath, File file) {
+        this.id = id;
+        this.assetPath = assetPath;
+        this.file = file;
+    }
+
+    public static StyleModel fromAsset(String id, String assetPath) {
+        return new StyleModel(id, assetPath, null);
+    }
+
+    public static StyleModel fromFile(String id, File file) {
+        return new StyleModel(id, null, file);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Numele afișat: id-ul cu prima literă mare și spații în loc de '_'.
+     */
+    public String getDisplayName() {
+        String name = id.replace('_', ' ');
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    public boolean isDownloaded() {
+        return file != null;
+    }
+
+    /**
+     * Calea din assets sau calea absolută a fișierului descărcat.
+     */
+    public String getSource() {
+        return file != null ? file.getAbsolutePath() : assetPath;
+    }
+
+    /**
+     * Sursa împreună cu mărimea și data fișierului descărcat, ca un fișier
+     * înlocuit să fie observat. Modelele din assets nu se schimbă cât timp
+     * aplicația este instalată.
+     */
+    String getSourceStamp() {
+        return file != null ? getSource() + "@" + file.length() + "@" + file.lastModified()
+                : getSource();
+    }
+
+    /**
+     * Mapează modelul în memorie, fără să-l copieze în heap.
+     */
+    MappedByteBuffer map(Context context) throws IOException {
+        if (file == null) {
+            return FileUtil.loadMappedFile(context, assetPath);
+        }
+        try (FileInputStream stream = new FileInputStream(file);
+             FileChannel channel = stream.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return id + " (" + getSource() + ")";
+    }
+}
@@ -11,22 +11,220 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Paginile cu rezultate, câte una pentru fiecare variație, în ordinea
+ * variațiilor. Adaptorul deține bitmap-urile primite: cele scoase
+ * sau înlocuite se întorc în {@link BitmapPool} prin {@link ThumbnailLoader}.
+ * Paginile afișează miniaturi de mărimea view-ului, făcute în fundal.
+ * Fiecare pagină poate păstra straturile și reglajele din care a fost
+ * recompusă de {@link StyleRegrader}.
+ */
 public class StylePagerAdapter extends RecyclerView.Adapter<StylePagerAdapter.StyleViewHolder> {
     private static final String TAG = "StylePagerAdapter";
-    private List<Bitmap> styles = new ArrayList<>();
+    // Relegarea după o recompunere păstrează imaginea afișată până la miniatura nouă
+    private static final Object KEEP_IMAGE = new Object();
+
+    private static final class Page {
+        final long id = ThumbnailLoader.newResultId();
+        final int variant;
+        final Bitmap bitmap;
+        final StyleLayers layers;
+        StyleCompositor.Grade grade = StyleCompositor.Grade.NEUTRAL;
+
+        Page(int variant, Bitmap bitmap, StyleLayers layers) {
+            this.variant = variant;
+            this.bitmap = bitmap;
+            this.layers = layers;
+        }
+    }
+
+    private final List<Page> pages = new ArrayList<>();
+    private final ThumbnailLoader thumbnails;
+    private RecyclerView recyclerView;
+
+    public StylePagerAdapter(ThumbnailLoader thumbnails) {
+        this.thumbnails = thumbnails;
+    }
 
     public void setStyles(List<Bitmap> newStyles) {
         Log.d(TAG, "Updating styles, size: " + (newStyles != null ? newStyles.size() : 0));
         if (newStyles != null) {
-            this.styles.clear();
-            this.styles.addAll(newStyles);
+            List<Page> previous = new ArrayList<>(pages);
+            pages.clear();
+            for (int variant = 0; variant < newStyles.size(); variant++) {
+                pages.add(takePage(previous, variant, newStyles.get(variant)));
+            }
+            release(previous);
             notifyDataSetChanged();
             Log.d(TAG, "Styles updated successfully");
         }
     }
 
+    /**
+     * Pune rezultatul variației {@code variant} pe pagina ei, fără a relega
+     * celelalte pagini. Rezultatele pot sosi în orice ordine (din cache întâi,
+     * apoi cele calculate), iar paginile rămân ordonate după variație; o
+     * pagină existentă a aceleiași variații este înlocuită.
+     *
+     * @param layers straturile din care pagina poate fi recompusă, sau null
+     * @return poziția paginii
+     */
+    public int putStyle(int variant, Bitmap style, StyleLayers layers) {
+        int position = 0;
+        while (position < pages.size() && pages.get(position).variant < variant) {
+            position++;
+        }
+        Page page = new Page(variant, style, layers);
+        if (position < pages.size() && pages.get(position).variant == variant) {
+            Page previous = pages.set(position, page);
+            notifyItemChanged(position);
+            if (previous.bitmap != style) {
+                thumbnails.release(previous.id, previous.bitmap);
+            }
+        } else {
+            pages.add(position, page);
+            notifyItemInserted(position);
+        }
+        return position;
+    }
+
+    /**
+     * Poziția paginii variației {@code variant}, sau -1 dacă nu a sosit încă.
+     */
+    public int positionOf(int variant) {
+        for (int position = 0; position < pages.size(); position++) {
+            if (pages.get(position).variant == variant) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    public int getVariant(int position) {
+        return pages.get(position).variant;
+    }
+
+    /**
+     * Pune pe pagina variației {@code variant} rezultatul recompus din
+     * {@code layers} cu reglajele {@code grade}; bitmap-ul vechi se întoarce
+     * în pool. Rezultatul este refuzat dacă pagina nu mai are aceste straturi,
+     * de exemplu după ce a fost înlocuită de rezultatul la rezoluție mare sau
+     * de o altă fotografie.
+     *
+     * @return false dacă rezultatul a fost refuzat; bitmap-ul rămâne al apelantului
+     */
+    public boolean applyRegrade(int variant, StyleLayers layers, StyleCompositor.Grade grade,
+                                Bitmap result) {
+        int position = positionOf(variant);
+        if (position < 0 || pages.get(position).layers != layers) {
+            return false;
+        }
+        Page previous = pages.get(position);
+        if (previous.bitmap == result) {
+            previous.grade = grade;
+            return true;
+        }
+        Page page = new Page(variant, result, layers);
+        page.grade = grade;
+        pages.set(position, page);
+        notifyItemChanged(position, KEEP_IMAGE);
+        thumbnails.release(previous.id, previous.bitmap);
+        return true;
+    }
+
+    /**
+     * Straturile paginii, sau null dacă ea nu poate fi recompusă.
+     */
+    public StyleLayers getLayers(int position) {
+        return position >= 0 && position < pages.size() ? pages.get(position).layers : null;
+    }
+
+    public StyleCompositor.Grade getGrade(int position) {
+        return pages.get(position).grade;
+    }
+
+    Bitmap getStyle(int position) {
+        return pages.get(position).bitmap;
+    }
+
+    /**
+     * Afișează direct o previzualizare recompusă pe pagina vizibilă, fără
+     * miniatură; bitmap-ul rămâne al apelantului.
+     */
+    public void showPreview(int position, Bitmap preview) {
+        if (recyclerView == null) {
+            return;
+        }
+        RecyclerView.ViewHolder holder = recyclerView.findViewHolderForAdapterPosition(position);
+        if (holder instanceof StyleViewHolder) {
+            ImageView view = ((StyleViewHolder) holder).imageView;
+            thumbnails.cancel(view);
+            view.setImageBitmap(preview);
+        }
+    }
+
+    public void clearStyles() {
+        int count = pages.size();
+        release(pages);
+        pages.clear();
+        notifyItemRangeRemoved(0, count);
+    }
+
+    /**
+     * Pregătește miniaturile paginilor aflate la cel mult {@code distance} de
+     * pagina curentă, la mărimea paginii afișate.
+     */
+    public void prefetchAround(int position, int distance) {
+        if (recyclerView == null) {
+            return;
+        }
+        RecyclerView.ViewHolder current = recyclerView.findViewHolderForAdapterPosition(position);
+        if (!(current instanceof StyleViewHolder)) {
+            return;
+        }
+        ImageView view = ((StyleViewHolder) current).imageView;
+        for (int offset = 1; offset <= distance; offset++) {
+            prefetch(position - offset, view.getWidth(), view.getHeight());
+            prefetch(position + offset, view.getWidth(), view.getHeight());
+        }
+    }
+
+    private void prefetch(int position, int width, int height) {
+        if (position >= 0 && position < pages.size()) {
+            Page page = pages.get(position);
+            thumbnails.prefetch(page.id, page.bitmap, width, height);
+        }
+    }
+
+    private static Page takePage(List<Page> previous, int variant, Bitmap style) {
+        for (int i = 0; i < previous.size(); i++) {
+            Page page = previous.get(i);
+            if (page.bitmap == style && page.variant == variant) {
+                return previous.remove(i);
+            }
+        }
+        return new Page(variant, style, null);
+    }
+
+    private void release(List<Page> released) {
+        for (Page page : released) {
+            thumbnails.release(page.id, page.bitmap);
+        }
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        this.recyclerView = recyclerView;
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        this.recyclerView = null;
+    }
+
     @NonNull
     @Override
     public StyleViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -38,13 +236,27 @@ public class StylePagerAdapter extends RecyclerView.Adapter<StylePagerAdapter.St
 
     @Override
     public void onBindViewHolder(@NonNull StyleViewHolder holder, int position) {
-        Log.d(TAG, "Binding ViewHolder at position: " + position);
-        holder.bind(styles.get(position));
+        onBindViewHolder(holder, position, Collections.emptyList());
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull StyleViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        Page page = pages.get(position);
+        if (page.bitmap != null) {
+            thumbnails.load(holder.imageView, page.id, page.bitmap, payloads.contains(KEEP_IMAGE));
+        }
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull StyleViewHolder holder) {
+        thumbnails.cancel(holder.imageView);
+        holder.imageView.setImageDrawable(null);
     }
 
     @Override
     public int getItemCount() {
-        return styles.size();
+        return pages.size();
     }
 
     static class StyleViewHolder extends RecyclerView.ViewHolder {
@@ -54,11 +266,5 @@ public class StylePagerAdapter extends RecyclerView.Adapter<StylePagerAdapter.St
             super(itemView);
             imageView = itemView.findViewById(R.id.styleResultImageView);
         }
-
-        void bind(Bitmap bitmap) {
-            if (bitmap != null) {
-                imageView.setImageBitmap(bitmap);
-            }
-        }
     }
 }
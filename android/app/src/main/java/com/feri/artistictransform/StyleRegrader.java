@@ -0,0 +1,171 @@
+package com.feri.artistictransform;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * Recompune variațiile din {@link StyleLayers} pe un fir de fundal, la
+ * fiecare mișcare a slider-elor, fără interpretor. Cererile se comasează:
+ * rulează doar ultima, iar o singură recompunere este în lucru până când
+ * firul principal o afișează. Cât timp utilizatorul trage de slider se
+ * randează o previzualizare la jumătate din rezoluție, în două bitmap-uri
+ * refolosite; la eliberare rezultă un bitmap complet din {@link BitmapPool}.
+ */
+public class StyleRegrader {
+
+    private static final int PREVIEW_STEP = 2;
+    private static final int PREVIEW_BUFFERS = 2;
+
+    /**
+     * Primește rezultatele pe firul principal.
+     */
+    public interface Listener {
+        /**
+         * Bitmap-ul este refolosit după {@value #PREVIEW_BUFFERS} previzualizări,
+         * deci nu trebuie reciclat sau păstrat.
+         */
+        void onPreview(int page, StyleLayers layers, Bitmap preview);
+
+        /**
+         * Rezultatul la rezoluția completă aparține de acum ascultătorului.
+         */
+        void onRegraded(int page, StyleLayers layers, StyleCompositor.Grade grade,
+                        Bitmap result);
+    }
+
+    private static final class Request {
+        final int page;
+        final StyleLayers layers;
+        final StyleCompositor.Grade grade;
+        final boolean preview;
+
+        Request(int page, StyleLayers layers, StyleCompositor.Grade grade, boolean preview) {
+            this.page = page;
+            this.layers = layers;
+            this.grade = grade;
+            this.preview = preview;
+        }
+    }
+
+    private final BitmapPool bitmapPool;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final StageMetrics metrics = StageMetrics.getDefault();
+
+    // Folosite doar de firul de fundal
+    private final StyleCompositor compositor = new StyleCompositor();
+    private final Bitmap[] previewBitmaps = new Bitmap[PREVIEW_BUFFERS];
+    private int nextPreviewBitmap;
+    private int[] pixels = new int[0];
+
+    // Protejate de this
+    private Request pending;
+    private boolean scheduled;
+    private boolean closed;
+
+    public StyleRegrader(BitmapPool bitmapPool, Listener listener) {
+        this.bitmapPool = bitmapPool;
+        this.listener = listener;
+        thread = new HandlerThread("regrade", Process.THREAD_PRIORITY_DISPLAY);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Cere recompunerea paginii {@code page}, așa cum o identifică
+     * ascultătorul. O cerere încă neîncepută este înlocuită.
+     */
+    public void request(int page, StyleLayers layers, StyleCompositor.Grade grade,
+                        boolean preview) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            pending = new Request(page, layers, grade, preview);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        handler.post(this::renderPending);
+    }
+
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            pending = null;
+        }
+        handler.post(() -> {
+            for (int i = 0; i < previewBitmaps.length; i++) {
+                bitmapPool.put(previewBitmaps[i]);
+                previewBitmaps[i] = null;
+            }
+        });
+        thread.quitSafely();
+    }
+
+    private void renderPending() {
+        final Request request;
+        synchronized (this) {
+            request = pending;
+            pending = null;
+            if (request == null || closed) {
+                scheduled = false;
+                return;
+            }
+        }
+
+        long start = metrics.begin();
+        int step = request.preview ? PREVIEW_STEP : 1;
+        int width = StyleCompositor.outputWidth(request.layers, step);
+        int height = StyleCompositor.outputHeight(request.layers, step);
+        if (pixels.length < width * height) {
+            pixels = new int[width * height];
+        }
+        compositor.render(request.layers, request.grade, step, pixels);
+        final Bitmap output = request.preview
+                ? nextPreviewBitmap(width, height) : bitmapPool.obtain(width, height);
+        output.setPixels(pixels, 0, width, 0, 0, width, height);
+        metrics.end(StageMetrics.POSTPROCESS, request.preview ? "regrade-preview" : "regrade", start);
+
+        mainHandler.post(() -> {
+            boolean deliver;
+            synchronized (this) {
+                deliver = !closed;
+            }
+            if (!deliver) {
+                if (!request.preview) {
+                    bitmapPool.put(output);
+                }
+            } else if (request.preview) {
+                listener.onPreview(request.page, request.layers, output);
+            } else {
+                listener.onRegraded(request.page, request.layers, request.grade, output);
+            }
+            // Următoarea recompunere pornește abia după ce aceasta a fost afișată
+            synchronized (this) {
+                if (pending == null || closed) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            handler.post(this::renderPending);
+        });
+    }
+
+    private Bitmap nextPreviewBitmap(int width, int height) {
+        Bitmap bitmap = previewBitmaps[nextPreviewBitmap];
+        if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            bitmapPool.put(bitmap);
+            bitmap = bitmapPool.obtain(width, height);
+            previewBitmaps[nextPreviewBitmap] = bitmap;
+        }
+        nextPreviewBitmap = (nextPreviewBitmap + 1) % PREVIEW_BUFFERS;
+        return bitmap;
+    }
+}
@@ -0,0 +1,147 @@
+package com.feri.artistictransform;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache pe două niveluri pentru rezultatele stilizate, adresat după conținut:
+ * cheia combină hash-ul pixelilor de intrare, identitatea modelului și
+ * variația. Primul nivel este un LRU în memorie limitat după octeții
+ * bitmap-urilor, al doilea un director de PNG-uri cu limită de dimensiune.
+ * Bitmap-urile din cache sunt copii imutabile deținute de cache; apelantul
+ * primește și pune doar copii.
+ */
+public class StyleResultCache {
+
+    private static final String TAG = "StyleResultCache";
+
+    private final LruCache<String, Bitmap> memory;
+    private final DiskLruStore disk;
+    private final ExecutorService diskWriter = Executors.newSingleThreadExecutor();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public StyleResultCache(File directory, int maxMemoryBytes, long maxDiskBytes) {
+        memory = new LruCache<String, Bitmap>(maxMemoryBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        disk = new DiskLruStore(directory, maxDiskBytes);
+    }
+
+    /**
+     * Cheia unei variații: hash-ul intrării, identitatea modelului și
+     * identificatorul variației.
+     */
+    public static String key(long inputHash, String modelId, String variantId) {
+        return ContentHash.toHex(inputHash) + "-" + modelId + "-" + variantId;
+    }
+
+    /**
+     * Bitmap-ul din cache, sau null. Rezultatul este imutabil și aparține
+     * cache-ului; nu trebuie reciclat.
+     */
+    public Bitmap get(String key) {
+        Bitmap bitmap = memory.get(key);
+        if (bitmap != null) {
+            memoryHits.incrementAndGet();
+            return bitmap;
+        }
+
+        byte[] data = disk.get(key);
+        if (data != null) {
+            bitmap = BitmapFactory.decodeByteArray(data, 0, data.length);
+            if (bitmap != null) {
+                diskHits.incrementAndGet();
+                memory.put(key, bitmap);
+                return bitmap;
+            }
+            disk.remove(key);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Salvează o copie a bitmap-ului; scrierea pe disc are loc în fundal.
+     */
+    public void put(final String key, Bitmap bitmap) {
+        final Bitmap copy = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+        if (copy == null) {
+            return;
+        }
+        memory.put(key, copy);
+        if (disk.contains(key)) {
+            return;
+        }
+        try {
+            diskWriter.execute(() -> writeToDisk(key, copy));
+        } catch (RejectedExecutionException e) {
+            // Cache-ul a fost închis între timp; rămâne doar în memorie
+        }
+    }
+
+    private void writeToDisk(String key, Bitmap copy) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(copy.getByteCount() / 2);
+        // PNG fără pierderi: rezultatul citit de pe disc este identic cu cel calculat
+        if (!copy.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+            return;
+        }
+        try {
+            disk.put(key, out.toByteArray());
+        } catch (IOException e) {
+            Log.w(TAG, "Error writing cache entry " + key + ": " + e.getMessage());
+        }
+    }
+
+    public long getMemoryHitCount() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getHitCount() {
+        return memoryHits.get() + diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public String getStats() {
+        return "hits " + getHitCount() + " (memory " + getMemoryHitCount()
+                + ", disk " + getDiskHitCount() + "), misses " + getMissCount()
+                + ", memory " + memory.size() / 1024 + " KB, disk "
+                + disk.size() / 1024 + " KB in " + disk.count() + " entries";
+    }
+
+    public void clear() {
+        memory.evictAll();
+        try {
+            diskWriter.execute(disk::clear);
+        } catch (RejectedExecutionException e) {
+            disk.clear();
+        }
+    }
+
+    public void close() {
+        // Scrierile deja programate se termină, dar nu se mai acceptă altele
+        diskWriter.shutdown();
+        memory.evictAll();
+    }
+}
@@ -0,0 +1,34 @@
+package com.feri.artistictransform;
+
+import android.graphics.Bitmap;
+
+/**
+ * Primește variațiile stilizate pe măsură ce sunt gata, pe thread-ul care
+ * rulează generarea. Ordinea nu este garantată: rezultatele din cache sosesc
+ * înaintea celor calculate, iar variațiile deja restaurate lipsesc, deci
+ * apelantul trebuie să le identifice după {@code variant}, nu după ordinea
+ * sosirii.
+ */
+public interface StyleResultListener {
+
+    /**
+     * O variație nouă: 0 original, 1 rotită, 2 oglindită, 3 cu contrast.
+     * Bitmap-ul aparține de acum ascultătorului.
+     */
+    void onStyleResult(int variant, Bitmap result);
+
+    /**
+     * Ca {@link #onStyleResult(int, Bitmap)}, împreună cu straturile din care
+     * variația poate fi recompusă, sau null dacă helper-ul nu le păstrează
+     * (vezi {@link StyleTransferHelper#setRetainLayers}). Acesta este apelul
+     * făcut de helper; implicit trimite mai departe doar bitmap-ul.
+     */
+    default void onStyleResult(int variant, Bitmap result, StyleLayers layers) {
+        onStyleResult(variant, result);
+    }
+
+    /**
+     * Apelat o singură dată la final, și după anulare sau eroare.
+     */
+    void onStylesComplete(int delivered, boolean cancelled);
+}
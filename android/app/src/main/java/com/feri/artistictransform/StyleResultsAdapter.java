@@ -7,36 +7,66 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
 import java.util.List;
 
 public class StyleResultsAdapter extends RecyclerView.Adapter<StyleResultsAdapter.StyleViewHolder>{
 
-    private List<Bitmap> styleResults = new ArrayList<>();
+    private final List<Bitmap> styleResults = new ArrayList<>();
+    private final List<Long> resultIds = new ArrayList<>();
     private static final String TAG = "StyleResultsAdapter";
+    private final ThumbnailLoader thumbnails;
+    private RecyclerView recyclerView;
+    private int cellSize;
+
+    // Latura celulei urmează lățimea listei, după fiecare layout al acesteia
+    private final View.OnLayoutChangeListener cellSizeUpdater =
+            (v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> updateCellSize();
+
+    public StyleResultsAdapter(ThumbnailLoader thumbnails) {
+        this.thumbnails = thumbnails;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        this.recyclerView = recyclerView;
+        recyclerView.addOnLayoutChangeListener(cellSizeUpdater);
+        updateCellSize();
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        recyclerView.removeOnLayoutChangeListener(cellSizeUpdater);
+        this.recyclerView = null;
+    }
 
     @NonNull
     @Override
     public StyleViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_style_result, parent, false);
-
-        // Setăm dimensiunea itemului la jumătate din lățimea parentului
-        int width = parent.getMeasuredWidth() / 2;
-        ViewGroup.LayoutParams lp = view.getLayoutParams();
-        lp.width = width;
-        lp.height = width; // Păstrăm aspect ratio pătratic
-        view.setLayoutParams(lp);
-
         return new StyleViewHolder(view);
     }
 
     @Override
     public void onBindViewHolder(@NonNull StyleViewHolder holder, int position) {
-        Bitmap bitmap = styleResults.get(position);
-        holder.imageView.setImageBitmap(bitmap);
-        Log.d(TAG, "Binding image at position " + position);
+        // Celule pătrate; lățimea vine de la coloana grilei
+        ViewGroup.MarginLayoutParams lp =
+                (ViewGroup.MarginLayoutParams) holder.itemView.getLayoutParams();
+        int height = cellSize - lp.leftMargin - lp.rightMargin;
+        if (cellSize > 0 && lp.height != height) {
+            lp.height = height;
+            holder.itemView.setLayoutParams(lp);
+        }
+        thumbnails.load(holder.imageView, resultIds.get(position), styleResults.get(position));
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull StyleViewHolder holder) {
+        thumbnails.cancel(holder.imageView);
+        holder.imageView.setImageDrawable(null);
     }
 
     @Override
@@ -46,10 +76,42 @@ public class StyleResultsAdapter extends RecyclerView.Adapter<StyleResultsAdapte
 
     public void updateResults(List<Bitmap> newResults) {
         Log.d(TAG, "Updating results with " + newResults.size() + " items");
-        this.styleResults = newResults;
+        List<Long> newIds = new ArrayList<>(newResults.size());
+        for (Bitmap result : newResults) {
+            int previous = styleResults.indexOf(result);
+            newIds.add(previous >= 0 ? resultIds.get(previous) : ThumbnailLoader.newResultId());
+        }
+        // Rezultatele înlocuite se întorc în pool
+        for (int i = 0; i < styleResults.size(); i++) {
+            if (!newResults.contains(styleResults.get(i))) {
+                thumbnails.release(resultIds.get(i), styleResults.get(i));
+            }
+        }
+        styleResults.clear();
+        styleResults.addAll(newResults);
+        resultIds.clear();
+        resultIds.addAll(newIds);
         notifyDataSetChanged();
     }
 
+    private void updateCellSize() {
+        if (recyclerView == null || recyclerView.getWidth() == 0) {
+            return;
+        }
+        int spanCount = 1;
+        if (recyclerView.getLayoutManager() instanceof GridLayoutManager) {
+            spanCount = ((GridLayoutManager) recyclerView.getLayoutManager()).getSpanCount();
+        }
+        int width = recyclerView.getWidth() - recyclerView.getPaddingLeft()
+                - recyclerView.getPaddingRight();
+        int size = width / spanCount;
+        if (size != cellSize) {
+            cellSize = size;
+            // Relegăm după layout-ul curent, nu în timpul lui
+            recyclerView.post(this::notifyDataSetChanged);
+        }
+    }
+
     static class StyleViewHolder extends RecyclerView.ViewHolder {
         ImageView imageView;
 
@@ -3,16 +3,12 @@ package com.feri.artistictransform;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.ColorMatrix;
-import android.graphics.ColorMatrixColorFilter;
-import android.graphics.Matrix;
-import android.graphics.Paint;
+import android.os.Build;
+import android.os.CancellationSignal;
 import android.os.SystemClock;
 import android.util.Log;
 
 import org.tensorflow.lite.DataType;
-import org.tensorflow.lite.Interpreter;
-import org.tensorflow.lite.support.common.FileUtil;
 import org.tensorflow.lite.support.common.TensorOperator;
 import org.tensorflow.lite.support.common.TensorProcessor;
 import org.tensorflow.lite.support.common.ops.NormalizeOp;
@@ -21,27 +17,110 @@ import org.tensorflow.lite.support.image.TensorImage;
 import org.tensorflow.lite.support.image.ops.ResizeOp;
 import org.tensorflow.lite.support.tensorbuffer.TensorBuffer;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.FloatBuffer;
 import java.nio.MappedByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
 
 public class StyleTransferHelper {
 
     private static final String TAG = "StyleTransferHelper";
-    private static final String MODEL_PATH = "model.tflite";
+
+    // Indicii variațiilor în rezultate
+    public static final int VARIANT_COUNT = 4;
+    /** Variația fără transformări, refăcută apoi la rezoluția completă. */
+    public static final int ORIGINAL = 0;
+    private static final int ROTATED = 1;
+    private static final int FLIPPED = 2;
+    private static final int CONTRASTED = 3;
+
     private static final int IMAGE_SIZE = 256;
+    // Multiplu al stride-ului total al generatorului (4); limitează și numărul de forme
+    private static final int SHAPE_STEP = 16;
+    private static final ShapeBucket SQUARE = ShapeBucket.square(IMAGE_SIZE);
+    private static final int MAX_TILE_BATCH = 4;
+    private static final int DEFAULT_TILE_OVERLAP = 32;
+    private static final int DEFAULT_POOL_SIZE = 2;
+    private static final int DEFAULT_THREADS_PER_INTERPRETER = 2;
+    private static final int AUTO_TUNE_WARM_UP_RUNS = 2;
+    private static final int AUTO_TUNE_MEASURED_RUNS = 5;
+    private static final int MAX_WARM_MODELS = 2;
+    private static final String CACHE_DIRECTORY = "style_results";
+    private static final long DISK_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final float CONTRAST_SATURATION = 1.5f;
+    // Identificatorii variațiilor în cheile de cache, în ordinea rezultatelor
+    private static final String[] VARIANT_IDS = {"original", "rotated", "flipped", "contrasted"};
+    private static final String[] FAST_VARIANT_IDS = {"original", "rotated-fast", "flipped-fast", "contrasted"};
 
     private final Context context;
-    private Interpreter interpreter;
+    private final int poolSize;
+    private final BackendConfig requestedBackend;
+    private final ModelPrecision requestedPrecision;
+    private ModelPrecision modelPrecision = ModelPrecision.FLOAT32;
+    private long modelSizeBytes;
+    private ModelRegistry registry;
+    private volatile ModelRegistry.WarmModel model;
+    private StyleResultCache resultCache;
+    private final BitmapPool bitmapPool = BitmapPool.getDefault();
+    private final StageMetrics metrics = StageMetrics.getDefault();
     private TensorImage inputImageBuffer;
     private TensorBuffer outputImageBuffer;
+    private volatile boolean batchingEnabled = true;
+    private volatile boolean batchingSupported = true;
+    private volatile boolean dynamicShapesEnabled = true;
+    private volatile boolean dynamicShapesSupported = true;
+    private volatile boolean fastVariants = false;
+    private volatile boolean cacheEnabled = true;
+    private volatile boolean retainLayers = false;
+    // Ieșirea brută a fiecărui rezultat încă nelivrat, cât timp straturile sunt păstrate
+    private final Map<Bitmap, float[]> retainedOutputs =
+            Collections.synchronizedMap(new WeakHashMap<Bitmap, float[]>());
+    private int tileOverlap = DEFAULT_TILE_OVERLAP;
+    private long maxTilingBytes = Runtime.getRuntime().maxMemory() / 3;
     private final TensorProcessor probabilityProcessor;
 
+    /**
+     * Backend-ul este ales automat: la prima pornire pe un dispozitiv se măsoară
+     * toți candidații, apoi se folosește alegerea salvată.
+     */
     public StyleTransferHelper(Context context) {
+        this(context, DEFAULT_POOL_SIZE, null);
+    }
+
+    /**
+     * @param poolSize              câte interpretoare pot rula în paralel
+     * @param threadsPerInterpreter thread-urile TFLite ale fiecărui interpretor
+     */
+    public StyleTransferHelper(Context context, int poolSize, int threadsPerInterpreter) {
+        this(context, poolSize, BackendConfig.cpu(threadsPerInterpreter, true));
+    }
+
+    /**
+     * @param poolSize câte interpretoare pot rula în paralel
+     * @param backend  configurația interpretoarelor, sau null pentru alegere automată
+     */
+    public StyleTransferHelper(Context context, int poolSize, BackendConfig backend) {
+        this(context, poolSize, backend, ModelPrecision.loadSetting(context));
+    }
+
+    /**
+     * @param poolSize  câte interpretoare pot rula în paralel
+     * @param backend   configurația interpretoarelor, sau null pentru alegere automată
+     * @param precision varianta modelului; {@link ModelPrecision#AUTO} alege după dispozitiv
+     */
+    public StyleTransferHelper(Context context, int poolSize, BackendConfig backend,
+                               ModelPrecision precision) {
         this.context = context;
+        this.poolSize = poolSize;
+        this.requestedBackend = backend;
+        this.requestedPrecision = precision;
 
         probabilityProcessor = new TensorProcessor.Builder()
                 .add(new NormalizeOp(0, 1))
@@ -52,38 +131,31 @@ public class StyleTransferHelper {
 
     private void setupInterpreter() {
         try {
-            String modelPath = "model.tflite";
-            Log.d(TAG, "Attempting to load model from: " + modelPath);
-
-            // Verifică dacă fișierul există și printează lista de assets
+            // Lista de assets decide ce variante ale modelului sunt disponibile
             String[] assets = context.getAssets().list("");
-            Log.d(TAG, "Available assets:");
-            for (String asset : assets) {
-                Log.d(TAG, "- " + asset);
-            }
-
-            // Încarcă modelul
-            MappedByteBuffer modelFile = FileUtil.loadMappedFile(context, modelPath);
-            Log.d(TAG, "Model file size: " + modelFile.capacity() + " bytes");
-
-            // Configurare optimizer pentru GPU dacă este disponibil
-            Interpreter.Options options = new Interpreter.Options();
-            options.setNumThreads(4);  // Utilizăm 4 thread-uri pentru procesare
+            Log.d(TAG, "Found " + assets.length + " assets");
 
-            interpreter = new Interpreter(modelFile, options);
-            Log.d(TAG, "Interpreter created successfully");
+            // Varianta modelului (float32/float16/int8) se alege după setări și dispozitiv
+            boolean gpuSupported = requestedPrecision == ModelPrecision.AUTO
+                    && TfliteBackendFactory.isGpuSupported();
+            modelPrecision = ModelPrecision.resolve(requestedPrecision, Arrays.asList(assets),
+                    gpuSupported);
+            String modelPath = modelPrecision.getAssetPath();
+            Log.d(TAG, "Attempting to load " + modelPrecision + " model from: " + modelPath);
 
-            // Verificăm dimensiunile tensorului de intrare
-            int[] inputShape = interpreter.getInputTensor(0).shape();
-            Log.d(TAG, "Input tensor shape: " +
-                    inputShape[0] + "x" + inputShape[1] + "x" +
-                    inputShape[2] + "x" + inputShape[3]);
+            // Modelele sunt mapate o singură dată; stilul implicit se încarcă imediat
+            registry = new ModelRegistry(context, modelPath, MAX_WARM_MODELS,
+                    Runtime.getRuntime().maxMemory() / 4, this::createPool);
+            model = registry.get(ModelRegistry.DEFAULT_STYLE);
+            modelSizeBytes = model.getModelBytes();
+            Log.d(TAG, "Model file size: " + modelSizeBytes + " bytes");
+            setupResultCache();
 
-            // Verificăm dimensiunile tensorului de ieșire
-            int[] outputShape = interpreter.getOutputTensor(0).shape();
-            Log.d(TAG, "Output tensor shape: " +
-                    outputShape[0] + "x" + outputShape[1] + "x" +
-                    outputShape[2] + "x" + outputShape[3]);
+            // Formele tensorilor vin din fișierul modelului, fără un interpretor în plus
+            ModelSignature signature = registry.getSignature(ModelRegistry.DEFAULT_STYLE);
+            Log.d(TAG, "Input tensor: " + signature.getInputs().get(0));
+            Log.d(TAG, "Output tensor: " + signature.getOutputs().get(0));
+            int[] outputShape = signature.getOutputs().get(0).getShape();
 
             // Inițializăm buffer-ele
             inputImageBuffer = new TensorImage(DataType.FLOAT32);
@@ -96,124 +168,681 @@ public class StyleTransferHelper {
         }
     }
 
+    /**
+     * Creează pool-ul de interpretoare al unui stil. Backend-ul este ales
+     * separat pentru fiecare model, deoarece modelele diferite pot avea alt
+     * câștigător.
+     */
+    private InterpreterPool createPool(StyleModel style, MappedByteBuffer mapping)
+            throws IOException {
+        // Un model descărcat greșit este refuzat înainte de a crea interpretoare
+        ModelSignature signature = registry.getSignature(style.getId());
+        if (!signature.isImageToImage()) {
+            throw new IllegalArgumentException("Unsupported style model " + style + ": " + signature);
+        }
+        TfliteBackendFactory factory = new TfliteBackendFactory(mapping);
+        BackendConfig backend = requestedBackend != null
+                ? requestedBackend : selectBackend(factory, style.getSource(), mapping.capacity());
+        // Interpretoarele din pool împart același model mapat
+        return new InterpreterPool(factory, backend, poolSize, IMAGE_SIZE, bitmapPool);
+    }
+
+    /**
+     * Cheile de cache conțin hash-ul conținutului modelului, deci un model nou
+     * invalidează automat rezultatele vechi.
+     */
+    private void setupResultCache() {
+        try {
+            int memoryBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+            resultCache = new StyleResultCache(new File(context.getCacheDir(), CACHE_DIRECTORY),
+                    memoryBytes, DISK_CACHE_BYTES);
+            Log.d(TAG, "Result cache ready");
+        } catch (Exception e) {
+            // Fără cache aplicația funcționează la fel, doar mai lent
+            Log.e(TAG, "Error creating result cache: " + e.getMessage(), e);
+            resultCache = null;
+        }
+    }
+
+    /**
+     * Alege backend-ul cel mai rapid pentru acest dispozitiv și model. Cheia
+     * include versiunea de Android, ca un update de sistem să refacă măsurătoarea.
+     */
+    private BackendConfig selectBackend(TfliteBackendFactory factory, String modelPath, long modelBytes) {
+        String deviceKey = Build.MANUFACTURER + "/" + Build.MODEL + "/" + Build.VERSION.SDK_INT
+                + "/" + modelPath + ":" + modelBytes;
+        BackendSelector selector = new BackendSelector(factory,
+                new SharedPreferencesBackendStore(context), System::nanoTime,
+                BackendConfig.cpu(DEFAULT_THREADS_PER_INTERPRETER, true),
+                AUTO_TUNE_WARM_UP_RUNS, AUTO_TUNE_MEASURED_RUNS);
+
+        long start = SystemClock.elapsedRealtime();
+        BackendSelector.Selection selection = selector.select(deviceKey);
+        if (selection.isFromStore()) {
+            Log.d(TAG, "Using stored backend " + selection.getConfig() + " for " + deviceKey);
+        } else {
+            for (Map.Entry<BackendConfig, Long> timing : selection.getMedianNanos().entrySet()) {
+                Log.d(TAG, "Backend " + timing.getKey() + ": "
+                        + timing.getValue() / 1000 + " us per inference");
+            }
+            Log.d(TAG, "Selected backend " + selection.getConfig() + " in "
+                    + (SystemClock.elapsedRealtime() - start) + " ms");
+        }
+        return selection.getConfig();
+    }
+
+    /**
+     * True dacă modelul implicit a fost încărcat și helper-ul poate procesa imagini.
+     */
+    public boolean isInitialized() {
+        return model != null;
+    }
+
+    /**
+     * Rulează o inferență pe un tensor gol, ca nucleele și delegatul să fie
+     * pregătite înaintea primei fotografii. Întoarce durata în milisecunde.
+     */
+    public long warmUp() throws InterruptedException {
+        ModelRegistry.WarmModel held = holdModel();
+        if (held == null) {
+            throw new IllegalStateException("Interpreter not initialized");
+        }
+        InterpreterPool pool = held.getPool();
+        PooledInterpreter interpreter = null;
+        try {
+            interpreter = pool.acquire(SQUARE);
+            long start = SystemClock.elapsedRealtime();
+            interpreter.resize(1, SQUARE);
+            interpreter.run(1);
+            return SystemClock.elapsedRealtime() - start;
+        } finally {
+            pool.release(interpreter);
+            releaseModel(held);
+        }
+    }
+
+    /**
+     * Generează toate variațiile și le întoarce la final, în ordinea
+     * original, rotită, oglindită, contrast. Variațiile eșuate lipsesc.
+     */
     public List<Bitmap> generateStyles(Bitmap image) {
-        List<Bitmap> results = new ArrayList<>();
+        final List<Bitmap> results = new ArrayList<>(VARIANT_COUNT);
+        generateStyles(image, new StyleResultListener() {
+            @Override
+            public void onStyleResult(int variant, Bitmap result) {
+                results.add(result);
+            }
+
+            @Override
+            public void onStylesComplete(int delivered, boolean cancelled) {
+            }
+        }, null);
+        return results;
+    }
+
+    /**
+     * Generează variațiile pe thread-ul curent și le trimite ascultătorului pe
+     * măsură ce sunt gata. Originalul rulează singur, înaintea celorlalte,
+     * ca primul rezultat să apară cât mai repede. Între pași se verifică
+     * {@code signal}; după anulare nu se mai livrează nimic.
+     */
+    public void generateStyles(Bitmap image, StyleResultListener listener, CancellationSignal signal) {
+        generateStyles(image, listener, signal, null);
+    }
+
+    /**
+     * Ca {@link #generateStyles(Bitmap, StyleResultListener, CancellationSignal)},
+     * dar variațiile marcate în {@code skipped} nu se calculează și nu se
+     * livrează, de exemplu cele deja salvate de un job reluat.
+     */
+    public void generateStyles(Bitmap image, StyleResultListener listener, CancellationSignal signal,
+                               boolean[] skipped) {
+        // Stilul poate fi schimbat între timp; jobul rămâne pe modelul de la început
+        ModelRegistry.WarmModel held = holdModel();
+        if (held == null) {
+            Log.e(TAG, "Interpreter not initialized");
+            listener.onStylesComplete(0, false);
+            return;
+        }
+        try {
+            generateStyles(held, image, listener, signal, skipped);
+        } finally {
+            releaseModel(held);
+        }
+    }
 
+    private void generateStyles(ModelRegistry.WarmModel model, Bitmap image,
+                                StyleResultListener listener, CancellationSignal signal,
+                                boolean[] skipped) {
+        // Pixelii sunt citiți o singură dată; toate variațiile pornesc de la ei
+        long start = metrics.begin();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] source = new int[width * height];
+        image.getPixels(source, 0, width, 0, 0, width, height);
+
+        // Tensorul păstrează proporțiile imaginii; variațiile geometrice rapide cer un pătrat
+        ShapeBucket shape = inputShape(width, height);
+        boolean fast = fastVariants && shape.isSquare();
+        InterpreterPool pool = model.getPool();
+        ProgressiveDelivery delivery = new ProgressiveDelivery(listener,
+                cacheKeys(source, width, height, model.getContentHash(), shape, fast),
+                source, width, height);
+        metrics.end(StageMetrics.PREPROCESS, null, start);
+        PooledInterpreter interpreter = null;
         try {
             Log.d(TAG, "Starting style generation...");
-            Log.d(TAG, "Input image dimensions: " + image.getWidth() + "x" + image.getHeight());
-
-            // Procesăm imaginea originală
-            Bitmap originalStyled = processImage(image);
-            if (originalStyled != null) {
-                Log.d(TAG, "Original style processed successfully");
-                results.add(originalStyled);
-
-                // Adăugăm variația rotită
-                Matrix matrix = new Matrix();
-                matrix.postRotate(90);
-                Bitmap rotatedImage = Bitmap.createBitmap(image, 0, 0,
-                        image.getWidth(), image.getHeight(), matrix, true);
-                Bitmap rotatedStyled = processImage(rotatedImage);
-                if (rotatedStyled != null) {
-                    results.add(rotatedStyled);
-                    Log.d(TAG, "Added rotated variation");
-                }
+            Log.d(TAG, "Input image dimensions: " + width + "x" + height + ", tensor " + shape);
 
-                // Adăugăm variația în oglindă
-                matrix.reset();
-                matrix.preScale(-1.0f, 1.0f);
-                Bitmap flippedImage = Bitmap.createBitmap(image, 0, 0,
-                        image.getWidth(), image.getHeight(), matrix, true);
-                Bitmap flippedStyled = processImage(flippedImage);
-                if (flippedStyled != null) {
-                    results.add(flippedStyled);
-                    Log.d(TAG, "Added flipped variation");
+            for (int variant = 0; variant < VARIANT_COUNT; variant++) {
+                if (skipped != null && skipped[variant]) {
+                    delivery.skip(variant);
+                } else {
+                    delivery.deliverCached(variant);
                 }
+            }
+            if (delivery.isAllDone()) {
+                Log.d(TAG, "No styles left to compute, " + delivery.getDelivered()
+                        + " served from cache");
+                return;
+            }
+
+            if (isCancelled(signal)) {
+                return;
+            }
+            interpreter = pool.acquire(shape);
+            InferenceBuffers buffers = interpreter.getBuffers();
 
-                // Adăugăm variația cu contrast modificat
-                ColorMatrix cm = new ColorMatrix();
-                cm.setSaturation(1.5f);
-                ColorMatrixColorFilter filter = new ColorMatrixColorFilter(cm);
-                Bitmap contrastedImage = Bitmap.createBitmap(
-                        image.getWidth(), image.getHeight(), Bitmap.Config.ARGB_8888);
-                Canvas canvas = new Canvas(contrastedImage);
-                Paint paint = new Paint();
-                paint.setColorFilter(filter);
-                canvas.drawBitmap(image, 0, 0, paint);
-                Bitmap contrastedStyled = processImage(contrastedImage);
-                if (contrastedStyled != null) {
-                    results.add(contrastedStyled);
-                    Log.d(TAG, "Added contrasted variation");
+            // În modul rapid, rotirea și oglindirea se obțin din ieșirea originalului
+            boolean deriveGeometric = fast
+                    && !(delivery.isDone(ROTATED) && delivery.isDone(FLIPPED));
+            if (!delivery.isDone(ORIGINAL) || deriveGeometric) {
+                Bitmap original = processImage(interpreter, source, width, height, ORIGINAL,
+                        shape);
+                if (original == null) {
+                    Log.e(TAG, "Failed to process original image");
+                    return;
+                }
+                if (delivery.isDone(ORIGINAL)) {
+                    discard(original);
+                } else {
+                    delivery.deliver(ORIGINAL, original);
                 }
+                if (deriveGeometric && !isCancelled(signal)) {
+                    deriveGeometricVariants(buffers, delivery);
+                }
+            }
 
-                Log.d(TAG, "Generated " + results.size() + " variations");
-            } else {
-                Log.e(TAG, "Failed to process original image");
+            // Variațiile sunt doar transformări aplicate la scrierea în tensor
+            List<Integer> pending = new ArrayList<>();
+            if (!fast && !delivery.isDone(ROTATED)) {
+                pending.add(ROTATED);
+            }
+            if (!fast && !delivery.isDone(FLIPPED)) {
+                pending.add(FLIPPED);
+            }
+            if (!delivery.isDone(CONTRASTED)) {
+                pending.add(CONTRASTED);
+            }
+            if (pending.isEmpty() || isCancelled(signal)) {
+                return;
             }
 
+            List<Bitmap> styled = processVariants(pool, interpreter, source, width, height,
+                    pending, shape, signal);
+            for (int i = 0; i < styled.size(); i++) {
+                if (isCancelled(signal)) {
+                    // Rezultatele nelivrate nu mai au destinatar
+                    for (Bitmap undelivered : styled.subList(i, styled.size())) {
+                        discard(undelivered);
+                    }
+                    return;
+                }
+                delivery.deliver(pending.get(i), styled.get(i));
+            }
+            Log.d(TAG, "Generated " + delivery.getDelivered() + " variations");
         } catch (Exception e) {
             Log.e(TAG, "Error in generateStyles: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            pool.release(interpreter);
+            delivery.complete(isCancelled(signal));
         }
+    }
 
-        return results;
+    private static boolean isCancelled(CancellationSignal signal) {
+        return signal != null && signal.isCanceled();
     }
 
-    private Bitmap processImage(Bitmap image) {
-        if (interpreter == null) {
-            Log.e(TAG, "Interpreter not initialized");
-            return null;
+    private static PreprocessKernel.Transform variantTransform(int variant) {
+        switch (variant) {
+            case ROTATED:
+                return PreprocessKernel.Transform.rotate(1);
+            case FLIPPED:
+                return PreprocessKernel.Transform.mirror();
+            case CONTRASTED:
+                return PreprocessKernel.Transform.saturate(CONTRAST_SATURATION);
+            default:
+                return PreprocessKernel.Transform.IDENTITY;
         }
+    }
 
-        try {
-            Log.d(TAG, "Starting image processing");
+    /**
+     * Urmărește ce variații au fost livrate, le pune în cache și măsoară
+     * timpul până la primul rezultat.
+     */
+    private final class ProgressiveDelivery {
+        private final StyleResultListener listener;
+        private final String[] cacheKeys;
+        private final int[] source;
+        private final int width;
+        private final int height;
+        private final boolean[] done = new boolean[VARIANT_COUNT];
+        private final long startTime = SystemClock.elapsedRealtime();
+        private int delivered;
 
-            // Redimensionăm imaginea
-            Bitmap resizedImage = Bitmap.createScaledBitmap(image, IMAGE_SIZE, IMAGE_SIZE, true);
+        ProgressiveDelivery(StyleResultListener listener, String[] cacheKeys,
+                            int[] source, int width, int height) {
+            this.listener = listener;
+            this.cacheKeys = cacheKeys;
+            this.source = source;
+            this.width = width;
+            this.height = height;
+        }
 
-            // Creăm array de intrare
-            float[][][][] inputArray = new float[1][IMAGE_SIZE][IMAGE_SIZE][3];
-            int[] pixels = new int[IMAGE_SIZE * IMAGE_SIZE];
-            resizedImage.getPixels(pixels, 0, IMAGE_SIZE, 0, 0, IMAGE_SIZE, IMAGE_SIZE);
+        boolean isDone(int variant) {
+            return done[variant];
+        }
 
-            // Convertim pixelii în format float
-            for (int i = 0; i < pixels.length; i++) {
-                int pixel = pixels[i];
-                int y = i / IMAGE_SIZE;
-                int x = i % IMAGE_SIZE;
+        int getDelivered() {
+            return delivered;
+        }
 
-                inputArray[0][y][x][0] = ((pixel >> 16) & 0xFF) / 255.0f;
-                inputArray[0][y][x][1] = ((pixel >> 8) & 0xFF) / 255.0f;
-                inputArray[0][y][x][2] = (pixel & 0xFF) / 255.0f;
+        void skip(int variant) {
+            done[variant] = true;
+        }
+
+        boolean isAllDone() {
+            for (boolean variantDone : done) {
+                if (!variantDone) {
+                    return false;
+                }
             }
+            return true;
+        }
 
-            // Creăm array de ieșire
-            float[][][][] outputArray = new float[1][IMAGE_SIZE][IMAGE_SIZE][3];
+        void deliverCached(int variant) {
+            if (cacheKeys == null) {
+                return;
+            }
+            Bitmap cached = resultCache.get(cacheKeys[variant]);
+            if (cached != null) {
+                send(variant, copyToRecycled(cached), null);
+            }
+        }
 
-            try {
-                // Rulăm modelul
-                Object[] inputs = new Object[]{inputArray};
-                Map<Integer, Object> outputs = new HashMap<>();
-                outputs.put(0, outputArray);
+        void deliver(int variant, Bitmap result) {
+            if (result == null) {
+                // O variație eșuată nu se pune în cache și nu se livrează
+                return;
+            }
+            if (cacheKeys != null) {
+                resultCache.put(cacheKeys[variant], result);
+            }
+            send(variant, result, retainedOutputs.remove(result));
+        }
 
-                interpreter.runForMultipleInputsOutputs(inputs, outputs);
+        private void send(int variant, Bitmap result, float[] styled) {
+            if (delivered == 0) {
+                Log.d(TAG, "Time to first result: "
+                        + (SystemClock.elapsedRealtime() - startTime) + " ms");
+            }
+            done[variant] = true;
+            delivered++;
+            listener.onStyleResult(variant, result, layers(variant, result, styled));
+        }
 
-                // Convertim rezultatul înapoi în Bitmap
-                Bitmap outputBitmap = Bitmap.createBitmap(IMAGE_SIZE, IMAGE_SIZE, Bitmap.Config.ARGB_8888);
-                for (int i = 0; i < pixels.length; i++) {
-                    int y = i / IMAGE_SIZE;
-                    int x = i % IMAGE_SIZE;
+        /**
+         * Straturile variației: intrarea recalculată din pixelii sursei și
+         * ieșirea brută reținută, sau pixelii bitmap-ului pentru rezultatele
+         * venite din cache.
+         */
+        private StyleLayers layers(int variant, Bitmap result, float[] styled) {
+            if (!retainLayers) {
+                return null;
+            }
+            // Straturile au forma rezultatului, inclusiv pentru formele dreptunghiulare
+            int resultWidth = result.getWidth();
+            int resultHeight = result.getHeight();
+            if (resultWidth > IMAGE_SIZE || resultHeight > IMAGE_SIZE) {
+                return null;
+            }
+            long start = metrics.begin();
+            int floats = resultWidth * resultHeight * 3;
+            if (styled == null) {
+                int[] pixels = new int[resultWidth * resultHeight];
+                result.getPixels(pixels, 0, resultWidth, 0, 0, resultWidth, resultHeight);
+                styled = new float[floats];
+                PixelConverter.argbToFloat(pixels, pixels.length, FloatBuffer.wrap(styled), 0);
+            }
+            float[] content = new float[floats];
+            new PreprocessKernel(resultWidth, resultHeight).apply(source, width, height,
+                    variantTransform(variant), FloatBuffer.wrap(content), 0);
+            metrics.end(StageMetrics.POSTPROCESS, "layers", start);
+            return new StyleLayers(resultWidth, resultHeight, content, styled);
+        }
+
+        void complete(boolean cancelled) {
+            Log.d(TAG, "Style generation " + (cancelled ? "cancelled" : "finished") + " after "
+                    + (SystemClock.elapsedRealtime() - startTime) + " ms, "
+                    + delivered + " results");
+            listener.onStylesComplete(delivered, cancelled);
+        }
+    }
+
+    /**
+     * Cheile de cache ale celor patru variații pentru imaginea dată, sau null
+     * dacă cache-ul nu este disponibil. Formele dreptunghiulare intră în cheie,
+     * ca un rezultat pătrat mai vechi să nu fie servit în locul lor.
+     */
+    private String[] cacheKeys(int[] pixels, int width, int height, String modelHash,
+                               ShapeBucket shape, boolean fast) {
+        if (resultCache == null || !cacheEnabled) {
+            return null;
+        }
+        long inputHash = ContentHash.of(pixels, pixels.length, width, height);
+
+        String[] variantIds = fast ? FAST_VARIANT_IDS : VARIANT_IDS;
+        String[] keys = new String[variantIds.length];
+        for (int i = 0; i < keys.length; i++) {
+            String variantId = shape.isSquare()
+                    ? variantIds[i] : variantIds[i] + "@" + variantShape(shape, i);
+            keys[i] = StyleResultCache.key(inputHash, modelHash, variantId);
+        }
+        return keys;
+    }
+
+    /**
+     * Bitmap-urile din cache rămân ale cache-ului; apelantul primește o copie
+     * pe care o poate recicla.
+     */
+    private Bitmap copyToRecycled(Bitmap cached) {
+        Bitmap copy = bitmapPool.obtain(cached.getWidth(), cached.getHeight());
+        copy.eraseColor(0);
+        new Canvas(copy).drawBitmap(cached, 0, 0, null);
+        return copy;
+    }
 
-                    int red = (int) (outputArray[0][y][x][0] * 255);
-                    int green = (int) (outputArray[0][y][x][1] * 255);
-                    int blue = (int) (outputArray[0][y][x][2] * 255);
+    /**
+     * Stilurile disponibile: modelul implicit, cele din assets/styles și cele descărcate.
+     */
+    public List<StyleModel> getAvailableStyles() {
+        return registry != null ? registry.getModels() : Collections.<StyleModel>emptyList();
+    }
+
+    public String getStyle() {
+        ModelRegistry.WarmModel current = model;
+        return current != null ? current.getModel().getId() : null;
+    }
+
+    /**
+     * Schimbă stilul. Pentru un model deja încărcat este doar o căutare; altfel
+     * modelul este încărcat aici, deci apelul nu trebuie făcut pe thread-ul UI.
+     * Joburile în curs termină cu stilul vechi. Lista modelelor se recitește
+     * întâi, deci un model descărcat sau înlocuit între timp este folosit.
+     */
+    public void setStyle(String styleId) throws Exception {
+        if (registry == null) {
+            throw new IllegalStateException("Interpreter not initialized");
+        }
+        registry.refresh();
+        ModelRegistry.WarmModel warm = registry.get(styleId);
+        model = warm;
+        modelSizeBytes = warm.getModelBytes();
+        Log.d(TAG, "Style set to " + styleId);
+    }
+
+    /**
+     * Varianta de model încărcată efectiv, după rezolvarea lui AUTO.
+     */
+    public ModelPrecision getModelPrecision() {
+        return modelPrecision;
+    }
+
+    /**
+     * Backend-ul interpretoarelor stilului curent, sau null înainte de inițializare.
+     */
+    public BackendConfig getBackendConfig() {
+        InterpreterPool pool = currentPool();
+        return pool == null ? null : pool.getBackendConfig();
+    }
+
+    public long getModelSizeBytes() {
+        return modelSizeBytes;
+    }
+
+    /**
+     * Dezactivează cache-ul de rezultate, de exemplu pentru măsurători de latență.
+     */
+    public void setCacheEnabled(boolean enabled) {
+        this.cacheEnabled = enabled;
+    }
 
-                    pixels[i] = (0xFF << 24) | (red << 16) | (green << 8) | blue;
+    public long getCacheHitCount() {
+        return resultCache != null ? resultCache.getHitCount() : 0;
+    }
+
+    public long getCacheMissCount() {
+        return resultCache != null ? resultCache.getMissCount() : 0;
+    }
+
+    /**
+     * Activează sau dezactivează rularea tuturor variațiilor într-o singură
+     * invocare a interpretorului.
+     */
+    public void setBatchingEnabled(boolean enabled) {
+        this.batchingEnabled = enabled;
+    }
+
+    public boolean isBatchingSupported() {
+        return batchingSupported;
+    }
+
+    /**
+     * Activează sau dezactivează tensorii cu proporțiile imaginii. Dezactivat,
+     * fiecare imagine este întinsă pe pătratul modelului.
+     */
+    public void setDynamicShapesEnabled(boolean enabled) {
+        this.dynamicShapesEnabled = enabled;
+    }
+
+    /**
+     * False după ce modelul a refuzat o intrare dreptunghiulară.
+     */
+    public boolean isDynamicShapesSupported() {
+        return dynamicShapesSupported;
+    }
+
+    /**
+     * În modul rapid, variațiile rotită și oglindită sunt derivate din tensorul
+     * de ieșire al originalului, fără a rula din nou modelul. Se aplică doar
+     * imaginilor cu tensor pătrat.
+     */
+    public void setFastVariants(boolean enabled) {
+        this.fastVariants = enabled;
+    }
+
+    public boolean isFastVariants() {
+        return fastVariants;
+    }
+
+    /**
+     * Păstrează pentru fiecare variație livrată intrarea preprocesată și
+     * ieșirea brută a modelului, trimise ascultătorului ca {@link StyleLayers},
+     * ca rezultatul să poată fi recompus fără o nouă inferență.
+     */
+    public void setRetainLayers(boolean enabled) {
+        this.retainLayers = enabled;
+    }
+
+    /**
+     * Citește poziția {@code slot} ca bitmap și, dacă straturile sunt păstrate,
+     * reține și ieșirea brută până la livrare.
+     */
+    private Bitmap readRetained(InferenceBuffers buffers, int batchSize, int slot) {
+        Bitmap result = buffers.readOutput(batchSize, slot);
+        if (retainLayers) {
+            float[] raw = new float[buffers.getShape().getPixelCount() * 3];
+            buffers.copyOutput(batchSize, slot, raw);
+            retainedOutputs.put(result, raw);
+        }
+        return result;
+    }
+
+    /**
+     * Un rezultat care nu mai este livrat se întoarce în pool fără ieșirea reținută.
+     */
+    private void discard(Bitmap result) {
+        if (result != null) {
+            retainedOutputs.remove(result);
+            bitmapPool.put(result);
+        }
+    }
+
+    /**
+     * Completează variațiile geometrice transformând in-place ieșirea
+     * originalului, rămasă în tensorul de ieșire după inferență.
+     */
+    private void deriveGeometricVariants(InferenceBuffers buffers, ProgressiveDelivery delivery) {
+        long start = metrics.begin();
+        buffers.rotateOutput90(1, 0);
+        if (!delivery.isDone(ROTATED)) {
+            delivery.deliver(ROTATED, readRetained(buffers, 1, 0));
+        }
+        start = metrics.end(StageMetrics.POSTPROCESS, FAST_VARIANT_IDS[ROTATED], start);
+
+        // Din imaginea rotită, reflexia pe diagonala secundară dă oglinda originalului
+        buffers.antiTransposeOutput(1, 0);
+        if (!delivery.isDone(FLIPPED)) {
+            delivery.deliver(FLIPPED, readRetained(buffers, 1, 0));
+        }
+        metrics.end(StageMetrics.POSTPROCESS, FAST_VARIANT_IDS[FLIPPED], start);
+    }
+
+    /**
+     * Rulează modelul pe toate imaginile, într-un singur batch dacă modelul
+     * acceptă redimensionarea intrării. Altfel variațiile sunt împărțite pe
+     * interpretoarele libere din pool. Rezultatul are aceeași ordine ca
+     * intrarea, cu null pentru imaginile care au eșuat sau au fost anulate.
+     */
+    private List<Bitmap> processVariants(InterpreterPool pool, PooledInterpreter interpreter,
+                                         final int[] source, final int width, final int height,
+                                         List<Integer> variants, final ShapeBucket shape,
+                                         final CancellationSignal signal) throws Exception {
+        // Un batch cere aceeași formă pentru toate imaginile; rotirea inversează laturile
+        if (batchingEnabled && batchingSupported && variants.size() > 1
+                && haveSameShape(shape, variants)) {
+            List<Bitmap> styled = processBatch(interpreter, source, width, height, variants, shape);
+            if (styled != null) {
+                return styled;
+            }
+        }
+
+        List<InterpreterPool.PooledTask<Bitmap>> tasks = new ArrayList<>(variants.size());
+        for (final int variant : variants) {
+            tasks.add(new InterpreterPool.PooledTask<Bitmap>() {
+                @Override
+                public Bitmap run(PooledInterpreter pooled) {
+                    // Variațiile care nu au început încă sunt sărite după anulare
+                    return isCancelled(signal)
+                            ? null : processImage(pooled, source, width, height, variant, shape);
                 }
-                outputBitmap.setPixels(pixels, 0, IMAGE_SIZE, 0, 0, IMAGE_SIZE, IMAGE_SIZE);
+            });
+        }
+        return pool.invokeAll(interpreter, tasks);
+    }
+
+    private static boolean haveSameShape(ShapeBucket shape, List<Integer> variants) {
+        ShapeBucket first = variantShape(shape, variants.get(0));
+        for (int variant : variants) {
+            if (!variantShape(shape, variant).equals(first)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Bitmap> processBatch(PooledInterpreter interpreter, int[] source, int width,
+                                      int height, List<Integer> variants, ShapeBucket shape) {
+        if (!runBatch(interpreter, source, width, height, variants, shape)) {
+            return null;
+        }
+        int batchSize = variants.size();
+        List<Bitmap> styled = new ArrayList<>(batchSize);
+        for (int slot = 0; slot < batchSize; slot++) {
+            long start = metrics.begin();
+            styled.add(readRetained(interpreter.getBuffers(), batchSize, slot));
+            metrics.end(StageMetrics.POSTPROCESS, VARIANT_IDS[variants.get(slot)], start);
+        }
+        return styled;
+    }
 
-                return outputBitmap;
+    /**
+     * Încarcă imaginile într-un singur tensor și rulează interpretorul o dată.
+     * Ieșirile rămân în buffere până la următoarea inferență.
+     */
+    private boolean runBatch(PooledInterpreter interpreter, int[] source, int width, int height,
+                             List<Integer> variants, ShapeBucket shape) {
+        int batchSize = variants.size();
+        try {
+            useShape(interpreter, batchSize, variantShape(shape, variants.get(0)));
+            for (int slot = 0; slot < batchSize; slot++) {
+                int variant = variants.get(slot);
+                long start = metrics.begin();
+                interpreter.getBuffers().loadInput(source, width, height,
+                        variantTransform(variant), batchSize, slot);
+                metrics.end(StageMetrics.TENSOR_FILL, VARIANT_IDS[variant], start);
+            }
+
+            long start = metrics.begin();
+            interpreter.run(batchSize);
+            metrics.end(StageMetrics.INFERENCE, "batch", start);
+            return true;
+        } catch (Exception e) {
+            // Modelul nu suportă batch-uri, revenim la câte o imagine
+            Log.w(TAG, "Batched inference unavailable, falling back to sequential: "
+                    + e.getMessage());
+            batchingSupported = false;
+            try {
+                interpreter.resizeBatch(1);
+            } catch (Exception resizeError) {
+                Log.e(TAG, "Error restoring batch size: " + resizeError.getMessage());
+            }
+            return false;
+        }
+    }
+
+    private Bitmap processImage(PooledInterpreter interpreter, int[] source, int width, int height,
+                                int variant, ShapeBucket shape) {
+        String variantId = VARIANT_IDS[variant];
+        try {
+            useShape(interpreter, 1, variantShape(shape, variant));
+
+            // Transformăm, redimensionăm și convertim direct în tensorul de intrare prealocat
+            long start = metrics.begin();
+            InferenceBuffers buffers = interpreter.getBuffers();
+            buffers.loadInput(source, width, height, variantTransform(variant), 1, 0);
+            start = metrics.end(StageMetrics.TENSOR_FILL, variantId, start);
+
+            try {
+                // Rulăm modelul
+                interpreter.run(1);
+                start = metrics.end(StageMetrics.INFERENCE, variantId, start);
+
+                // Convertim rezultatul înapoi în Bitmap
+                Bitmap result = readRetained(buffers, 1, 0);
+                metrics.end(StageMetrics.POSTPROCESS, variantId, start);
+                return result;
             } catch (Exception e) {
                 Log.e(TAG, "Error running model: " + e.getMessage());
                 return null;
@@ -224,55 +853,272 @@ public class StyleTransferHelper {
         }
     }
 
-    private Bitmap createRotatedVariation(Bitmap original, float degrees) {
+    /**
+     * Forma tensorului pentru o imagine: proporțiile ei, dacă modelul acceptă
+     * redimensionarea intrării, altfel pătratul modelului.
+     */
+    private ShapeBucket inputShape(int width, int height) {
+        if (!dynamicShapesEnabled || !dynamicShapesSupported) {
+            return SQUARE;
+        }
+        return ShapeBucket.forImage(width, height, IMAGE_SIZE, SHAPE_STEP);
+    }
+
+    private static ShapeBucket variantShape(ShapeBucket shape, int variant) {
+        return variant == ROTATED ? shape.transposed() : shape;
+    }
+
+    /**
+     * Aduce interpretorul la forma și batch-ul cerute. Dacă modelul refuză o
+     * formă dreptunghiulară, restul sesiunii folosește pătratul modelului.
+     */
+    private void useShape(PooledInterpreter interpreter, int batchSize, ShapeBucket shape) {
+        long start = metrics.begin();
+        int resizes = interpreter.getResizeCount();
+        ShapeBucket target = dynamicShapesSupported ? shape : SQUARE;
         try {
-            android.graphics.Matrix matrix = new android.graphics.Matrix();
-            matrix.postRotate(degrees);
-            Bitmap rotated = Bitmap.createBitmap(original, 0, 0,
-                    original.getWidth(), original.getHeight(), matrix, true);
-            return processImage(rotated);
-        } catch (Exception e) {
-            Log.e(TAG, "Error creating rotation variation", e);
-            return null;
+            interpreter.resize(batchSize, target);
+        } catch (RuntimeException e) {
+            // Un batch refuzat este tratat de apelant; aici doar forma imaginii
+            if (target.isSquare() || batchSize > 1) {
+                throw e;
+            }
+            Log.w(TAG, "Model rejects " + target + " input, using " + SQUARE + ": "
+                    + e.getMessage());
+            dynamicShapesSupported = false;
+            interpreter.resize(batchSize, SQUARE);
+        }
+        if (interpreter.getResizeCount() != resizes) {
+            metrics.end(StageMetrics.INFERENCE, "resize", start);
         }
     }
 
-    private Bitmap createFlippedVariation(Bitmap original) {
+    /**
+     * Latura lungă a imaginilor stilizate, în pixeli. Rezultatele au
+     * proporțiile imaginii, deci pot fi dreptunghiulare.
+     */
+    public int getImageSize() {
+        return IMAGE_SIZE;
+    }
+
+    /**
+     * Stilizează un cadru al camerei, scris direct din planurile YUV în
+     * tensor, și pune rezultatul în {@code output} (IMAGE_SIZE x IMAGE_SIZE).
+     * Nu așteaptă un interpretor: dacă toate sunt ocupate cadrul este sărit.
+     * Întoarce false pentru cadrele sărite sau eșuate.
+     */
+    public boolean stylizeFrame(YuvPreprocessKernel.Frame frame, int[] output) {
+        ModelRegistry.WarmModel held = holdModel();
+        if (held == null) {
+            return false;
+        }
+        InterpreterPool pool = held.getPool();
+        PooledInterpreter interpreter = null;
         try {
-            android.graphics.Matrix matrix = new android.graphics.Matrix();
-            matrix.preScale(-1.0f, 1.0f);
-            Bitmap flipped = Bitmap.createBitmap(original, 0, 0,
-                    original.getWidth(), original.getHeight(), matrix, true);
-            return processImage(flipped);
+            interpreter = pool.tryAcquire();
+            if (interpreter == null) {
+                return false;
+            }
+            // Cadrele camerei sunt pătrate; de obicei interpretorul este deja în această formă
+            interpreter.resize(1, SQUARE);
+            long start = metrics.begin();
+            interpreter.getBuffers().loadInput(frame);
+            start = metrics.end(StageMetrics.TENSOR_FILL, "preview", start);
+            interpreter.run(1);
+            start = metrics.end(StageMetrics.INFERENCE, "preview", start);
+            interpreter.getBuffers().readPixels(1, 0, output);
+            metrics.end(StageMetrics.POSTPROCESS, "preview", start);
+            return true;
         } catch (Exception e) {
-            Log.e(TAG, "Error creating flipped variation", e);
-            return null;
+            Log.e(TAG, "Error styling preview frame: " + e.getMessage());
+            return false;
+        } finally {
+            pool.release(interpreter);
+            releaseModel(held);
         }
     }
 
-    private Bitmap createContrastedVariation(Bitmap original) {
+    /**
+     * Suprapunerea în pixeli dintre tile-urile vecine la stilizarea în rezoluție mare.
+     */
+    public void setTileOverlap(int overlap) {
+        this.tileOverlap = overlap;
+    }
+
+    /**
+     * Limita de memorie pentru sursă, rezultat și bufferele de lucru la
+     * stilizarea în rezoluție mare. Imaginile care nu încap sunt micșorate.
+     */
+    public void setMaxTilingBytes(long maxBytes) {
+        this.maxTilingBytes = maxBytes;
+    }
+
+    /**
+     * Stilizează imaginea la rezoluția ei (în limita de memorie), în tile-uri de
+     * IMAGE_SIZE suprapuse și amestecate la îmbinări.
+     */
+    public Bitmap processHighResolution(Bitmap image) {
+        return processHighResolution(image, null);
+    }
+
+    /**
+     * Ca {@link #processHighResolution(Bitmap)}, dar se oprește între loturile
+     * de tile-uri după anularea lui {@code signal} și întoarce null.
+     */
+    public Bitmap processHighResolution(Bitmap image, final CancellationSignal signal) {
+        ModelRegistry.WarmModel held = holdModel();
+        if (held == null) {
+            Log.e(TAG, "Interpreter not initialized");
+            return null;
+        }
+        InterpreterPool pool = held.getPool();
+
+        PooledInterpreter interpreter = null;
         try {
-            android.graphics.ColorMatrix cm = new android.graphics.ColorMatrix();
-            cm.setSaturation(1.5f);
-            android.graphics.ColorMatrixColorFilter filter = new android.graphics.ColorMatrixColorFilter(cm);
+            final PooledInterpreter tileInterpreter = pool.acquire(SQUARE);
+            interpreter = tileInterpreter;
+            // Tile-urile sunt pătrate, indiferent de proporțiile fotografiei
+            tileInterpreter.resize(1, SQUARE);
+            TiledStyleTransfer tiler = new TiledStyleTransfer(IMAGE_SIZE, tileOverlap);
+            final Bitmap source = fitTilingBudget(image, tiler);
+            final int width = source.getWidth();
+            final int height = source.getHeight();
+            Log.d(TAG, "High resolution pass: " + width + "x" + height + ", "
+                    + tiler.countTiles(width, height) + " tiles");
+
+            final Bitmap output = bitmapPool.obtain(width, height);
+            try {
+                tiler.render(width, height, source::getPixels, new TiledStyleTransfer.TileStylizer() {
+                    @Override
+                    public int getMaxBatchSize() {
+                        return batchingEnabled && batchingSupported ? MAX_TILE_BATCH : 1;
+                    }
 
-            Bitmap contrasted = original.copy(Bitmap.Config.ARGB_8888, true);
-            android.graphics.Canvas canvas = new android.graphics.Canvas(contrasted);
-            android.graphics.Paint paint = new android.graphics.Paint();
-            paint.setColorFilter(filter);
-            canvas.drawBitmap(contrasted, 0, 0, paint);
+                    @Override
+                    public void stylize(int[][] tiles, int count) {
+                        if (isCancelled(signal)) {
+                            throw new CancellationException("High resolution pass cancelled");
+                        }
+                        stylizeTiles(tileInterpreter, tiles, count);
+                    }
+                }, (pixels, y, rows) -> output.setPixels(pixels, 0, width, 0, y, width, rows));
+            } catch (RuntimeException e) {
+                // Rezultatul parțial nu ajunge la apelant
+                bitmapPool.put(output);
+                throw e;
+            }
 
-            return processImage(contrasted);
+            if (source != image) {
+                source.recycle();
+            }
+            return output;
+        } catch (CancellationException e) {
+            Log.d(TAG, e.getMessage());
+            return null;
         } catch (Exception e) {
-            Log.e(TAG, "Error creating contrast variation", e);
+            Log.e(TAG, "Error in processHighResolution: " + e.getMessage(), e);
             return null;
+        } finally {
+            pool.release(interpreter);
+            releaseModel(held);
+        }
+    }
+
+    private void stylizeTiles(PooledInterpreter interpreter, int[][] tiles, int count) {
+        InferenceBuffers buffers = interpreter.getBuffers();
+        if (count > 1) {
+            try {
+                interpreter.resizeBatch(count);
+            } catch (Exception e) {
+                Log.w(TAG, "Batched tiles unavailable, falling back to sequential: "
+                        + e.getMessage());
+                batchingSupported = false;
+            }
+        }
+        if (count == 1 || !batchingSupported) {
+            for (int i = 0; i < count; i++) {
+                long start = metrics.begin();
+                buffers.loadPixels(tiles[i], 1, 0);
+                start = metrics.end(StageMetrics.TENSOR_FILL, "tile", start);
+                interpreter.run(1);
+                start = metrics.end(StageMetrics.INFERENCE, "tile", start);
+                buffers.readPixels(1, 0, tiles[i]);
+                metrics.end(StageMetrics.POSTPROCESS, "tile", start);
+            }
+            return;
+        }
+
+        long start = metrics.begin();
+        for (int i = 0; i < count; i++) {
+            buffers.loadPixels(tiles[i], count, i);
+        }
+        start = metrics.end(StageMetrics.TENSOR_FILL, "tile", start);
+        interpreter.run(count);
+        start = metrics.end(StageMetrics.INFERENCE, "tile-batch", start);
+        for (int i = 0; i < count; i++) {
+            buffers.readPixels(count, i, tiles[i]);
         }
+        metrics.end(StageMetrics.POSTPROCESS, "tile", start);
+    }
+
+    /**
+     * Micșorează imaginea până când sursa, rezultatul și bufferele de lucru
+     * încap în {@link #maxTilingBytes}.
+     */
+    private Bitmap fitTilingBudget(Bitmap image, TiledStyleTransfer tiler) {
+        int[] size = tiler.fitWithinBudget(image.getWidth(), image.getHeight(),
+                MAX_TILE_BATCH, maxTilingBytes);
+        int width = size[0];
+        int height = size[1];
+        if (width == image.getWidth() && height == image.getHeight()) {
+            return image;
+        }
+        Log.d(TAG, "Downscaling " + image.getWidth() + "x" + image.getHeight()
+                + " to " + width + "x" + height + " to fit the tiling memory budget");
+        return Bitmap.createScaledBitmap(image, width, height, true);
+    }
+
+    /**
+     * Returnează bitmap-urile unor rezultate care nu mai sunt afișate, pentru a fi
+     * refolosite la următoarele inferențe.
+     */
+    public void recycle(List<Bitmap> results) {
+        bitmapPool.putAll(results);
+    }
+
+    private InterpreterPool currentPool() {
+        ModelRegistry.WarmModel current = model;
+        return current != null ? current.getPool() : null;
+    }
+
+    /**
+     * Modelul curent, ținut în registru până la {@link #releaseModel}, ca o
+     * schimbare de stil să nu-i închidă interpretoarele în timpul unei
+     * inferențe. Null înainte de inițializare sau după închidere.
+     */
+    private ModelRegistry.WarmModel holdModel() {
+        while (true) {
+            ModelRegistry.WarmModel current = model;
+            if (current == null || registry.retain(current)) {
+                return current;
+            }
+            // Modelul a fost închis chiar acum; setStyle îl înlocuiește imediat
+            Thread.yield();
+        }
+    }
+
+    private void releaseModel(ModelRegistry.WarmModel held) {
+        registry.release(held);
     }
 
     public void close() {
-        if (interpreter != null) {
-            interpreter.close();
-            interpreter = null;
+        model = null;
+        if (registry != null) {
+            registry.close();
+        }
+        if (resultCache != null) {
+            Log.d(TAG, "Result cache at close: " + resultCache.getStats());
+            resultCache.close();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.feri.artistictransform;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Inițializează {@link StyleTransferHelper} pe un thread de fundal, la pornirea
+ * activității: maparea modelului, alegerea backend-ului, alocarea tensorilor
+ * și o inferență de încălzire. Procesarea așteaptă cu {@link #await()}, deci
+ * firul UI nu este blocat niciodată.
+ */
+public class StyleTransferLoader {
+
+    private static final String TAG = "StyleTransferLoader";
+
+    private final Context context;
+    private final FutureTask<StyleTransferHelper> task;
+    private StyleTransferHelper loaded;
+    private boolean closed;
+    private volatile long coldStartMillis = -1;
+    private volatile long firstInferenceMillis = -1;
+
+    public StyleTransferLoader(Context context) {
+        // Contextul aplicației, ca thread-ul de fundal să nu rețină activitatea
+        this.context = context.getApplicationContext();
+        this.task = new FutureTask<>(this::load);
+    }
+
+    /**
+     * Pornește inițializarea. Apelurile repetate nu au efect.
+     */
+    public synchronized void start() {
+        if (closed || task.isDone()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            task.run();
+        }, "style-init");
+        thread.start();
+    }
+
+    /**
+     * Blochează până când helper-ul este gata. Nu se apelează de pe firul UI.
+     *
+     * @throws ExecutionException dacă inițializarea a eșuat
+     */
+    public StyleTransferHelper await() throws InterruptedException, ExecutionException {
+        return task.get();
+    }
+
+    public boolean isReady() {
+        return getIfReady() != null;
+    }
+
+    /**
+     * Helper-ul, dacă inițializarea s-a terminat cu succes; altfel null, fără blocare.
+     */
+    public StyleTransferHelper getIfReady() {
+        if (!task.isDone()) {
+            return null;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException | ExecutionException | CancellationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Durata de la începutul inițializării până la modelul încărcat, sau -1.
+     */
+    public long getColdStartMillis() {
+        return coldStartMillis;
+    }
+
+    /**
+     * Durata inferenței de încălzire, prima pe acest proces, sau -1.
+     */
+    public long getFirstInferenceMillis() {
+        return firstInferenceMillis;
+    }
+
+    /**
+     * Închide helper-ul; dacă inițializarea încă rulează, este închis imediat ce termină.
+     */
+    public void close() {
+        StyleTransferHelper helper;
+        synchronized (this) {
+            closed = true;
+            helper = loaded;
+            loaded = null;
+        }
+        if (helper != null) {
+            helper.close();
+        }
+    }
+
+    private StyleTransferHelper load() throws Exception {
+        long start = SystemClock.elapsedRealtime();
+        StyleTransferHelper helper = new StyleTransferHelper(context);
+        if (!helper.isInitialized()) {
+            helper.close();
+            throw new IllegalStateException("Style transfer model failed to load");
+        }
+        coldStartMillis = SystemClock.elapsedRealtime() - start;
+
+        try {
+            firstInferenceMillis = helper.warmUp();
+        } catch (Exception e) {
+            // Fără încălzire prima fotografie este doar mai lentă
+            Log.w(TAG, "Warm-up inference failed: " + e.getMessage(), e);
+        }
+        Log.i(TAG, "Cold start: " + coldStartMillis + " ms, first inference: "
+                + firstInferenceMillis + " ms");
+
+        synchronized (this) {
+            if (!closed) {
+                loaded = helper;
+                return helper;
+            }
+        }
+        helper.close();
+        throw new CancellationException("Loader closed during initialization");
+    }
+}
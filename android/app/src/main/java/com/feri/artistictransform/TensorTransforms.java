@@ -0,0 +1,114 @@
+package com.feri.artistictransform;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Transformări geometrice in-place pe o imagine pătrată NHWC dintr-un tensor
+ * float sau cuantizat pe 8 biți, începând de la indexul absolut {@code offset}. Modelul este
+ * convoluțional, deci rotirea/oglindirea ieșirii aproximează rularea lui pe
+ * imaginea rotită/oglindită, fără o nouă inferență.
+ */
+public final class TensorTransforms {
+
+    private TensorTransforms() {
+    }
+
+    /**
+     * Rotește imaginea cu 90° în sensul acelor de ceasornic, ca
+     * {@code Matrix.postRotate(90)}.
+     */
+    public static void rotate90InPlace(FloatBuffer tensor, int offset, int size, int channels) {
+        for (int i = 0; i < size / 2; i++) {
+            for (int j = i; j < size - 1 - i; j++) {
+                int top = index(offset, i, j, size, channels);
+                int right = index(offset, j, size - 1 - i, size, channels);
+                int bottom = index(offset, size - 1 - i, size - 1 - j, size, channels);
+                int left = index(offset, size - 1 - j, i, size, channels);
+                for (int c = 0; c < channels; c++) {
+                    float value = tensor.get(top + c);
+                    tensor.put(top + c, tensor.get(left + c));
+                    tensor.put(left + c, tensor.get(bottom + c));
+                    tensor.put(bottom + c, tensor.get(right + c));
+                    tensor.put(right + c, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Oglindește imaginea pe orizontală, ca {@code Matrix.preScale(-1, 1)}.
+     */
+    public static void mirrorInPlace(FloatBuffer tensor, int offset, int size, int channels) {
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size / 2; x++) {
+                swap(tensor, index(offset, y, x, size, channels),
+                        index(offset, y, size - 1 - x, size, channels), channels);
+            }
+        }
+    }
+
+    /**
+     * Reflectă imaginea față de diagonala secundară. Aplicată pe o imagine rotită
+     * cu {@link #rotate90InPlace}, produce oglindirea orizontală a originalului.
+     */
+    public static void antiTransposeInPlace(FloatBuffer tensor, int offset, int size, int channels) {
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size - 1 - y; x++) {
+                swap(tensor, index(offset, y, x, size, channels),
+                        index(offset, size - 1 - x, size - 1 - y, size, channels), channels);
+            }
+        }
+    }
+
+    /**
+     * Varianta pentru tensori cuantizați a lui {@link #rotate90InPlace(FloatBuffer, int, int, int)}.
+     */
+    public static void rotate90InPlace(ByteBuffer tensor, int offset, int size, int channels) {
+        for (int i = 0; i < size / 2; i++) {
+            for (int j = i; j < size - 1 - i; j++) {
+                int top = index(offset, i, j, size, channels);
+                int right = index(offset, j, size - 1 - i, size, channels);
+                int bottom = index(offset, size - 1 - i, size - 1 - j, size, channels);
+                int left = index(offset, size - 1 - j, i, size, channels);
+                for (int c = 0; c < channels; c++) {
+                    byte value = tensor.get(top + c);
+                    tensor.put(top + c, tensor.get(left + c));
+                    tensor.put(left + c, tensor.get(bottom + c));
+                    tensor.put(bottom + c, tensor.get(right + c));
+                    tensor.put(right + c, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Varianta pentru tensori cuantizați a lui
+     * {@link #antiTransposeInPlace(FloatBuffer, int, int, int)}.
+     */
+    public static void antiTransposeInPlace(ByteBuffer tensor, int offset, int size, int channels) {
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size - 1 - y; x++) {
+                int a = index(offset, y, x, size, channels);
+                int b = index(offset, size - 1 - x, size - 1 - y, size, channels);
+                for (int c = 0; c < channels; c++) {
+                    byte value = tensor.get(a + c);
+                    tensor.put(a + c, tensor.get(b + c));
+                    tensor.put(b + c, value);
+                }
+            }
+        }
+    }
+
+    private static int index(int offset, int y, int x, int size, int channels) {
+        return offset + (y * size + x) * channels;
+    }
+
+    private static void swap(FloatBuffer tensor, int a, int b, int channels) {
+        for (int c = 0; c < channels; c++) {
+            float value = tensor.get(a + c);
+            tensor.put(a + c, tensor.get(b + c));
+            tensor.put(b + c, value);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.feri.artistictransform;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Delegate;
+import org.tensorflow.lite.Interpreter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Un interpretor TFLite creat pentru o {@link BackendConfig}, împreună cu
+ * delegatul lui (GPU sau NNAPI), care trebuie închis odată cu interpretorul.
+ */
+public class TfliteBackend implements InferenceBackend {
+
+    private static final float WARM_UP_VALUE = 0.5f;
+
+    private final BackendConfig config;
+    private final Interpreter interpreter;
+    private final Delegate delegate;
+    private ByteBuffer warmUpInput;
+    private ByteBuffer warmUpOutput;
+
+    TfliteBackend(BackendConfig config, Interpreter interpreter, Delegate delegate) {
+        this.config = config;
+        this.interpreter = interpreter;
+        this.delegate = delegate;
+    }
+
+    public Interpreter getInterpreter() {
+        return interpreter;
+    }
+
+    @Override
+    public BackendConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public void runWarmUp() {
+        if (warmUpInput == null) {
+            warmUpInput = ByteBuffer.allocateDirect(interpreter.getInputTensor(0).numBytes())
+                    .order(ByteOrder.nativeOrder());
+            warmUpOutput = ByteBuffer.allocateDirect(interpreter.getOutputTensor(0).numBytes())
+                    .order(ByteOrder.nativeOrder());
+            // Intrările cuantizate rămân pe zero; valoarea nu contează la încălzire
+            if (interpreter.getInputTensor(0).dataType() == DataType.FLOAT32) {
+                FloatBuffer floats = warmUpInput.asFloatBuffer();
+                for (int i = 0; i < floats.capacity(); i++) {
+                    floats.put(i, WARM_UP_VALUE);
+                }
+            }
+        }
+        warmUpInput.rewind();
+        warmUpOutput.rewind();
+        interpreter.run(warmUpInput, warmUpOutput);
+    }
+
+    @Override
+    public void close() {
+        interpreter.close();
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+}
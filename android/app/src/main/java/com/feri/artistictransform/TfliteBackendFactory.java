@@ -0,0 +1,90 @@
+package com.feri.artistictransform;
+
+import android.os.Build;
+
+import org.tensorflow.lite.Delegate;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.gpu.CompatibilityList;
+import org.tensorflow.lite.gpu.GpuDelegate;
+import org.tensorflow.lite.nnapi.NnApiDelegate;
+
+import java.nio.MappedByteBuffer;
+import java.util.List;
+
+/**
+ * Creează interpretoare TFLite pentru fiecare {@link BackendConfig} și listează
+ * candidații disponibili pe dispozitiv: CPU cu 1/2/4 thread-uri, cu și fără
+ * XNNPACK, NNAPI de la Android 8.1 și GPU dacă dispozitivul este compatibil.
+ */
+public class TfliteBackendFactory implements BackendSelector.BackendFactory {
+
+    private static final int[] CPU_THREAD_COUNTS = {1, 2, 4};
+
+    private final MappedByteBuffer model;
+
+    public TfliteBackendFactory(MappedByteBuffer model) {
+        this.model = model;
+    }
+
+    @Override
+    public List<BackendConfig> candidates() {
+        List<BackendConfig> candidates = BackendSelector.cpuCandidates(CPU_THREAD_COUNTS);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+            candidates.add(new BackendConfig(BackendConfig.Accelerator.NNAPI, 1, false));
+        }
+        if (isGpuSupported()) {
+            candidates.add(new BackendConfig(BackendConfig.Accelerator.GPU, 1, false));
+        }
+        return candidates;
+    }
+
+    @Override
+    public TfliteBackend create(BackendConfig config) {
+        Interpreter.Options options = new Interpreter.Options();
+        options.setNumThreads(config.getNumThreads());
+        options.setUseXNNPACK(config.isUseXnnpack());
+
+        Delegate delegate = null;
+        switch (config.getAccelerator()) {
+            case GPU:
+                CompatibilityList compatibilityList = new CompatibilityList();
+                try {
+                    delegate = new GpuDelegate(compatibilityList.getBestOptionsForThisDevice());
+                } finally {
+                    compatibilityList.close();
+                }
+                break;
+            case NNAPI:
+                delegate = new NnApiDelegate();
+                break;
+            default:
+                break;
+        }
+        if (delegate != null) {
+            options.addDelegate(delegate);
+        }
+
+        try {
+            return new TfliteBackend(config, new Interpreter(model, options), delegate);
+        } catch (RuntimeException e) {
+            if (delegate != null) {
+                delegate.close();
+            }
+            throw e;
+        }
+    }
+
+    static boolean isGpuSupported() {
+        CompatibilityList compatibilityList = null;
+        try {
+            compatibilityList = new CompatibilityList();
+            return compatibilityList.isDelegateSupportedOnThisDevice();
+        } catch (Exception | LinkageError e) {
+            return false;
+        } finally {
+            if (compatibilityList != null) {
+                compatibilityList.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.feri.artistictransform;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.View;
+import android.widget.ImageView;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Miniaturi de mărimea view-ului pentru paginile și grila de rezultate.
+ * Decupajul centrat și scalarea rulează pe un singur fir de fundal, iar
+ * rezultatul intră într-un LRU în memorie, cu cheia formată din id-ul
+ * rezultatului și dimensiunea țintă. Firul principal doar citește din cache
+ * și setează bitmap-ul gata făcut.
+ *
+ * <p>Fiecare rezultat primește un id din {@link #newResultId()}; id-urile nu se
+ * refolosesc, deci un bitmap din pool reconfigurat nu poate nimeri o intrare
+ * veche. Sursele se returnează prin {@link #release}, pe același fir cu
+ * scalarea, ca un bitmap să nu ajungă în pool cât timp încă este citit.
+ * Metodele publice se apelează de pe firul principal.
+ */
+public class ThumbnailLoader {
+
+    private static final String TAG = "ThumbnailLoader";
+    private static final AtomicLong NEXT_RESULT_ID = new AtomicLong();
+
+    private final BitmapPool bitmapPool;
+    private final LruCache<String, Bitmap> cache;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable ->
+            new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "thumbnail"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Cererea curentă a fiecărui view; folosit doar de pe firul principal
+    private final Map<ImageView, Request> requests = new WeakHashMap<>();
+    // Folosit doar de pe firul de fundal
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    public ThumbnailLoader(BitmapPool bitmapPool, int maxCacheBytes) {
+        this.bitmapPool = bitmapPool;
+        cache = new LruCache<String, Bitmap>(maxCacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    public static long newResultId() {
+        return NEXT_RESULT_ID.incrementAndGet();
+    }
+
+    static String key(long resultId, int width, int height) {
+        return resultId + ":" + width + "x" + height;
+    }
+
+    /**
+     * Afișează miniatura sursei în {@code view}. Din cache se setează imediat;
+     * altfel view-ul rămâne gol până termină firul de fundal. Dacă view-ul
+     * nu are încă dimensiuni, cererea așteaptă primul layout.
+     */
+    public void load(ImageView view, long resultId, Bitmap source) {
+        load(view, resultId, source, false);
+    }
+
+    /**
+     * Ca {@link #load(ImageView, long, Bitmap)}; cu {@code keepCurrent} imaginea
+     * afișată rămâne până la miniatura nouă, de exemplu când pagina își
+     * înlocuiește rezultatul cu o versiune recompusă.
+     */
+    public void load(ImageView view, long resultId, Bitmap source, boolean keepCurrent) {
+        cancel(view);
+        Request request = new Request(view, resultId, source, keepCurrent);
+        if (view.getWidth() == 0 || view.getHeight() == 0) {
+            view.setImageDrawable(null);
+            requests.put(view, request);
+            view.addOnLayoutChangeListener(request);
+            return;
+        }
+        start(request, view.getWidth(), view.getHeight());
+    }
+
+    /**
+     * Oprește cererea în curs a unui view, de exemplu când holder-ul este
+     * reciclat. Miniatura deja afișată rămâne.
+     */
+    public void cancel(ImageView view) {
+        Request request = requests.remove(view);
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Pregătește în cache miniatura unui rezultat care nu este încă afișat.
+     */
+    public void prefetch(final long resultId, final Bitmap source, final int width, final int height) {
+        if (width <= 0 || height <= 0 || cache.get(key(resultId, width, height)) != null) {
+            return;
+        }
+        execute(() -> {
+            if (cache.get(key(resultId, width, height)) == null) {
+                render(resultId, source, width, height);
+            }
+        });
+    }
+
+    /**
+     * Rezultatul nu mai este afișat: miniaturile lui ies din cache, iar
+     * sursa se întoarce în pool după scalările deja programate.
+     */
+    public void release(final long resultId, final Bitmap source) {
+        if (!execute(() -> {
+            removeFromCache(resultId);
+            bitmapPool.put(source);
+        })) {
+            bitmapPool.put(source);
+        }
+    }
+
+    public void clearCache() {
+        cache.evictAll();
+    }
+
+    public String getStats() {
+        return cache.size() / 1024 + " KB thumbnails, " + cache.hitCount() + " hits, "
+                + cache.missCount() + " misses";
+    }
+
+    public void close() {
+        for (Request request : requests.values()) {
+            request.cancel();
+        }
+        requests.clear();
+        worker.shutdown();
+        cache.evictAll();
+    }
+
+    private void start(Request request, int width, int height) {
+        Bitmap cached = cache.get(key(request.resultId, width, height));
+        if (cached != null) {
+            requests.remove(request.view);
+            request.view.setImageBitmap(cached);
+            return;
+        }
+        if (!request.keepCurrent) {
+            request.view.setImageDrawable(null);
+        }
+        requests.put(request.view, request);
+        try {
+            request.future = worker.submit(() -> {
+                Bitmap thumbnail = cache.get(key(request.resultId, width, height));
+                if (thumbnail == null && !request.cancelled) {
+                    thumbnail = render(request.resultId, request.source, width, height);
+                }
+                final Bitmap result = thumbnail;
+                mainHandler.post(() -> request.deliver(result));
+            });
+        } catch (RejectedExecutionException e) {
+            requests.remove(request.view);
+        }
+    }
+
+    private boolean execute(Runnable task) {
+        try {
+            worker.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private Bitmap render(long resultId, Bitmap source, int width, int height) {
+        if (source == null || source.isRecycled()) {
+            return null;
+        }
+        long start = StageMetrics.getDefault().begin();
+        Rect crop = new Rect();
+        int[] size = new int[2];
+        centerCrop(source.getWidth(), source.getHeight(), width, height, crop, size);
+        Bitmap thumbnail = Bitmap.createBitmap(size[0], size[1], Bitmap.Config.ARGB_8888);
+        new Canvas(thumbnail).drawBitmap(source, crop, new Rect(0, 0, size[0], size[1]), paint);
+        cache.put(key(resultId, width, height), thumbnail);
+        StageMetrics.getDefault().end(StageMetrics.UI_BIND, "thumbnail", start);
+        return thumbnail;
+    }
+
+    private void removeFromCache(long resultId) {
+        String prefix = resultId + ":";
+        for (String key : cache.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Regiunea sursei afișată de un ImageView cu {@code centerCrop} de
+     * {@code viewWidth} x {@code viewHeight} și dimensiunea miniaturii. Sursa
+     * nu se mărește: dacă este mai mică decât view-ul, miniatura păstrează
+     * rezoluția decupajului, iar ImageView-ul o scalează la desenare.
+     */
+    static void centerCrop(int sourceWidth, int sourceHeight, int viewWidth, int viewHeight,
+                           Rect crop, int[] size) {
+        // Decupajul are raportul view-ului și cea mai mare suprafață posibilă
+        int cropWidth = sourceWidth;
+        int cropHeight = (int) ((long) sourceWidth * viewHeight / viewWidth);
+        if (cropHeight > sourceHeight) {
+            cropHeight = sourceHeight;
+            cropWidth = (int) ((long) sourceHeight * viewWidth / viewHeight);
+        }
+        cropWidth = Math.max(1, cropWidth);
+        cropHeight = Math.max(1, cropHeight);
+        int left = (sourceWidth - cropWidth) / 2;
+        int top = (sourceHeight - cropHeight) / 2;
+        crop.set(left, top, left + cropWidth, top + cropHeight);
+        if (cropWidth > viewWidth) {
+            size[0] = viewWidth;
+            size[1] = viewHeight;
+        } else {
+            size[0] = cropWidth;
+            size[1] = cropHeight;
+        }
+    }
+
+    private final class Request implements Runnable, View.OnLayoutChangeListener {
+        final ImageView view;
+        final long resultId;
+        final Bitmap source;
+        final boolean keepCurrent;
+        volatile boolean cancelled;
+        Future<?> future;
+
+        Request(ImageView view, long resultId, Bitmap source, boolean keepCurrent) {
+            this.view = view;
+            this.resultId = resultId;
+            this.source = source;
+            this.keepCurrent = keepCurrent;
+        }
+
+        @Override
+        public void onLayoutChange(View v, int left, int top, int right, int bottom,
+                                   int oldLeft, int oldTop, int oldRight, int oldBottom) {
+            if (right - left == 0 || bottom - top == 0) {
+                return;
+            }
+            view.removeOnLayoutChangeListener(this);
+            // Nu setăm bitmap-ul chiar în timpul layout-ului
+            mainHandler.post(this);
+        }
+
+        @Override
+        public void run() {
+            if (!cancelled && requests.get(view) == this) {
+                start(this, view.getWidth(), view.getHeight());
+            }
+        }
+
+        void deliver(Bitmap thumbnail) {
+            if (cancelled || requests.get(view) != this) {
+                return;
+            }
+            requests.remove(view);
+            if (thumbnail != null) {
+                view.setImageBitmap(thumbnail);
+            } else {
+                Log.w(TAG, "No thumbnail for result " + resultId);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            view.removeOnLayoutChangeListener(this);
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
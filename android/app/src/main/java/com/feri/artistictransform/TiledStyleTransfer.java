@@ -0,0 +1,226 @@
+package com.feri.artistictransform;
+
+import java.util.Arrays;
+
+/**
+ * Aplică stilul pe imagini mai mari decât intrarea modelului, împărțindu-le în
+ * tile-uri pătrate suprapuse. Suprapunerile sunt amestecate cu ponderi liniare
+ * (feathering), iar rezultatul este scris rând cu rând, așa că memoria de lucru
+ * depinde doar de lățimea imaginii, nu și de înălțime.
+ * Nu depinde de Android: sursa, modelul și destinația sunt interfețe.
+ */
+public class TiledStyleTransfer {
+
+    /** Citește o regiune ARGB din imaginea sursă. */
+    public interface TileSource {
+        void readPixels(int[] pixels, int offset, int stride, int x, int y, int width, int height);
+    }
+
+    /** Stilizează in-place primele {@code count} tile-uri ARGB de tileSize x tileSize. */
+    public interface TileStylizer {
+        int getMaxBatchSize();
+
+        void stylize(int[][] tiles, int count);
+    }
+
+    /** Primește rânduri finalizate; {@code pixels} are pasul egal cu lățimea imaginii. */
+    public interface RowSink {
+        void writeRows(int[] pixels, int y, int rows);
+    }
+
+    private final int tileSize;
+    private final int overlap;
+
+    public TiledStyleTransfer(int tileSize, int overlap) {
+        if (tileSize <= 0 || overlap < 0 || overlap >= tileSize) {
+            throw new IllegalArgumentException("Invalid tile size " + tileSize
+                    + " / overlap " + overlap);
+        }
+        this.tileSize = tileSize;
+        this.overlap = overlap;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getOverlap() {
+        return overlap;
+    }
+
+    /**
+     * Pozițiile tile-urilor pe o axă de lungime {@code length}. Ultimul tile este
+     * aliniat la margine, deci poate avea o suprapunere mai mare.
+     */
+    public int[] tileOrigins(int length) {
+        if (length <= tileSize) {
+            return new int[]{0};
+        }
+        int step = tileSize - overlap;
+        int count = (length - tileSize + step - 1) / step + 1;
+        int[] origins = new int[count];
+        for (int i = 0; i < count; i++) {
+            origins[i] = Math.min(i * step, length - tileSize);
+        }
+        return origins;
+    }
+
+    public int countTiles(int width, int height) {
+        return tileOrigins(width).length * tileOrigins(height).length;
+    }
+
+    /**
+     * Memoria de lucru a lui {@link #render}, fără sursă și destinație.
+     */
+    public long estimateWorkingBytes(int width, int batchSize) {
+        long stripPixels = (long) tileSize * width;
+        long accumulators = stripPixels * 4 * 4;
+        long rowBuffer = stripPixels * 4;
+        long tiles = (long) batchSize * tileSize * tileSize * 4;
+        return accumulators + rowBuffer + tiles;
+    }
+
+    /**
+     * Dimensiunile la care sursa, rezultatul (ARGB) și memoria de lucru încap în
+     * {@code maxBytes}, micșorând ambele laturi cu câte 1/8. O imagine care
+     * încape într-un singur tile rămâne neschimbată.
+     *
+     * @return {lățime, înălțime}
+     */
+    public int[] fitWithinBudget(int width, int height, int batchSize, long maxBytes) {
+        while (width > tileSize || height > tileSize) {
+            long bytes = 2L * width * height * 4 + estimateWorkingBytes(width, batchSize);
+            if (bytes <= maxBytes) {
+                break;
+            }
+            width = Math.max(1, width * 7 / 8);
+            height = Math.max(1, height * 7 / 8);
+        }
+        return new int[]{width, height};
+    }
+
+    public void render(int width, int height, TileSource source, TileStylizer stylizer, RowSink sink) {
+        int[] xs = tileOrigins(width);
+        int[] ys = tileOrigins(height);
+        int batchSize = Math.max(1, Math.min(stylizer.getMaxBatchSize(), xs.length));
+
+        int[][] tiles = new int[batchSize][tileSize * tileSize];
+        int[] tileXs = new int[batchSize];
+        float[] accumulator = new float[tileSize * width * 3];
+        float[] weights = new float[tileSize * width];
+        int[] rowPixels = new int[tileSize * width];
+        float[] weightX = new float[tileSize];
+        float[] weightY = new float[tileSize];
+
+        for (int row = 0; row < ys.length; row++) {
+            int y0 = ys[row];
+            int tileHeight = Math.min(tileSize, height - y0);
+            feather(weightY, y0 > 0, y0 + tileSize < height);
+
+            for (int first = 0; first < xs.length; first += batchSize) {
+                int count = Math.min(batchSize, xs.length - first);
+                for (int i = 0; i < count; i++) {
+                    tileXs[i] = xs[first + i];
+                    readTile(source, tiles[i], tileXs[i], y0, width, height);
+                }
+                stylizer.stylize(tiles, count);
+                for (int i = 0; i < count; i++) {
+                    int x0 = tileXs[i];
+                    feather(weightX, x0 > 0, x0 + tileSize < width);
+                    accumulate(tiles[i], x0, Math.min(tileSize, width - x0), tileHeight,
+                            weightX, weightY, width, accumulator, weights);
+                }
+            }
+
+            // Rândurile de deasupra următorului tile sunt finale
+            int finished = row + 1 < ys.length ? ys[row + 1] - y0 : tileHeight;
+            emitRows(finished, width, accumulator, weights, rowPixels);
+            sink.writeRows(rowPixels, y0, finished);
+            shiftStrip(finished, width, accumulator, weights);
+        }
+    }
+
+    private void readTile(TileSource source, int[] tile, int x0, int y0, int width, int height) {
+        int w = Math.min(tileSize, width - x0);
+        int h = Math.min(tileSize, height - y0);
+        source.readPixels(tile, 0, tileSize, x0, y0, w, h);
+
+        // Imaginile mai mici decât un tile sunt completate prin replicarea marginii
+        if (w < tileSize) {
+            for (int y = 0; y < h; y++) {
+                int rowStart = y * tileSize;
+                int edge = tile[rowStart + w - 1];
+                for (int x = w; x < tileSize; x++) {
+                    tile[rowStart + x] = edge;
+                }
+            }
+        }
+        for (int y = h; y < tileSize; y++) {
+            System.arraycopy(tile, (h - 1) * tileSize, tile, y * tileSize, tileSize);
+        }
+    }
+
+    private void feather(float[] weights, boolean fadeIn, boolean fadeOut) {
+        for (int i = 0; i < tileSize; i++) {
+            float weight = 1.0f;
+            if (overlap > 0) {
+                if (fadeIn) {
+                    weight = Math.min(weight, (i + 0.5f) / overlap);
+                }
+                if (fadeOut) {
+                    weight = Math.min(weight, (tileSize - i - 0.5f) / overlap);
+                }
+            }
+            weights[i] = weight;
+        }
+    }
+
+    private void accumulate(int[] tile, int x0, int tileWidth, int tileHeight,
+                            float[] weightX, float[] weightY, int width,
+                            float[] accumulator, float[] weights) {
+        for (int y = 0; y < tileHeight; y++) {
+            int src = y * tileSize;
+            int dst = y * width + x0;
+            for (int x = 0; x < tileWidth; x++) {
+                float weight = weightX[x] * weightY[y];
+                int pixel = tile[src + x];
+                int index = (dst + x) * 3;
+                accumulator[index] += ((pixel >> 16) & 0xFF) * weight;
+                accumulator[index + 1] += ((pixel >> 8) & 0xFF) * weight;
+                accumulator[index + 2] += (pixel & 0xFF) * weight;
+                weights[dst + x] += weight;
+            }
+        }
+    }
+
+    private static void emitRows(int rows, int width, float[] accumulator, float[] weights,
+                                 int[] rowPixels) {
+        int count = rows * width;
+        for (int i = 0; i < count; i++) {
+            float weight = weights[i];
+            if (weight <= 0) {
+                rowPixels[i] = 0xFF000000;
+                continue;
+            }
+            float scale = 1.0f / weight;
+            int red = clamp(accumulator[i * 3] * scale);
+            int green = clamp(accumulator[i * 3 + 1] * scale);
+            int blue = clamp(accumulator[i * 3 + 2] * scale);
+            rowPixels[i] = 0xFF000000 | (red << 16) | (green << 8) | blue;
+        }
+    }
+
+    private void shiftStrip(int rows, int width, float[] accumulator, float[] weights) {
+        int remaining = (tileSize - rows) * width;
+        int shift = rows * width;
+        System.arraycopy(weights, shift, weights, 0, remaining);
+        System.arraycopy(accumulator, shift * 3, accumulator, 0, remaining * 3);
+        Arrays.fill(weights, remaining, weights.length, 0f);
+        Arrays.fill(accumulator, remaining * 3, accumulator.length, 0f);
+    }
+
+    private static int clamp(float value) {
+        int rounded = (int) (value + 0.5f);
+        return rounded < 0 ? 0 : (rounded > 255 ? 255 : rounded);
+    }
+}
@@ -0,0 +1,200 @@
+package com.feri.artistictransform;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Scrie un cadru YUV_420_888 al camerei direct în tensorul de intrare:
+ * decupare pătrată centrală, rotire după orientarea senzorului, oglindire
+ * pentru camera frontală, scalare la {@code size} și conversie YUV -> RGB
+ * (BT.601, domeniu complet), într-o singură trecere, fără Bitmap.
+ * Eșantionarea este nearest-neighbour prin tabele de indici, recalculate doar
+ * când se schimbă geometria cadrului. Nu depinde de Android.
+ */
+public final class YuvPreprocessKernel {
+
+    /**
+     * Planurile unui cadru YUV_420_888 și orientarea lui. Obiectul este
+     * refolosit de la un cadru la altul; buffer-ele trebuie citite cu indici
+     * absoluți, deci poziția lor nu contează.
+     */
+    public static final class Frame {
+        int width;
+        int height;
+        ByteBuffer y;
+        ByteBuffer u;
+        ByteBuffer v;
+        int yRowStride;
+        int uvRowStride;
+        int uvPixelStride;
+        int rotationDegrees;
+        boolean mirror;
+
+        public void setPlanes(int width, int height, ByteBuffer y, int yRowStride,
+                              ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride) {
+            this.width = width;
+            this.height = height;
+            this.y = y;
+            this.yRowStride = yRowStride;
+            this.u = u;
+            this.v = v;
+            this.uvRowStride = uvRowStride;
+            this.uvPixelStride = uvPixelStride;
+        }
+
+        /**
+         * @param rotationDegrees rotirea în sensul acelor de ceasornic, multiplu de 90
+         * @param mirror          oglindire orizontală după rotire (camera frontală)
+         */
+        public void setOrientation(int rotationDegrees, boolean mirror) {
+            if (rotationDegrees % 90 != 0) {
+                throw new IllegalArgumentException("Unsupported rotation: " + rotationDegrees);
+            }
+            this.rotationDegrees = ((rotationDegrees % 360) + 360) % 360;
+            this.mirror = mirror;
+        }
+    }
+
+    private final int size;
+    private final int[] row;
+    private final int[] yIndex;
+    private final int[] uvIndex;
+
+    // Geometria pentru care au fost calculate tabelele
+    private int tableWidth = -1;
+    private int tableHeight;
+    private int tableYRowStride;
+    private int tableUvRowStride;
+    private int tableUvPixelStride;
+    private int tableRotation;
+    private boolean tableMirror;
+
+    public YuvPreprocessKernel(int size) {
+        this.size = size;
+        this.row = new int[size];
+        this.yIndex = new int[size * size];
+        this.uvIndex = new int[size * size];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Scrie cadrul ca float-uri normalizate în [0, 1], începând de la indexul
+     * absolut {@code offset} din {@code dst}.
+     */
+    public void apply(Frame frame, FloatBuffer dst, int offset) {
+        prepare(frame);
+        int rowFloats = size * 3;
+        for (int dy = 0; dy < size; dy++) {
+            fillRow(frame, dy);
+            PixelConverter.argbToFloat(row, size, dst, offset + dy * rowFloats);
+        }
+    }
+
+    /**
+     * Scrie cadrul cuantizat prin {@code encodeTable}, începând de la octetul
+     * absolut {@code offset} din {@code dst}.
+     */
+    public void apply(Frame frame, ByteBuffer dst, int offset, byte[] encodeTable) {
+        prepare(frame);
+        int rowBytes = size * 3;
+        for (int dy = 0; dy < size; dy++) {
+            fillRow(frame, dy);
+            PixelConverter.argbToQuantized(row, size, dst, offset + dy * rowBytes, encodeTable);
+        }
+    }
+
+    /**
+     * Variantă pentru teste: scrie rezultatul ca pixeli ARGB, size x size.
+     */
+    void apply(Frame frame, int[] destination) {
+        prepare(frame);
+        for (int dy = 0; dy < size; dy++) {
+            fillRow(frame, dy);
+            System.arraycopy(row, 0, destination, dy * size, size);
+        }
+    }
+
+    private void prepare(Frame frame) {
+        if (frame.width == tableWidth && frame.height == tableHeight
+                && frame.yRowStride == tableYRowStride && frame.uvRowStride == tableUvRowStride
+                && frame.uvPixelStride == tableUvPixelStride
+                && frame.rotationDegrees == tableRotation && frame.mirror == tableMirror) {
+            return;
+        }
+
+        // Latura decupajului central; rotirea nu o schimbă
+        int side = Math.min(frame.width, frame.height);
+        int x0 = (frame.width - side) / 2;
+        int y0 = (frame.height - side) / 2;
+        int last = side - 1;
+        for (int dy = 0; dy < size; dy++) {
+            // Centrul pixelului de ieșire în pătratul afișat
+            int v = (int) (((2L * dy + 1) * side) / (2L * size));
+            for (int dx = 0; dx < size; dx++) {
+                int u = (int) (((2L * dx + 1) * side) / (2L * size));
+                if (frame.mirror) {
+                    u = last - u;
+                }
+                // Inversul rotirii în sensul acelor de ceasornic
+                int a;
+                int b;
+                switch (frame.rotationDegrees) {
+                    case 90:
+                        a = v;
+                        b = last - u;
+                        break;
+                    case 180:
+                        a = last - u;
+                        b = last - v;
+                        break;
+                    case 270:
+                        a = last - v;
+                        b = u;
+                        break;
+                    default:
+                        a = u;
+                        b = v;
+                        break;
+                }
+                int sx = x0 + a;
+                int sy = y0 + b;
+                int i = dy * size + dx;
+                yIndex[i] = sy * frame.yRowStride + sx;
+                uvIndex[i] = (sy >> 1) * frame.uvRowStride + (sx >> 1) * frame.uvPixelStride;
+            }
+        }
+
+        tableWidth = frame.width;
+        tableHeight = frame.height;
+        tableYRowStride = frame.yRowStride;
+        tableUvRowStride = frame.uvRowStride;
+        tableUvPixelStride = frame.uvPixelStride;
+        tableRotation = frame.rotationDegrees;
+        tableMirror = frame.mirror;
+    }
+
+    private void fillRow(Frame frame, int dy) {
+        ByteBuffer yPlane = frame.y;
+        ByteBuffer uPlane = frame.u;
+        ByteBuffer vPlane = frame.v;
+        int base = dy * size;
+        for (int dx = 0; dx < size; dx++) {
+            int luma = yPlane.get(yIndex[base + dx]) & 0xFF;
+            int chroma = uvIndex[base + dx];
+            int cb = (uPlane.get(chroma) & 0xFF) - 128;
+            int cr = (vPlane.get(chroma) & 0xFF) - 128;
+            // Coeficienții BT.601 în virgulă fixă, scalați cu 2^16
+            int r = luma + ((91881 * cr) >> 16);
+            int g = luma - ((22554 * cb + 46802 * cr) >> 16);
+            int b = luma + ((116130 * cb) >> 16);
+            row[dx] = 0xFF000000 | (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+        }
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+}
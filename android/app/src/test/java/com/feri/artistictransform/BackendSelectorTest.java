@@ -0,0 +1,216 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Testează alegerea backend-ului pe JVM, cu backend-uri false care doar
+ * avansează un ceas simulat cu timpul configurat per inferență.
+ */
+public class BackendSelectorTest {
+
+    private static final String DEVICE = "test/device";
+    private static final BackendConfig FALLBACK = BackendConfig.cpu(2, true);
+    private static final BackendConfig CPU_1 = BackendConfig.cpu(1, true);
+    private static final BackendConfig CPU_4 = BackendConfig.cpu(4, true);
+    private static final BackendConfig GPU = new BackendConfig(BackendConfig.Accelerator.GPU, 1, false);
+
+    private final FakeClock clock = new FakeClock();
+    private final InMemoryStore store = new InMemoryStore();
+
+    @Test
+    public void select_picksFastestCandidateAndSavesIt() {
+        FakeFactory factory = new FakeFactory();
+        factory.add(CPU_1, 900);
+        factory.add(CPU_4, 300);
+        factory.add(GPU, 500);
+
+        BackendSelector.Selection selection = selector(factory).select(DEVICE);
+
+        assertEquals(CPU_4, selection.getConfig());
+        assertFalse(selection.isFromStore());
+        assertEquals(3, selection.getMedianNanos().size());
+        assertEquals(Long.valueOf(300), selection.getMedianNanos().get(CPU_4));
+        assertEquals(CPU_4, store.load(DEVICE));
+        assertEquals(0, factory.openBackends);
+    }
+
+    @Test
+    public void select_skipsBackendsThatFail() {
+        FakeFactory factory = new FakeFactory();
+        factory.add(CPU_1, 900);
+        factory.add(CPU_4, 300);
+        factory.failOnCreate(GPU);
+        factory.failOnRun(CPU_4);
+
+        BackendSelector.Selection selection = selector(factory).select(DEVICE);
+
+        assertEquals(CPU_1, selection.getConfig());
+        assertEquals(1, selection.getMedianNanos().size());
+        assertEquals(0, factory.openBackends);
+    }
+
+    @Test
+    public void select_usesStoredChoiceWithoutMeasuring() {
+        FakeFactory factory = new FakeFactory();
+        factory.add(CPU_1, 900);
+        factory.add(CPU_4, 300);
+        store.save(DEVICE, CPU_1);
+
+        BackendSelector.Selection selection = selector(factory).select(DEVICE);
+
+        assertEquals(CPU_1, selection.getConfig());
+        assertTrue(selection.isFromStore());
+        assertEquals(0, factory.created);
+    }
+
+    @Test
+    public void select_remeasuresWhenStoredChoiceIsNoLongerAvailable() {
+        FakeFactory factory = new FakeFactory();
+        factory.add(CPU_1, 900);
+        factory.add(CPU_4, 300);
+        store.save(DEVICE, GPU);
+
+        BackendSelector.Selection selection = selector(factory).select(DEVICE);
+
+        assertEquals(CPU_4, selection.getConfig());
+        assertFalse(selection.isFromStore());
+        assertEquals(CPU_4, store.load(DEVICE));
+    }
+
+    @Test
+    public void select_returnsFallbackWithoutSavingWhenAllFail() {
+        FakeFactory factory = new FakeFactory();
+        factory.failOnCreate(CPU_1);
+        factory.failOnRun(GPU);
+
+        BackendSelector.Selection selection = selector(factory).select(DEVICE);
+
+        assertEquals(FALLBACK, selection.getConfig());
+        assertTrue(selection.getMedianNanos().isEmpty());
+        assertNull(store.load(DEVICE));
+    }
+
+    @Test
+    public void select_usesMedianSoOutliersDoNotWin() {
+        FakeFactory factory = new FakeFactory();
+        // O singură rulare foarte rapidă nu trebuie să câștige
+        factory.add(CPU_1, 100, 1000, 1000, 1000, 1000);
+        factory.add(CPU_4, 600, 600, 600, 600, 600);
+
+        BackendSelector.Selection selection = selector(factory).select(DEVICE);
+
+        assertEquals(CPU_4, selection.getConfig());
+        assertEquals(Long.valueOf(1000), selection.getMedianNanos().get(CPU_1));
+    }
+
+    @Test
+    public void backendConfig_keyRoundTrips() {
+        for (BackendConfig config : Arrays.asList(CPU_1, BackendConfig.cpu(4, false), GPU)) {
+            assertEquals(config, BackendConfig.fromKey(config.toKey()));
+        }
+        assertNull(BackendConfig.fromKey("TPU:1:plain"));
+        assertNull(BackendConfig.fromKey("garbage"));
+    }
+
+    private BackendSelector selector(FakeFactory factory) {
+        return new BackendSelector(factory, store, clock, FALLBACK, 1, 5);
+    }
+
+    private static final class FakeClock implements BackendSelector.Clock {
+        long now;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+
+    private static final class InMemoryStore implements BackendSelector.BackendStore {
+        private final Map<String, BackendConfig> saved = new HashMap<>();
+
+        @Override
+        public BackendConfig load(String deviceKey) {
+            return saved.get(deviceKey);
+        }
+
+        @Override
+        public void save(String deviceKey, BackendConfig config) {
+            saved.put(deviceKey, config);
+        }
+    }
+
+    private final class FakeFactory implements BackendSelector.BackendFactory {
+        private final List<BackendConfig> candidates = new ArrayList<>();
+        private final Map<BackendConfig, long[]> timings = new HashMap<>();
+        private final List<BackendConfig> failOnCreate = new ArrayList<>();
+        private final List<BackendConfig> failOnRun = new ArrayList<>();
+        int created;
+        int openBackends;
+
+        void add(BackendConfig config, long... nanosPerRun) {
+            candidates.add(config);
+            timings.put(config, nanosPerRun);
+        }
+
+        void failOnCreate(BackendConfig config) {
+            candidates.add(config);
+            failOnCreate.add(config);
+        }
+
+        void failOnRun(BackendConfig config) {
+            if (!candidates.contains(config)) {
+                candidates.add(config);
+            }
+            failOnRun.add(config);
+        }
+
+        @Override
+        public List<BackendConfig> candidates() {
+            return new ArrayList<>(candidates);
+        }
+
+        @Override
+        public InferenceBackend create(final BackendConfig config) throws Exception {
+            if (failOnCreate.contains(config)) {
+                throw new IllegalArgumentException("Delegate not supported: " + config);
+            }
+            created++;
+            openBackends++;
+            return new InferenceBackend() {
+                private int runs;
+
+                @Override
+                public BackendConfig getConfig() {
+                    return config;
+                }
+
+                @Override
+                public void runWarmUp() {
+                    if (failOnRun.contains(config)) {
+                        throw new IllegalStateException("Inference failed on " + config);
+                    }
+                    long[] nanos = timings.get(config);
+                    // Prima rulare este încălzirea; ciclăm prin timpii configurați
+                    clock.now += nanos[Math.max(0, runs - 1) % nanos.length];
+                    runs++;
+                }
+
+                @Override
+                public void close() {
+                    openBackends--;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Testează cache-ul de pe disc: evacuarea LRU după dimensiune și păstrarea
+ * intrărilor între instanțe.
+ */
+public class DiskLruStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void put_evictsLeastRecentlyUsedWhenOverLimit() throws IOException {
+        DiskLruStore store = new DiskLruStore(folder.getRoot(), 30);
+        store.put("a", new byte[10]);
+        store.put("b", new byte[10]);
+        store.put("c", new byte[10]);
+
+        // "a" devine cel mai recent folosit, deci "b" este evacuat
+        store.get("a");
+        store.put("d", new byte[10]);
+
+        assertEquals(30, store.size());
+        assertNull(store.get("b"));
+        assertEquals(10, store.get("a").length);
+        assertEquals(10, store.get("c").length);
+        assertEquals(10, store.get("d").length);
+        assertEquals(3, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void put_replacesExistingEntry() throws IOException {
+        DiskLruStore store = new DiskLruStore(folder.getRoot(), 100);
+        store.put("a", new byte[]{1, 2, 3});
+        store.put("a", new byte[]{4, 5});
+
+        assertEquals(2, store.size());
+        assertArrayEquals(new byte[]{4, 5}, store.get("a"));
+    }
+
+    @Test
+    public void put_ignoresEntriesLargerThanLimit() throws IOException {
+        DiskLruStore store = new DiskLruStore(folder.getRoot(), 10);
+        store.put("small", new byte[5]);
+        store.put("large", new byte[11]);
+
+        assertNull(store.get("large"));
+        assertEquals(5, store.size());
+    }
+
+    @Test
+    public void entriesSurviveReopening() throws IOException {
+        DiskLruStore store = new DiskLruStore(folder.getRoot(), 100);
+        store.put("a", new byte[]{7, 8, 9});
+
+        DiskLruStore reopened = new DiskLruStore(folder.getRoot(), 100);
+        assertEquals(1, reopened.count());
+        assertArrayEquals(new byte[]{7, 8, 9}, reopened.get("a"));
+    }
+
+    @Test
+    public void get_dropsEntriesDeletedOutsideTheStore() throws IOException {
+        DiskLruStore store = new DiskLruStore(folder.getRoot(), 100);
+        store.put("a", new byte[4]);
+        for (File file : folder.getRoot().listFiles()) {
+            file.delete();
+        }
+
+        assertNull(store.get("a"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void contentHash_dependsOnPixelsAndDimensions() {
+        int[] pixels = {1, 2, 3, 4};
+        long hash = ContentHash.of(pixels, 4, 2, 2);
+        assertEquals(hash, ContentHash.of(pixels.clone(), 4, 2, 2));
+        assertNotEquals(hash, ContentHash.of(pixels, 4, 4, 1));
+        assertNotEquals(hash, ContentHash.of(new int[]{1, 2, 3, 5}, 4, 2, 2));
+        assertEquals(16, ContentHash.toHex(1L).length());
+    }
+}
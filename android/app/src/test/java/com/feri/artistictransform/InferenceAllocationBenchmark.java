@@ -0,0 +1,132 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Măsoară pe JVM câți octeți alocă partea Java a unei inferențe: varianta veche
+ * cu array-uri imbricate și varianta cu buffere directe prealocate.
+ * Interpretorul nu rulează aici, ieșirea este simulată prin copierea intrării.
+ */
+public class InferenceAllocationBenchmark {
+
+    private static final int IMAGE_SIZE = 256;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 200;
+
+    private final int[] sourcePixels = randomPixels();
+
+    @Test
+    public void directBufferPath_allocatesNothingPerInference() {
+        long legacyBytes = bytesPerIteration(new Runnable() {
+            @Override
+            public void run() {
+                legacyInference(sourcePixels);
+            }
+        });
+
+        final int inputBytes = IMAGE_SIZE * IMAGE_SIZE * 3 * 4;
+        final FloatBuffer input = ByteBuffer.allocateDirect(inputBytes)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        final FloatBuffer output = ByteBuffer.allocateDirect(inputBytes)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        final int[] pixels = new int[IMAGE_SIZE * IMAGE_SIZE];
+        long pooledBytes = bytesPerIteration(new Runnable() {
+            @Override
+            public void run() {
+                System.arraycopy(sourcePixels, 0, pixels, 0, pixels.length);
+                PixelConverter.argbToFloat(pixels, pixels.length, input, 0);
+                output.clear();
+                input.clear();
+                output.put(input);
+                PixelConverter.floatToArgb(output, 0, pixels, pixels.length);
+            }
+        });
+
+        assertTrue("Legacy path: " + legacyBytes + " bytes/inference",
+                legacyBytes > IMAGE_SIZE * IMAGE_SIZE * 3 * 4);
+        assertTrue("Direct buffer path: " + pooledBytes + " bytes/inference",
+                pooledBytes < 1024);
+    }
+
+    private static void legacyInference(int[] source) {
+        float[][][][] inputArray = new float[1][IMAGE_SIZE][IMAGE_SIZE][3];
+        int[] pixels = new int[IMAGE_SIZE * IMAGE_SIZE];
+        System.arraycopy(source, 0, pixels, 0, pixels.length);
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            int y = i / IMAGE_SIZE;
+            int x = i % IMAGE_SIZE;
+            inputArray[0][y][x][0] = ((pixel >> 16) & 0xFF) / 255.0f;
+            inputArray[0][y][x][1] = ((pixel >> 8) & 0xFF) / 255.0f;
+            inputArray[0][y][x][2] = (pixel & 0xFF) / 255.0f;
+        }
+
+        float[][][][] outputArray = new float[1][IMAGE_SIZE][IMAGE_SIZE][3];
+        Object[] inputs = new Object[]{inputArray};
+        Map<Integer, Object> outputs = new HashMap<>();
+        outputs.put(0, outputArray);
+        for (int y = 0; y < IMAGE_SIZE; y++) {
+            for (int x = 0; x < IMAGE_SIZE; x++) {
+                System.arraycopy(inputArray[0][y][x], 0, outputArray[0][y][x], 0, 3);
+            }
+        }
+
+        for (int i = 0; i < pixels.length; i++) {
+            int y = i / IMAGE_SIZE;
+            int x = i % IMAGE_SIZE;
+            int red = (int) (outputArray[0][y][x][0] * 255);
+            int green = (int) (outputArray[0][y][x][1] * 255);
+            int blue = (int) (outputArray[0][y][x][2] * 255);
+            pixels[i] = (0xFF << 24) | (red << 16) | (green << 8) | blue;
+        }
+    }
+
+    private static long bytesPerIteration(Runnable inference) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            inference.run();
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            inference.run();
+        }
+        return (allocatedBytes() - before) / ITERATIONS;
+    }
+
+    private static long allocatedBytes() {
+        return allocationCounter().getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Contorul de alocări per fir există doar pe JVM-urile HotSpot; pe
+     * celelalte testul este sărit.
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(counter.isThreadAllocatedMemorySupported());
+        counter.setThreadAllocatedMemoryEnabled(true);
+        return counter;
+    }
+
+    private static int[] randomPixels() {
+        Random random = new Random(42);
+        int[] pixels = new int[IMAGE_SIZE * IMAGE_SIZE];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        return pixels;
+    }
+}
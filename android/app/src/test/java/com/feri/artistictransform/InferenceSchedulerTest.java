@@ -0,0 +1,172 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testează ordinea, înlocuirea și anularea joburilor din
+ * {@link InferenceScheduler}, cu sarcini false care doar își notează pașii.
+ */
+public class InferenceSchedulerTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final InferenceScheduler scheduler = new InferenceScheduler();
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void previewTasksRunBeforeExtraTasks() throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        InferenceScheduler.Job job = scheduler.newJob("photo");
+        // Consumatorul este ținut ocupat până când toate sarcinile sunt în coadă
+        scheduler.submit(job, InferenceScheduler.PRIORITY_PREVIEW, j -> gate.await());
+        scheduler.submit(job, InferenceScheduler.PRIORITY_EXTRA, record("extra 1"));
+        scheduler.submit(job, InferenceScheduler.PRIORITY_PREVIEW, record("preview 1"));
+        scheduler.submit(job, InferenceScheduler.PRIORITY_EXTRA, record("extra 2"));
+        scheduler.submit(job, InferenceScheduler.PRIORITY_PREVIEW, record("preview 2"));
+        CountDownLatch done = finish(job, InferenceScheduler.PRIORITY_EXTRA);
+        gate.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("preview 1", "preview 2", "extra 1", "extra 2"), events);
+    }
+
+    @Test
+    public void newJob_supersedesPendingTasksOfSameKey() throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        InferenceScheduler.Job blocker = scheduler.newJob("blocker");
+        scheduler.submit(blocker, InferenceScheduler.PRIORITY_PREVIEW, j -> gate.await());
+
+        InferenceScheduler.Job first = scheduler.newJob("photo");
+        scheduler.submit(first, InferenceScheduler.PRIORITY_PREVIEW, record("first preview"));
+        scheduler.submit(first, InferenceScheduler.PRIORITY_EXTRA, record("first extra"));
+        InferenceScheduler.Job second = scheduler.newJob("photo");
+        scheduler.submit(second, InferenceScheduler.PRIORITY_PREVIEW, record("second preview"));
+        // Sarcinile unui job deja anulat nu mai intră în coadă
+        scheduler.submit(first, InferenceScheduler.PRIORITY_PREVIEW, record("first late"));
+        CountDownLatch done = finish(second, InferenceScheduler.PRIORITY_EXTRA);
+        gate.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(first.isCancelled());
+        assertFalse(second.isCancelled());
+        assertFalse(blocker.isCancelled());
+        assertEquals(Collections.singletonList("second preview"), events);
+    }
+
+    @Test
+    public void newJob_cancelsRunningTaskBetweenVariants() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        InferenceScheduler.Job first = scheduler.newJob("photo");
+        scheduler.submit(first, InferenceScheduler.PRIORITY_PREVIEW, j -> {
+            for (int variant = 0; variant < StyleTransferHelper.VARIANT_COUNT; variant++) {
+                if (j.isCancelled()) {
+                    break;
+                }
+                events.add("variant " + variant);
+                if (variant == 0) {
+                    started.countDown();
+                    proceed.await();
+                }
+            }
+            stopped.countDown();
+        });
+
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        InferenceScheduler.Job second = scheduler.newJob("photo");
+        assertTrue(first.isCancelled());
+        proceed.countDown();
+
+        assertTrue(stopped.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("variant 0"), events);
+        // Consumatorul continuă cu jobul nou
+        assertTrue(finish(second, InferenceScheduler.PRIORITY_PREVIEW)
+                .await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancel_removesOnlyThatJob() throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        InferenceScheduler.Job blocker = scheduler.newJob("blocker");
+        scheduler.submit(blocker, InferenceScheduler.PRIORITY_PREVIEW, j -> gate.await());
+        InferenceScheduler.Job cancelled = scheduler.newJob("a");
+        InferenceScheduler.Job kept = scheduler.newJob("b");
+        scheduler.submit(cancelled, InferenceScheduler.PRIORITY_PREVIEW, record("a"));
+        scheduler.submit(kept, InferenceScheduler.PRIORITY_PREVIEW, record("b"));
+        scheduler.cancel(cancelled);
+        CountDownLatch done = finish(kept, InferenceScheduler.PRIORITY_EXTRA);
+        gate.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("b"), events);
+    }
+
+    @Test
+    public void failingTask_doesNotStopConsumer() throws InterruptedException {
+        InferenceScheduler.Job job = scheduler.newJob("photo");
+        scheduler.submit(job, InferenceScheduler.PRIORITY_PREVIEW, j -> {
+            throw new IllegalStateException("model failed");
+        });
+        assertTrue(finish(job, InferenceScheduler.PRIORITY_PREVIEW)
+                .await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shutdown_cancelsJobsAndInterruptsRunningTask() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        InferenceScheduler.Job job = scheduler.newJob("photo");
+        scheduler.submit(job, InferenceScheduler.PRIORITY_PREVIEW, j -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        });
+        scheduler.submit(job, InferenceScheduler.PRIORITY_EXTRA, record("pending"));
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        scheduler.shutdown();
+
+        assertTrue(interrupted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(job.isCancelled());
+        assertTrue(events.isEmpty());
+        try {
+            scheduler.newJob("photo");
+        } catch (IllegalStateException expected) {
+            return;
+        }
+        throw new AssertionError("Expected IllegalStateException after shutdown");
+    }
+
+    private InferenceScheduler.Task record(String event) {
+        return j -> events.add(event);
+    }
+
+    /** O sarcină la coada jobului, care arată când consumatorul a ajuns la ea. */
+    private CountDownLatch finish(InferenceScheduler.Job job, int priority) {
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.submit(job, priority, j -> done.countDown());
+        return done;
+    }
+}
@@ -0,0 +1,217 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Testează checkout-ul, creșterea până la mărimea pool-ului și închiderea
+ * din {@link InterpreterPool}, cu interpretoare false care doar numără
+ * închiderile.
+ */
+public class InterpreterPoolTest {
+
+    private static final BackendConfig CPU = BackendConfig.cpu(1, true);
+
+    /** Creează interpretoare false și ține evidența celor închise. */
+    static final class FakeInterpreters implements InterpreterPool.InterpreterFactory {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+
+        @Override
+        public PooledInterpreter create() {
+            created.incrementAndGet();
+            return new PooledInterpreter(new InferenceBackend() {
+                private boolean open = true;
+
+                @Override
+                public BackendConfig getConfig() {
+                    return CPU;
+                }
+
+                @Override
+                public void runWarmUp() {
+                }
+
+                @Override
+                public synchronized void close() {
+                    if (open) {
+                        open = false;
+                        closed.incrementAndGet();
+                    }
+                }
+            }, null, null);
+        }
+
+        int open() {
+            return created.get() - closed.get();
+        }
+    }
+
+    private final FakeInterpreters interpreters = new FakeInterpreters();
+
+    private InterpreterPool pool(int size) {
+        return new InterpreterPool(interpreters, CPU, size);
+    }
+
+    @Test
+    public void constructor_createsFirstInterpreterEagerly() {
+        InterpreterPool pool = pool(3);
+        assertEquals(1, interpreters.created.get());
+        pool.close();
+    }
+
+    @Test
+    public void acquire_returnsReleasedInterpreter() throws InterruptedException {
+        InterpreterPool pool = pool(2);
+        PooledInterpreter first = pool.acquire();
+        pool.release(first);
+
+        assertSame(first, pool.acquire());
+        assertEquals(1, interpreters.created.get());
+        pool.close();
+    }
+
+    @Test
+    public void tryAcquire_growsUpToPoolSize() {
+        InterpreterPool pool = pool(3);
+        Set<PooledInterpreter> taken = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            PooledInterpreter interpreter = pool.tryAcquire();
+            assertNotNull(interpreter);
+            taken.add(interpreter);
+        }
+
+        assertEquals(3, taken.size());
+        assertNull(pool.tryAcquire());
+        assertEquals(3, interpreters.created.get());
+
+        PooledInterpreter returned = taken.iterator().next();
+        pool.release(returned);
+        assertSame(returned, pool.tryAcquire());
+        pool.close();
+    }
+
+    @Test
+    public void invokeAll_runsOnOwnedInterpreterWhenPoolIsBusy() throws Exception {
+        InterpreterPool pool = pool(1);
+        PooledInterpreter owned = pool.acquire();
+        List<PooledInterpreter> used = pool.invokeAll(owned, recordingTasks(4));
+
+        assertEquals(4, used.size());
+        for (PooledInterpreter interpreter : used) {
+            assertSame(owned, interpreter);
+        }
+        pool.release(owned);
+        pool.close();
+    }
+
+    @Test
+    public void invokeAll_usesFreeInterpretersInParallel() throws Exception {
+        InterpreterPool pool = pool(2);
+        PooledInterpreter owned = pool.acquire();
+        List<PooledInterpreter> used = pool.invokeAll(owned, recordingTasks(3));
+
+        // Prima sarcină rulează mereu pe interpretorul apelantului
+        assertSame(owned, used.get(0));
+        assertTrue(used.contains(owned));
+        assertEquals(2, new HashSet<>(used).size());
+        assertEquals(2, interpreters.created.get());
+        // Interpretorul suplimentar s-a întors în pool
+        PooledInterpreter extra = pool.tryAcquire();
+        assertNotNull(extra);
+        assertNotSame(owned, extra);
+        pool.release(extra);
+        pool.release(owned);
+        pool.close();
+    }
+
+    @Test
+    public void close_closesIdleNowAndCheckedOutOnRelease() throws InterruptedException {
+        InterpreterPool pool = pool(2);
+        PooledInterpreter busy = pool.acquire();
+        pool.release(pool.tryAcquire());
+
+        pool.close();
+        assertTrue(pool.isClosed());
+        assertEquals(1, interpreters.closed.get());
+
+        pool.release(busy);
+        assertEquals(0, interpreters.open());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void tryAcquire_failsAfterClose() {
+        InterpreterPool pool = pool(1);
+        pool.close();
+        pool.tryAcquire();
+    }
+
+    @Test
+    public void releaseRacingClose_neverLeaksInterpreter() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            final FakeInterpreters roundInterpreters = new FakeInterpreters();
+            final InterpreterPool pool = new InterpreterPool(roundInterpreters, CPU, 4);
+            final List<PooledInterpreter> taken = new ArrayList<>();
+            PooledInterpreter interpreter;
+            while ((interpreter = pool.tryAcquire()) != null) {
+                taken.add(interpreter);
+            }
+
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (final PooledInterpreter held : taken) {
+                threads.add(new Thread(() -> {
+                    await(start);
+                    pool.release(held);
+                }));
+            }
+            threads.add(new Thread(() -> {
+                await(start);
+                pool.close();
+            }));
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals("Round " + round, 0, roundInterpreters.open());
+        }
+    }
+
+    private static List<InterpreterPool.PooledTask<PooledInterpreter>> recordingTasks(int count) {
+        List<InterpreterPool.PooledTask<PooledInterpreter>> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(interpreter -> {
+                // Ține interpretorul ocupat puțin, ca sarcinile să se suprapună
+                Thread.sleep(20);
+                return interpreter;
+            });
+        }
+        return Collections.unmodifiableList(tasks);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
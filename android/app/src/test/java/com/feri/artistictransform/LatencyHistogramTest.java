@@ -0,0 +1,103 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Testează precizia percentilelor din {@link LatencyHistogram} și agregarea pe
+ * etape și variații din {@link StageMetrics}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets_coverValuesContiguously() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(LatencyHistogram.lowestValueAt(index) <= value);
+            assertTrue(LatencyHistogram.highestValueAt(index) >= value);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void percentiles_areWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.recordMicros(micros);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxMicros());
+        assertEquals(50_000.5, histogram.getMeanMicros(), 1e-6);
+        assertWithin(50_000, histogram.getPercentileMicros(50));
+        assertWithin(90_000, histogram.getPercentileMicros(90));
+        assertWithin(99_000, histogram.getPercentileMicros(99));
+        assertEquals(100_000, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void smallValues_areExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordMicros(3);
+        histogram.recordMicros(7);
+        histogram.recordMicros(7);
+        histogram.recordNanos(120_400);
+
+        assertEquals(7, histogram.getPercentileMicros(50));
+        assertEquals(120, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void reset_clearsCounts() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordMicros(5_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.getPercentileMicros(99));
+    }
+
+    @Test
+    public void stageMetrics_recordsStageAndVariant() {
+        StageMetrics metrics = new StageMetrics();
+        metrics.recordMicros(StageMetrics.INFERENCE, "original", 40_000);
+        metrics.recordMicros(StageMetrics.INFERENCE, "rotated", 60_000);
+        metrics.recordMicros(StageMetrics.DECODE, null, 12_000);
+
+        assertEquals(2, metrics.get(StageMetrics.INFERENCE, null).getCount());
+        assertEquals(1, metrics.get(StageMetrics.INFERENCE, "rotated").getCount());
+        assertNotNull(metrics.get(StageMetrics.DECODE, null));
+        assertNull(metrics.get(StageMetrics.DECODE, "original"));
+
+        // Etapele apar în ordinea pipeline-ului, fiecare urmată de variațiile ei
+        String report = metrics.report("Test device");
+        assertTrue(report.startsWith("Test device\n"));
+        int decode = report.indexOf("decode");
+        int inference = report.indexOf("inference ");
+        int original = report.indexOf("inference/original");
+        assertTrue(decode > 0 && decode < inference && inference < original);
+    }
+
+    @Test
+    public void stageMetrics_disabledRecordsNothing() {
+        StageMetrics metrics = new StageMetrics();
+        metrics.setEnabled(false);
+        long start = metrics.begin();
+        metrics.end(StageMetrics.INFERENCE, "original", start);
+
+        assertEquals(0, start);
+        assertNull(metrics.get(StageMetrics.INFERENCE, null));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 50);
+    }
+}
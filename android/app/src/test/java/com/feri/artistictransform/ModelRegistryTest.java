@@ -0,0 +1,258 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Testează lista modelelor calde din {@link ModelRegistry}: ordinea LRU,
+ * bugetul de memorie și scoaterea unui model folosit încă de un job, cu
+ * modele false din fișiere temporare și pool-uri de interpretoare false.
+ */
+public class ModelRegistryTest {
+
+    private static final BackendConfig CPU = BackendConfig.cpu(1, true);
+    // Un model de 1 KB cu un singur interpretor costă estimativ 2 KB
+    private static final int MODEL_BYTES = 1024;
+    private static final long MODEL_COST = 2 * MODEL_BYTES;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, InterpreterPool> pools = new HashMap<>();
+
+    private ModelRegistry registry(int maxWarmModels, long budget, String... ids)
+            throws IOException {
+        List<StyleModel> models = new ArrayList<>();
+        for (String id : ids) {
+            models.add(model(id, MODEL_BYTES));
+        }
+        return registry(models, maxWarmModels, budget);
+    }
+
+    private ModelRegistry registry(List<StyleModel> models, int maxWarmModels, long budget) {
+        return new ModelRegistry(models, maxWarmModels, budget, (model, mapping) -> {
+            InterpreterPool pool = new InterpreterPool(
+                    new InterpreterPoolTest.FakeInterpreters(), CPU, 1);
+            pools.put(model.getId(), pool);
+            return pool;
+        });
+    }
+
+    private StyleModel model(String id, int bytes) throws IOException {
+        File file = folder.newFile(id + ".tflite");
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            byte[] content = new byte[bytes];
+            // Conținut diferit pentru fiecare model, deci hash-uri diferite
+            content[0] = (byte) id.hashCode();
+            output.write(content);
+        }
+        return StyleModel.fromFile(id, file);
+    }
+
+    private File overwrite(String id, int bytes, byte marker) throws IOException {
+        File file = new File(folder.getRoot(), id + ".tflite");
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            byte[] content = new byte[bytes];
+            content[0] = marker;
+            output.write(content);
+        }
+        return file;
+    }
+
+    @Test
+    public void get_returnsSameWarmModelAndEstimatesCost() throws Exception {
+        ModelRegistry registry = registry(2, Long.MAX_VALUE, "a");
+        ModelRegistry.WarmModel first = registry.get("a");
+
+        assertSame(first, registry.get("a"));
+        assertEquals(MODEL_BYTES, first.getModelBytes());
+        assertEquals(MODEL_COST, first.getEstimatedBytes());
+        assertFalse(first.getContentHash().isEmpty());
+        registry.close();
+        assertTrue(first.getPool().isClosed());
+    }
+
+    @Test
+    public void get_evictsLeastRecentlyUsedModel() throws Exception {
+        ModelRegistry registry = registry(2, Long.MAX_VALUE, "a", "b", "c");
+        registry.get("a");
+        registry.get("b");
+        // "a" devine cel mai recent folosit, deci "b" iese primul
+        registry.get("a");
+        registry.get("c");
+
+        assertTrue(registry.isWarm("a"));
+        assertFalse(registry.isWarm("b"));
+        assertTrue(registry.isWarm("c"));
+        assertTrue(pools.get("b").isClosed());
+        assertFalse(pools.get("a").isClosed());
+        registry.close();
+    }
+
+    @Test
+    public void get_staysWithinMemoryBudget() throws Exception {
+        List<StyleModel> models = new ArrayList<>();
+        models.add(model("small1", MODEL_BYTES));
+        models.add(model("small2", MODEL_BYTES));
+        models.add(model("large", 3 * MODEL_BYTES));
+        ModelRegistry registry = registry(models, 5, 4 * MODEL_COST);
+        registry.get("small1");
+        registry.get("small2");
+        assertTrue(registry.isWarm("small1") && registry.isWarm("small2"));
+
+        // 2 + 2 + 6 KB depășește bugetul de 8 KB: iese doar cel mai vechi model
+        registry.get("large");
+        assertFalse(registry.isWarm("small1"));
+        assertTrue(registry.isWarm("small2"));
+        assertTrue(registry.isWarm("large"));
+        assertTrue(pools.get("small1").isClosed());
+
+        // Modelul tocmai încărcat rămâne, chiar dacă singur depășește bugetul
+        ModelRegistry tight = registry(models, 5, MODEL_COST / 2);
+        tight.get("large");
+        assertTrue(tight.isWarm("large"));
+        registry.close();
+        tight.close();
+    }
+
+    @Test
+    public void evictedModel_staysOpenUntilLastRelease() throws Exception {
+        ModelRegistry registry = registry(1, Long.MAX_VALUE, "a", "b");
+        ModelRegistry.WarmModel a = registry.get("a");
+        assertTrue(registry.retain(a));
+        assertTrue(registry.retain(a));
+
+        registry.get("b");
+        assertFalse(registry.isWarm("a"));
+        assertFalse(a.getPool().isClosed());
+        // Jobul care ține modelul poate lua în continuare interpretoare
+        PooledInterpreter interpreter = a.getPool().tryAcquire();
+        assertNotNull(interpreter);
+        a.getPool().release(interpreter);
+
+        registry.release(a);
+        assertFalse(a.getPool().isClosed());
+        registry.release(a);
+        assertTrue(a.getPool().isClosed());
+        // Un model închis nu mai poate fi ținut; următorul get îl reîncarcă
+        assertFalse(registry.retain(a));
+        assertNotSame(a, registry.get("a"));
+        registry.close();
+    }
+
+    @Test
+    public void releasedWarmModel_staysWarm() throws Exception {
+        ModelRegistry registry = registry(2, Long.MAX_VALUE, "a");
+        ModelRegistry.WarmModel a = registry.get("a");
+        assertTrue(registry.retain(a));
+        registry.release(a);
+
+        assertTrue(registry.isWarm("a"));
+        assertFalse(a.getPool().isClosed());
+        registry.close();
+    }
+
+    @Test
+    public void refresh_reloadsReplacedModelWithNewHash() throws Exception {
+        ModelRegistry registry = registry(2, Long.MAX_VALUE, "a", "b");
+        ModelRegistry.WarmModel a = registry.get("a");
+        ModelRegistry.WarmModel b = registry.get("b");
+
+        // Descărcarea scrie peste fișierul vechi, cu alt conținut și altă mărime
+        overwrite("a", 2 * MODEL_BYTES, (byte) 7);
+        registry.refresh();
+
+        assertFalse(registry.isWarm("a"));
+        assertTrue(a.getPool().isClosed());
+        ModelRegistry.WarmModel replaced = registry.get("a");
+        assertNotSame(a, replaced);
+        assertNotSame(a.getPool(), replaced.getPool());
+        assertNotEquals(a.getContentHash(), replaced.getContentHash());
+        assertEquals(2 * MODEL_BYTES, replaced.getModelBytes());
+        // Modelul neschimbat rămâne cald
+        assertSame(b, registry.get("b"));
+        assertFalse(b.getPool().isClosed());
+        registry.close();
+    }
+
+    @Test
+    public void refresh_noticesSameSizeReplacementByDate() throws Exception {
+        ModelRegistry registry = registry(1, Long.MAX_VALUE, "a");
+        ModelRegistry.WarmModel a = registry.get("a");
+        File file = overwrite("a", MODEL_BYTES, (byte) 9);
+        assertTrue(file.setLastModified(file.lastModified() + 10_000));
+        registry.refresh();
+
+        assertNotEquals(a.getContentHash(), registry.get("a").getContentHash());
+        registry.close();
+    }
+
+    @Test
+    public void refresh_keepsHeldReplacedModelOpenUntilRelease() throws Exception {
+        ModelRegistry registry = registry(2, Long.MAX_VALUE, "a");
+        ModelRegistry.WarmModel a = registry.get("a");
+        assertTrue(registry.retain(a));
+
+        overwrite("a", 2 * MODEL_BYTES, (byte) 7);
+        registry.refresh();
+        assertFalse(registry.isWarm("a"));
+        assertFalse(a.getPool().isClosed());
+
+        registry.release(a);
+        assertTrue(a.getPool().isClosed());
+        registry.close();
+    }
+
+    @Test
+    public void getSignature_rereadsReplacedModel() throws Exception {
+        // Testele unitare rulează din directorul modulului app
+        byte[] bundled = Files.readAllBytes(new File("src/main/assets/model.tflite").toPath());
+        File file = new File(folder.getRoot(), "a.tflite");
+        Files.write(file.toPath(), bundled);
+        ModelRegistry registry = registry(
+                Collections.singletonList(StyleModel.fromFile("a", file)), 1, Long.MAX_VALUE);
+        ModelSignature first = registry.getSignature("a");
+        assertSame(first, registry.getSignature("a"));
+
+        // Același model cu octeți în plus la final: alt hash, aceleași tensoare
+        Files.write(file.toPath(), Arrays.copyOf(bundled, bundled.length + 16));
+        registry.refresh();
+        ModelSignature replaced = registry.getSignature("a");
+
+        assertNotSame(first, replaced);
+        assertNotEquals(first.getContentHash(), replaced.getContentHash());
+        assertEquals(registry.get("a").getContentHash(), replaced.getContentHash());
+        registry.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void release_rejectsModelNotHeld() throws Exception {
+        ModelRegistry registry = registry(1, Long.MAX_VALUE, "a");
+        registry.release(registry.get("a"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void get_rejectsUnknownStyle() throws Exception {
+        registry(1, Long.MAX_VALUE, "a").get("missing");
+    }
+}
@@ -0,0 +1,105 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+
+/**
+ * Citește semnătura modelului inclus în aplicație direct din fișier, cu
+ * {@link ModelSignature}, pe un JVM fără TFLite.
+ */
+public class ModelSignatureTest {
+
+    // Testele unitare rulează din directorul modulului app
+    private static final File MODEL = new File("src/main/assets/model.tflite");
+
+    private static MappedByteBuffer mapModel() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(MODEL, "r")) {
+            return file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        }
+    }
+
+    @Test
+    public void bundledModel_hasImageInputAndOutput() throws IOException {
+        ModelSignature signature = ModelSignature.read(mapModel());
+
+        assertEquals(3, signature.getVersion());
+        assertEquals(1, signature.getInputs().size());
+        assertEquals(1, signature.getOutputs().size());
+        ModelSignature.TensorInfo input = signature.getInputs().get(0);
+        ModelSignature.TensorInfo output = signature.getOutputs().get(0);
+        assertArrayEquals(new int[]{1, 256, 256, 3}, input.getShape());
+        assertArrayEquals(new int[]{1, 256, 256, 3}, output.getShape());
+        assertEquals(ModelSignature.TYPE_FLOAT32, input.getType());
+        assertEquals("FLOAT32", output.getTypeName());
+        assertNull(input.getQuantization());
+        assertEquals(256 * 256 * 3 * 4, input.getByteSize());
+        // Doar dimensiunea lotului este liberă
+        assertArrayEquals(new int[]{-1, 256, 256, 3}, input.getShapeSignature());
+        assertTrue(input.isDynamic());
+        assertTrue(signature.isImageToImage());
+    }
+
+    @Test
+    public void bundledModel_countsOperators() throws IOException {
+        ModelSignature signature = ModelSignature.read(mapModel());
+        Map<String, Integer> operators = signature.getOperatorCounts();
+
+        assertEquals(16, signature.getOperatorCount());
+        assertEquals(33, signature.getTensorCount());
+        assertEquals(Integer.valueOf(4), operators.get("CONV_2D"));
+        assertEquals(Integer.valueOf(2), operators.get("TRANSPOSE_CONV"));
+        assertEquals(Integer.valueOf(1), operators.get("TANH"));
+        int total = 0;
+        for (int count : operators.values()) {
+            total += count;
+        }
+        assertEquals(signature.getOperatorCount(), total);
+    }
+
+    @Test
+    public void read_keepsBufferPositionAndMatchesContentHash() throws IOException {
+        MappedByteBuffer model = mapModel();
+        ModelSignature signature = ModelSignature.read(model);
+
+        assertEquals(0, model.position());
+        assertEquals(ContentHash.toHex(ContentHash.of(model)), signature.getContentHash());
+        assertEquals("known", ModelSignature.read(model, "known").getContentHash());
+    }
+
+    @Test
+    public void read_rejectsOtherFiles() {
+        assertMalformed(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        assertMalformed(ByteBuffer.wrap("0000TFL2 not a model".getBytes()));
+    }
+
+    @Test
+    public void read_rejectsTruncatedModel() throws IOException {
+        MappedByteBuffer model = mapModel();
+        ByteBuffer header = model.duplicate();
+        header.limit(64);
+        assertMalformed(header.slice());
+    }
+
+    private static void assertMalformed(ByteBuffer buffer) {
+        try {
+            ModelSignature.read(buffer, "");
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            assertFalse(expected.getMessage().isEmpty());
+        }
+    }
+}
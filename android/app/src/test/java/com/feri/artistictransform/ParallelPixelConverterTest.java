@@ -0,0 +1,111 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Testează limitarea valorilor în conversia float -> ARGB și faptul că
+ * varianta paralelă produce exact aceiași pixeli ca cea secvențială.
+ */
+public class ParallelPixelConverterTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void floatToArgb_clampsOutOfRangeValues() {
+        FloatBuffer src = floats(4 * 3);
+        src.put(new float[]{
+                1.2f, 0.5f, -0.3f,
+                2.0f, 2.0f, 2.0f,
+                -5f, Float.NaN, 1.0f,
+                0f, 0f, 0f});
+        int[] pixels = new int[4];
+        PixelConverter.floatToArgb(src, 0, pixels, 4);
+
+        assertEquals(0xFFFF7F00, pixels[0]);
+        assertEquals(0xFFFFFFFF, pixels[1]);
+        assertEquals(0xFF0000FF, pixels[2]);
+        assertEquals(0xFF000000, pixels[3]);
+    }
+
+    @Test
+    public void floatToArgb_arrayAndBufferVariantsAgree() {
+        float[] values = randomFloats(1000 * 3, 1);
+        FloatBuffer buffer = floats(values.length);
+        buffer.put(values);
+
+        int[] fromBuffer = new int[1000];
+        int[] fromArray = new int[1000];
+        PixelConverter.floatToArgb(buffer, 0, fromBuffer, 1000);
+        PixelConverter.floatToArgb(values, 0, fromArray, 0, 1000);
+        assertArrayEquals(fromBuffer, fromArray);
+    }
+
+    @Test
+    public void parallel_matchesSequentialForLargeOutputs() {
+        int width = 1024;
+        int height = 600;
+        int offset = 3 * 17;
+        float[] values = randomFloats(offset + width * height * 3, 2);
+        FloatBuffer src = floats(values.length);
+        src.put(values);
+        src.position(5);
+
+        int[] buffered = new int[width * height];
+        int[] sequential = new int[width * height];
+        int[] parallel = new int[width * height];
+        PixelConverter.floatToArgb(src, offset, buffered, width * height);
+        ParallelPixelConverter.floatToArgbSequential(src, offset, sequential, width, height);
+        new ParallelPixelConverter(POOL).floatToArgb(src, offset, parallel, width, height);
+
+        // Copierea pe rânduri și varianta paralelă dau aceiași pixeli ca citirea din buffer
+        assertArrayEquals(buffered, sequential);
+        assertArrayEquals(sequential, parallel);
+        // Poziția bufferului sursă nu este modificată
+        assertEquals(5, src.position());
+    }
+
+    @Test
+    public void parallel_handlesSmallAndOddSizes() {
+        for (int[] size : new int[][]{{1, 1}, {3, 7}, {256, 256}, {513, 257}}) {
+            int count = size[0] * size[1];
+            float[] values = randomFloats(count * 3, count);
+            FloatBuffer src = floats(values.length);
+            src.put(values);
+
+            int[] expected = new int[count];
+            int[] actual = new int[count];
+            PixelConverter.floatToArgb(src, 0, expected, count);
+            new ParallelPixelConverter(POOL).floatToArgb(src, 0, actual, size[0], size[1]);
+            assertArrayEquals(size[0] + "x" + size[1], expected, actual);
+        }
+    }
+
+    private static FloatBuffer floats(int count) {
+        return ByteBuffer.allocateDirect(count * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private static float[] randomFloats(int count, long seed) {
+        // Include valori în afara [0, 1], ca la ieșirile reale ale modelului
+        Random random = new Random(seed);
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextFloat() * 1.4f - 0.2f;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,164 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * Măsoară pe JVM alocările preprocesării unei variații rotite și saturate:
+ * lanțul vechi cu câte o imagine intermediară pe pas (rotire, scalare,
+ * saturație, apoi conversie) față de kernelul fuzionat care scrie direct în
+ * tensor.
+ */
+public class PreprocessKernelBenchmark {
+
+    private static final int SOURCE_WIDTH = 256;
+    private static final int SOURCE_HEIGHT = 192;
+    private static final int IMAGE_SIZE = 256;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int ITERATIONS = 300;
+
+    private final int[] sourcePixels = randomPixels();
+    private final FloatBuffer input = ByteBuffer.allocateDirect(IMAGE_SIZE * IMAGE_SIZE * 3 * 4)
+            .order(ByteOrder.nativeOrder()).asFloatBuffer();
+
+    @Test
+    public void fusedKernel_allocatesNoIntermediateImages() {
+        Runnable staged = new Runnable() {
+            @Override
+            public void run() {
+                int[] rotated = rotateClockwise(sourcePixels, SOURCE_WIDTH, SOURCE_HEIGHT);
+                int[] scaled = scaleBilinear(rotated, SOURCE_HEIGHT, SOURCE_WIDTH, IMAGE_SIZE);
+                int[] saturated = saturate(scaled, 1.5f);
+                PixelConverter.argbToFloat(saturated, saturated.length, input, 0);
+            }
+        };
+        final PreprocessKernel kernel = new PreprocessKernel(IMAGE_SIZE);
+        final PreprocessKernel.Transform transform = new PreprocessKernel.Transform(1, false, 1.5f, false);
+        Runnable fused = new Runnable() {
+            @Override
+            public void run() {
+                kernel.apply(sourcePixels, SOURCE_WIDTH, SOURCE_HEIGHT, transform, input, 0);
+            }
+        };
+
+        long stagedBytes = bytesPerImage(staged);
+        long fusedBytes = bytesPerImage(fused);
+
+        assertTrue("Staged preprocessing: " + stagedBytes + " bytes/image",
+                stagedBytes > 2L * IMAGE_SIZE * IMAGE_SIZE * 4);
+        assertTrue("Fused preprocessing: " + fusedBytes + " bytes/image", fusedBytes < 1024);
+    }
+
+    /**
+     * Octeții alocați per iterație; timpul se măsoară în PreprocessBenchmark
+     * din modulul :benchmark.
+     */
+    private static long bytesPerImage(Runnable preprocess) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            preprocess.run();
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            preprocess.run();
+        }
+        return (allocatedBytes() - before) / ITERATIONS;
+    }
+
+    private static int[] rotateClockwise(int[] pixels, int width, int height) {
+        int[] rotated = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                rotated[x * height + (height - 1 - y)] = pixels[y * width + x];
+            }
+        }
+        return rotated;
+    }
+
+    /**
+     * Scalare biliniară, ca Bitmap.createScaledBitmap cu filtrare.
+     */
+    private static int[] scaleBilinear(int[] pixels, int width, int height, int size) {
+        int[] scaled = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            float sy = Math.max(0f, Math.min(height - 1, (y + 0.5f) * height / size - 0.5f));
+            int y0 = (int) sy;
+            int y1 = Math.min(y0 + 1, height - 1);
+            float fy = sy - y0;
+            for (int x = 0; x < size; x++) {
+                float sx = Math.max(0f, Math.min(width - 1, (x + 0.5f) * width / size - 0.5f));
+                int x0 = (int) sx;
+                int x1 = Math.min(x0 + 1, width - 1);
+                float fx = sx - x0;
+                int value = 0xFF000000;
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    float top = lerp(pixels[y0 * width + x0] >> shift & 0xFF,
+                            pixels[y0 * width + x1] >> shift & 0xFF, fx);
+                    float bottom = lerp(pixels[y1 * width + x0] >> shift & 0xFF,
+                            pixels[y1 * width + x1] >> shift & 0xFF, fx);
+                    value |= clamp(lerp(top, bottom, fy)) << shift;
+                }
+                scaled[y * size + x] = value;
+            }
+        }
+        return scaled;
+    }
+
+    private static float lerp(float a, float b, float fraction) {
+        return a + (b - a) * fraction;
+    }
+
+    private static int[] saturate(int[] pixels, float saturation) {
+        int[] saturated = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            float red = (pixel >> 16) & 0xFF;
+            float green = (pixel >> 8) & 0xFF;
+            float blue = pixel & 0xFF;
+            float luma = 0.213f * red + 0.715f * green + 0.072f * blue;
+            int r = clamp(luma + (red - luma) * saturation);
+            int g = clamp(luma + (green - luma) * saturation);
+            int b = clamp(luma + (blue - luma) * saturation);
+            saturated[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+        }
+        return saturated;
+    }
+
+    private static int clamp(float value) {
+        return Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    private static long allocatedBytes() {
+        return allocationCounter().getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Contorul de alocări per fir există doar pe JVM-urile HotSpot; pe
+     * celelalte testul este sărit.
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(counter.isThreadAllocatedMemorySupported());
+        counter.setThreadAllocatedMemoryEnabled(true);
+        return counter;
+    }
+
+    private static int[] randomPixels() {
+        Random random = new Random(42);
+        int[] pixels = new int[SOURCE_WIDTH * SOURCE_HEIGHT];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        return pixels;
+    }
+}
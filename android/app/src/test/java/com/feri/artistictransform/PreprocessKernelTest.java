@@ -0,0 +1,168 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * Compară kernelul de preprocesare cu transformări de referință făcute pas cu
+ * pas pe array-uri de pixeli.
+ */
+public class PreprocessKernelTest {
+
+    private static final int SIZE = 8;
+
+    private final int[] source = randomPixels(SIZE, SIZE, 7);
+
+    @Test
+    public void identity_matchesPixelConverter() {
+        FloatBuffer expected = floats(SIZE * SIZE * 3);
+        PixelConverter.argbToFloat(source, source.length, expected, 0);
+
+        FloatBuffer actual = floats(SIZE * SIZE * 3);
+        new PreprocessKernel(SIZE).apply(source, SIZE, SIZE,
+                PreprocessKernel.Transform.IDENTITY, actual, 0);
+
+        for (int i = 0; i < SIZE * SIZE * 3; i++) {
+            assertEquals(expected.get(i), actual.get(i), 0f);
+        }
+    }
+
+    @Test
+    public void quarterTurns_matchPixelRotation() {
+        int[] expected = source;
+        for (int turns = 1; turns < 4; turns++) {
+            expected = rotateClockwise(expected, SIZE, SIZE);
+            assertArrayEquals("turns " + turns, expected,
+                    run(source, SIZE, SIZE, PreprocessKernel.Transform.rotate(turns)));
+        }
+    }
+
+    @Test
+    public void mirror_isAppliedAfterRotation() {
+        int[] expected = mirror(rotateClockwise(source, SIZE, SIZE), SIZE, SIZE);
+        assertArrayEquals(expected,
+                run(source, SIZE, SIZE, new PreprocessKernel.Transform(1, true, 1f, false)));
+        assertArrayEquals(mirror(source, SIZE, SIZE),
+                run(source, SIZE, SIZE, PreprocessKernel.Transform.mirror()));
+    }
+
+    @Test
+    public void rotation_ofNonSquareSourceStretchesTheRotatedImage() {
+        // 2x4 rotit devine 4x2, apoi este întins la 8x8
+        int[] narrow = randomPixels(2, 4, 3);
+        int[] rotated = rotateClockwise(narrow, 2, 4);
+        int[] actual = run(narrow, 2, 4, PreprocessKernel.Transform.rotate(1));
+        // La colțuri eșantionarea cade pe marginea sursei, deci valorile sunt exacte
+        assertEquals(rotated[0], actual[0]);
+        assertEquals(rotated[3], actual[SIZE - 1]);
+        assertEquals(rotated[4], actual[SIZE * (SIZE - 1)]);
+        assertEquals(rotated[7], actual[SIZE * SIZE - 1]);
+    }
+
+    @Test
+    public void saturation_matchesColorMatrixFormula() {
+        int[] actual = run(source, SIZE, SIZE, PreprocessKernel.Transform.saturate(0f));
+        for (int i = 0; i < source.length; i++) {
+            int pixel = source[i];
+            float luma = 0.213f * ((pixel >> 16) & 0xFF) + 0.715f * ((pixel >> 8) & 0xFF)
+                    + 0.072f * (pixel & 0xFF);
+            int gray = Math.round(luma);
+            assertEquals(gray, (actual[i] >> 16) & 0xFF, 1);
+            assertEquals(gray, (actual[i] >> 8) & 0xFF, 1);
+            assertEquals(gray, actual[i] & 0xFF, 1);
+        }
+
+        // Saturația mare este limitată la [0, 255]
+        int[] saturated = run(new int[]{0xFFFF1000}, 1, 1, PreprocessKernel.Transform.saturate(3f));
+        assertEquals(255, (saturated[0] >> 16) & 0xFF);
+        assertEquals(0, saturated[0] & 0xFF);
+    }
+
+    @Test
+    public void letterbox_padsAndKeepsAspect() {
+        // Sursă 8x4 de o singură culoare: rândurile 0-1 și 6-7 sunt bandă neagră
+        int[] wide = new int[8 * 4];
+        java.util.Arrays.fill(wide, 0xFF336699);
+        int[] actual = run(wide, 8, 4, new PreprocessKernel.Transform(0, false, 1f, true));
+        for (int y = 0; y < SIZE; y++) {
+            int expected = y < 2 || y >= 6 ? 0xFF000000 : 0xFF336699;
+            for (int x = 0; x < SIZE; x++) {
+                assertEquals("pixel " + x + "," + y, expected, actual[y * SIZE + x]);
+            }
+        }
+    }
+
+    @Test
+    public void downscale_averagesNeighbouringPixels() {
+        // 16x16 cu coloane alternante 0/200: eșantionul dintre ele este media
+        int[] stripes = new int[16 * 16];
+        for (int i = 0; i < stripes.length; i++) {
+            int value = (i % 16) % 2 == 0 ? 0 : 200;
+            stripes[i] = 0xFF000000 | (value << 16) | (value << 8) | value;
+        }
+        int[] actual = run(stripes, 16, 16, PreprocessKernel.Transform.IDENTITY);
+        for (int pixel : actual) {
+            assertEquals(100, pixel & 0xFF);
+        }
+    }
+
+    @Test
+    public void quantizedOutput_usesEncodeTable() {
+        QuantizationParams params = new QuantizationParams(1f / 255f, 0, false);
+        ByteBuffer actual = ByteBuffer.allocateDirect(SIZE * SIZE * 3).order(ByteOrder.nativeOrder());
+        new PreprocessKernel(SIZE).apply(source, SIZE, SIZE, PreprocessKernel.Transform.IDENTITY,
+                actual, 0, params.getEncodeTable());
+        for (int i = 0; i < source.length; i++) {
+            assertEquals((source[i] >> 16) & 0xFF, actual.get(i * 3) & 0xFF);
+            assertEquals(source[i] & 0xFF, actual.get(i * 3 + 2) & 0xFF);
+        }
+    }
+
+    private static int[] run(int[] pixels, int width, int height, PreprocessKernel.Transform transform) {
+        int size = width == 1 ? 1 : SIZE;
+        int[] destination = new int[size * size];
+        new PreprocessKernel(size).apply(pixels, width, height, transform, destination);
+        return destination;
+    }
+
+    private static int[] rotateClockwise(int[] pixels, int width, int height) {
+        int[] rotated = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Lățimea imaginii rotite este height
+                rotated[x * height + (height - 1 - y)] = pixels[y * width + x];
+            }
+        }
+        return rotated;
+    }
+
+    private static int[] mirror(int[] pixels, int width, int height) {
+        int[] mirrored = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                mirrored[y * width + (width - 1 - x)] = pixels[y * width + x];
+            }
+        }
+        return mirrored;
+    }
+
+    private static FloatBuffer floats(int count) {
+        return ByteBuffer.allocateDirect(count * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private static int[] randomPixels(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        return pixels;
+    }
+}
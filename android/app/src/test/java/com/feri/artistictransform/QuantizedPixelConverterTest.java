@@ -0,0 +1,78 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Verifică conversia directă pixel ↔ tensor cuantizat prin tabele.
+ */
+public class QuantizedPixelConverterTest {
+
+    @Test
+    public void uint8RoundTrip_isExactForUnitScale() {
+        assertRoundTrip(new QuantizationParams(1.0f / 255, 0, false), 0);
+    }
+
+    @Test
+    public void int8RoundTrip_isExactForUnitScale() {
+        assertRoundTrip(new QuantizationParams(1.0f / 255, -128, true), 0);
+    }
+
+    @Test
+    public void coarseScale_staysWithinOneStep() {
+        // Un pas de cuantizare de 2/255 pierde cel mult un nivel de culoare
+        assertRoundTrip(new QuantizationParams(2.0f / 255, 3, false), 1);
+    }
+
+    @Test
+    public void encodeTable_clampsToTheTypeRange() {
+        QuantizationParams params = new QuantizationParams(0.5f / 255, 10, true);
+        assertEquals(127, params.getEncodeTable()[255]);
+        assertEquals(10, params.getEncodeTable()[0]);
+    }
+
+    @Test
+    public void decodeTable_clampsToChannelRange() {
+        QuantizationParams params = new QuantizationParams(0.01f, 0, true);
+        // -128 * 0.01 este negativ, 127 * 0.01 depășește 1
+        assertEquals(0, params.getDecodeTable()[0x80]);
+        assertEquals(255, params.getDecodeTable()[0x7F]);
+    }
+
+    @Test
+    public void realTable_isNotClamped() {
+        QuantizationParams params = new QuantizationParams(0.01f, 0, true);
+        assertEquals(-1.28f, params.getRealTable()[0x80], 1e-6f);
+        assertEquals(1.27f, params.getRealTable()[0x7F], 1e-6f);
+        // În interval, valoarea reală corespunde canalului decodat
+        QuantizationParams unit = new QuantizationParams(1.0f / 255, -128, true);
+        for (int index = 0; index < 256; index++) {
+            assertEquals(unit.getDecodeTable()[index], unit.getRealTable()[index] * 255f, 1e-3f);
+        }
+    }
+
+    private static void assertRoundTrip(QuantizationParams params, int tolerance) {
+        int[] pixels = new int[256];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | (i << 16) | ((255 - i) << 8) | (i * 7 & 0xFF);
+        }
+        ByteBuffer tensor = ByteBuffer.allocate(3 + pixels.length * 3);
+        PixelConverter.argbToQuantized(pixels, pixels.length, tensor, 3, params.getEncodeTable());
+
+        int[] decoded = new int[pixels.length];
+        PixelConverter.quantizedToArgb(tensor, 3, decoded, decoded.length, params.getDecodeTable());
+        for (int i = 0; i < pixels.length; i++) {
+            for (int shift = 0; shift <= 16; shift += 8) {
+                int expected = (pixels[i] >> shift) & 0xFF;
+                int actual = (decoded[i] >> shift) & 0xFF;
+                assertTrue("pixel " + i + ": " + expected + " vs " + actual,
+                        Math.abs(expected - actual) <= tolerance);
+            }
+            assertEquals(0xFF, decoded[i] >>> 24);
+        }
+    }
+}
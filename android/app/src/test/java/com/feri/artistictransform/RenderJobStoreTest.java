@@ -0,0 +1,116 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Testează reluarea joburilor din {@link RenderJobStore} după repornirea
+ * procesului: jurnalul și fișierele unui proces anterior sunt scrise direct
+ * în dosarul temporar, fără bitmap-uri.
+ */
+public class RenderJobStoreTest {
+
+    // Scrierea automată nu pornește în timpul testelor
+    private static final long NO_AUTO_FLUSH = 60_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Un job al procesului anterior, cu intrarea și părțile date salvate. */
+    private void writeJob(RenderJournal journal, String jobId, int... parts) throws IOException {
+        journal.jobQueued(jobId, "style", file(jobId + "-input.jpg").getName());
+        for (int part : parts) {
+            boolean png = part != RenderJobStore.HIGH_RESOLUTION;
+            journal.partFinished(jobId, part, file(jobId + "-" + part + (png ? ".png" : ".jpg"))
+                    .getName());
+        }
+    }
+
+    private File file(String name) throws IOException {
+        return folder.newFile(name);
+    }
+
+    private boolean exists(String name) {
+        return new File(folder.getRoot(), name).isFile();
+    }
+
+    @Test
+    public void resume_skipsSavedVariantsAndReusesHighResolution() throws Exception {
+        RenderJournal journal = new RenderJournal(folder.getRoot(), NO_AUTO_FLUSH);
+        writeJob(journal, "job", 0, 2, RenderJobStore.HIGH_RESOLUTION);
+        journal.close();
+
+        RenderJobStore store = new RenderJobStore(folder.getRoot());
+        RenderJournal.Job job = store.getUnfinishedJob();
+        assertNotNull(job);
+        assertEquals("job", job.getId());
+        assertArrayEquals(new boolean[]{true, false, true, false, true},
+                store.getSavedParts(job));
+    }
+
+    @Test
+    public void resume_recomputesPartsWhoseFileIsMissing() throws Exception {
+        RenderJournal journal = new RenderJournal(folder.getRoot(), NO_AUTO_FLUSH);
+        writeJob(journal, "job", 1, RenderJobStore.HIGH_RESOLUTION);
+        journal.close();
+        // De exemplu curățat de sistem împreună cu cache-ul
+        assertTrue(new File(folder.getRoot(), "job-" + RenderJobStore.HIGH_RESOLUTION + ".jpg")
+                .delete());
+
+        RenderJobStore store = new RenderJobStore(folder.getRoot());
+        RenderJournal.Job job = store.getUnfinishedJob();
+        assertArrayEquals(new boolean[]{false, true, false, false, false},
+                store.getSavedParts(job));
+    }
+
+    @Test
+    public void getUnfinishedJob_keepsLatestAndDeletesAbandonedFiles() throws Exception {
+        RenderJournal journal = new RenderJournal(folder.getRoot(), NO_AUTO_FLUSH);
+        writeJob(journal, "old", 0, 1);
+        writeJob(journal, "new", 0);
+        journal.close();
+
+        RenderJobStore store = new RenderJobStore(folder.getRoot());
+        assertEquals("new", store.getUnfinishedJob().getId());
+        // Al doilea apel așteaptă ștergerile programate de primul
+        assertEquals("new", store.getUnfinishedJob().getId());
+        assertFalse(exists("old-input.jpg"));
+        assertFalse(exists("old-0.png"));
+        assertFalse(exists("old-1.png"));
+        assertTrue(exists("new-input.jpg"));
+        assertTrue(exists("new-0.png"));
+
+        store.flush();
+        store.getUnfinishedJob();
+        List<RenderJournal.Job> jobs = new RenderJournal(folder.getRoot(), NO_AUTO_FLUSH)
+                .getUnfinishedJobs();
+        assertEquals(1, jobs.size());
+        assertEquals("new", jobs.get(0).getId());
+    }
+
+    @Test
+    public void finish_deletesFilesAndEndsResume() throws Exception {
+        RenderJournal journal = new RenderJournal(folder.getRoot(), NO_AUTO_FLUSH);
+        writeJob(journal, "job", 0, RenderJobStore.HIGH_RESOLUTION);
+        journal.close();
+
+        RenderJobStore store = new RenderJobStore(folder.getRoot());
+        store.finish(store.getUnfinishedJob().getId());
+
+        assertNull(store.getUnfinishedJob());
+        assertFalse(exists("job-input.jpg"));
+        assertFalse(exists("job-0.png"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+/**
+ * Testează rejucarea, compactarea și toleranța la o ultimă înregistrare
+ * scrisă parțial din {@link RenderJournal}.
+ */
+public class RenderJournalTest {
+
+    // Scrierea automată nu pornește în timpul testelor
+    private static final long NO_AUTO_FLUSH = 60_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RenderJournal open() throws IOException {
+        return new RenderJournal(folder.getRoot(), NO_AUTO_FLUSH);
+    }
+
+    private File journalFile() {
+        return new File(folder.getRoot(), "journal.bin");
+    }
+
+    @Test
+    public void reopen_restoresUnfinishedJobsAndParts() throws IOException {
+        RenderJournal journal = open();
+        journal.jobQueued("a", "style1", "a-input.jpg");
+        journal.partFinished("a", 0, "a-0.png");
+        journal.partFinished("a", 2, "a-2.png");
+        journal.jobQueued("b", "style2", "b-input.jpg");
+        journal.close();
+
+        List<RenderJournal.Job> jobs = open().getUnfinishedJobs();
+        assertEquals(2, jobs.size());
+        RenderJournal.Job a = jobs.get(0);
+        assertEquals("a", a.getId());
+        assertEquals("style1", a.getStyleId());
+        assertEquals("a-input.jpg", a.getInputName());
+        assertTrue(a.isDone(0));
+        assertFalse(a.isDone(1));
+        assertEquals("a-2.png", a.getResultName(2));
+        assertEquals("b", jobs.get(1).getId());
+        assertTrue(jobs.get(1).getParts().isEmpty());
+    }
+
+    @Test
+    public void finishedJobs_areNotResumedAndCompactedAway() throws IOException {
+        RenderJournal journal = open();
+        for (int i = 0; i < 20; i++) {
+            String id = "job" + i;
+            journal.jobQueued(id, "style", id + "-input.jpg");
+            journal.partFinished(id, 0, id + "-0.png");
+            journal.jobFinished(id);
+        }
+        journal.jobQueued("last", "style", "last-input.jpg");
+        journal.close();
+        long before = journalFile().length();
+
+        RenderJournal reopened = open();
+        reopened.close();
+        List<RenderJournal.Job> jobs = reopened.getUnfinishedJobs();
+        assertEquals(1, jobs.size());
+        assertEquals("last", jobs.get(0).getId());
+        assertTrue(journalFile().length() < before / 10);
+    }
+
+    @Test
+    public void tornTail_isIgnoredAndTruncated() throws IOException {
+        RenderJournal journal = open();
+        journal.jobQueued("a", "style", "a-input.jpg");
+        journal.partFinished("a", 1, "a-1.png");
+        journal.close();
+
+        // Procesul oprit în mijlocul ultimei înregistrări
+        long complete = journalFile().length();
+        try (RandomAccessFile file = new RandomAccessFile(journalFile(), "rw")) {
+            file.setLength(complete - 3);
+        }
+        RenderJournal reopened = open();
+        RenderJournal.Job job = reopened.getUnfinishedJobs().get(0);
+        assertFalse(job.isDone(1));
+        reopened.partFinished("a", 3, "a-3.jpg");
+        reopened.close();
+
+        // După compactare, înregistrările noi nu rămân în spatele celei rupte
+        RenderJournal.Job restored = open().getUnfinishedJobs().get(0);
+        assertNull(restored.getResultName(1));
+        assertEquals("a-3.jpg", restored.getResultName(3));
+    }
+
+    @Test
+    public void corruptRecord_stopsReplay() throws IOException {
+        RenderJournal journal = open();
+        journal.jobQueued("a", "style", "a-input.jpg");
+        journal.close();
+        try (FileOutputStream out = new FileOutputStream(journalFile(), true)) {
+            // Lungime plauzibilă, CRC greșit
+            out.write(new byte[]{0, 0, 0, 4, 1, 2, 3, 4, 3, 0, 1, 'a'});
+        }
+
+        List<RenderJournal.Job> jobs = open().getUnfinishedJobs();
+        assertEquals(1, jobs.size());
+        assertEquals("a", jobs.get(0).getId());
+    }
+
+    @Test
+    public void records_areWrittenInBatches() throws IOException {
+        RenderJournal journal = open();
+        for (int i = 0; i < 5; i++) {
+            journal.jobQueued("job" + i, "style", "input.jpg");
+            journal.partFinished("job" + i, 0, "0.png");
+        }
+        assertEquals(0, journal.getFlushCount());
+        journal.flush();
+        journal.flush();
+        assertEquals(10, journal.getRecordCount());
+        assertEquals(1, journal.getFlushCount());
+        journal.close();
+    }
+
+    @Test
+    public void partFinished_ignoresUnknownJobs() throws IOException {
+        RenderJournal journal = open();
+        journal.partFinished("missing", 0, "0.png");
+        journal.jobFinished("missing");
+        assertEquals(0, journal.getRecordCount());
+        journal.close();
+    }
+}
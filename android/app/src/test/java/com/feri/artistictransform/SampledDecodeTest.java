@@ -0,0 +1,59 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+
+import android.media.ExifInterface;
+
+import org.junit.Test;
+
+/**
+ * Testează calculul subeșantionării și interpretarea orientării EXIF, fără
+ * decodare reală de imagini.
+ */
+public class SampledDecodeTest {
+
+    @Test
+    public void sampleSize_largestPowerOfTwoThatStaysAboveTarget() {
+        // 4000x3000 încadrat în 256: ținta este 256x192, 4000/8 = 500 >= 256, 4000/16 = 250 < 256
+        assertEquals(8, ImageProcessorHelper.calculateInSampleSize(4000, 3000, 256, 256));
+        assertEquals(2, ImageProcessorHelper.calculateInSampleSize(4032, 3024, 1024, 1024));
+        assertEquals(4, ImageProcessorHelper.calculateInSampleSize(4032, 3024, 1000, 1000));
+        assertEquals(2, ImageProcessorHelper.calculateInSampleSize(512, 512, 256, 256));
+    }
+
+    @Test
+    public void sampleSize_neverUpscalesSmallImages() {
+        assertEquals(1, ImageProcessorHelper.calculateInSampleSize(200, 100, 256, 256));
+        assertEquals(1, ImageProcessorHelper.calculateInSampleSize(256, 256, 256, 256));
+        assertEquals(1, ImageProcessorHelper.calculateInSampleSize(511, 300, 256, 256));
+    }
+
+    @Test
+    public void sampleSize_usesTheLimitingDimension() {
+        // Panorama: lățimea limitează, înălțimea rezultată este mică
+        assertEquals(8, ImageProcessorHelper.calculateInSampleSize(8000, 1000, 1000, 1000));
+        // Limite nepătrate, de exemplu după inversarea pentru rotire la 90 de grade
+        assertEquals(2, ImageProcessorHelper.calculateInSampleSize(3000, 4000, 768, 1024));
+    }
+
+    @Test
+    public void exifOrientation_mapsToRotationAndMirror() {
+        int[][] expected = {
+                {ExifInterface.ORIENTATION_UNDEFINED, 0, 0},
+                {ExifInterface.ORIENTATION_NORMAL, 0, 0},
+                {ExifInterface.ORIENTATION_FLIP_HORIZONTAL, 0, 1},
+                {ExifInterface.ORIENTATION_ROTATE_180, 180, 0},
+                {ExifInterface.ORIENTATION_FLIP_VERTICAL, 180, 1},
+                {ExifInterface.ORIENTATION_TRANSPOSE, 90, 1},
+                {ExifInterface.ORIENTATION_ROTATE_90, 90, 0},
+                {ExifInterface.ORIENTATION_TRANSVERSE, 270, 1},
+                {ExifInterface.ORIENTATION_ROTATE_270, 270, 0},
+        };
+        for (int[] row : expected) {
+            assertEquals("degrees for " + row[0], row[1],
+                    ImageProcessorHelper.exifRotationDegrees(row[0]));
+            assertEquals("mirror for " + row[0], row[2] == 1,
+                    ImageProcessorHelper.isExifMirrored(row[0]));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Testează alegerea formei tensorului după proporțiile imaginii, în
+ * {@link ShapeBucket}, și preprocesarea într-un tensor dreptunghiular.
+ */
+public class ShapeBucketTest {
+
+    private static final int SIZE = 256;
+    private static final int STEP = 16;
+
+    @Test
+    public void forImage_keepsAspectRatioWithLongSideFixed() {
+        assertEquals(new ShapeBucket(256, 192), ShapeBucket.forImage(4000, 3000, SIZE, STEP));
+        assertEquals(new ShapeBucket(192, 256), ShapeBucket.forImage(3000, 4000, SIZE, STEP));
+        assertEquals(new ShapeBucket(256, 144), ShapeBucket.forImage(1920, 1080, SIZE, STEP));
+        assertEquals(ShapeBucket.square(SIZE), ShapeBucket.forImage(500, 500, SIZE, STEP));
+    }
+
+    @Test
+    public void forImage_roundsShortSideToNearestStep() {
+        // 256 * 2 / 3 = 170.7 -> 176
+        ShapeBucket shape = ShapeBucket.forImage(300, 200, SIZE, STEP);
+        assertEquals(176, shape.getHeight());
+        assertEquals(0, shape.getHeight() % STEP);
+        // Imaginile de 256 x 250 sau 256 x 251 ajung la aceeași formă pătrată
+        assertEquals(ShapeBucket.forImage(256, 250, SIZE, STEP),
+                ShapeBucket.forImage(256, 251, SIZE, STEP));
+    }
+
+    @Test
+    public void forImage_clampsVeryWideImages() {
+        assertEquals(new ShapeBucket(256, 16), ShapeBucket.forImage(10_000, 10, SIZE, STEP));
+        assertEquals(new ShapeBucket(16, 256), ShapeBucket.forImage(10, 10_000, SIZE, STEP));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forImage_rejectsLongSideOffStep() {
+        ShapeBucket.forImage(100, 100, 250, STEP);
+    }
+
+    @Test
+    public void transposed_swapsSides() {
+        ShapeBucket landscape = new ShapeBucket(256, 192);
+        assertEquals(new ShapeBucket(192, 256), landscape.transposed());
+        assertNotEquals(landscape, landscape.transposed());
+        assertFalse(landscape.isSquare());
+        ShapeBucket square = ShapeBucket.square(SIZE);
+        assertSame(square, square.transposed());
+        assertTrue(square.isSquare());
+    }
+
+    @Test
+    public void rectangularKernel_doesNotStretchImage() {
+        // 8 x 4 cu jumătatea stângă roșie, redusă la 4 x 2: fără distorsiune
+        int[] source = new int[8 * 4];
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 8; x++) {
+                source[y * 8 + x] = x < 4 ? 0xFFFF0000 : 0xFF0000FF;
+            }
+        }
+        int[] output = new int[4 * 2];
+        new PreprocessKernel(4, 2).apply(source, 8, 4, PreprocessKernel.Transform.IDENTITY, output);
+        for (int y = 0; y < 2; y++) {
+            assertEquals(0xFFFF0000, output[y * 4]);
+            assertEquals(0xFFFF0000, output[y * 4 + 1]);
+            assertEquals(0xFF0000FF, output[y * 4 + 2]);
+            assertEquals(0xFF0000FF, output[y * 4 + 3]);
+        }
+
+        // Rotită cu 90°, aceeași imagine umple un tensor de 2 x 4
+        int[] rotated = new int[2 * 4];
+        new PreprocessKernel(2, 4).apply(source, 8, 4, PreprocessKernel.Transform.rotate(1), rotated);
+        for (int x = 0; x < 2; x++) {
+            assertEquals(0xFFFF0000, rotated[x]);
+            assertEquals(0xFF0000FF, rotated[3 * 2 + x]);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Testează căutarea pe clase de mărime, limita de memorie și ordinea de
+ * evacuare din {@link SizeClassPool}, cu array-uri în loc de bitmap-uri.
+ */
+public class SizeClassPoolTest {
+
+    private static SizeClassPool<byte[]> pool(long maxBytes) {
+        return new SizeClassPool<>(maxBytes, (int) (maxBytes / 2), item -> item.length);
+    }
+
+    @Test
+    public void classOf_groupsPowersOfTwo() {
+        assertEquals(0, SizeClassPool.classOf(1));
+        assertEquals(10, SizeClassPool.classOf(1024));
+        assertEquals(11, SizeClassPool.classOf(1025));
+        assertEquals(11, SizeClassPool.classOf(2048));
+    }
+
+    @Test
+    public void take_returnsItemWithinRequestedRange() {
+        SizeClassPool<byte[]> pool = pool(1 << 20);
+        byte[] small = new byte[1000];
+        byte[] large = new byte[3000];
+        pool.put(small);
+        pool.put(large);
+
+        // 1500..3000 trece peste limita clasei lui 1500 și găsește 3000 în clasa următoare
+        assertSame(large, pool.take(1500, 3000));
+        assertNull(pool.take(1500, 3000));
+        assertSame(small, pool.take(900, 1800));
+        assertEquals(0, pool.getBytes());
+        assertEquals(2, pool.getHits());
+        assertEquals(1, pool.getMisses());
+    }
+
+    @Test
+    public void take_prefersMostRecentItem() {
+        SizeClassPool<byte[]> pool = pool(1 << 20);
+        byte[] older = new byte[4096];
+        byte[] newer = new byte[4096];
+        pool.put(older);
+        pool.put(newer);
+
+        assertSame(newer, pool.take(4096, 4096));
+        assertSame(older, pool.take(4096, 4096));
+    }
+
+    @Test
+    public void put_evictsOldestToStayWithinLimit() {
+        SizeClassPool<byte[]> pool = pool(10_000);
+        byte[] first = new byte[4000];
+        byte[] second = new byte[100];
+        byte[] third = new byte[4000];
+        byte[] fourth = new byte[4000];
+        pool.put(first);
+        pool.put(second);
+        pool.put(third);
+        pool.put(fourth);
+
+        assertTrue(pool.getBytes() <= 10_000);
+        assertEquals(1, pool.getEvictions());
+        assertEquals(3, pool.getCount());
+        // Primul pus a fost scos, rămân cele mai noi
+        assertSame(fourth, pool.take(4000, 4000));
+        assertSame(third, pool.take(4000, 4000));
+        assertNull(pool.take(4000, 4000));
+        assertSame(second, pool.take(100, 100));
+    }
+
+    @Test
+    public void put_rejectsDuplicatesAndOversizedItems() {
+        SizeClassPool<byte[]> pool = pool(10_000);
+        byte[] item = new byte[1000];
+        assertTrue(pool.put(item));
+        assertFalse(pool.put(item));
+        assertFalse(pool.put(new byte[6000]));
+        assertEquals(1000, pool.getBytes());
+    }
+
+    @Test
+    public void sessionOfPhotos_keepsPoolBounded() {
+        // 50 de fotografii cu câte patru rezultate, returnate la fotografia următoare
+        SizeClassPool<byte[]> pool = pool(8 * 256 * 256 * 4);
+        int created = 0;
+        byte[][] shown = new byte[4][];
+        for (int photo = 0; photo < 50; photo++) {
+            for (int i = 0; i < shown.length; i++) {
+                if (shown[i] != null) {
+                    pool.put(shown[i]);
+                }
+            }
+            for (int i = 0; i < shown.length; i++) {
+                byte[] result = pool.take(256 * 256 * 4, 2 * 256 * 256 * 4);
+                if (result == null) {
+                    result = new byte[256 * 256 * 4];
+                    created++;
+                }
+                shown[i] = result;
+            }
+        }
+        assertEquals(4, created);
+        assertEquals(196, pool.getHits());
+    }
+}
@@ -0,0 +1,131 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Testează amestecul, contrastul, saturația și previzualizarea la rezoluție
+ * redusă din {@link StyleCompositor}.
+ */
+public class StyleCompositorTest {
+
+    private static final int SIZE = 4;
+
+    private final StyleCompositor compositor = new StyleCompositor();
+
+    @Test
+    public void strength_blendsBetweenContentAndStyled() {
+        StyleLayers layers = layers(0.2f, 0.4f, 0.6f, 0.8f, 0.6f, 0.4f);
+        int[] output = new int[SIZE * SIZE];
+
+        compositor.render(layers, new StyleCompositor.Grade(0f, 1f, 1f), 1, output);
+        assertRgb(output[0], 0.2f, 0.4f, 0.6f);
+
+        compositor.render(layers, StyleCompositor.Grade.NEUTRAL, 1, output);
+        assertRgb(output[0], 0.8f, 0.6f, 0.4f);
+
+        compositor.render(layers, new StyleCompositor.Grade(0.5f, 1f, 1f), 1, output);
+        assertRgb(output[SIZE * SIZE - 1], 0.5f, 0.5f, 0.5f);
+    }
+
+    @Test
+    public void zeroSaturation_givesGray() {
+        int[] output = new int[SIZE * SIZE];
+        compositor.render(layers(0f, 0f, 0f, 0.9f, 0.3f, 0.1f),
+                new StyleCompositor.Grade(1f, 0f, 1f), 1, output);
+
+        int pixel = output[5];
+        int red = (pixel >> 16) & 0xFF;
+        assertEquals(red, (pixel >> 8) & 0xFF, 1);
+        assertEquals(red, pixel & 0xFF, 1);
+    }
+
+    @Test
+    public void contrast_scalesAroundMidGray() {
+        int[] output = new int[SIZE * SIZE];
+        StyleLayers layers = layers(0f, 0f, 0f, 0.75f, 0.25f, 0.5f);
+
+        compositor.render(layers, new StyleCompositor.Grade(1f, 1f, 0f), 1, output);
+        assertRgb(output[0], 0.5f, 0.5f, 0.5f);
+
+        compositor.render(layers, new StyleCompositor.Grade(1f, 1f, 2f), 1, output);
+        assertRgb(output[0], 1f, 0f, 0.5f);
+    }
+
+    @Test
+    public void rawOutputOutsideUnitRange_isClamped() {
+        int[] output = new int[SIZE * SIZE];
+        compositor.render(layers(0f, 0f, 0f, 1.4f, -0.3f, 0f),
+                StyleCompositor.Grade.NEUTRAL, 1, output);
+
+        assertEquals(0xFFFF0000, output[0]);
+    }
+
+    @Test
+    public void preview_samplesEveryOtherPixel() {
+        float[] content = new float[SIZE * SIZE * 3];
+        float[] styled = new float[content.length];
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            styled[i * 3] = i / 255f;
+        }
+        StyleLayers layers = new StyleLayers(SIZE, content, styled);
+        assertEquals(2, StyleCompositor.outputWidth(layers, 2));
+        assertEquals(2, StyleCompositor.outputHeight(layers, 2));
+
+        int[] output = new int[4];
+        compositor.render(layers, StyleCompositor.Grade.NEUTRAL, 2, output);
+
+        // Pixelii (0,0), (2,0), (0,2), (2,2) ai sursei
+        assertEquals(0, (output[0] >> 16) & 0xFF);
+        assertEquals(2, (output[1] >> 16) & 0xFF);
+        assertEquals(8, (output[2] >> 16) & 0xFF);
+        assertEquals(10, (output[3] >> 16) & 0xFF);
+    }
+
+    @Test
+    public void rectangularLayers_keepRowLayout() {
+        // 3 x 2: valoarea roșie a fiecărui pixel este indexul lui
+        float[] content = new float[3 * 2 * 3];
+        float[] styled = new float[content.length];
+        for (int i = 0; i < 6; i++) {
+            styled[i * 3] = i / 255f;
+        }
+        StyleLayers layers = new StyleLayers(3, 2, content, styled);
+        assertEquals(2, StyleCompositor.outputWidth(layers, 2));
+        assertEquals(1, StyleCompositor.outputHeight(layers, 2));
+
+        int[] output = new int[6];
+        compositor.render(layers, StyleCompositor.Grade.NEUTRAL, 1, output);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i, (output[i] >> 16) & 0xFF);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedLayers_areRejected() {
+        new StyleLayers(SIZE, new float[SIZE * SIZE * 3], new float[SIZE * SIZE]);
+    }
+
+    private static StyleLayers layers(float cr, float cg, float cb, float sr, float sg, float sb) {
+        float[] content = new float[SIZE * SIZE * 3];
+        float[] styled = new float[content.length];
+        for (int i = 0; i < content.length; i += 3) {
+            content[i] = cr;
+            content[i + 1] = cg;
+            content[i + 2] = cb;
+            styled[i] = sr;
+            styled[i + 1] = sg;
+            styled[i + 2] = sb;
+        }
+        return new StyleLayers(SIZE, content, styled);
+    }
+
+    private static void assertRgb(int pixel, float r, float g, float b) {
+        assertTrue(Math.abs(((pixel >> 16) & 0xFF) - r * 255) <= 1.5f);
+        assertTrue(Math.abs(((pixel >> 8) & 0xFF) - g * 255) <= 1.5f);
+        assertTrue(Math.abs((pixel & 0xFF) - b * 255) <= 1.5f);
+        assertEquals(0xFF, pixel >>> 24);
+    }
+}
@@ -0,0 +1,54 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.Rect;
+
+import org.junit.Test;
+
+/**
+ * Testează decupajul centrat și dimensiunea miniaturilor din
+ * {@link ThumbnailLoader#centerCrop}.
+ */
+public class ThumbnailGeometryTest {
+
+    private final Rect crop = new Rect();
+    private final int[] size = new int[2];
+
+    @Test
+    public void largeSource_isScaledDownToView() {
+        ThumbnailLoader.centerCrop(1024, 1024, 300, 300, crop, size);
+
+        assertEquals(new Rect(0, 0, 1024, 1024), crop);
+        assertEquals(300, size[0]);
+        assertEquals(300, size[1]);
+    }
+
+    @Test
+    public void wideView_cropsTopAndBottom() {
+        ThumbnailLoader.centerCrop(1000, 1000, 400, 200, crop, size);
+
+        assertEquals(new Rect(0, 250, 1000, 750), crop);
+        assertEquals(400, size[0]);
+        assertEquals(200, size[1]);
+    }
+
+    @Test
+    public void tallView_cropsSides() {
+        ThumbnailLoader.centerCrop(800, 600, 300, 600, crop, size);
+
+        assertEquals(new Rect(250, 0, 550, 600), crop);
+        assertEquals(300, size[0]);
+        assertEquals(600, size[1]);
+    }
+
+    @Test
+    public void smallSource_isNotEnlarged() {
+        // Sursa de 256 într-o pagină de 1000x800 păstrează rezoluția decupajului
+        ThumbnailLoader.centerCrop(256, 256, 1000, 800, crop, size);
+
+        assertEquals(new Rect(0, 26, 256, 230), crop);
+        assertEquals(256, size[0]);
+        assertEquals(204, size[1]);
+    }
+}
@@ -0,0 +1,153 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Testează împărțirea în tile-uri și amestecarea suprapunerilor din
+ * {@link TiledStyleTransfer}, cu un stilizator identitate.
+ */
+public class TiledStyleTransferTest {
+
+    private static final int TILE = 16;
+    private static final int OVERLAP = 4;
+
+    private final TiledStyleTransfer tiler = new TiledStyleTransfer(TILE, OVERLAP);
+
+    @Test
+    public void tileOrigins_singleTileUpToTileSize() {
+        assertArrayEquals(new int[]{0}, tiler.tileOrigins(5));
+        assertArrayEquals(new int[]{0}, tiler.tileOrigins(TILE));
+    }
+
+    @Test
+    public void tileOrigins_coverAxisWithOverlap() {
+        for (int length = TILE + 1; length <= 5 * TILE; length++) {
+            int[] origins = tiler.tileOrigins(length);
+            assertEquals(0, origins[0]);
+            // Ultimul tile este aliniat la capăt
+            assertEquals(length - TILE, origins[origins.length - 1]);
+            for (int i = 1; i < origins.length; i++) {
+                int overlap = origins[i - 1] + TILE - origins[i];
+                assertTrue("Overlap " + overlap + " at length " + length, overlap >= OVERLAP);
+                assertTrue(origins[i] > origins[i - 1]);
+            }
+        }
+        assertArrayEquals(new int[]{0, 12, 24, 28}, tiler.tileOrigins(44));
+        assertEquals(4 * 2, tiler.countTiles(44, 20));
+    }
+
+    @Test
+    public void identityStylizer_reproducesInput() {
+        int[][] sizes = {{5, 7}, {TILE, TILE}, {TILE + 1, TILE}, {44, 20}, {37, 61}, {100, 3}};
+        for (int[] size : sizes) {
+            for (int batch = 1; batch <= 3; batch++) {
+                assertIdentity(size[0], size[1], batch);
+            }
+        }
+    }
+
+    @Test
+    public void identityStylizer_padsEdgeTilesByReplication() {
+        // Imaginea de 5 x 7 ajunge la stilizator ca un tile complet de 16 x 16
+        int width = 5;
+        int height = 7;
+        int[] image = randomImage(width, height, 1);
+        final int[] seen = new int[TILE * TILE];
+        tiler.render(width, height, source(image, width), new TiledStyleTransfer.TileStylizer() {
+            @Override
+            public int getMaxBatchSize() {
+                return 1;
+            }
+
+            @Override
+            public void stylize(int[][] tiles, int count) {
+                System.arraycopy(tiles[0], 0, seen, 0, seen.length);
+            }
+        }, (pixels, y, rows) -> { });
+
+        assertEquals(image[width - 1], seen[TILE - 1]);
+        assertEquals(image[(height - 1) * width], seen[(TILE - 1) * TILE]);
+        assertEquals(image[height * width - 1], seen[TILE * TILE - 1]);
+    }
+
+    @Test
+    public void estimateWorkingBytes_independentOfHeightAndLinearInWidth() {
+        long tileBytes = TILE * TILE * 4L;
+        long narrow = tiler.estimateWorkingBytes(100, 1) - tileBytes;
+        long wide = tiler.estimateWorkingBytes(200, 1) - tileBytes;
+        assertEquals(2 * narrow, wide);
+        assertEquals(TILE * TILE * 4 * 3L,
+                tiler.estimateWorkingBytes(100, 4) - tiler.estimateWorkingBytes(100, 1));
+    }
+
+    @Test
+    public void fitWithinBudget_respectsCap() {
+        long cap = 1024 * 1024;
+        int[] fitted = tiler.fitWithinBudget(1000, 750, 4, cap);
+        assertTrue(fitted[0] < 1000 && fitted[1] < 750);
+        assertTrue(2L * fitted[0] * fitted[1] * 4
+                + tiler.estimateWorkingBytes(fitted[0], 4) <= cap);
+        // Proporțiile sunt păstrate până la rotunjire
+        assertEquals(0.75, fitted[1] / (double) fitted[0], 0.02);
+
+        assertArrayEquals(new int[]{100, 80}, tiler.fitWithinBudget(100, 80, 4, Long.MAX_VALUE));
+        // Un singur tile nu mai este micșorat, chiar peste limită
+        assertArrayEquals(new int[]{TILE, TILE}, tiler.fitWithinBudget(TILE, TILE, 4, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsOverlapAsLargeAsTile() {
+        new TiledStyleTransfer(TILE, TILE);
+    }
+
+    private void assertIdentity(int width, int height, int batch) {
+        int[] image = randomImage(width, height, width * 31 + height);
+        int[] output = new int[width * height];
+        boolean[] written = new boolean[height];
+        tiler.render(width, height, source(image, width), new TiledStyleTransfer.TileStylizer() {
+            @Override
+            public int getMaxBatchSize() {
+                return batch;
+            }
+
+            @Override
+            public void stylize(int[][] tiles, int count) {
+                // Identitate: tile-urile rămân cum au fost citite
+            }
+        }, (pixels, y, rows) -> {
+            System.arraycopy(pixels, 0, output, y * width, rows * width);
+            for (int row = y; row < y + rows; row++) {
+                assertTrue("Row " + row + " written twice", !written[row]);
+                written[row] = true;
+            }
+        });
+
+        for (int row = 0; row < height; row++) {
+            assertTrue("Row " + row + " missing", written[row]);
+        }
+        assertArrayEquals(width + "x" + height + " batch " + batch, image, output);
+    }
+
+    private static TiledStyleTransfer.TileSource source(int[] image, int width) {
+        return (pixels, offset, stride, x, y, w, h) -> {
+            for (int row = 0; row < h; row++) {
+                System.arraycopy(image, (y + row) * width + x, pixels, offset + row * stride, w);
+            }
+        };
+    }
+
+    private static int[] randomImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] image = new int[width * height];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        return image;
+    }
+}
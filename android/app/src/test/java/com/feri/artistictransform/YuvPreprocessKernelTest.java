@@ -0,0 +1,143 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Testează conversia YUV -> RGB, decupajul central și orientarea din
+ * {@link YuvPreprocessKernel}, pe planuri cu padding și crominanță intercalată.
+ */
+public class YuvPreprocessKernelTest {
+
+    private static final int WIDTH = 12;
+    private static final int HEIGHT = 8;
+    private static final int Y_ROW_STRIDE = 16;
+    private static final int UV_ROW_STRIDE = 16;
+    private static final int UV_PIXEL_STRIDE = 2;
+
+    @Test
+    public void grayFrame_convertsExactly() {
+        YuvPreprocessKernel.Frame frame = frame(lumaPattern(), 128, 128);
+        int[] pixels = new int[4 * 4];
+        new YuvPreprocessKernel(4).apply(frame, pixels);
+
+        // Fără crominanță R = G = B = Y
+        for (int pixel : pixels) {
+            int r = (pixel >> 16) & 0xFF;
+            assertEquals(r, (pixel >> 8) & 0xFF);
+            assertEquals(r, pixel & 0xFF);
+            assertEquals(0xFF, pixel >>> 24);
+        }
+    }
+
+    @Test
+    public void chroma_followsBt601() {
+        // Y = 81, U = 90, V = 240 este roșu pur în BT.601
+        byte[] luma = new byte[Y_ROW_STRIDE * HEIGHT];
+        Arrays.fill(luma, (byte) 81);
+        int[] pixels = new int[2 * 2];
+        new YuvPreprocessKernel(2).apply(frame(luma, 90, 240), pixels);
+
+        int pixel = pixels[0];
+        assertTrue(((pixel >> 16) & 0xFF) > 230);
+        assertTrue(((pixel >> 8) & 0xFF) < 25);
+        assertTrue((pixel & 0xFF) < 25);
+    }
+
+    @Test
+    public void output_isCenterCropOfTheFrame() {
+        // Ieșirea de 8x8 acoperă coloanele 2..9, deci prima coloană este sursa x = 2
+        int[] pixels = new int[8 * 8];
+        new YuvPreprocessKernel(8).apply(frame(lumaPattern(), 128, 128), pixels);
+
+        assertEquals(luma(2, 0), pixels[0] & 0xFF);
+        assertEquals(luma(9, 7), pixels[63] & 0xFF);
+    }
+
+    @Test
+    public void rotation_andMirror_moveTheCorners() {
+        YuvPreprocessKernel kernel = new YuvPreprocessKernel(8);
+        YuvPreprocessKernel.Frame frame = frame(lumaPattern(), 128, 128);
+        int[] pixels = new int[8 * 8];
+
+        // La 90° colțul din stânga-jos al decupajului ajunge sus-stânga
+        frame.setOrientation(90, false);
+        kernel.apply(frame, pixels);
+        assertEquals(luma(2, 7), pixels[0] & 0xFF);
+        assertEquals(luma(2, 0), pixels[7] & 0xFF);
+
+        // Oglindirea după rotire inversează coloanele
+        frame.setOrientation(90, true);
+        kernel.apply(frame, pixels);
+        assertEquals(luma(2, 0), pixels[0] & 0xFF);
+
+        frame.setOrientation(180, false);
+        kernel.apply(frame, pixels);
+        assertEquals(luma(9, 7), pixels[0] & 0xFF);
+
+        frame.setOrientation(270, false);
+        kernel.apply(frame, pixels);
+        assertEquals(luma(9, 0), pixels[0] & 0xFF);
+    }
+
+    @Test
+    public void floatOutput_matchesPixels() {
+        YuvPreprocessKernel kernel = new YuvPreprocessKernel(4);
+        YuvPreprocessKernel.Frame frame = frame(lumaPattern(), 100, 160);
+        int[] pixels = new int[4 * 4];
+        kernel.apply(frame, pixels);
+        FloatBuffer floats = ByteBuffer.allocateDirect(4 * 4 * 3 * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        kernel.apply(frame, floats, 0);
+
+        for (int i = 0; i < pixels.length; i++) {
+            assertEquals(((pixels[i] >> 16) & 0xFF) / 255f, floats.get(i * 3), 1e-6f);
+            assertEquals(((pixels[i] >> 8) & 0xFF) / 255f, floats.get(i * 3 + 1), 1e-6f);
+            assertEquals((pixels[i] & 0xFF) / 255f, floats.get(i * 3 + 2), 1e-6f);
+        }
+    }
+
+    private static int luma(int x, int y) {
+        return 10 + y * 20 + x;
+    }
+
+    private static byte[] lumaPattern() {
+        byte[] plane = new byte[Y_ROW_STRIDE * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                plane[y * Y_ROW_STRIDE + x] = (byte) luma(x, y);
+            }
+        }
+        return plane;
+    }
+
+    /**
+     * Planuri ca pe majoritatea telefoanelor: U și V intercalate în același
+     * buffer, cu pasul 2, iar V decalat cu un octet.
+     */
+    private static YuvPreprocessKernel.Frame frame(byte[] luma, int u, int v) {
+        ByteBuffer chroma = ByteBuffer.allocateDirect(UV_ROW_STRIDE * HEIGHT / 2 + 1);
+        for (int i = 0; i + 1 < chroma.capacity(); i += 2) {
+            chroma.put(i, (byte) u);
+            chroma.put(i + 1, (byte) v);
+        }
+        ByteBuffer uPlane = chroma.duplicate();
+        chroma.position(1);
+        ByteBuffer vPlane = chroma.slice();
+
+        ByteBuffer yPlane = ByteBuffer.allocateDirect(luma.length);
+        yPlane.put(luma);
+        YuvPreprocessKernel.Frame frame = new YuvPreprocessKernel.Frame();
+        frame.setPlanes(WIDTH, HEIGHT, yPlane, Y_ROW_STRIDE, uPlane, vPlane,
+                UV_ROW_STRIDE, UV_PIXEL_STRIDE);
+        frame.setOrientation(0, false);
+        return frame;
+    }
+}
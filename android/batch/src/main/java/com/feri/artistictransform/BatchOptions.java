@@ -0,0 +1,143 @@
+package com.feri.artistictransform;
+
+import java.io.File;
+
+/**
+ * Argumentele liniei de comandă ale {@link BatchPipeline}. Modelul implicit
+ * vine din proprietatea de sistem {@code batch.model}, setată de Gradle.
+ */
+public final class BatchOptions {
+
+    public static final String USAGE = "Usage: --input <dir> --output <dir> [--model <file.tflite>]"
+            + " [--workers N] [--threads N] [--decode-threads N] [--encode-threads N]"
+            + " [--queue N] [--format png|jpg]";
+
+    private File input;
+    private File output;
+    private File model;
+    private int workers;
+    private int threads;
+    private int decodeThreads = 2;
+    private int encodeThreads = 2;
+    private int queueCapacity;
+    private String format = "png";
+
+    private BatchOptions() {
+    }
+
+    public static BatchOptions parse(String[] args) {
+        return parse(args, Runtime.getRuntime().availableProcessors());
+    }
+
+    static BatchOptions parse(String[] args, int processors) {
+        BatchOptions options = new BatchOptions();
+        String defaultModel = System.getProperty("batch.model");
+        if (defaultModel != null) {
+            options.model = new File(defaultModel);
+        }
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "--input":
+                    options.input = new File(value);
+                    break;
+                case "--output":
+                    options.output = new File(value);
+                    break;
+                case "--model":
+                    options.model = new File(value);
+                    break;
+                case "--workers":
+                    options.workers = positive(name, value);
+                    break;
+                case "--threads":
+                    options.threads = positive(name, value);
+                    break;
+                case "--decode-threads":
+                    options.decodeThreads = positive(name, value);
+                    break;
+                case "--encode-threads":
+                    options.encodeThreads = positive(name, value);
+                    break;
+                case "--queue":
+                    options.queueCapacity = positive(name, value);
+                    break;
+                case "--format":
+                    options.format = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if (options.input == null || options.output == null) {
+            throw new IllegalArgumentException("--input and --output are required");
+        }
+        if (options.model == null) {
+            throw new IllegalArgumentException("--model is required");
+        }
+
+        // Implicit jumătate din nuclee pentru workeri, restul pentru firele interpretoarelor
+        if (options.workers == 0) {
+            options.workers = Math.max(1, processors / 2);
+        }
+        if (options.threads == 0) {
+            options.threads = Math.max(1, processors / options.workers);
+        }
+        if (options.queueCapacity == 0) {
+            options.queueCapacity = 2 * options.workers;
+        }
+        return options;
+    }
+
+    private static int positive(String name, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Mesajul de mai jos acoperă ambele cazuri
+        }
+        throw new IllegalArgumentException(name + " must be a positive integer: " + value);
+    }
+
+    public File getInput() {
+        return input;
+    }
+
+    public File getOutput() {
+        return output;
+    }
+
+    public File getModel() {
+        return model;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getDecodeThreads() {
+        return decodeThreads;
+    }
+
+    public int getEncodeThreads() {
+        return encodeThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+}
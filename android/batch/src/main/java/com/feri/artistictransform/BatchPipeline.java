@@ -0,0 +1,428 @@
+package com.feri.artistictransform;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Stilizează un set de imagini în trei etape legate prin cozi limitate:
+ * decodarea în paralel, inferența cu câte un model pe fiecare worker și
+ * codarea asincronă a rezultatelor. O coadă plină oprește etapa dinainte,
+ * deci memoria rămâne limitată oricât de mare ar fi directorul.
+ * Imaginile care nu pot fi decodate, stilizate sau scrise sunt numărate ca
+ * eșecuri și lotul continuă; o eroare a unei etape ({@link Error} sau o
+ * excepție neprinsă) oprește toate etapele și întregul lot.
+ */
+public final class BatchPipeline {
+
+    private static final List<String> IMAGE_EXTENSIONS =
+            Arrays.asList("jpg", "jpeg", "png", "bmp", "gif");
+
+    // Marchează sfârșitul cozilor, câte unul pentru fiecare consumator
+    private static final DecodedImage END_OF_DECODED = new DecodedImage(null, null, 0, 0);
+    private static final StyledImage END_OF_STYLED = new StyledImage(null, null, 0, 0);
+    // Cât de des verifică firul principal eșecul celorlalte etape
+    private static final long FAILURE_POLL_MILLIS = 100;
+
+    private final StyleModelRunner.Factory factory;
+    private final int decodeThreads;
+    private final int inferenceWorkers;
+    private final int encodeThreads;
+    private final int queueCapacity;
+    private final String format;
+
+    public BatchPipeline(StyleModelRunner.Factory factory, int decodeThreads, int inferenceWorkers,
+                         int encodeThreads, int queueCapacity, String format) {
+        if (decodeThreads < 1 || inferenceWorkers < 1 || encodeThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Thread counts and queue capacity must be positive");
+        }
+        if (!ImageIO.getImageWritersByFormatName(format).hasNext()) {
+            throw new IllegalArgumentException("No image writer for format " + format);
+        }
+        this.factory = factory;
+        this.decodeThreads = decodeThreads;
+        this.inferenceWorkers = inferenceWorkers;
+        this.encodeThreads = encodeThreads;
+        this.queueCapacity = queueCapacity;
+        this.format = format;
+    }
+
+    /**
+     * Imaginile din director, sortate după nume.
+     */
+    public static List<File> listImages(File directory) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Cannot list " + directory);
+        }
+        List<File> images = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            int dot = name.lastIndexOf('.');
+            if (file.isFile() && dot > 0 && IMAGE_EXTENSIONS.contains(
+                    name.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+                images.add(file);
+            }
+        }
+        Collections.sort(images);
+        return images;
+    }
+
+    /**
+     * Stilizează {@code inputs} în {@code outputDirectory}, păstrând numele
+     * fișierelor și schimbând extensia în formatul ales.
+     */
+    public Summary run(List<File> inputs, File outputDirectory)
+            throws IOException, InterruptedException {
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Cannot create " + outputDirectory);
+        }
+        // Modelele se încarcă înainte de pornire, ca o eroare să oprească lotul imediat
+        List<StyleModelRunner> runners = new ArrayList<>(inferenceWorkers);
+        try {
+            for (int i = 0; i < inferenceWorkers; i++) {
+                runners.add(factory.create());
+            }
+            return process(inputs, outputDirectory, runners);
+        } finally {
+            for (StyleModelRunner runner : runners) {
+                runner.close();
+            }
+        }
+    }
+
+    private Summary process(final List<File> inputs, final File outputDirectory,
+                            List<StyleModelRunner> runners) throws InterruptedException {
+        final BlockingQueue<DecodedImage> decoded = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<StyledImage> styled = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger written = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        ExecutorService decoders = Executors.newFixedThreadPool(decodeThreads, namedThreads("decode"));
+        ExecutorService workers = Executors.newFixedThreadPool(inferenceWorkers, namedThreads("infer"));
+        ExecutorService encoders = Executors.newFixedThreadPool(encodeThreads, namedThreads("encode"));
+        StageFailure failure = new StageFailure(decoders, workers, encoders);
+        long start = System.nanoTime();
+        try {
+            List<Future<Void>> decoding = new ArrayList<>(decodeThreads);
+            for (int i = 0; i < decodeThreads; i++) {
+                decoding.add(startStage(decoders, failure, new Stage() {
+                    @Override
+                    public void run() throws InterruptedException {
+                        decode(inputs, next, decoded, failures);
+                    }
+                }));
+            }
+            List<Future<Void>> inference = new ArrayList<>(inferenceWorkers);
+            for (final StyleModelRunner runner : runners) {
+                inference.add(startStage(workers, failure, new Stage() {
+                    @Override
+                    public void run() throws InterruptedException {
+                        stylize(runner, decoded, styled, latency, failures);
+                    }
+                }));
+            }
+            List<Future<Void>> encoding = new ArrayList<>(encodeThreads);
+            for (int i = 0; i < encodeThreads; i++) {
+                encoding.add(startStage(encoders, failure, new Stage() {
+                    @Override
+                    public void run() throws InterruptedException {
+                        encode(styled, outputDirectory, written, failures);
+                    }
+                }));
+            }
+
+            // Fiecare etapă se oprește după ce etapa dinainte și-a golit coada.
+            // Așteptarea verifică mereu eșecul oricărei etape: o etapă oprită
+            // lasă altfel etapa dinainte blocată pe o coadă plină.
+            await(decoding, failure);
+            for (int i = 0; i < inferenceWorkers; i++) {
+                put(decoded, END_OF_DECODED, failure);
+            }
+            await(inference, failure);
+            for (int i = 0; i < encodeThreads; i++) {
+                put(styled, END_OF_STYLED, failure);
+            }
+            await(encoding, failure);
+            return new Summary(written.get(), failures.get(), System.nanoTime() - start, latency);
+        } finally {
+            decoders.shutdownNow();
+            workers.shutdownNow();
+            encoders.shutdownNow();
+            // Modelele se închid după întoarcere, deci niciun worker nu le mai poate folosi
+            awaitTermination(decoders, workers, encoders);
+        }
+    }
+
+    private static void decode(List<File> inputs, AtomicInteger next,
+                               BlockingQueue<DecodedImage> decoded, AtomicInteger failures)
+            throws InterruptedException {
+        int index;
+        while ((index = next.getAndIncrement()) < inputs.size()) {
+            // ImageIO nu răspunde la întrerupere; lotul oprit nu mai decodează alte fișiere
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Batch stopped");
+            }
+            File file = inputs.get(index);
+            try {
+                BufferedImage image = ImageIO.read(file);
+                if (image == null) {
+                    throw new IOException("Unsupported image format");
+                }
+                int width = image.getWidth();
+                int height = image.getHeight();
+                int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+                decoded.put(new DecodedImage(file, pixels, width, height));
+            } catch (IOException | RuntimeException e) {
+                fail(failures, file, "decode", e);
+            }
+        }
+    }
+
+    private static void stylize(StyleModelRunner runner, BlockingQueue<DecodedImage> decoded,
+                                BlockingQueue<StyledImage> styled, LatencyHistogram latency,
+                                AtomicInteger failures) throws InterruptedException {
+        int size = runner.getImageSize();
+        DecodedImage image;
+        while ((image = decoded.take()) != END_OF_DECODED) {
+            int[] output = new int[size * size];
+            ShapeBucket shape;
+            try {
+                long start = System.nanoTime();
+                shape = runner.stylize(image.pixels, image.width, image.height, output);
+                latency.recordNanos(System.nanoTime() - start);
+            } catch (RuntimeException e) {
+                fail(failures, image.file, "stylize", e);
+                continue;
+            }
+            styled.put(new StyledImage(image.file, output, shape.getWidth(), shape.getHeight()));
+        }
+    }
+
+    private void encode(BlockingQueue<StyledImage> styled, File outputDirectory,
+                        AtomicInteger written, AtomicInteger failures) throws InterruptedException {
+        StyledImage image;
+        while ((image = styled.take()) != END_OF_STYLED) {
+            try {
+                BufferedImage output = new BufferedImage(image.width, image.height,
+                        BufferedImage.TYPE_INT_RGB);
+                output.setRGB(0, 0, image.width, image.height, image.pixels, 0, image.width);
+                File target = new File(outputDirectory, outputName(image.file));
+                if (!ImageIO.write(output, format, target)) {
+                    throw new IOException("No image writer for format " + format);
+                }
+                written.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                fail(failures, image.file, "encode", e);
+            }
+        }
+    }
+
+    private String outputName(File input) {
+        String name = input.getName();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + "." + format;
+    }
+
+    private static void fail(AtomicInteger failures, File file, String stage, Exception e) {
+        failures.incrementAndGet();
+        System.err.println("Failed to " + stage + " " + file.getName() + ": " + e.getMessage());
+    }
+
+    private static Future<Void> startStage(ExecutorService executor, final StageFailure failure,
+                                           final Stage stage) {
+        // O etapă pornită deja poate opri lotul înainte ca toate să pornească
+        failure.check();
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws InterruptedException {
+                try {
+                    stage.run();
+                    return null;
+                } catch (Throwable t) {
+                    // Include și erorile (OutOfMemoryError, UnsatisfiedLinkError din runner)
+                    failure.record(t);
+                    throw t;
+                }
+            }
+        });
+    }
+
+    private static void await(List<Future<Void>> futures, StageFailure failure)
+            throws InterruptedException {
+        for (Future<Void> future : futures) {
+            while (true) {
+                failure.check();
+                try {
+                    future.get(FAILURE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    // Etapa rulează încă; verificăm din nou celelalte etape
+                } catch (ExecutionException e) {
+                    failure.check();
+                    throw new IllegalStateException("Batch stage failed", e.getCause());
+                }
+            }
+        }
+        failure.check();
+    }
+
+    private static void awaitTermination(ExecutorService... executors)
+            throws InterruptedException {
+        for (ExecutorService executor : executors) {
+            while (!executor.awaitTermination(FAILURE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                // O inferență în curs nu poate fi întreruptă; se termină singură
+            }
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item, StageFailure failure)
+            throws InterruptedException {
+        while (!queue.offer(item, FAILURE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            failure.check();
+        }
+    }
+
+    private static ThreadFactory namedThreads(final String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /** Corpul unei etape; rulează până la marcajul de sfârșit al cozii ei. */
+    private interface Stage {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Prima eroare dintr-o etapă. O eroare oprește toate etapele, ca niciun
+     * fir să nu rămână blocat pe o coadă pe care nu o mai golește nimeni.
+     */
+    private static final class StageFailure {
+        private final AtomicReference<Throwable> cause = new AtomicReference<>();
+        private final ExecutorService[] stages;
+
+        StageFailure(ExecutorService... stages) {
+            this.stages = stages;
+        }
+
+        void record(Throwable t) {
+            // Întreruperile provocate de oprirea de mai jos nu înlocuiesc cauza
+            if (cause.compareAndSet(null, t)) {
+                for (ExecutorService stage : stages) {
+                    stage.shutdownNow();
+                }
+            }
+        }
+
+        void check() {
+            Throwable t = cause.get();
+            if (t != null) {
+                throw new IllegalStateException("Batch stage failed", t);
+            }
+        }
+    }
+
+    private static final class DecodedImage {
+        final File file;
+        final int[] pixels;
+        final int width;
+        final int height;
+
+        DecodedImage(File file, int[] pixels, int width, int height) {
+            this.file = file;
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private static final class StyledImage {
+        final File file;
+        final int[] pixels;
+        final int width;
+        final int height;
+
+        StyledImage(File file, int[] pixels, int width, int height) {
+            this.file = file;
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Rezultatul unui lot: imaginile scrise, eșecurile, durata totală și
+     * distribuția latenței inferenței per imagine.
+     */
+    public static final class Summary {
+        private final int images;
+        private final int failures;
+        private final long elapsedNanos;
+        private final LatencyHistogram inferenceLatency;
+
+        Summary(int images, int failures, long elapsedNanos, LatencyHistogram inferenceLatency) {
+            this.images = images;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+            this.inferenceLatency = inferenceLatency;
+        }
+
+        public int getImages() {
+            return images;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public LatencyHistogram getInferenceLatency() {
+            return inferenceLatency;
+        }
+
+        public double getImagesPerSecond() {
+            return elapsedNanos == 0 ? 0 : images * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d images, %d failures in %.2f s: %.2f images/s, inference p50 %.1f ms,"
+                            + " p99 %.1f ms",
+                    images, failures, elapsedNanos / 1e9, getImagesPerSecond(),
+                    inferenceLatency.getPercentileMicros(50) / 1000.0,
+                    inferenceLatency.getPercentileMicros(99) / 1000.0);
+        }
+    }
+}
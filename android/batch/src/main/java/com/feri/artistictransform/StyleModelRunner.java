@@ -0,0 +1,32 @@
+package com.feri.artistictransform;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Un model de stil folosit de un singur fir al {@link BatchPipeline}: primește
+ * pixelii ARGB ai imaginii decodate și scrie rezultatul cu proporțiile ei, cu
+ * latura lungă de {@link #getImageSize()} px, ca în aplicație
+ * (vezi {@link ShapeBucket}).
+ */
+public interface StyleModelRunner extends Closeable {
+
+    /** Latura lungă a rezultatelor, în pixeli. */
+    int getImageSize();
+
+    /**
+     * @param output cel puțin {@code getImageSize() * getImageSize()} pixeli
+     * @return forma rezultatului scris la începutul lui {@code output}
+     */
+    ShapeBucket stylize(int[] source, int width, int height, int[] output);
+
+    @Override
+    void close();
+
+    /**
+     * Creează câte un model pentru fiecare worker de inferență.
+     */
+    interface Factory {
+        StyleModelRunner create() throws IOException;
+    }
+}
@@ -0,0 +1,170 @@
+package com.feri.artistictransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Rulează pipeline-ul cu un model fals care doar redimensionează la forma
+ * aplicației și inversează culorile, ca să verifice fluxul decodare ->
+ * inferență -> codare fără TFLite.
+ */
+public class BatchPipelineTest {
+
+    private static final int IMAGE_SIZE = 16;
+    private static final int SHAPE_STEP = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void run_stylesEveryImageAndCountsFailures() throws Exception {
+        File input = folder.newFolder("input");
+        File output = new File(folder.getRoot(), "output");
+        for (int i = 0; i < 6; i++) {
+            writeImage(new File(input, "photo" + i + ".png"), 16 + i * 4, 12 + i, 0xFF336699);
+        }
+        try (FileOutputStream broken = new FileOutputStream(new File(input, "broken.jpg"))) {
+            broken.write("not an image".getBytes("UTF-8"));
+        }
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+
+        // Coada de o singură imagine forțează blocarea etapelor una pe alta
+        BatchPipeline pipeline = new BatchPipeline(() -> {
+            created.incrementAndGet();
+            return new InvertingRunner(closed);
+        }, 2, 3, 2, 1, "png");
+        BatchPipeline.Summary summary = pipeline.run(BatchPipeline.listImages(input), output);
+
+        assertEquals(6, summary.getImages());
+        assertEquals(1, summary.getFailures());
+        assertEquals(6, summary.getInferenceLatency().getCount());
+        assertTrue(summary.getImagesPerSecond() > 0);
+        assertEquals(3, created.get());
+        assertEquals(3, closed.get());
+
+        // 28 x 15 păstrează proporțiile: 16 x 8, nu pătratul modelului
+        BufferedImage styled = ImageIO.read(new File(output, "photo3.png"));
+        assertEquals(IMAGE_SIZE, styled.getWidth());
+        assertEquals(8, styled.getHeight());
+        assertEquals(0xFFCC9966, styled.getRGB(4, 4));
+        assertEquals(0xFFCC9966, styled.getRGB(IMAGE_SIZE - 1, 7));
+    }
+
+    @Test(timeout = 10_000)
+    public void run_stopsAllStagesWhenWorkerThrowsError() throws Exception {
+        File input = folder.newFolder("input");
+        File output = new File(folder.getRoot(), "output");
+        // Mai multe imagini decât încap în cozi, ca decodorii să se blocheze
+        for (int i = 0; i < 12; i++) {
+            writeImage(new File(input, "photo" + i + ".png"), 8, 8, 0xFF336699);
+        }
+        final AtomicInteger closed = new AtomicInteger();
+        final UnsatisfiedLinkError error = new UnsatisfiedLinkError("libtensorflowlite_jni");
+
+        BatchPipeline pipeline = new BatchPipeline(() -> new InvertingRunner(closed) {
+            @Override
+            public ShapeBucket stylize(int[] source, int width, int height, int[] styled) {
+                throw error;
+            }
+        }, 2, 2, 1, 1, "png");
+        try {
+            pipeline.run(BatchPipeline.listImages(input), output);
+            fail("Expected the batch to fail");
+        } catch (IllegalStateException e) {
+            assertSame(error, e.getCause());
+        }
+        assertEquals(2, closed.get());
+    }
+
+    @Test
+    public void listImages_filtersAndSortsByName() throws Exception {
+        File input = folder.newFolder("mixed");
+        writeImage(new File(input, "b.JPG"), 4, 4, 0);
+        writeImage(new File(input, "a.png"), 4, 4, 0);
+        assertTrue(new File(input, "notes.txt").createNewFile());
+        assertTrue(new File(input, "nested.png").mkdir());
+
+        List<File> images = BatchPipeline.listImages(input);
+        assertEquals(2, images.size());
+        assertEquals("a.png", images.get(0).getName());
+        assertEquals("b.JPG", images.get(1).getName());
+    }
+
+    @Test
+    public void options_deriveDefaultsFromProcessors() {
+        BatchOptions options = BatchOptions.parse(new String[]{
+                "--input", "in", "--output", "out", "--model", "model.tflite"}, 8);
+        assertEquals(4, options.getWorkers());
+        assertEquals(2, options.getThreads());
+        assertEquals(8, options.getQueueCapacity());
+        assertEquals("png", options.getFormat());
+
+        options = BatchOptions.parse(new String[]{"--input", "in", "--output", "out",
+                "--model", "model.tflite", "--workers", "3", "--format", "jpg"}, 8);
+        assertEquals(3, options.getWorkers());
+        assertEquals(2, options.getThreads());
+        assertEquals("jpg", options.getFormat());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void options_rejectNonPositiveWorkers() {
+        BatchOptions.parse(new String[]{"--input", "in", "--output", "out",
+                "--model", "model.tflite", "--workers", "0"}, 8);
+    }
+
+    private static void writeImage(File file, int width, int height, int argb) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, argb);
+            }
+        }
+        String name = file.getName();
+        ImageIO.write(image, name.substring(name.lastIndexOf('.') + 1).toLowerCase(), file);
+    }
+
+    private static class InvertingRunner implements StyleModelRunner {
+        private final AtomicInteger closed;
+
+        InvertingRunner(AtomicInteger closed) {
+            this.closed = closed;
+        }
+
+        @Override
+        public int getImageSize() {
+            return IMAGE_SIZE;
+        }
+
+        @Override
+        public ShapeBucket stylize(int[] source, int width, int height, int[] output) {
+            ShapeBucket shape = ShapeBucket.forImage(width, height, IMAGE_SIZE, SHAPE_STEP);
+            new PreprocessKernel(shape.getWidth(), shape.getHeight()).apply(source, width, height,
+                    PreprocessKernel.Transform.IDENTITY, output);
+            for (int i = 0; i < shape.getPixelCount(); i++) {
+                output[i] = 0xFF000000 | ~output[i];
+            }
+            return shape;
+        }
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+}
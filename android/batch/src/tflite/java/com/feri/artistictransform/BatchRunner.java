@@ -0,0 +1,39 @@
+package com.feri.artistictransform;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Punctul de intrare al stilizării în lot: toate imaginile din
+ * {@code --input} sunt stilizate cu modelul dat și scrise în {@code --output}.
+ * Codul de ieșire este 1 dacă vreo imagine a eșuat.
+ */
+public final class BatchRunner {
+
+    private BatchRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final BatchOptions options;
+        try {
+            options = BatchOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(BatchOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        List<File> inputs = BatchPipeline.listImages(options.getInput());
+        System.out.println("Styling " + inputs.size() + " images from " + options.getInput()
+                + " with " + options.getWorkers() + " workers x " + options.getThreads()
+                + " threads, model " + options.getModel());
+        BatchPipeline pipeline = new BatchPipeline(
+                () -> new TfliteModelRunner(options.getModel(), options.getThreads()),
+                options.getDecodeThreads(), options.getWorkers(), options.getEncodeThreads(),
+                options.getQueueCapacity(), options.getFormat());
+        BatchPipeline.Summary summary = pipeline.run(inputs, options.getOutput());
+        System.out.println(summary);
+        System.exit(summary.getFailures() == 0 ? 0 : 1);
+    }
+}
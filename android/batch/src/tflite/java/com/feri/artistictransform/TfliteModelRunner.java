@@ -0,0 +1,135 @@
+package com.feri.artistictransform;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Modelul .tflite pe TFLite desktop, cu aceleași conversii ca
+ * {@code InferenceBuffers} din aplicație: preprocesarea fuzionată direct în
+ * tensorul de intrare și tabelele de cuantizare pentru modelele uint8/int8.
+ * Ca în aplicație, tensorul are proporțiile fotografiei ({@link ShapeBucket});
+ * dacă modelul refuză redimensionarea, se folosește pătratul lui.
+ */
+public final class TfliteModelRunner implements StyleModelRunner {
+
+    // Același pas ca în StyleTransferHelper, deci aceleași forme ca aplicația
+    private static final int SHAPE_STEP = 16;
+
+    private final Interpreter interpreter;
+    private final int imageSize;
+    private final ShapeBucket square;
+    private final QuantizationParams inputQuantization;
+    private final QuantizationParams outputQuantization;
+    private boolean dynamicShapesSupported = true;
+    // Buffer-ele și kernelul formei curente; refăcute doar când forma se schimbă
+    private ShapeBucket shape;
+    private ByteBuffer input;
+    private FloatBuffer inputFloats;
+    private ByteBuffer output;
+    private FloatBuffer outputFloats;
+    private PreprocessKernel kernel;
+
+    public TfliteModelRunner(File modelFile, int numThreads) throws IOException {
+        MappedByteBuffer model;
+        try (RandomAccessFile file = new RandomAccessFile(modelFile, "r");
+             FileChannel channel = file.getChannel()) {
+            model = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Interpreter.Options options = new Interpreter.Options();
+        options.setNumThreads(numThreads);
+        interpreter = new Interpreter(model, options);
+
+        Tensor inputTensor = interpreter.getInputTensor(0);
+        // Forma intrării este [1, înălțime, lățime, 3]
+        imageSize = inputTensor.shape()[1];
+        square = ShapeBucket.square(imageSize);
+        inputQuantization = quantizationOf(inputTensor);
+        outputQuantization = quantizationOf(interpreter.getOutputTensor(0));
+        useShape(square);
+    }
+
+    @Override
+    public int getImageSize() {
+        return imageSize;
+    }
+
+    @Override
+    public ShapeBucket stylize(int[] source, int width, int height, int[] pixels) {
+        useShape(dynamicShapesSupported
+                ? ShapeBucket.forImage(width, height, imageSize, SHAPE_STEP) : square);
+        if (inputQuantization != null) {
+            kernel.apply(source, width, height, PreprocessKernel.Transform.IDENTITY, input, 0,
+                    inputQuantization.getEncodeTable());
+        } else {
+            kernel.apply(source, width, height, PreprocessKernel.Transform.IDENTITY,
+                    inputFloats, 0);
+        }
+        input.rewind();
+        output.rewind();
+        interpreter.run(input, output);
+
+        int count = shape.getPixelCount();
+        if (outputQuantization != null) {
+            PixelConverter.quantizedToArgb(output, 0, pixels, count,
+                    outputQuantization.getDecodeTable());
+        } else {
+            PixelConverter.floatToArgb(outputFloats, 0, pixels, count);
+        }
+        return shape;
+    }
+
+    private void useShape(ShapeBucket target) {
+        if (target.equals(shape)) {
+            return;
+        }
+        try {
+            resize(target);
+        } catch (RuntimeException e) {
+            if (target.isSquare()) {
+                throw e;
+            }
+            System.err.println("Model rejects " + target + " input, using " + square + ": "
+                    + e.getMessage());
+            dynamicShapesSupported = false;
+            resize(square);
+        }
+    }
+
+    private void resize(ShapeBucket target) {
+        interpreter.resizeInput(0, new int[]{1, target.getHeight(), target.getWidth(), 3});
+        interpreter.allocateTensors();
+        input = ByteBuffer.allocateDirect(interpreter.getInputTensor(0).numBytes())
+                .order(ByteOrder.nativeOrder());
+        inputFloats = input.asFloatBuffer();
+        output = ByteBuffer.allocateDirect(interpreter.getOutputTensor(0).numBytes())
+                .order(ByteOrder.nativeOrder());
+        outputFloats = output.asFloatBuffer();
+        kernel = new PreprocessKernel(target.getWidth(), target.getHeight());
+        shape = target;
+    }
+
+    @Override
+    public void close() {
+        interpreter.close();
+    }
+
+    private static QuantizationParams quantizationOf(Tensor tensor) {
+        DataType type = tensor.dataType();
+        if (type != DataType.UINT8 && type != DataType.INT8) {
+            return null;
+        }
+        Tensor.QuantizationParams params = tensor.quantizationParams();
+        return new QuantizationParams(params.getScale(), params.getZeroPoint(),
+                type == DataType.INT8);
+    }
+}
@@ -0,0 +1,95 @@
+package com.feri.artistictransform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * Conversiile dintre pixeli și tensori, pe imagini pătrate de {@code size} px:
+ * ARGB -> float, float -> ARGB (secvențial și paralel), căile cuantizate și
+ * transformările in-place ale tensorului de ieșire.
+ */
+@State(Scope.Thread)
+public class PixelPipelineBenchmark {
+
+    // 4096 px este mărimea unei fotografii de 16 MP, unde împărțirea pe rânduri contează cel mai mult
+    @Param({"256", "1024", "4096"})
+    public int size;
+
+    private int[] pixels;
+    private FloatBuffer floats;
+    private ByteBuffer quantized;
+    private byte[] encodeTable;
+    private int[] decodeTable;
+    private ParallelPixelConverter parallel;
+
+    @Setup
+    public void setUp() {
+        int count = size * size;
+        Random random = new Random(42);
+        pixels = new int[count];
+        for (int i = 0; i < count; i++) {
+            pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        floats = ByteBuffer.allocateDirect(count * 3 * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        PixelConverter.argbToFloat(pixels, count, floats, 0);
+        quantized = ByteBuffer.allocateDirect(count * 3).order(ByteOrder.nativeOrder());
+
+        // Parametrii tipici ai modelului int8 exportat: intrare și ieșire uint8 în [0, 1]
+        QuantizationParams params = new QuantizationParams(1f / 255f, 0, false);
+        encodeTable = params.getEncodeTable();
+        decodeTable = params.getDecodeTable();
+        PixelConverter.argbToQuantized(pixels, count, quantized, 0, encodeTable);
+        parallel = ParallelPixelConverter.getDefault();
+    }
+
+    @Benchmark
+    public FloatBuffer argbToFloat() {
+        PixelConverter.argbToFloat(pixels, pixels.length, floats, 0);
+        return floats;
+    }
+
+    @Benchmark
+    public int[] floatToArgb() {
+        PixelConverter.floatToArgb(floats, 0, pixels, pixels.length);
+        return pixels;
+    }
+
+    @Benchmark
+    public int[] floatToArgbParallel() {
+        parallel.floatToArgb(floats, 0, pixels, size, size);
+        return pixels;
+    }
+
+    @Benchmark
+    public FloatBuffer rotateOutput90() {
+        TensorTransforms.rotate90InPlace(floats, 0, size, 3);
+        return floats;
+    }
+
+    @Benchmark
+    public FloatBuffer antiTransposeOutput() {
+        TensorTransforms.antiTransposeInPlace(floats, 0, size, 3);
+        return floats;
+    }
+
+    @Benchmark
+    public ByteBuffer argbToQuantized() {
+        PixelConverter.argbToQuantized(pixels, pixels.length, quantized, 0, encodeTable);
+        return quantized;
+    }
+
+    @Benchmark
+    public int[] quantizedToArgb() {
+        PixelConverter.quantizedToArgb(quantized, 0, pixels, pixels.length, decodeTable);
+        return pixels;
+    }
+}
@@ -0,0 +1,66 @@
+package com.feri.artistictransform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * Preprocesarea fuzionată a unei fotografii de galerie, deja decodată la
+ * 1024x768, în tensorul de 256x256, pentru fiecare transformare a variațiilor.
+ */
+@State(Scope.Thread)
+public class PreprocessBenchmark {
+
+    private static final int SOURCE_WIDTH = 1024;
+    private static final int SOURCE_HEIGHT = 768;
+    private static final int IMAGE_SIZE = 256;
+
+    @Param({"identity", "rotate", "mirror", "saturate", "letterbox"})
+    public String transform;
+
+    private int[] source;
+    private FloatBuffer input;
+    private PreprocessKernel kernel;
+    private PreprocessKernel.Transform selected;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        source = new int[SOURCE_WIDTH * SOURCE_HEIGHT];
+        for (int i = 0; i < source.length; i++) {
+            source[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        input = ByteBuffer.allocateDirect(IMAGE_SIZE * IMAGE_SIZE * 3 * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        kernel = new PreprocessKernel(IMAGE_SIZE);
+        selected = select(transform);
+    }
+
+    @Benchmark
+    public FloatBuffer preprocess() {
+        kernel.apply(source, SOURCE_WIDTH, SOURCE_HEIGHT, selected, input, 0);
+        return input;
+    }
+
+    private static PreprocessKernel.Transform select(String name) {
+        switch (name) {
+            case "rotate":
+                return PreprocessKernel.Transform.rotate(1);
+            case "mirror":
+                return PreprocessKernel.Transform.mirror();
+            case "saturate":
+                return PreprocessKernel.Transform.saturate(1.5f);
+            case "letterbox":
+                return new PreprocessKernel.Transform(0, false, 1f, true);
+            default:
+                return PreprocessKernel.Transform.IDENTITY;
+        }
+    }
+}
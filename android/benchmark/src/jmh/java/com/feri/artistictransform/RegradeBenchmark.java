@@ -0,0 +1,49 @@
+package com.feri.artistictransform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Recompunerea unei variații din straturi la o mișcare de slider: rezultatul
+ * complet de 256x256 și previzualizarea la jumătate din rezoluție. Ținta este
+ * mult sub un cadru de 16 ms.
+ */
+@State(Scope.Thread)
+public class RegradeBenchmark {
+
+    private static final int IMAGE_SIZE = 256;
+
+    @Param({"1", "2"})
+    public int step;
+
+    private StyleLayers layers;
+    private StyleCompositor compositor;
+    private StyleCompositor.Grade grade;
+    private int[] output;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        float[] content = new float[IMAGE_SIZE * IMAGE_SIZE * 3];
+        float[] styled = new float[content.length];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = random.nextFloat();
+            styled[i] = random.nextFloat() * 1.2f - 0.1f;
+        }
+        layers = new StyleLayers(IMAGE_SIZE, content, styled);
+        compositor = new StyleCompositor();
+        grade = new StyleCompositor.Grade(0.7f, 1.3f, 1.1f);
+        output = new int[IMAGE_SIZE * IMAGE_SIZE];
+    }
+
+    @Benchmark
+    public int[] regrade() {
+        compositor.render(layers, grade, step, output);
+        return output;
+    }
+}
@@ -0,0 +1,87 @@
+package com.feri.artistictransform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.tensorflow.lite.Interpreter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+/**
+ * O inferență completă cu model.tflite pe TFLite desktop: preprocesare,
+ * rularea interpretorului și conversia ieșirii, ca în aplicație. Compilat doar
+ * când build-ul primește biblioteca desktop (vezi build.gradle).
+ */
+@State(Scope.Benchmark)
+public class InferenceBenchmark {
+
+    private static final int IMAGE_SIZE = 256;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Interpreter interpreter;
+    private ByteBuffer input;
+    private FloatBuffer inputFloats;
+    private ByteBuffer output;
+    private FloatBuffer outputFloats;
+    private int[] source;
+    private int[] pixels;
+    private PreprocessKernel kernel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        File modelFile = new File(System.getProperty("benchmark.model"));
+        MappedByteBuffer model;
+        try (RandomAccessFile file = new RandomAccessFile(modelFile, "r");
+             FileChannel channel = file.getChannel()) {
+            model = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Interpreter.Options options = new Interpreter.Options();
+        options.setNumThreads(threads);
+        interpreter = new Interpreter(model, options);
+
+        input = ByteBuffer.allocateDirect(interpreter.getInputTensor(0).numBytes())
+                .order(ByteOrder.nativeOrder());
+        inputFloats = input.asFloatBuffer();
+        output = ByteBuffer.allocateDirect(interpreter.getOutputTensor(0).numBytes())
+                .order(ByteOrder.nativeOrder());
+        outputFloats = output.asFloatBuffer();
+
+        Random random = new Random(42);
+        source = new int[IMAGE_SIZE * IMAGE_SIZE];
+        for (int i = 0; i < source.length; i++) {
+            source[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        pixels = new int[IMAGE_SIZE * IMAGE_SIZE];
+        kernel = new PreprocessKernel(IMAGE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        interpreter.close();
+    }
+
+    @Benchmark
+    public int[] inference() {
+        kernel.apply(source, IMAGE_SIZE, IMAGE_SIZE, PreprocessKernel.Transform.IDENTITY,
+                inputFloats, 0);
+        input.rewind();
+        output.rewind();
+        interpreter.run(input, output);
+        PixelConverter.floatToArgb(outputFloats, 0, pixels, pixels.length);
+        return pixels;
+    }
+}
@@ -462,6 +462,43 @@ try:
 except Exception as e:
     print("Eroare la conversie:", str(e))
 
+"""Variante cuantizate ale aceluiași model: float16 și int8
+
+Aplicația Android le caută în assets ca model_fp16.tflite și model_int8.tflite
+și alege una la rulare (float16 pe GPU, int8 pe CPU/NNAPI).
+"""
+
+# Float16: ponderile pe 16 biți, intrarea și ieșirea rămân float32
+converter = tf.lite.TFLiteConverter.from_saved_model(export_dir)
+converter.optimizations = [tf.lite.Optimize.DEFAULT]
+converter.target_spec.supported_types = [tf.float16]
+tflite_fp16_model = converter.convert()
+with open('model_fp16.tflite', 'wb') as f:
+    f.write(tflite_fp16_model)
+print(f"Model float16: {len(tflite_fp16_model) / 1024 / 1024:.2f} MB")
+
+# Int8: cuantizare completă, calibrată pe fotografii. Aplicația trimite pixelii
+# normalizați în [0, 1], deci setul reprezentativ folosește aceeași normalizare.
+def representative_dataset():
+    for path in photo_paths[:100]:
+        image = tf.io.read_file(path)
+        image = tf.image.decode_jpeg(image, channels=3)
+        image = tf.image.resize(image, [IMG_HEIGHT, IMG_WIDTH])
+        image = tf.cast(image, tf.float32) / 255.0
+        yield [tf.expand_dims(image, 0)]
+
+converter = tf.lite.TFLiteConverter.from_saved_model(export_dir)
+converter.optimizations = [tf.lite.Optimize.DEFAULT]
+converter.representative_dataset = representative_dataset
+converter.target_spec.supported_ops = [tf.lite.OpsSet.TFLITE_BUILTINS_INT8]
+# Intrarea și ieșirea uint8: aplicația le convertește direct, cu scale și zero point
+converter.inference_input_type = tf.uint8
+converter.inference_output_type = tf.uint8
+tflite_int8_model = converter.convert()
+with open('model_int8.tflite', 'wb') as f:
+    f.write(tflite_int8_model)
+print(f"Model int8: {len(tflite_int8_model) / 1024 / 1024:.2f} MB")
+
 """facem din nou un test
 
 """